@@ -18,9 +18,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 
 
@@ -29,11 +29,17 @@ import java.util.Map;
  *
  * Class to hold filtering data to be passed from DynamicJsonFilter
  * to DynamicPropertyFilter
+ * <p></p>
+ * Attribute filters are compiled into a tree of path segments as they are added, once per
+ * request, so checking whether an attribute is excluded only walks the tree along the attribute's
+ * path, rather than comparing the path against every filter for every property serialized.
  */
 public class DynamicFilterData {
     private static Logger log = LoggerFactory.getLogger(DynamicFilterData.class);
 
     private static class Match {
+        private static final Match NONE = new Match(0, false);
+
         private final int level;
         private final boolean exact;
 
@@ -51,9 +57,62 @@ public class DynamicFilterData {
         }
     }
 
+    /**
+     * A segment of one or more filtered paths. Segments are matched case-insensitively.
+     */
+    private static class FilterNode {
+        private final Map<String, FilterNode> children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        /** Whether or not a filter ends at this segment */
+        private boolean terminal;
+
+        /** Whether or not a filter ends at any segment below this one */
+        private boolean terminalBelow;
 
-    private Map<String, List<String>> includeFilters;
-    private Map<String, List<String>> excludeFilters;
+        public void add(String[] path) {
+            FilterNode node = this;
+
+            for (String chunk : path) {
+                node.terminalBelow = true;
+                node = node.children.computeIfAbsent(chunk, key -> new FilterNode());
+            }
+
+            node.terminal = true;
+        }
+
+        /**
+         * Matches the given attribute path against the filters in this tree. Filters ending at a
+         * segment of the path, the attribute or one of its parents, match exactly, while filters
+         * ending below the attribute match as the path to one of its children. The deepest match
+         * is returned, preferring exact matches.
+         */
+        public Match match(List<String> path) {
+            FilterNode node = this;
+            Match match = Match.NONE;
+
+            for (int i = 0; i < path.size(); ++i) {
+                node = node.children.get(path.get(i));
+
+                if (node == null) {
+                    return match;
+                }
+
+                if (node.terminal) {
+                    match = new Match(i + 2, true);
+                }
+            }
+
+            if (node.terminalBelow && !node.terminal) {
+                match = new Match(path.size() + 1, false);
+            }
+
+            return match;
+        }
+    }
+
+
+    private final FilterNode includeFilters;
+    private final FilterNode excludeFilters;
     private boolean whitelist;
 
     public DynamicFilterData() {
@@ -61,8 +120,8 @@ public class DynamicFilterData {
     }
 
     public DynamicFilterData(boolean whitelist) {
-        this.includeFilters = new HashMap<>();
-        this.excludeFilters = new HashMap<>();
+        this.includeFilters = new FilterNode();
+        this.excludeFilters = new FilterNode();
         this.whitelist = whitelist;
     }
 
@@ -75,7 +134,7 @@ public class DynamicFilterData {
             throw new IllegalArgumentException("path is null");
         }
 
-        this.addAttributeFilter(this.includeFilters, path);
+        this.includeFilters.add(path.split("\\."));
     }
 
     public void excludeAttribute(String path) {
@@ -83,12 +142,7 @@ public class DynamicFilterData {
             throw new IllegalArgumentException("path is null");
         }
 
-        this.addAttributeFilter(this.excludeFilters, path);
-    }
-
-    private void addAttributeFilter(Map<String, List<String>> filters, String path) {
-        String[] chunklets = path.split("\\.");
-        filters.put(path.toLowerCase(), Arrays.asList(chunklets));
+        this.excludeFilters.add(path.split("\\."));
     }
 
     public boolean isAttributeExcluded(String path) {
@@ -97,8 +151,8 @@ public class DynamicFilterData {
     }
 
     public boolean isAttributeExcluded(List<String> path) {
-        Match iLevel = this.getFilterLevel(this.includeFilters, path);
-        Match eLevel = this.getFilterLevel(this.excludeFilters, path);
+        Match iLevel = this.includeFilters.match(path);
+        Match eLevel = this.excludeFilters.match(path);
 
         if (iLevel.isExact() && iLevel.getLevel() > eLevel.getLevel()) {
             return false;
@@ -110,33 +164,4 @@ public class DynamicFilterData {
 
         return this.whitelist && (iLevel.getLevel() < 1 || iLevel.getLevel() < eLevel.getLevel());
     }
-
-    private Match getFilterLevel(Map<String, List<String>> filters, List<String> path) {
-        int level = 0;
-        boolean exact = false;
-
-        for (List<String> fpath : filters.values()) {
-            boolean match = false;
-            int i = 0;
-
-            do {
-                String fchunk = fpath.get(i);
-                String pchunk = path.get(i);
-
-                match = fchunk != null && fchunk.equalsIgnoreCase(pchunk);
-                ++i;
-            } while (match && i < path.size() && i < fpath.size());
-
-            if (match && i > level) {
-                level = i + 1;
-                exact = i >= fpath.size();
-
-                if (exact) {
-                    break;
-                }
-            }
-        }
-
-        return new Match(level, exact);
-    }
 }
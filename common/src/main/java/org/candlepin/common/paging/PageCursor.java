@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.common.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+
+
+/**
+ * The PageCursor represents the position of the last row of a page of data in a cursor-paged
+ * (keyset) listing. It is handed to clients as an opaque continuation token and consists of the
+ * sort field and order of the listing, plus the sort value and identifier of the last row sent.
+ * <p></p>
+ * Values are carried in their string form; converting them back to the type of the underlying
+ * field is left to the persistence layer.
+ */
+public class PageCursor {
+    private static final String SEPARATOR = ".";
+    private static final String NULL_VALUE = "~";
+
+    private final String sortBy;
+    private final PageRequest.Order order;
+    private final String lastValue;
+    private final String lastId;
+
+    /**
+     * Creates a new cursor positioned after the row with the given sort value and identifier.
+     *
+     * @param sortBy
+     *  the name of the field the listing is sorted by
+     *
+     * @param order
+     *  the order in which the listing is sorted
+     *
+     * @param lastValue
+     *  the string form of the sort value of the last row sent; may be null
+     *
+     * @param lastId
+     *  the string form of the identifier of the last row sent
+     *
+     * @throws IllegalArgumentException
+     *  if sortBy, order or lastId are null
+     */
+    public PageCursor(String sortBy, PageRequest.Order order, String lastValue, String lastId) {
+        if (sortBy == null) {
+            throw new IllegalArgumentException("sortBy is null");
+        }
+
+        if (order == null) {
+            throw new IllegalArgumentException("order is null");
+        }
+
+        if (lastId == null) {
+            throw new IllegalArgumentException("lastId is null");
+        }
+
+        this.sortBy = sortBy;
+        this.order = order;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    public String getSortBy() {
+        return this.sortBy;
+    }
+
+    public PageRequest.Order getOrder() {
+        return this.order;
+    }
+
+    public String getLastValue() {
+        return this.lastValue;
+    }
+
+    public String getLastId() {
+        return this.lastId;
+    }
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe continuation token.
+     *
+     * @return
+     *  the encoded form of this cursor
+     */
+    public String encode() {
+        return new StringBuilder()
+            .append(encodePart(this.sortBy))
+            .append(SEPARATOR)
+            .append(encodePart(this.order.name()))
+            .append(SEPARATOR)
+            .append(encodePart(this.lastValue))
+            .append(SEPARATOR)
+            .append(encodePart(this.lastId))
+            .toString();
+    }
+
+    /**
+     * Decodes a continuation token previously created by the encode method.
+     *
+     * @param token
+     *  the token to decode
+     *
+     * @throws IllegalArgumentException
+     *  if the token is null or malformed
+     *
+     * @return
+     *  the cursor represented by the given token
+     */
+    public static PageCursor decode(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("token is null");
+        }
+
+        String[] parts = token.split("\\" + SEPARATOR, -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("malformed cursor: " + token);
+        }
+
+        String order = decodePart(parts[1]);
+
+        try {
+            return new PageCursor(decodePart(parts[0]),
+                order != null ? PageRequest.Order.valueOf(order) : null,
+                decodePart(parts[2]),
+                decodePart(parts[3]));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("malformed cursor: " + token, e);
+        }
+    }
+
+    private static String encodePart(String value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String part) {
+        if (NULL_VALUE.equals(part)) {
+            return null;
+        }
+
+        return new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        if (!(obj instanceof PageCursor)) {
+            return false;
+        }
+
+        PageCursor that = (PageCursor) obj;
+
+        return Objects.equals(this.sortBy, that.sortBy) &&
+            this.order == that.order &&
+            Objects.equals(this.lastValue, that.lastValue) &&
+            Objects.equals(this.lastId, that.lastId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sortBy, this.order, this.lastValue, this.lastId);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCursor [sortBy: %s, order: %s, lastValue: %s, lastId: %s]",
+            this.sortBy, this.order, this.lastValue, this.lastId);
+    }
+}
@@ -30,6 +30,7 @@ public class PageRequest {
     public static final String SORT_BY_PARAM = "sort_by";
     public static final String PAGE_PARAM = "page";
     public static final String PER_PAGE_PARAM = "per_page";
+    public static final String CURSOR_PARAM = "cursor";
 
     public static final Integer DEFAULT_PAGE = Integer.valueOf(1);
     public static final Integer DEFAULT_PER_PAGE = Integer.valueOf(10);
@@ -39,6 +40,7 @@ public class PageRequest {
     private Integer perPage;
     private String sortBy;
     private Order order;
+    private String cursor;
 
     public Integer getPage() {
         return page;
@@ -72,7 +74,34 @@ public class PageRequest {
         this.order = order;
     }
 
+    /**
+     * Fetches the continuation token for cursor (keyset) paging. An empty string indicates the
+     * first page of a cursor-paged listing; a null value indicates cursor paging was not requested.
+     *
+     * @return
+     *  the continuation token for this request, or null if cursor paging was not requested
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public boolean isPaging() {
         return perPage != null && page != null;
     }
+
+    /**
+     * Checks if this request asks for cursor (keyset) paging. Cursor paging seeks past the last
+     * row of the previous page rather than skipping an offset, and does not compute the total
+     * record count.
+     *
+     * @return
+     *  true if this request should be paged with a cursor; false otherwise
+     */
+    public boolean isCursorPaging() {
+        return perPage != null && cursor != null;
+    }
 }
@@ -78,7 +78,12 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
         }
 
         // If we aren't paging, then no need for Link headers.
-        if (page.getPageRequest() == null || !page.getPageRequest().isPaging()) {
+        if (page.getPageRequest() == null) {
+            return;
+        }
+
+        PageRequest pageRequest = page.getPageRequest();
+        if (!pageRequest.isPaging() && !pageRequest.isCursorPaging()) {
             return;
         }
 
@@ -94,6 +99,11 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
         builder = addUnchangingQueryParams(builder, params);
         //TODO add missing parameters like the default limit if no limit is given.
 
+        if (pageRequest.isCursorPaging()) {
+            addCursorLinks(page, builder, respContext);
+            return;
+        }
+
         try {
             LinkHeader header = new LinkHeader();
 
@@ -121,13 +131,52 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
         respContext.getHeaders().add(TOTAL_RECORDS_COUNT, page.getMaxRecords());
     }
 
+    /**
+     * Adds the Link header for a cursor-paged response. Cursor paging can only move forward, so
+     * only the next and first links are provided, and the total record count is only sent if it
+     * was computed.
+     */
+    protected void addCursorLinks(Page<?> page, UriBuilder builder, ContainerResponseContext respContext) {
+        try {
+            LinkHeader header = new LinkHeader();
+
+            if (page.getNextCursor() != null) {
+                header.addLink(null, "next", buildCursorLink(builder, page.getNextCursor()), null);
+            }
+
+            header.addLink(null, "first", buildCursorLink(builder, ""), null);
+
+            respContext.getHeaders().add(LINK_HEADER, header.toString());
+        }
+        catch (LinkTooLongException e) {
+            log.warn("Link length exceeded maximum length ({}). " +
+                "Link headers will be omitted from this response.",
+                MAX_LINK_LENGTH, e);
+        }
+
+        if (page.getMaxRecords() != null) {
+            respContext.getHeaders().add(TOTAL_RECORDS_COUNT, page.getMaxRecords());
+        }
+    }
+
+    protected String buildCursorLink(UriBuilder b, String cursor) {
+        // Copy so we can use the same builder for building each link. The cursor of the current
+        // request must not be carried over, so replace it outright.
+        UriBuilder builder = b.clone();
+        builder.replaceQueryParam(PageRequest.CURSOR_PARAM, cursor);
+
+        return this.checkLinkLength(builder.build().toString());
+    }
+
     protected String buildPageLink(UriBuilder b, int value) {
         // Copy so we can use the same builder for building each link.
         UriBuilder builder = b.clone();
         builder.queryParam(PageRequest.PAGE_PARAM, String.valueOf(value));
 
-        String link = builder.build().toString();
+        return this.checkLinkLength(builder.build().toString());
+    }
 
+    private String checkLinkLength(String link) {
         if (link.length() > MAX_LINK_LENGTH) {
             throw new LinkTooLongException(link);
         }
@@ -199,10 +248,11 @@ public class LinkHeaderResponseFilter implements ContainerResponseFilter {
     protected UriBuilder addUnchangingQueryParams(UriBuilder builder,
         MultivaluedMap<String, String> params) {
         // This will take care of adding back any order, per_page, or sort_by
-        // parameters provided too.
+        // parameters provided too. The page and cursor parameters are set per link.
         if (params != null) {
             for (Entry<String, List<String>> e : params.entrySet()) {
-                if (!e.getKey().equals(PageRequest.PAGE_PARAM)) {
+                if (!e.getKey().equals(PageRequest.PAGE_PARAM) &&
+                    !e.getKey().equals(PageRequest.CURSOR_PARAM)) {
                     for (String v : e.getValue()) {
                         builder = builder.queryParam(e.getKey(), v);
                     }
@@ -15,6 +15,7 @@
 package org.candlepin.common.resteasy.filter;
 
 import org.candlepin.common.exceptions.BadRequestException;
+import org.candlepin.common.paging.PageCursor;
 import org.candlepin.common.paging.PageRequest;
 import org.candlepin.common.paging.PageRequest.Order;
 
@@ -55,8 +56,9 @@ public class PageRequestFilter implements ContainerRequestFilter {
         String perPage = params.getFirst(PageRequest.PER_PAGE_PARAM);
         String order = params.getFirst(PageRequest.ORDER_PARAM);
         String sortBy = params.getFirst(PageRequest.SORT_BY_PARAM);
+        String cursor = params.getFirst(PageRequest.CURSOR_PARAM);
 
-        if (page != null || perPage != null || order != null || sortBy != null) {
+        if (page != null || perPage != null || order != null || sortBy != null || cursor != null) {
             p = new PageRequest();
 
             if (order == null) {
@@ -71,7 +73,17 @@ public class PageRequestFilter implements ContainerRequestFilter {
             p.setSortBy(sortBy);
 
             try {
-                if (page == null && perPage != null) {
+                if (cursor != null) {
+                    if (page != null) {
+                        I18n i18n = this.i18nProvider.get();
+                        throw new BadRequestException(i18n.tr("the page and cursor parameters" +
+                            " cannot be used together"));
+                    }
+
+                    p.setCursor(readCursor(cursor));
+                    p.setPerPage(perPage != null ? readInteger(perPage) : PageRequest.DEFAULT_PER_PAGE);
+                }
+                else if (page == null && perPage != null) {
                     p.setPage(PageRequest.DEFAULT_PAGE);
                     p.setPerPage(readInteger(perPage));
                 }
@@ -107,6 +119,21 @@ public class PageRequestFilter implements ContainerRequestFilter {
                 " \"ascending\" or \"descending\""));
     }
 
+    private String readCursor(String cursor) {
+        // An empty cursor requests the first page of a cursor-paged listing
+        if (!cursor.isEmpty()) {
+            try {
+                PageCursor.decode(cursor);
+            }
+            catch (IllegalArgumentException e) {
+                I18n i18n = this.i18nProvider.get();
+                throw new BadRequestException(i18n.tr("the cursor parameter is not valid"), e);
+            }
+        }
+
+        return cursor;
+    }
+
     private Integer readInteger(String value) {
         if (value != null) {
             int i = Integer.parseInt(value);
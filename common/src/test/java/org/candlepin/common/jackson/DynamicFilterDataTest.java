@@ -129,4 +129,29 @@ public class DynamicFilterDataTest {
         assertTrue(filterData.isAttributeExcluded(Arrays.asList("a", "b2", "d3")));
     }
 
+    @Test
+    public void testFilteringIsCaseInsensitive() {
+        DynamicFilterData filterData = new DynamicFilterData(true);
+        filterData.includeAttribute("Bacon.EGG");
+
+        assertFalse(filterData.isAttributeExcluded("bacon"));
+        assertFalse(filterData.isAttributeExcluded(Arrays.asList("BACON", "egg")));
+        assertTrue(filterData.isAttributeExcluded(Arrays.asList("bacon", "cheese")));
+    }
+
+    @Test
+    public void testOverlappingFiltersUseDeepestMatch() {
+        DynamicFilterData filterData = new DynamicFilterData(true);
+        filterData.includeAttribute("a");
+        filterData.includeAttribute("a.b.c");
+        filterData.excludeAttribute("a.b");
+
+        // a.b must still be written for the explicitly included a.b.c to be reachable
+        assertFalse(filterData.isAttributeExcluded("a"));
+        assertFalse(filterData.isAttributeExcluded("a.b"));
+        assertFalse(filterData.isAttributeExcluded("a.b.c"));
+        assertTrue(filterData.isAttributeExcluded("a.b.d"));
+        assertFalse(filterData.isAttributeExcluded("a.e"));
+    }
+
 }
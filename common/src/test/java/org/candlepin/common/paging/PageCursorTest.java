@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.common.paging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+
+
+/**
+ * PageCursorTest
+ */
+public class PageCursorTest {
+
+    @Test
+    public void testEncodeDecode() {
+        PageCursor cursor = new PageCursor("created", PageRequest.Order.DESCENDING,
+            "2019-01-02 03:04:05.678", "8a8d01f5686c4fe501686c5010c40001");
+
+        String token = cursor.encode();
+        PageCursor decoded = PageCursor.decode(token);
+
+        assertEquals(cursor, decoded);
+        assertEquals("created", decoded.getSortBy());
+        assertEquals(PageRequest.Order.DESCENDING, decoded.getOrder());
+        assertEquals("2019-01-02 03:04:05.678", decoded.getLastValue());
+        assertEquals("8a8d01f5686c4fe501686c5010c40001", decoded.getLastId());
+    }
+
+    @Test
+    public void testEncodeDecodeNullValue() {
+        PageCursor cursor = new PageCursor("name", PageRequest.Order.ASCENDING, null, "id");
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertNull(decoded.getLastValue());
+    }
+
+    @Test
+    public void testEncodedTokenIsUrlSafe() {
+        PageCursor cursor = new PageCursor("name", PageRequest.Order.ASCENDING, "a/b+c?d=e&f ~g", "id");
+
+        assertTrue(cursor.encode().matches("[A-Za-z0-9_\\-.~]+"));
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    public void testDecodeMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("bogus"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("a.b.c.d"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("~.~.~.~"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(null));
+    }
+}
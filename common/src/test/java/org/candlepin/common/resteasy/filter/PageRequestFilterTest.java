@@ -19,6 +19,7 @@ import static org.mockito.Mockito.*;
 
 import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.common.guice.CommonI18nProvider;
+import org.candlepin.common.paging.PageCursor;
 import org.candlepin.common.paging.PageRequest;
 
 import org.jboss.resteasy.mock.MockHttpRequest;
@@ -171,4 +172,54 @@ public class PageRequestFilterTest {
         assertEquals(PageRequest.Order.DESCENDING, p.getOrder());
         assertEquals("id", p.getSortBy());
     }
+
+    @Test
+    public void testEmptyCursorRequestsFirstPage() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=&per_page=25");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyProviderFactory.getContextData(PageRequest.class);
+        assertTrue(p.isCursorPaging());
+        assertFalse(p.isPaging());
+        assertEquals("", p.getCursor());
+        assertEquals(Integer.valueOf(25), p.getPerPage());
+        assertNull(p.getPage());
+    }
+
+    @Test
+    public void testCursorWithoutLimitUsesDefaultLimit() throws Exception {
+        String cursor = new PageCursor("key", PageRequest.Order.ASCENDING, "abc", "id-1").encode();
+
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=" + cursor);
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        interceptor.filter(mockRequestContext);
+
+        PageRequest p = ResteasyProviderFactory.getContextData(PageRequest.class);
+        assertTrue(p.isCursorPaging());
+        assertEquals(cursor, p.getCursor());
+        assertEquals(PageRequest.DEFAULT_PER_PAGE, p.getPerPage());
+    }
+
+    @Test
+    public void testMalformedCursor() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=bogus");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
+
+    @Test
+    public void testCursorAndPageAreExclusive() throws Exception {
+        mockReq = MockHttpRequest.create("GET",
+            "http://localhost/candlepin/status?cursor=&page=2");
+        when(mockRequestContext.getUriInfo()).thenReturn(mockReq.getUri());
+
+        assertThrows(BadRequestException.class, () -> interceptor.filter(mockRequestContext));
+    }
 }
@@ -15,6 +15,8 @@
 package org.candlepin.auth;
 
 import com.google.inject.Inject;
+import org.candlepin.cache.ConsumerIdentityCache;
+import org.candlepin.cache.ConsumerIdentityCache.ConsumerIdentity;
 import org.candlepin.common.exceptions.GoneException;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
@@ -25,6 +27,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.util.function.Supplier;
+
 import javax.inject.Provider;
 
 /**
@@ -37,15 +41,17 @@ public abstract class ConsumerAuth implements AuthProvider {
     protected ConsumerCurator consumerCurator;
     protected OwnerCurator ownerCurator;
     protected DeletedConsumerCurator deletedConsumerCurator;
+    protected ConsumerIdentityCache identityCache;
     private Provider<I18n> i18nProvider;
 
     @Inject
     ConsumerAuth(ConsumerCurator consumerCurator, OwnerCurator ownerCurator,
-        DeletedConsumerCurator deletedConsumerCurator,
+        DeletedConsumerCurator deletedConsumerCurator, ConsumerIdentityCache identityCache,
         Provider<I18n> i18nProvider) {
         this.consumerCurator = consumerCurator;
         this.ownerCurator = ownerCurator;
         this.deletedConsumerCurator = deletedConsumerCurator;
+        this.identityCache = identityCache;
         this.i18nProvider = i18nProvider;
     }
 
@@ -57,6 +63,39 @@ public abstract class ConsumerAuth implements AuthProvider {
      * @return created principal
      */
     public ConsumerPrincipal createPrincipal(final String consumerUuid) {
+        return this.createPrincipal(consumerUuid, () -> consumerUuid);
+    }
+
+    /**
+     * Creates a principal for the consumer which presented the credential with the given key. If
+     * the consumer was resolved for the same credential recently, it is loaded by its ID along
+     * with its owner; otherwise the consumer UUID is extracted from the credential and the
+     * consumer looked up by UUID.
+     *
+     * @param credentialKey
+     *  a key uniquely identifying the credential presented by the consumer
+     *
+     * @param uuidSupplier
+     *  a supplier extracting the UUID of the consumer from the credential
+     *
+     * @return created principal
+     */
+    protected ConsumerPrincipal createPrincipal(String credentialKey, Supplier<String> uuidSupplier) {
+        ConsumerIdentity identity = this.identityCache.get(credentialKey);
+
+        if (identity != null) {
+            Consumer consumer = this.consumerCurator.getConsumerWithOwner(identity.getConsumerId());
+
+            if (consumer != null && identity.getConsumerUuid().equals(consumer.getUuid())) {
+                log.debug("principal created for cached consumer {}", consumer.getUuid());
+                return new ConsumerPrincipal(consumer, consumer.getOwner());
+            }
+
+            // The consumer has been deleted or replaced since; resolve it again
+            this.identityCache.evict(identity.getConsumerUuid());
+        }
+
+        String consumerUuid = uuidSupplier.get();
         if (consumerUuid == null) {
             return null;
         }
@@ -72,6 +111,7 @@ public abstract class ConsumerAuth implements AuthProvider {
 
         final Owner owner = this.ownerCurator.findOwnerById(consumer.getOwnerId());
         final ConsumerPrincipal principal = new ConsumerPrincipal(consumer, owner);
+        this.identityCache.put(credentialKey, consumer.getUuid(), consumer.getId());
         log.debug("principal created for consumer {}", principal.getConsumer().getUuid());
         return principal;
     }
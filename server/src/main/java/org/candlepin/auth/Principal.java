@@ -15,6 +15,7 @@
 package org.candlepin.auth;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.candlepin.auth.permissions.CompiledPermissions;
 import org.candlepin.auth.permissions.Permission;
 import org.candlepin.util.Util;
 
@@ -36,6 +37,7 @@ public abstract class Principal implements Serializable, java.security.Principal
 
     private static Logger log = LoggerFactory.getLogger(Principal.class);
     protected List<Permission> permissions = new ArrayList<>();
+    private transient volatile CompiledPermissions compiledPermissions;
 
     public abstract String getType();
 
@@ -47,6 +49,25 @@ public abstract class Principal implements Serializable, java.security.Principal
 
     protected void addPermission(Permission permission) {
         this.permissions.add(permission);
+        this.compiledPermissions = null;
+    }
+
+    /**
+     * Fetches the compiled form of this principal's permissions, compiling them on first use or
+     * after they have changed.
+     *
+     * @return
+     *  the compiled permissions of this principal
+     */
+    protected CompiledPermissions getCompiledPermissions() {
+        CompiledPermissions compiled = this.compiledPermissions;
+
+        if (compiled == null || compiled.getPermissions().size() != this.permissions.size()) {
+            compiled = new CompiledPermissions(this.permissions);
+            this.compiledPermissions = compiled;
+        }
+
+        return compiled;
     }
 
     public boolean canAccess(Object target, SubResource subResource, Access access) {
@@ -57,14 +78,11 @@ public abstract class Principal implements Serializable, java.security.Principal
             return true;
         }
 
-        for (Permission permission : permissions) {
-            log.debug(" checking permission: {}", permission.getClass().getName());
-            if (permission.canAccess(target, subResource, access)) {
-                log.debug("  permission granted");
-                // if any of the principal's permissions allows access, then
-                // we are good to go
-                return true;
-            }
+        // if any of the principal's permissions allows access, then
+        // we are good to go
+        if (this.getCompiledPermissions().canAccess(target, subResource, access)) {
+            log.debug("  permission granted");
+            return true;
         }
 
         // none of the permissions grants access, so this target is not allowed
@@ -14,6 +14,7 @@
  */
 package org.candlepin.auth;
 
+import org.candlepin.cache.ConsumerIdentityCache;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.DeletedConsumerCurator;
 import org.candlepin.model.OwnerCurator;
@@ -25,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.math.BigInteger;
 import java.security.cert.X509Certificate;
 import java.util.HashMap;
 import java.util.Map;
@@ -44,9 +46,9 @@ public class SSLAuth extends ConsumerAuth {
 
     @Inject
     SSLAuth(ConsumerCurator consumerCurator, OwnerCurator ownerCurator,
-        DeletedConsumerCurator deletedConsumerCurator,
+        DeletedConsumerCurator deletedConsumerCurator, ConsumerIdentityCache identityCache,
         Provider<I18n> i18nProvider) {
-        super(consumerCurator, ownerCurator, deletedConsumerCurator, i18nProvider);
+        super(consumerCurator, ownerCurator, deletedConsumerCurator, identityCache, i18nProvider);
     }
 
     @Override
@@ -66,7 +68,15 @@ public class SSLAuth extends ConsumerAuth {
         // itself.
         X509Certificate identityCert = certs[0];
 
-        return createPrincipal(parseUuid(identityCert));
+        return createPrincipal(getCredentialKey(identityCert), () -> parseUuid(identityCert));
+    }
+
+    // Identifies the x509 cert by its serial, which is unique among the certs of its issuer.
+    private String getCredentialKey(X509Certificate cert) {
+        BigInteger serial = cert.getSerialNumber();
+        X500Principal issuer = cert.getIssuerX500Principal();
+
+        return serial != null && issuer != null ? serial + "@" + issuer.getName() : null;
     }
 
     // Pulls the consumer uuid off of the x509 cert.
@@ -15,6 +15,7 @@
 package org.candlepin.auth;
 
 import org.candlepin.auth.permissions.PermissionFactory;
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.common.resteasy.auth.AuthUtil;
 import org.candlepin.service.UserServiceAdapter;
 
@@ -39,9 +40,9 @@ public class TrustedUserAuth extends UserAuth {
 
     @Inject
     TrustedUserAuth(UserServiceAdapter userServiceAdaper, Provider<I18n> i18n,
-        PermissionFactory permissionFactory) {
+        PermissionFactory permissionFactory, UserPrincipalCache principalCache) {
 
-        super(userServiceAdaper, i18n, permissionFactory);
+        super(userServiceAdaper, i18n, permissionFactory, principalCache);
     }
 
     public Principal getPrincipal(HttpRequest httpRequest) {
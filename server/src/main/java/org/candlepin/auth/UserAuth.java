@@ -15,7 +15,7 @@
 package org.candlepin.auth;
 
 import org.candlepin.auth.permissions.PermissionFactory;
-
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.service.UserServiceAdapter;
 import org.candlepin.service.model.UserInfo;
@@ -35,32 +35,47 @@ public abstract class UserAuth implements AuthProvider {
     protected UserServiceAdapter userServiceAdapter;
     protected Provider<I18n> i18nProvider;
     protected PermissionFactory permissionFactory;
+    protected UserPrincipalCache principalCache;
 
     @Inject
     public UserAuth(UserServiceAdapter userServiceAdapter, Provider<I18n> i18nProvider,
-        PermissionFactory permissionFactory) {
+        PermissionFactory permissionFactory, UserPrincipalCache principalCache) {
 
         this.userServiceAdapter = userServiceAdapter;
         this.i18nProvider = i18nProvider;
         this.permissionFactory = permissionFactory;
+        this.principalCache = principalCache;
     }
 
     /**
-     * Creates a user principal for a given username
+     * Creates a user principal for a given username, or reuses the principal recently created for
+     * the user. Callers remain responsible for authenticating the user.
      */
     protected Principal createPrincipal(String username) {
+        UserPrincipal principal = this.principalCache.get(username);
+
+        if (principal == null) {
+            principal = this.buildPrincipal(username);
+            this.principalCache.put(principal);
+        }
+
+        return principal;
+    }
+
+    private UserPrincipal buildPrincipal(String username) {
         UserInfo user = this.userServiceAdapter.findByLogin(username);
 
         if (user == null) {
             throw new BadRequestException(this.i18nProvider.get().tr("User not found: {0}", username));
         }
 
-        // TODO: This creates a lot of object churn. We should probably update this later in a way
-        // that can do permission checking without creating piles of objects that we just throw away
-        // without ever using them in the general case.
+        // Principals which may be cached are shared by other sessions and threads, and must not
+        // reference the owners of the current session
+        boolean detach = this.principalCache.isEnabled();
+
         return user.isSuperAdmin() != null && user.isSuperAdmin() ?
             new UserPrincipal(username, null, true) :
-            new UserPrincipal(username, this.permissionFactory.createUserPermissions(user), false);
+            new UserPrincipal(username, this.permissionFactory.createUserPermissions(user, detach), false);
     }
 
 }
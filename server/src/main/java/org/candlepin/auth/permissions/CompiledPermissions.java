@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.auth.permissions;
+
+import org.candlepin.auth.Access;
+import org.candlepin.auth.SubResource;
+import org.candlepin.model.Owned;
+import org.candlepin.model.Owner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+
+
+/**
+ * An indexed form of a set of permissions, used by principals to check access to a target without
+ * consulting every one of their permissions.
+ * <p></p>
+ * Owner permissions, which make up the bulk of the permissions of users with access to many
+ * owners, are indexed by the ID of their owner, keeping the highest level of access granted to
+ * each owner, so access to an owned target is a single lookup. The remaining permissions are
+ * indexed by the classes of the targets they apply to, as they are first checked against targets
+ * of each class.
+ * <p></p>
+ * Compiled permissions are immutable once built, apart from the index of target classes, and may
+ * be shared between threads.
+ */
+public class CompiledPermissions {
+
+    private final List<Permission> permissions;
+    private final Map<String, Access> ownerAccess;
+    private final List<Permission> otherPermissions;
+    private final Map<Class<?>, List<Permission>> permissionsByTargetClass;
+
+    /**
+     * Compiles the given permissions.
+     *
+     * @param permissions
+     *  The permissions to compile
+     */
+    public CompiledPermissions(Collection<? extends Permission> permissions) {
+        this.permissions = Collections.unmodifiableList(new ArrayList<>(permissions));
+        this.ownerAccess = new HashMap<>();
+        this.otherPermissions = new ArrayList<>();
+        this.permissionsByTargetClass = new ConcurrentHashMap<>();
+
+        for (Permission permission : this.permissions) {
+            // Subclasses may override the checks made by owner permissions, so only owner
+            // permissions themselves are indexed by owner
+            Owner owner = permission.getClass() == OwnerPermission.class ? permission.getOwner() : null;
+
+            if (owner != null && owner.getId() != null) {
+                Access access = ((OwnerPermission) permission).getAccess();
+                this.ownerAccess.merge(owner.getId(), access,
+                    (current, added) -> current.provides(added) ? current : added);
+            }
+            else {
+                this.otherPermissions.add(permission);
+            }
+        }
+    }
+
+    /**
+     * Checks whether or not any of the compiled permissions grants the given access to the given
+     * target.
+     *
+     * @param target
+     *  The target to check
+     *
+     * @param subResource
+     *  The sub-resource of the target being accessed
+     *
+     * @param access
+     *  The level of access required
+     *
+     * @return
+     *  true if access to the target is granted; false otherwise
+     */
+    public boolean canAccess(Object target, SubResource subResource, Access access) {
+        if (target == null) {
+            // No target type to index by; let each permission decide as it always has
+            for (Permission permission : this.permissions) {
+                if (permission.canAccess(null, subResource, access)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        if (target instanceof Owned && !this.ownerAccess.isEmpty()) {
+            Access granted = this.ownerAccess.get(((Owned) target).getOwnerId());
+
+            if (granted != null && granted.provides(access)) {
+                return true;
+            }
+        }
+
+        List<Permission> applicable = this.permissionsByTargetClass
+            .computeIfAbsent(target.getClass(), this::getApplicablePermissions);
+
+        for (Permission permission : applicable) {
+            if (permission.canAccess(target, subResource, access)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return
+     *  the permissions compiled, in their original order
+     */
+    public List<Permission> getPermissions() {
+        return this.permissions;
+    }
+
+    private List<Permission> getApplicablePermissions(Class<?> targetClass) {
+        return this.otherPermissions.stream()
+            .filter(permission -> permission.appliesTo(targetClass))
+            .collect(Collectors.toList());
+    }
+}
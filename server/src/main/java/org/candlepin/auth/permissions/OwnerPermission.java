@@ -60,6 +60,11 @@ public class OwnerPermission implements Permission, Serializable {
         return false;
     }
 
+    @Override
+    public boolean appliesTo(Class<?> targetClass) {
+        return Owned.class.isAssignableFrom(targetClass);
+    }
+
     @Override
     public Criterion getCriteriaRestrictions(Class entityClass) {
         if (Owner.class.equals(entityClass)) {
@@ -29,6 +29,21 @@ public interface Permission {
 
     boolean canAccess(Object target, SubResource subResource, Access access);
 
+    /**
+     * Checks whether or not this permission may grant access to targets of the given class.
+     * Permissions are never consulted for targets of classes they do not apply to, allowing
+     * principals to only check the permissions relevant to a given target.
+     *
+     * @param targetClass
+     *  The class of the targets to check
+     *
+     * @return
+     *  false if this permission never grants access to targets of the given class; true otherwise
+     */
+    default boolean appliesTo(Class<?> targetClass) {
+        return true;
+    }
+
     /**
      * Permissions have the ability to add restrictions to a hibernate queries which use
      * AbstractHibernateCurator#createSecureCriteria.
@@ -69,17 +69,23 @@ public class PermissionFactory {
 
         protected OwnerCurator ownerCurator;
         protected Map<String, Owner> ownerCache;
+        protected boolean detach;
 
         public Resolver(OwnerCurator ownerCurator) {
+            this(ownerCurator, false);
+        }
+
+        public Resolver(OwnerCurator ownerCurator, boolean detach) {
             this.ownerCurator = ownerCurator;
             this.ownerCache = new HashMap<>();
+            this.detach = detach;
         }
 
         public Owner resolve(OwnerInfo oinfo) {
             if (oinfo != null) {
                 // If it's already an Owner instance, just cast it.
                 if (oinfo instanceof Owner) {
-                    return (Owner) oinfo;
+                    return this.detach ? detach((Owner) oinfo) : (Owner) oinfo;
                 }
 
                 // Nope. Guess we need to resolve it...
@@ -92,6 +98,10 @@ public class PermissionFactory {
                         throw new IllegalStateException("No such owner: " + oinfo.getKey());
                     }
 
+                    if (this.detach) {
+                        owner = detach(owner);
+                    }
+
                     ownerCache.put(owner.getKey(), owner);
                     return owner;
                 }
@@ -99,6 +109,24 @@ public class PermissionFactory {
 
             return null;
         }
+
+        /**
+         * Copies the basic properties of the given owner into a new instance, which is not tied to
+         * the session the owner was loaded into, nor shared with its other users.
+         */
+        protected static Owner detach(Owner owner) {
+            Owner copy = new Owner(owner.getKey(), owner.getDisplayName());
+
+            copy.setId(owner.getId());
+            copy.setContentPrefix(owner.getContentPrefix());
+            copy.setDefaultServiceLevel(owner.getDefaultServiceLevel());
+            copy.setLogLevel(owner.getLogLevel());
+            copy.setAutobindDisabled(owner.isAutobindDisabled());
+            copy.setContentAccessMode(owner.getContentAccessMode());
+            copy.setContentAccessModeList(owner.getContentAccessModeList());
+
+            return copy;
+        }
     }
 
 
@@ -195,11 +223,19 @@ public class PermissionFactory {
             throw new IllegalArgumentException("user is null");
         }
 
+        return this.createPermissionsImpl(user, blueprints, new Resolver(this.ownerCurator));
+    }
+
+    /**
+     * Performs the work of converting permission blueprints into concrete permissions for the given
+     * user. Should only be called after the user has been validated elsewhere.
+     */
+    private Collection<Permission> createPermissionsImpl(UserInfo user,
+        Collection<? extends PermissionBlueprintInfo> blueprints, Resolver resolver) {
+
         Set<Permission> translated = new HashSet<>();
 
         if (blueprints != null) {
-            Resolver resolver = new Resolver(this.ownerCurator);
-
             for (PermissionBlueprintInfo pbinfo : blueprints) {
                 Permission permission = this.createPermissionImpl(user, pbinfo, resolver);
 
@@ -258,6 +294,29 @@ public class PermissionFactory {
      *  a collection of permissions applicable to the provided user
      */
     public Collection<Permission> createUserPermissions(UserInfo user) {
+        return this.createUserPermissions(user, false);
+    }
+
+    /**
+     * Builds a collection of permissions applicable to the user based on their roles and any
+     * explicitly granted access rights, optionally referencing detached copies of the owners to
+     * which they apply rather than the owners themselves. Permissions referencing detached owners
+     * do not hold on to the entities of the current session, and may be shared by other sessions
+     * and threads, such as by the user principal cache.
+     *
+     * @param user
+     *  The user for which to build permissions
+     *
+     * @param detach
+     *  Whether or not the permissions should reference detached copies of their owners
+     *
+     * @throws IllegalArgumentException
+     *  if user is null
+     *
+     * @return
+     *  a collection of permissions applicable to the provided user
+     */
+    public Collection<Permission> createUserPermissions(UserInfo user, boolean detach) {
         if (user == null) {
             throw new IllegalArgumentException("user is null");
         }
@@ -267,7 +326,8 @@ public class PermissionFactory {
         if (user.getRoles() != null) {
             for (RoleInfo role : user.getRoles()) {
                 if (role != null) {
-                    permissions.addAll(this.createPermissions(user, role.getPermissions()));
+                    permissions.addAll(this.createPermissionsImpl(user, role.getPermissions(),
+                        new Resolver(this.ownerCurator, detach)));
                 }
             }
         }
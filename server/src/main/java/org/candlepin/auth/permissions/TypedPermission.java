@@ -41,4 +41,9 @@ public abstract class TypedPermission<T> implements Permission, Serializable {
         return false;
     }
 
+    @Override
+    public boolean appliesTo(Class<?> targetClass) {
+        return this.getTargetType().isAssignableFrom(targetClass);
+    }
+
 }
@@ -78,6 +78,12 @@ public class UsernameConsumersPermission implements Permission, Serializable {
         return false;
     }
 
+    @Override
+    public boolean appliesTo(Class<?> targetClass) {
+        return targetClass.equals(Consumer.class) || targetClass.equals(Owner.class) ||
+            targetClass.equals(Entitlement.class);
+    }
+
     @Override
     public Criterion getCriteriaRestrictions(Class entityClass) {
         if (entityClass.equals(Consumer.class)) {
@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.common.config.Configuration;
+import org.candlepin.config.ConfigProperties;
+
+import com.google.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches the consumers resolved while authenticating consumer requests, keyed by the credential
+ * the consumer presented, such as the serial of its identity certificate. Only the UUID and
+ * database ID of the consumer are cached: the consumer itself is still loaded for every request,
+ * but by its ID rather than by a lookup of its UUID, and callers are expected to verify that
+ * the consumer loaded still matches the cached identity.
+ * <p></p>
+ * The cache is bounded and evicts its least recently used entries first. Entries are discarded
+ * once they are older than the configured time-to-live, or when the consumer they refer to is
+ * deleted or has its identity certificate regenerated. Caching is disabled entirely when the
+ * time-to-live is not positive. The keys cached for each consumer are indexed by its UUID, so that
+ * discarding the identities of a consumer does not require a scan of the cache.
+ */
+@Singleton
+public class ConsumerIdentityCache {
+    private static Logger log = LoggerFactory.getLogger(ConsumerIdentityCache.class);
+
+    private final long ttl;
+    private final Map<String, ConsumerIdentity> identities;
+    private final Map<String, Set<String>> consumerKeys;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    @Inject
+    public ConsumerIdentityCache(Configuration config) {
+        this.ttl = TimeUnit.SECONDS.toMillis(config.getLong(ConfigProperties.CONSUMER_IDENTITY_CACHE_TTL));
+        this.identities =
+            new IdentityMap(config.getInt(ConfigProperties.CONSUMER_IDENTITY_CACHE_MAX_ENTRIES));
+        this.consumerKeys = new HashMap<>();
+
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * Checks whether or not consumer identities should be cached.
+     *
+     * @return
+     *  true if consumer identity caching is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.ttl > 0;
+    }
+
+    /**
+     * Fetches the consumer identity cached for the given credential key, provided it has not yet
+     * expired.
+     *
+     * @param key
+     *  the key of the credential presented by the consumer
+     *
+     * @return
+     *  the cached consumer identity, or null if no identity is cached for the key
+     */
+    public ConsumerIdentity get(String key) {
+        if (!this.isEnabled() || key == null) {
+            return null;
+        }
+
+        ConsumerIdentity identity;
+
+        synchronized (this.identities) {
+            identity = this.identities.get(key);
+
+            if (identity != null && System.currentTimeMillis() - identity.created > this.ttl) {
+                this.identities.remove(key);
+                this.unindex(key, identity);
+                identity = null;
+            }
+        }
+
+        if (identity != null) {
+            this.hits.incrementAndGet();
+        }
+        else {
+            this.misses.incrementAndGet();
+        }
+
+        return identity;
+    }
+
+    /**
+     * Caches the identity of the consumer which presented the credential with the given key,
+     * replacing any identity previously cached for it.
+     *
+     * @param key
+     *  the key of the credential presented by the consumer
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer
+     *
+     * @param consumerId
+     *  the database ID of the consumer
+     */
+    public void put(String key, String consumerUuid, String consumerId) {
+        if (!this.isEnabled() || key == null || consumerUuid == null || consumerId == null) {
+            return;
+        }
+
+        synchronized (this.identities) {
+            ConsumerIdentity previous =
+                this.identities.put(key, new ConsumerIdentity(consumerUuid, consumerId));
+            if (previous != null) {
+                this.unindex(key, previous);
+            }
+
+            this.consumerKeys.computeIfAbsent(consumerUuid, uuid -> new HashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * Discards every identity cached for the given consumer.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer whose identities are to be discarded
+     */
+    public void evict(String consumerUuid) {
+        if (!this.isEnabled() || consumerUuid == null) {
+            return;
+        }
+
+        int evicted = 0;
+
+        synchronized (this.identities) {
+            Set<String> keys = this.consumerKeys.remove(consumerUuid);
+
+            if (keys != null) {
+                for (String key : keys) {
+                    this.identities.remove(key);
+                }
+
+                evicted = keys.size();
+            }
+        }
+
+        if (evicted > 0) {
+            this.evictions.addAndGet(evicted);
+            log.debug("Evicted {} cached identities of consumer {}", evicted, consumerUuid);
+        }
+    }
+
+    /**
+     * Discards all cached consumer identities.
+     */
+    public void clear() {
+        synchronized (this.identities) {
+            this.identities.clear();
+            this.consumerKeys.clear();
+        }
+    }
+
+    /**
+     * @return
+     *  the number of identities currently cached
+     */
+    public int size() {
+        synchronized (this.identities) {
+            return this.identities.size();
+        }
+    }
+
+    /**
+     * @return
+     *  the number of lookups which found a cached identity
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return
+     *  the number of lookups which did not find a cached identity, including lookups of expired
+     *  identities
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return
+     *  the number of identities discarded because their consumer was deleted or changed
+     */
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    /**
+     * @return
+     *  the ratio of lookups which found a cached identity, or 0 if no lookups have been made
+     */
+    public double getHitRate() {
+        long hits = this.getHits();
+        long lookups = hits + this.getMisses();
+
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    /**
+     * Removes the given key from the keys indexed for the consumer of the given identity. Must be
+     * called while holding the lock on the identity map.
+     */
+    private void unindex(String key, ConsumerIdentity identity) {
+        Set<String> keys = this.consumerKeys.get(identity.consumerUuid);
+
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            this.consumerKeys.remove(identity.consumerUuid);
+        }
+    }
+
+    /**
+     * The identity of a consumer, as cached for the credential it presented
+     */
+    public static class ConsumerIdentity {
+        private final String consumerUuid;
+        private final String consumerId;
+        private final long created;
+
+        public ConsumerIdentity(String consumerUuid, String consumerId) {
+            this.consumerUuid = consumerUuid;
+            this.consumerId = consumerId;
+            this.created = System.currentTimeMillis();
+        }
+
+        public String getConsumerUuid() {
+            return this.consumerUuid;
+        }
+
+        public String getConsumerId() {
+            return this.consumerId;
+        }
+    }
+
+    /**
+     * LRU map of cached identities, which keeps the consumer index up to date as it discards its
+     * least recently used entries
+     */
+    private class IdentityMap extends LinkedHashMap<String, ConsumerIdentity> {
+        private final int capacity;
+
+        public IdentityMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ConsumerIdentity> eldest) {
+            if (this.size() > this.capacity) {
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.common.config.Configuration;
+import org.candlepin.config.ConfigProperties;
+
+import com.google.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches the artifacts generated while exporting manifests, so that distributors which are
+ * exported repeatedly without changing do not have to be regenerated from scratch each time.
+ * <p></p>
+ * Two kinds of artifacts are cached:
+ * <ul>
+ *  <li>fragments: the serialized form of individual files of an export, such as a product or
+ *  an entitlement certificate. These are keyed by something which changes whenever their
+ *  content does, such as a product version or a certificate serial, so they never go stale and
+ *  are simply evicted when the cache is full.</li>
+ *  <li>archives: the compressed content of complete manifests, keyed by the consumer they were
+ *  generated for and a fingerprint of the state they were generated from. The metadata and
+ *  signature of a manifest are not part of its cached content, and are regenerated each time it
+ *  is served. Only the latest archive of a consumer is kept, and it is discarded once it is older
+ *  than the configured time-to-live.</li>
+ * </ul>
+ * Both caches are bounded and evict their least recently used entries first, and archives larger
+ * than the configured maximum size are not cached at all. Caching is disabled entirely when the
+ * time-to-live is not positive.
+ */
+@Singleton
+public class ExportCache {
+    private static Logger log = LoggerFactory.getLogger(ExportCache.class);
+
+    private final long ttl;
+    private final int maxArchiveSize;
+    private final Map<String, byte[]> fragments;
+    private final Map<String, CachedArchive> archives;
+
+    @Inject
+    public ExportCache(Configuration config) {
+        this.ttl = TimeUnit.SECONDS.toMillis(config.getLong(ConfigProperties.EXPORT_CACHE_TTL));
+        this.fragments = new LruMap<>(config.getInt(ConfigProperties.EXPORT_CACHE_MAX_FRAGMENTS));
+        this.archives = new LruMap<>(config.getInt(ConfigProperties.EXPORT_CACHE_MAX_ARCHIVES));
+        this.maxArchiveSize = config.getInt(ConfigProperties.EXPORT_CACHE_MAX_ARCHIVE_SIZE);
+    }
+
+    /**
+     * Checks whether or not export artifacts should be cached.
+     *
+     * @return
+     *  true if export caching is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.ttl > 0;
+    }
+
+    /**
+     * Fetches the maximum size of the archive content which may be cached.
+     *
+     * @return
+     *  the maximum size, in bytes, of a cached archive's content
+     */
+    public int getMaxArchiveSize() {
+        return this.maxArchiveSize;
+    }
+
+    /**
+     * Fetches the cached content of an export fragment.
+     *
+     * @param key
+     *  the key of the fragment to fetch
+     *
+     * @return
+     *  the cached content of the fragment, or null if the fragment is not cached
+     */
+    public byte[] getFragment(String key) {
+        if (!this.isEnabled() || key == null) {
+            return null;
+        }
+
+        synchronized (this.fragments) {
+            return this.fragments.get(key);
+        }
+    }
+
+    /**
+     * Caches the content of an export fragment. The key must change whenever the content of the
+     * fragment does.
+     *
+     * @param key
+     *  the key of the fragment to cache
+     *
+     * @param content
+     *  the serialized content of the fragment
+     */
+    public void putFragment(String key, byte[] content) {
+        if (!this.isEnabled() || key == null || content == null) {
+            return;
+        }
+
+        synchronized (this.fragments) {
+            this.fragments.put(key, content);
+        }
+    }
+
+    /**
+     * Fetches the cached archive of the given consumer, provided it was generated from the state
+     * described by the given fingerprint and has not yet expired.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer whose archive is to be fetched
+     *
+     * @param fingerprint
+     *  the fingerprint of the consumer's current export state
+     *
+     * @return
+     *  the cached archive content, or null if no matching archive is cached
+     */
+    public byte[] getArchive(String consumerUuid, String fingerprint) {
+        if (!this.isEnabled() || consumerUuid == null || fingerprint == null) {
+            return null;
+        }
+
+        synchronized (this.archives) {
+            CachedArchive archive = this.archives.get(consumerUuid);
+            if (archive == null) {
+                return null;
+            }
+
+            long age = System.currentTimeMillis() - archive.created;
+            if (age > this.ttl) {
+                log.debug("Discarding expired export archive for consumer {}. Age: {}ms", consumerUuid, age);
+                this.archives.remove(consumerUuid);
+                return null;
+            }
+
+            if (!fingerprint.equals(archive.fingerprint)) {
+                // The archive is replaced once the consumer's new export has been generated
+                return null;
+            }
+
+            log.debug("Returning cached export archive for consumer {}. Age: {}ms", consumerUuid, age);
+            return archive.content;
+        }
+    }
+
+    /**
+     * Caches the content of the archive generated for the given consumer, replacing any archive
+     * previously cached for it. Content larger than the maximum archive size is not cached, though
+     * it still replaces any archive previously cached for the consumer.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer the archive was generated for
+     *
+     * @param fingerprint
+     *  the fingerprint of the state the archive was generated from
+     *
+     * @param content
+     *  the compressed content of the archive, excluding its metadata and signature
+     */
+    public void putArchive(String consumerUuid, String fingerprint, byte[] content) {
+        if (!this.isEnabled() || consumerUuid == null || fingerprint == null || content == null) {
+            return;
+        }
+
+        synchronized (this.archives) {
+            if (content.length > this.maxArchiveSize) {
+                log.debug("Not caching export archive for consumer {}; {} bytes exceeds the limit of {}",
+                    consumerUuid, content.length, this.maxArchiveSize);
+
+                this.archives.remove(consumerUuid);
+                return;
+            }
+
+            this.archives.put(consumerUuid, new CachedArchive(fingerprint, content));
+        }
+    }
+
+    /**
+     * Discards the cached archive of the given consumer, if any.
+     *
+     * @param consumerUuid
+     *  the UUID of the consumer whose archive is to be discarded
+     */
+    public void evictArchive(String consumerUuid) {
+        synchronized (this.archives) {
+            this.archives.remove(consumerUuid);
+        }
+    }
+
+    /**
+     * Discards all cached fragments and archives.
+     */
+    public void clear() {
+        synchronized (this.fragments) {
+            this.fragments.clear();
+        }
+
+        synchronized (this.archives) {
+            this.archives.clear();
+        }
+    }
+
+    private static class CachedArchive {
+        private final String fingerprint;
+        private final byte[] content;
+        private final long created;
+
+        public CachedArchive(String fingerprint, byte[] content) {
+            this.fingerprint = fingerprint;
+            this.content = content;
+            this.created = System.currentTimeMillis();
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        public LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return this.size() > this.capacity;
+        }
+    }
+}
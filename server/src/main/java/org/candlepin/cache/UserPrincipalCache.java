@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import org.candlepin.auth.UserPrincipal;
+import org.candlepin.common.config.Configuration;
+import org.candlepin.config.ConfigProperties;
+
+import com.google.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Caches the principals created for authenticated users, keyed by username, along with their
+ * compiled permissions. Building a user principal requires looking the user up through the user
+ * service and creating a permission for each of the permissions granted by the user's roles, which
+ * for users with access to many owners is a significant cost to pay on every request.
+ * <p></p>
+ * Cached principals are shared by every request made by their user, and must not be modified
+ * once cached. They are expected to reference detached copies of the owners they grant access to,
+ * rather than the owners of the session which built them. Principals granting access to owners
+ * which do not exist yet are not cached, as the request creating those owners completes the
+ * principal with them. Credentials are not cached: callers are still expected to authenticate the
+ * user on every request before using a cached principal.
+ * <p></p>
+ * The cache is bounded and evicts its least recently used entries first. Entries are discarded
+ * once they are older than the configured time-to-live, or once changes made to the users, roles
+ * or owners backing them are committed. As the cache is local to each node, the time-to-live also
+ * bounds how long changes made through other nodes, or to users by an external user service, may
+ * go unnoticed. Caching is disabled entirely when the time-to-live is not positive.
+ */
+@Singleton
+public class UserPrincipalCache {
+    private static Logger log = LoggerFactory.getLogger(UserPrincipalCache.class);
+
+    private final long ttl;
+    private final Map<String, CachedPrincipal> principals;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    @Inject
+    public UserPrincipalCache(Configuration config) {
+        this.ttl = TimeUnit.SECONDS.toMillis(config.getLong(ConfigProperties.USER_PRINCIPAL_CACHE_TTL));
+        this.principals = new LruMap<>(config.getInt(ConfigProperties.USER_PRINCIPAL_CACHE_MAX_ENTRIES));
+
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Checks whether or not user principals should be cached.
+     *
+     * @return
+     *  true if user principal caching is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.ttl > 0;
+    }
+
+    /**
+     * Fetches the principal cached for the given user, provided it has not yet expired.
+     *
+     * @param username
+     *  the name of the user whose principal is to be fetched
+     *
+     * @return
+     *  the cached principal, or null if no principal is cached for the user
+     */
+    public UserPrincipal get(String username) {
+        if (!this.isEnabled() || username == null) {
+            return null;
+        }
+
+        CachedPrincipal cached;
+
+        synchronized (this.principals) {
+            cached = this.principals.get(username);
+
+            if (cached != null && System.currentTimeMillis() - cached.created > this.ttl) {
+                this.principals.remove(username);
+                cached = null;
+            }
+        }
+
+        if (cached != null) {
+            this.hits.incrementAndGet();
+            return cached.principal;
+        }
+
+        this.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the given principal under the name of its user, replacing any principal previously
+     * cached for it. Principals granting access to owners which have not yet been persisted are
+     * not cached.
+     *
+     * @param principal
+     *  the principal to cache
+     */
+    public void put(UserPrincipal principal) {
+        if (!this.isEnabled() || principal == null || principal.getUsername() == null) {
+            return;
+        }
+
+        if (principal.getOwnerIds().contains(null)) {
+            log.debug("Not caching principal of user {}, which carries owners yet to be created",
+                principal.getUsername());
+            return;
+        }
+
+        synchronized (this.principals) {
+            this.principals.put(principal.getUsername(), new CachedPrincipal(principal));
+        }
+    }
+
+    /**
+     * Discards the principal cached for the given user, if any.
+     *
+     * @param username
+     *  the name of the user whose principal is to be discarded
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+
+        synchronized (this.principals) {
+            this.principals.remove(username);
+        }
+    }
+
+    /**
+     * Discards all cached principals. Used when a change may affect the permissions of any
+     * number of users, such as a change to a role or the deletion of an owner.
+     */
+    public void clear() {
+        synchronized (this.principals) {
+            if (!this.principals.isEmpty()) {
+                log.debug("Discarding {} cached user principals", this.principals.size());
+                this.principals.clear();
+            }
+        }
+    }
+
+    /**
+     * @return
+     *  the number of principals currently cached
+     */
+    public int size() {
+        synchronized (this.principals) {
+            return this.principals.size();
+        }
+    }
+
+    /**
+     * @return
+     *  the number of lookups which found a cached principal
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return
+     *  the number of lookups which did not find a cached principal, including lookups of expired
+     *  principals
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    private static class CachedPrincipal {
+        private final UserPrincipal principal;
+        private final long created;
+
+        public CachedPrincipal(UserPrincipal principal) {
+            this.principal = principal;
+            this.created = System.currentTimeMillis();
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        public LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return this.size() > this.capacity;
+        }
+    }
+}
@@ -61,6 +61,74 @@ public class ConfigProperties {
     public static final String CA_KEY = "candlepin.ca_key";
     public static final String CA_CERT = "candlepin.ca_cert";
     public static final String FAIL_ON_UNKNOWN_IMPORT_PROPERTIES = "candlepin.importer.fail_on_unknown";
+
+    /**
+     * Whether or not manifests are imported by streaming them straight out of the uploaded archive,
+     * rather than by extracting them to the sync work directory first.
+     */
+    public static final String STREAMING_IMPORT = "candlepin.importer.streaming";
+
+    /**
+     * The number of worker threads used to deserialize the products and entitlements of an extracted
+     * manifest. A value of 1 or less deserializes them serially on the importing thread.
+     */
+    public static final String IMPORT_THREADS = "candlepin.importer.threads";
+
+    /**
+     * Whether or not manifests are exported by writing their entries straight into the signed
+     * archive as they are generated, rather than by writing them to the sync work directory and
+     * archiving them afterwards.
+     */
+    public static final String STREAMING_EXPORT = "candlepin.exporter.streaming";
+
+    /**
+     * The number of seconds the content of a generated manifest may be served again to a
+     * distributor whose entitlements, rules and CDN settings have not changed since. The metadata
+     * and signature of the manifest are regenerated each time. Product and certificate fragments
+     * of exports are cached alongside. A value of 0 disables export caching.
+     */
+    public static final String EXPORT_CACHE_TTL = "candlepin.exporter.cache.ttl";
+
+    /** The maximum number of serialized products and certificates held by the export cache */
+    public static final String EXPORT_CACHE_MAX_FRAGMENTS = "candlepin.exporter.cache.max_fragments";
+
+    /** The maximum number of complete manifests held by the export cache */
+    public static final String EXPORT_CACHE_MAX_ARCHIVES = "candlepin.exporter.cache.max_archives";
+
+    /** The maximum size, in bytes, of a manifest's compressed content held by the export cache */
+    public static final String EXPORT_CACHE_MAX_ARCHIVE_SIZE = "candlepin.exporter.cache.max_archive_size";
+
+    /**
+     * The number of worker threads used to refresh the pools of several owners at once, such as
+     * when a product used by many owners changes. Each owner is refreshed in its own transaction.
+     * A value of 1 or less refreshes the owners serially in a single transaction.
+     */
+    public static final String REFRESH_THREADS = "candlepin.refresh.threads";
+
+    /**
+     * The number of times the refresh of an owner is attempted when it fails on a lock conflict
+     * while refreshing several owners concurrently.
+     */
+    public static final String REFRESH_MAX_ATTEMPTS = "candlepin.refresh.max_attempts";
+
+    /**
+     * The number of worker threads used to heal the consumers of an entire owner. Each consumer is
+     * healed in its own transaction. A value of 1 or less heals the consumers serially.
+     */
+    public static final String HEAL_THREADS = "candlepin.heal.threads";
+
+    /**
+     * The number of expired pools deleted in each transaction of the expired pools job. Smaller
+     * blocks hold their locks for less time, at the cost of more transactions.
+     */
+    public static final String EXPIRED_POOLS_BLOCK_SIZE = "candlepin.expired_pools.block_size";
+
+    /**
+     * The maximum time, in seconds, a single run of the expired pools job spends deleting pools.
+     * Pools left over are picked up by the next run. A value of 0 or less does not limit the run.
+     */
+    public static final String EXPIRED_POOLS_MAX_RUN_TIME = "candlepin.expired_pools.max_run_time";
+
     public static final String CA_CERT_UPSTREAM = "candlepin.upstream_ca_cert";
     public static final String CA_KEY_PASSWORD = "candlepin.ca_key_password";
 
@@ -128,6 +196,48 @@ public class ConfigProperties {
     public static final String OAUTH_AUTHENTICATION = "candlepin.auth.oauth.enable";
     public static final String BASIC_AUTHENTICATION = "candlepin.auth.basic.enable";
 
+    /**
+     * The number of seconds the consumer resolved from a client certificate or trusted consumer
+     * header is remembered, sparing the lookup of the consumer by UUID on subsequent requests. A
+     * value of 0 disables the consumer identity cache.
+     */
+    public static final String CONSUMER_IDENTITY_CACHE_TTL = "candlepin.auth.consumer_cache.ttl";
+
+    /** The maximum number of consumer identities held by the consumer identity cache */
+    public static final String CONSUMER_IDENTITY_CACHE_MAX_ENTRIES =
+        "candlepin.auth.consumer_cache.max_entries";
+
+    /**
+     * The number of seconds for which the principal built for an authenticated user, along with
+     * its compiled permissions, is reused by the user's subsequent requests. The cache is local to
+     * each node: changes made to users, roles and owners through a node take effect on that node
+     * once committed, but other nodes, like changes made to users by an external user service, may
+     * go unnoticed for up to this long. A value of 0 disables the user principal cache.
+     */
+    public static final String USER_PRINCIPAL_CACHE_TTL = "candlepin.auth.user_cache.ttl";
+
+    /** The maximum number of user principals held by the user principal cache */
+    public static final String USER_PRINCIPAL_CACHE_MAX_ENTRIES = "candlepin.auth.user_cache.max_entries";
+
+    /**
+     * Whether or not to collect the database statistics of each request: the statements prepared,
+     * the time spent executing them and the entities and collections loaded. The statistics are
+     * aggregated by endpoint, and available through the admin/statistics resource.
+     */
+    public static final String REQUEST_STATISTICS_ENABLED = "candlepin.request_statistics.enabled";
+
+    /** The number of statements prepared by a request above which it is logged as slow */
+    public static final String REQUEST_STATISTICS_STATEMENT_THRESHOLD =
+        "candlepin.request_statistics.statement_threshold";
+
+    /** The time, in milliseconds, spent executing statements above which a request is logged as slow */
+    public static final String REQUEST_STATISTICS_DB_TIME_THRESHOLD =
+        "candlepin.request_statistics.db_time_threshold";
+
+    /** The number of entities loaded by a request above which it is logged as slow */
+    public static final String REQUEST_STATISTICS_ENTITY_THRESHOLD =
+        "candlepin.request_statistics.entity_threshold";
+
     // AMQP stuff
     public static final String AMQP_INTEGRATION_ENABLED = "candlepin.amqp.enable";
     public static final String AMQP_CONNECT_STRING = "candlepin.amqp.connect";
@@ -331,6 +441,14 @@ public class ConfigProperties {
             this.put(SSL_AUTHENTICATION, "true");
             this.put(OAUTH_AUTHENTICATION, "false");
             this.put(BASIC_AUTHENTICATION, "true");
+            this.put(CONSUMER_IDENTITY_CACHE_TTL, "30");
+            this.put(CONSUMER_IDENTITY_CACHE_MAX_ENTRIES, "10000");
+            this.put(USER_PRINCIPAL_CACHE_TTL, "60");
+            this.put(USER_PRINCIPAL_CACHE_MAX_ENTRIES, "1000");
+            this.put(REQUEST_STATISTICS_ENABLED, "true");
+            this.put(REQUEST_STATISTICS_STATEMENT_THRESHOLD, "500");
+            this.put(REQUEST_STATISTICS_DB_TIME_THRESHOLD, "5000");
+            this.put(REQUEST_STATISTICS_ENTITY_THRESHOLD, "50000");
             this.put(AUTH_OVER_HTTP, "false");
             // By default, environments should be hidden so clients do not need to
             // submit one when registering.
@@ -338,6 +456,18 @@ public class ConfigProperties {
             this.put(HIDDEN_CAPABILITIES, "");
 
             this.put(FAIL_ON_UNKNOWN_IMPORT_PROPERTIES, "false");
+            this.put(STREAMING_IMPORT, "false");
+            this.put(IMPORT_THREADS, "1");
+            this.put(STREAMING_EXPORT, "false");
+            this.put(EXPORT_CACHE_TTL, "0");
+            this.put(EXPORT_CACHE_MAX_FRAGMENTS, "10000");
+            this.put(EXPORT_CACHE_MAX_ARCHIVES, "25");
+            this.put(EXPORT_CACHE_MAX_ARCHIVE_SIZE, "10485760");
+            this.put(REFRESH_THREADS, "1");
+            this.put(REFRESH_MAX_ATTEMPTS, "3");
+            this.put(HEAL_THREADS, "1");
+            this.put(EXPIRED_POOLS_BLOCK_SIZE, "100");
+            this.put(EXPIRED_POOLS_MAX_RUN_TIME, "240");
 
             this.put(CACHE_JMX_STATS, "false");
 
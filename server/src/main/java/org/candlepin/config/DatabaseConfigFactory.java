@@ -28,23 +28,32 @@ public class DatabaseConfigFactory {
     public static final String CASE_OPERATOR_BLOCK_SIZE = "db.config.case.operator.block.size";
     public static final String BATCH_BLOCK_SIZE = "db.config.batch.block.size";
     public static final String QUERY_PARAMETER_LIMIT = "db.config.query.parameter.limit";
+    public static final String RECURSIVE_QUERIES = "db.config.recursive.queries";
+    public static final String ID_SET_STRATEGY = "db.config.id.set.strategy";
 
-    public static final Map<String, String> POSTGRESQL_CONFIG = ImmutableMap.of(
+    public static final Map<String, String> POSTGRESQL_CONFIG = ImmutableMap.<String, String>builder()
         // Based on testing with the hypervisor check in process, and going a bit conservative
-        IN_OPERATOR_BLOCK_SIZE, "15000",
-        CASE_OPERATOR_BLOCK_SIZE, "100",
-        BATCH_BLOCK_SIZE, "500",
-        QUERY_PARAMETER_LIMIT, "32000"
-    );
+        .put(IN_OPERATOR_BLOCK_SIZE, "15000")
+        .put(CASE_OPERATOR_BLOCK_SIZE, "100")
+        .put(BATCH_BLOCK_SIZE, "500")
+        .put(QUERY_PARAMETER_LIMIT, "32000")
+        .put(RECURSIVE_QUERIES, "true")
+        .put(ID_SET_STRATEGY, "array")
+        .build();
 
-    public static final Map<String, String> MYSQL_CONFIG = ImmutableMap.of(
+    public static final Map<String, String> MYSQL_CONFIG = ImmutableMap.<String, String>builder()
         // The limit is based on element size instead of cardinality.  We'll go with 15000 to be conservative.
         // See http://stackoverflow.com/questions/1532366
-        IN_OPERATOR_BLOCK_SIZE, "15000",
-        CASE_OPERATOR_BLOCK_SIZE, "100",
-        BATCH_BLOCK_SIZE, "500",
-        QUERY_PARAMETER_LIMIT, "32000"
-    );
+        .put(IN_OPERATOR_BLOCK_SIZE, "15000")
+        .put(CASE_OPERATOR_BLOCK_SIZE, "100")
+        .put(BATCH_BLOCK_SIZE, "500")
+        .put(QUERY_PARAMETER_LIMIT, "32000")
+        // Recursive common table expressions are not available before MySQL 8 and MariaDB 10.2
+        .put(RECURSIVE_QUERIES, "false")
+        // Temporary tables ("temp_table") avoid the IN blocks, but cannot be created in transactions on
+        // servers enforcing GTID consistency, so they must be enabled explicitly
+        .put(ID_SET_STRATEGY, "in")
+        .build();
 
     private DatabaseConfigFactory() {
         // Utility class
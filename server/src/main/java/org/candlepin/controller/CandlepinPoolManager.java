@@ -90,6 +90,7 @@ import com.google.inject.persist.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
@@ -112,6 +113,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.core.MediaType;
@@ -129,6 +132,9 @@ public class CandlepinPoolManager implements PoolManager {
 
     private static final int MAX_ENTITLE_RETRIES = 3;
 
+    /** The number of consumers whose status is recalculated between flushes */
+    private static final int COMPLIANCE_BLOCK_SIZE = 1000;
+
     private EventSink sink;
     private EventFactory eventFactory;
     private Configuration config;
@@ -274,6 +280,9 @@ public class CandlepinPoolManager implements PoolManager {
         Map<String, Product> updatedProducts = importResult.getUpdatedEntities();
 
         log.debug("Refreshing {} pool(s)...", subscriptionMap.size());
+        List<SubscriptionInfo> subscriptions = new ArrayList<>();
+        int unchanged = 0;
+
         for (Iterator<? extends SubscriptionInfo> si = subscriptionMap.values().iterator(); si.hasNext();) {
             SubscriptionInfo sub = si.next();
 
@@ -285,10 +294,21 @@ public class CandlepinPoolManager implements PoolManager {
             }
 
             log.debug("Processing subscription: {}", sub);
-            Pool pool = this.convertToMasterPoolImpl(sub, owner, importedProducts);
-            this.refreshPoolsForMasterPool(pool, false, lazy, updatedProducts);
+            subscriptions.add(sub);
+
+            if (subscriptions.size() >= PoolCurator.SUBSCRIPTION_POOL_BLOCK_SIZE) {
+                unchanged += this.refreshPoolsForSubscriptions(subscriptions, owner, importedProducts, lazy,
+                    updatedProducts);
+
+                subscriptions.clear();
+            }
         }
 
+        unchanged += this.refreshPoolsForSubscriptions(subscriptions, owner, importedProducts, lazy,
+            updatedProducts);
+
+        log.debug("Skipped {} unchanged subscription(s)", unchanged);
+
         // delete pools whose subscription disappeared:
         log.debug("Deleting pools for absent subscriptions...");
         List<Pool> poolsToDelete = new ArrayList<>();
@@ -337,6 +357,219 @@ public class CandlepinPoolManager implements PoolManager {
         return owner;
     }
 
+    /**
+     * Refreshes the pools of a block of subscriptions. The existing pools of the whole block are
+     * looked up at once, rather than once per subscription, and subscriptions which have not
+     * changed since the last refresh are skipped without being converted to master pools.
+     *
+     * @param subscriptions
+     *  the subscriptions to refresh
+     *
+     * @param owner
+     *  the owner of the subscriptions
+     *
+     * @param importedProducts
+     *  a mapping of product IDs to the products imported for the subscriptions
+     *
+     * @param lazy
+     *  whether or not certificates of updated entitlements should be regenerated lazily
+     *
+     * @param changedProducts
+     *  a mapping of product IDs to products which have been updated by the refresh
+     *
+     * @return
+     *  the number of subscriptions skipped because they have not changed
+     */
+    private int refreshPoolsForSubscriptions(List<SubscriptionInfo> subscriptions, Owner owner,
+        Map<String, Product> importedProducts, boolean lazy, Map<String, Product> changedProducts) {
+
+        if (subscriptions.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> subIds = new HashSet<>();
+        for (SubscriptionInfo sub : subscriptions) {
+            if (sub.getId() != null) {
+                subIds.add(sub.getId());
+            }
+        }
+
+        Map<String, List<Pool>> poolsBySubscription = subIds.isEmpty() ?
+            Collections.<String, List<Pool>>emptyMap() :
+            this.poolCurator.mapPoolsBySubscriptionIds(subIds);
+
+        int unchanged = 0;
+
+        for (SubscriptionInfo sub : subscriptions) {
+            List<Pool> subscriptionPools = poolsBySubscription.get(sub.getId());
+            String fingerprint = this.getSubscriptionFingerprint(sub);
+
+            if (this.isSubscriptionUnchanged(sub, fingerprint, owner, subscriptionPools, changedProducts)) {
+                log.debug("Subscription has not changed since the last refresh: {}", sub);
+                ++unchanged;
+
+                continue;
+            }
+
+            Pool pool = this.convertToMasterPoolImpl(sub, owner, importedProducts);
+
+            if (pool.getSubscriptionId() != null) {
+                this.refreshPoolsForMasterPool(pool, false, lazy, changedProducts,
+                    subscriptionPools != null ? new ArrayList<>(subscriptionPools) : new ArrayList<>());
+            }
+            else {
+                this.refreshPoolsForMasterPool(pool, false, lazy, changedProducts);
+            }
+        }
+
+        return unchanged;
+    }
+
+    /**
+     * Checks whether or not the pools of a subscription are up to date with the subscription, in
+     * which case refreshing them would have no effect. This is the case if the master pool was
+     * last refreshed from a subscription with the same fingerprint, none of the subscription's
+     * products were updated, none of its pools have migrated to another owner, and its bonus
+     * pool, if it should have one, still exists.
+     */
+    private boolean isSubscriptionUnchanged(SubscriptionInfo sub, String fingerprint, Owner owner,
+        List<Pool> subscriptionPools, Map<String, Product> changedProducts) {
+
+        if (fingerprint == null || subscriptionPools == null || subscriptionPools.isEmpty()) {
+            return false;
+        }
+
+        Pool masterPool = null;
+        boolean hasBonusPool = false;
+
+        for (Pool pool : subscriptionPools) {
+            if (!owner.equals(pool.getOwner())) {
+                return false;
+            }
+
+            if ("master".equals(pool.getSubscriptionSubKey())) {
+                if (!fingerprint.equals(pool.getSubscriptionFingerprint())) {
+                    return false;
+                }
+
+                masterPool = pool;
+            }
+            else if ("derived".equals(pool.getSubscriptionSubKey())) {
+                hasBonusPool = true;
+            }
+        }
+
+        if (masterPool == null) {
+            return false;
+        }
+
+        // A missing bonus pool is only recreated by a full refresh
+        if (!hasBonusPool && this.poolRules.expectsBonusPool(masterPool)) {
+            return false;
+        }
+
+        List<ProductInfo> products = new ArrayList<>();
+        products.add(sub.getProduct());
+        products.add(sub.getDerivedProduct());
+
+        if (sub.getProvidedProducts() != null) {
+            products.addAll(sub.getProvidedProducts());
+        }
+
+        if (sub.getDerivedProvidedProducts() != null) {
+            products.addAll(sub.getDerivedProvidedProducts());
+        }
+
+        for (ProductInfo product : products) {
+            if (product != null && changedProducts.containsKey(product.getId())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds a digest of the details of a subscription which are copied to its pools. Products are
+     * only represented by their IDs, as changes to the products themselves are tracked separately.
+     *
+     * @param sub
+     *  the subscription to fingerprint
+     *
+     * @return
+     *  a fingerprint of the subscription
+     */
+    private String getSubscriptionFingerprint(SubscriptionInfo sub) {
+        StringBuilder builder = new StringBuilder()
+            .append(sub.getId()).append('|')
+            .append(sub.getOwner() != null ? sub.getOwner().getKey() : null).append('|')
+            .append(sub.getProduct() != null ? sub.getProduct().getId() : null).append('|')
+            .append(sub.getDerivedProduct() != null ? sub.getDerivedProduct().getId() : null).append('|')
+            .append(this.getProductIds(sub.getProvidedProducts())).append('|')
+            .append(this.getProductIds(sub.getDerivedProvidedProducts())).append('|')
+            .append(sub.getQuantity()).append('|')
+            .append(getTime(sub.getStartDate())).append('|')
+            .append(getTime(sub.getEndDate())).append('|')
+            .append(getTime(sub.getLastModified())).append('|')
+            .append(sub.getContractNumber()).append('|')
+            .append(sub.getAccountNumber()).append('|')
+            .append(sub.getOrderNumber()).append('|')
+            .append(sub.getUpstreamPoolId()).append('|')
+            .append(sub.getUpstreamEntitlementId()).append('|')
+            .append(sub.getUpstreamConsumerId()).append('|');
+
+        CdnInfo cdn = sub.getCdn();
+        if (cdn != null) {
+            builder.append(cdn.getLabel()).append(':')
+                .append(cdn.getName()).append(':')
+                .append(cdn.getUrl()).append(':')
+                .append(this.getCertificateDigest(cdn.getCertificate()));
+        }
+        builder.append('|');
+
+        if (sub.getBranding() != null) {
+            SortedSet<String> branding = new TreeSet<>();
+            for (BrandingInfo brand : sub.getBranding()) {
+                branding.add(brand.getProductId() + ":" + brand.getType() + ":" + brand.getName());
+            }
+
+            builder.append(branding);
+        }
+        builder.append('|');
+
+        builder.append(this.getCertificateDigest(sub.getCertificate()));
+
+        return DigestUtils.sha256Hex(builder.toString());
+    }
+
+    private SortedSet<String> getProductIds(Collection<? extends ProductInfo> products) {
+        SortedSet<String> ids = new TreeSet<>();
+
+        if (products != null) {
+            for (ProductInfo product : products) {
+                ids.add(String.valueOf(product.getId()));
+            }
+        }
+
+        return ids;
+    }
+
+    private String getCertificateDigest(CertificateInfo cert) {
+        if (cert == null) {
+            return null;
+        }
+
+        CertificateSerialInfo serial = cert.getSerial();
+
+        return DigestUtils.sha256Hex(cert.getKey() + "|" + cert.getCertificate() + "|" +
+            (serial != null ? serial.isRevoked() + ":" + serial.isCollected() + ":" +
+            getTime(serial.getExpiration()) : null));
+    }
+
+    private static Long getTime(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
     @Transactional
     void refreshPoolsForMasterPool(Pool pool, boolean updateStackDerived, boolean lazy,
         Map<String, Product> changedProducts) {
@@ -355,6 +588,33 @@ public class CandlepinPoolManager implements PoolManager {
                 Collections.<Pool>singletonList(pool);
         }
 
+        this.refreshPoolsForMasterPool(pool, updateStackDerived, lazy, changedProducts, subscriptionPools);
+    }
+
+    /**
+     * Refreshes the pools of a master pool, using the given, already fetched, list of pools
+     * originating from the same subscription.
+     *
+     * @param pool
+     *  the master pool to refresh
+     *
+     * @param updateStackDerived
+     *  whether or not stack derived pools should be updated
+     *
+     * @param lazy
+     *  whether or not certificates of updated entitlements should be regenerated lazily
+     *
+     * @param changedProducts
+     *  a mapping of product IDs to products which have been updated
+     *
+     * @param subscriptionPools
+     *  the existing pools of the subscription the master pool originates from; this list may be
+     *  modified by this method
+     */
+    @Transactional
+    void refreshPoolsForMasterPool(Pool pool, boolean updateStackDerived, boolean lazy,
+        Map<String, Product> changedProducts, List<Pool> subscriptionPools) {
+
         log.debug("Found {} pools for subscription {}", subscriptionPools.size(), pool.getSubscriptionId());
         if (log.isDebugEnabled()) {
             for (Pool p : subscriptionPools) {
@@ -398,6 +658,16 @@ public class CandlepinPoolManager implements PoolManager {
         Set<String> updatedMasterPools = updatePoolsForMasterPool(
             subscriptionPools, pool, originalQuantity, updateStackDerived, changedProducts);
 
+        // Record which version of the subscription the existing master pool now reflects, so
+        // the next refresh can skip it if the subscription remains unchanged
+        if (pool.getSubscriptionFingerprint() != null) {
+            for (Pool subPool : subscriptionPools) {
+                if ("master".equals(subPool.getSubscriptionSubKey())) {
+                    subPool.setSubscriptionFingerprint(pool.getSubscriptionFingerprint());
+                }
+            }
+        }
+
         regenerateCertificatesByEntIds(updatedMasterPools, lazy);
     }
 
@@ -425,33 +695,55 @@ public class CandlepinPoolManager implements PoolManager {
      * transaction was already started before this method is called.
      */
     public void cleanupExpiredPools() {
-        int count = 0;
+        this.cleanupExpiredPools(PoolCurator.EXPIRED_POOL_BLOCK_SIZE, 0);
+    }
+
+    @Override
+    public ExpiredPoolCleanupResult cleanupExpiredPools(int blockSize, long maxRunTime) {
+        ExpiredPoolCleanupResult result = new ExpiredPoolCleanupResult();
+        long deadline = maxRunTime > 0 ? System.currentTimeMillis() + maxRunTime : Long.MAX_VALUE;
         boolean loop;
 
+        if (blockSize < 1) {
+            blockSize = PoolCurator.EXPIRED_POOL_BLOCK_SIZE;
+        }
+
         log.debug("Beginning cleanup expired pools job");
 
         do {
             // This call is run within a new transaction if we're not already in a transaction
-            int blockSize = this.cleanupExpiredPoolsImpl();
-            count += blockSize;
+            int count = this.cleanupExpiredPoolsImpl(blockSize, result);
 
-            loop = blockSize >= PoolCurator.EXPIRED_POOL_BLOCK_SIZE;
+            // A partial block means we've caught up with the expired pools
+            result.setComplete(count < blockSize);
+            loop = !result.isComplete() && System.currentTimeMillis() < deadline;
         } while (loop);
 
-        if (count > 0) {
-            log.info("Cleaned up {} expired pools", count);
+        result.finish();
+
+        if (result.getPoolCount() > 0 || !result.isComplete()) {
+            log.info("Expired pool cleanup: {}", result);
         }
+
+        return result;
     }
 
     /**
      * Performs the cleanup of a block of expired pools.
      *
+     * @param blockSize
+     *  the maximum number of expired pools to delete
+     *
+     * @param result
+     *  the result to record the deleted block in
+     *
      * @return
      *  the number of expired pools deleted as a result of this method
      */
     @Transactional
-    protected int cleanupExpiredPoolsImpl() {
-        List<Pool> pools = poolCurator.listExpiredPools(PoolCurator.EXPIRED_POOL_BLOCK_SIZE);
+    protected int cleanupExpiredPoolsImpl(int blockSize, ExpiredPoolCleanupResult result) {
+        long start = System.currentTimeMillis();
+        List<Pool> pools = poolCurator.listExpiredPools(blockSize);
 
         if (log.isDebugEnabled()) {
             for (Pool pool : pools) {
@@ -466,6 +758,7 @@ public class CandlepinPoolManager implements PoolManager {
         this.deletePools(pools);
         this.poolCurator.flush();
 
+        result.addBlock(pools, System.currentTimeMillis() - start);
         return pools.size();
     }
 
@@ -855,6 +1148,7 @@ public class CandlepinPoolManager implements PoolManager {
 
         // Copy over subscription details
         pool.setSourceSubscription(new SourceSubscription(sub.getId(), "master"));
+        pool.setSubscriptionFingerprint(this.getSubscriptionFingerprint(sub));
 
         // Copy over upstream details
         pool.setUpstreamPoolId(sub.getUpstreamPoolId());
@@ -1857,6 +2151,10 @@ public class CandlepinPoolManager implements PoolManager {
 
     /**
      * Revokes the given set of entitlements.
+     * <p></p>
+     * The entitlements are revoked as a set: quantities are adjusted once per affected pool and
+     * consumer, the stack derived pools of all affected consumers are looked up together, and the
+     * status of each affected consumer is recalculated once, in blocks, after everything else.
      *
      * @param entsToRevoke entitlements to revoke
      * @param alreadyDeletedPools pools to skip deletion as they have already been deleted
@@ -1913,37 +2211,7 @@ public class CandlepinPoolManager implements PoolManager {
         }
 
         log.debug("Adjusting consumed quantities on pools");
-        List<Pool> poolsToSave = new ArrayList<>();
-        Set<String> entIdsToRevoke = new HashSet<>();
-        for (Entitlement ent : entsToRevoke) {
-            // TODO: Should we throw an exception if we find a malformed/incomplete entitlement
-            // or just continue silently ignoring them?
-            if (ent == null || ent.getId() == null) {
-                continue;
-            }
-
-            // Collect the entitlement IDs to revoke seeing as we are iterating over them anyway.
-            entIdsToRevoke.add(ent.getId());
-
-            //We need to trigger lazy load of provided products
-            //to have access to those products later in this method.
-            Pool pool = ent.getPool();
-            int entQuantity = ent.getQuantity() != null ? ent.getQuantity() : 0;
-
-            pool.setConsumed(pool.getConsumed() - entQuantity);
-            Consumer consumer = ent.getConsumer();
-            ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
-
-            if (ctype != null  && ctype.isManifest()) {
-                pool.setExported(pool.getExported() - entQuantity);
-            }
-
-            consumer.setEntitlementCount(consumer.getEntitlementCount() - entQuantity);
-            consumerCurator.update(consumer);
-            poolsToSave.add(pool);
-        }
-
-        poolCurator.updateAll(poolsToSave, false, false);
+        Set<String> entIdsToRevoke = this.adjustQuantitiesForRevocation(entsToRevoke);
 
         /*
          * Before deleting the entitlements, we need to find out if there are any
@@ -1980,19 +2248,19 @@ public class CandlepinPoolManager implements PoolManager {
             return poolsToDelete;
         }
 
+        // Compliance is recalculated last, once per affected consumer rather than per entitlement
         log.info("Recomputing status for {} consumers.", consumerSortedEntitlements.size());
-        int i = 1;
-        for (Consumer consumer : consumerSortedEntitlements.keySet()) {
-            if (i++ % 1000 == 0) {
-                consumerCurator.flush();
+        for (List<Consumer> block : Iterables.partition(consumerSortedEntitlements.keySet(),
+            COMPLIANCE_BLOCK_SIZE)) {
+
+            for (Consumer consumer : block) {
+                complianceRules.getStatus(consumer);
+                systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(), null, true);
             }
 
-            complianceRules.getStatus(consumer);
-            systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(), null, true);
+            consumerCurator.flush();
         }
 
-        consumerCurator.flush();
-
         log.info("All statuses recomputed.");
 
         sendDeletedEvents(entsToRevoke);
@@ -2020,6 +2288,77 @@ public class CandlepinPoolManager implements PoolManager {
         }
     }
 
+    /**
+     * Reverts the quantities consumed by the given entitlements on their pools and consumers. The
+     * quantities are summed up per pool and per consumer first, so each affected pool and consumer
+     * is updated once, regardless of how many of its entitlements are being revoked.
+     *
+     * @param entitlements
+     *  the entitlements being revoked
+     *
+     * @return
+     *  the IDs of the entitlements being revoked
+     */
+    private Set<String> adjustQuantitiesForRevocation(Collection<Entitlement> entitlements) {
+        Map<String, Pool> pools = new HashMap<>();
+        Map<String, Consumer> consumers = new HashMap<>();
+        Map<String, Long> consumed = new HashMap<>();
+        Map<String, Long> exported = new HashMap<>();
+        Map<String, Long> consumerCounts = new HashMap<>();
+        Map<String, Boolean> manifestTypes = new HashMap<>();
+        Set<String> entitlementIds = new HashSet<>();
+
+        for (Entitlement ent : entitlements) {
+            // TODO: Should we throw an exception if we find a malformed/incomplete entitlement
+            // or just continue silently ignoring them?
+            if (ent == null || ent.getId() == null) {
+                continue;
+            }
+
+            entitlementIds.add(ent.getId());
+
+            Pool pool = ent.getPool();
+            Consumer consumer = ent.getConsumer();
+            long quantity = ent.getQuantity() != null ? ent.getQuantity() : 0;
+
+            pools.put(pool.getId(), pool);
+            consumers.put(consumer.getId(), consumer);
+            consumed.merge(pool.getId(), quantity, Long::sum);
+            consumerCounts.merge(consumer.getId(), quantity, Long::sum);
+
+            Boolean manifest = manifestTypes.get(consumer.getTypeId());
+            if (manifest == null) {
+                ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
+                manifest = ctype != null && ctype.isManifest();
+                manifestTypes.put(consumer.getTypeId(), manifest);
+            }
+
+            if (manifest) {
+                exported.merge(pool.getId(), quantity, Long::sum);
+            }
+        }
+
+        for (Pool pool : pools.values()) {
+            pool.setConsumed(pool.getConsumed() - consumed.get(pool.getId()));
+
+            Long quantity = exported.get(pool.getId());
+            if (quantity != null) {
+                pool.setExported(pool.getExported() - quantity);
+            }
+        }
+
+        for (Consumer consumer : consumers.values()) {
+            long quantity = consumerCounts.get(consumer.getId());
+            consumer.setEntitlementCount(consumer.getEntitlementCount() - quantity);
+        }
+
+        this.poolCurator.updateAll(pools.values(), false, false);
+        this.consumerCurator.updateAll(consumers.values(), false, false);
+
+        log.debug("Adjusted quantities of {} pools and {} consumers", pools.size(), consumers.size());
+        return entitlementIds;
+    }
+
     /**
      * Helper method for log debug messages
      * @param entitlements
@@ -2050,6 +2389,64 @@ public class CandlepinPoolManager implements PoolManager {
         return ids;
     }
 
+    private List<String> getConsumerIds(Collection<Consumer> consumers) {
+        List<String> ids = new ArrayList<>();
+
+        for (Consumer consumer : consumers) {
+            ids.add(consumer.getId());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Picks the IDs of the pools derived from each consumer's own stacks out of a map of stack
+     * derived pool IDs keyed by consumer and stack, such that a consumer is never matched with a
+     * pool derived from a stack it was not revoked from.
+     *
+     * @param consumerStackIds the stack IDs affected for each consumer
+     * @param consumerSubPoolIds the stack derived pool IDs, by consumer ID and stack ID
+     * @return the IDs of the stack derived pools to update for each consumer
+     */
+    private Map<Consumer, Set<String>> getStackDerivedPoolIds(Map<Consumer, Set<String>> consumerStackIds,
+        Map<String, Map<String, String>> consumerSubPoolIds) {
+
+        Map<Consumer, Set<String>> subPoolIds = new HashMap<>();
+
+        for (Entry<Consumer, Set<String>> entry : consumerStackIds.entrySet()) {
+            Map<String, String> stackPoolIds = consumerSubPoolIds.get(entry.getKey().getId());
+            if (stackPoolIds == null) {
+                continue;
+            }
+
+            for (String stackId : entry.getValue()) {
+                String poolId = stackPoolIds.get(stackId);
+
+                if (poolId != null) {
+                    subPoolIds.computeIfAbsent(entry.getKey(), key -> new HashSet<>()).add(poolId);
+                }
+            }
+        }
+
+        return subPoolIds;
+    }
+
+    private Map<String, Pool> getPoolsById(Collection<Set<String>> poolIds) {
+        Set<String> ids = new HashSet<>();
+        for (Set<String> block : poolIds) {
+            ids.addAll(block);
+        }
+
+        Map<String, Pool> pools = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Pool pool : this.poolCurator.listAllByIds(ids)) {
+                pools.put(pool.getId(), pool);
+            }
+        }
+
+        return pools;
+    }
+
     /**
      * Filter the given entitlements so that this method returns only
      * the entitlements that are part of some stack. Then update them
@@ -2061,7 +2458,8 @@ public class CandlepinPoolManager implements PoolManager {
      */
     private void filterAndUpdateStackingEntitlements(
         Map<Consumer, List<Entitlement>> consumerSortedEntitlements, Set<String> alreadyDeletedPools) {
-        Map<Consumer, List<Entitlement>> stackingEntitlements = new HashMap<>();
+        Map<Consumer, Set<String>> consumerStackIds = new HashMap<>();
+        Set<String> stackIds = new HashSet<>();
 
         for (Consumer consumer : consumerSortedEntitlements.keySet()) {
             List<Entitlement> ents = consumerSortedEntitlements.get(consumer);
@@ -2071,31 +2469,43 @@ public class CandlepinPoolManager implements PoolManager {
 
                     if (!"true".equals(pool.getAttributeValue(Pool.Attributes.DERIVED_POOL)) &&
                         pool.getProduct().hasAttribute(Product.Attributes.STACKING_ID)) {
-                        List<Entitlement> entList = stackingEntitlements.get(consumer);
-                        if (entList == null) {
-                            entList = new ArrayList<>();
-                            stackingEntitlements.put(consumer, entList);
-                        }
-                        entList.add(ent);
+                        consumerStackIds.computeIfAbsent(consumer, key -> new HashSet<>())
+                            .add(pool.getStackId());
+                        stackIds.add(pool.getStackId());
                     }
                 }
             }
         }
 
-        for (Entry<Consumer, List<Entitlement>> entry : stackingEntitlements.entrySet()) {
-            if (log.isDebugEnabled()) {
-                log.debug("Found {} stacking entitlements to delete for consumer: {}",
-                    entry.getValue().size(), entry.getKey());
-            }
+        if (stackIds.isEmpty()) {
+            return;
+        }
+
+        // Look up the stack derived pools of every affected consumer at once, rather than per consumer
+        Map<String, Map<String, String>> consumerSubPoolIds = this.poolCurator
+            .getConsumerStackDerivedPoolIdMap(this.getConsumerIds(consumerStackIds.keySet()), stackIds);
 
-            Set<String> stackIds = new HashSet<>();
-            for (Entitlement ent : entry.getValue()) {
-                stackIds.add(ent.getPool().getStackId());
+        Map<Consumer, Set<String>> subPoolIdsByConsumer = this.getStackDerivedPoolIds(consumerStackIds,
+            consumerSubPoolIds);
+
+        Map<String, Pool> subPools = this.getPoolsById(subPoolIdsByConsumer.values());
+
+        for (Entry<Consumer, Set<String>> entry : subPoolIdsByConsumer.entrySet()) {
+            List<Pool> consumerSubPools = new ArrayList<>();
+            for (String poolId : entry.getValue()) {
+                Pool pool = subPools.get(poolId);
+
+                if (pool != null) {
+                    consumerSubPools.add(pool);
+                }
             }
 
-            List<Pool> subPools = poolCurator.getSubPoolForStackIds(entry.getKey(), stackIds);
-            if (CollectionUtils.isNotEmpty(subPools)) {
-                poolRules.updatePoolsFromStack(entry.getKey(), subPools, null, alreadyDeletedPools, true);
+            if (!consumerSubPools.isEmpty()) {
+                log.debug("Updating {} stacking pools for consumer: {}", consumerSubPools.size(),
+                    entry.getKey());
+
+                poolRules.updatePoolsFromStack(entry.getKey(), consumerSubPools, null, alreadyDeletedPools,
+                    true);
             }
         }
     }
@@ -2177,34 +2587,29 @@ public class CandlepinPoolManager implements PoolManager {
             poolIds.add(pool.getId());
         }
 
-        // Fetch pools which are derived from the pools we're going to delete...
-        poolIds.addAll(this.poolCurator.getDerivedPoolIdsForPools(poolIds));
+        // Fetch every pool derived from the pools we're going to delete, directly or through their
+        // entitlements, in a single walk of the pool graph
+        poolIds = this.poolCurator.getPoolGraphIds(poolIds);
 
-        // Fetch related pools and entitlements (recursively)
+        // Fetch related entitlements and any stack derived pools they leave unentitled, along with
+        // the pools derived from those
         Collection<String> pids = poolIds;
-        int cachedSize;
-        do {
+        while (!pids.isEmpty()) {
             // Fetch entitlement IDs for our set of pools
             Collection<String> eids = this.poolCurator.getEntitlementIdsForPools(pids);
-
-            // Fetch pools which are derived from these entitlements...
-            pids = this.poolCurator.getPoolIdsForSourceEntitlements(eids);
+            entitlementIds.addAll(eids);
 
             // Fetch stack derived pools which will be unentitled when we revoke entitlements
             // Impl note: This may occassionally miss stack derived pools in cases where our
             // entitlement count exceeds the IN block limitations. In those cases, we'll end
             // up doing a recursive call into this method, which sucks, but will still work.
-            pids.addAll(this.poolCurator.getUnentitledStackDerivedPoolIds(eids));
+            Set<String> stackDerivedPoolIds = this.poolCurator.getUnentitledStackDerivedPoolIds(eids);
+            stackDerivedPoolIds.removeAll(poolIds);
 
-            // Fetch pools which are derived from the pools we're going to delete...
-            pids.addAll(this.poolCurator.getDerivedPoolIdsForPools(pids));
-
-            // Add the new entitlement and pool IDs to our list of things to delete
-            cachedSize = poolIds.size();
-            entitlementIds.addAll(eids);
+            pids = this.poolCurator.getPoolGraphIds(stackDerivedPoolIds);
+            pids.removeAll(poolIds);
             poolIds.addAll(pids);
         }
-        while (poolIds.size() != cachedSize);
 
         // If we've been provided a collection of already-deleted pool IDs, remove those from
         // the list so we don't try to delete them again.
@@ -2335,30 +2740,46 @@ public class CandlepinPoolManager implements PoolManager {
 
                 // Update stacked entitlements for affected consumers(???)
                 if (!stackIds.isEmpty()) {
-                    // Get consumer + pool tuples for stack ids
-                    Map<String, Set<String>> consumerStackDerivedPoolIds = this.poolCurator
-                        .getConsumerStackDerivedPoolIdMap(stackIds);
+                    Map<Consumer, Set<String>> consumerStackIds = new HashMap<>();
+                    for (Map.Entry<Consumer, List<Entitlement>> entry : consumerStackedEnts.entrySet()) {
+                        for (Entitlement entitlement : entry.getValue()) {
+                            consumerStackIds.computeIfAbsent(entry.getKey(), key -> new HashSet<>())
+                                .add(entitlement.getPool().getStackId());
+                        }
+                    }
+
+                    // Get consumer + stack + pool tuples for the stacks revoked from each consumer
+                    Map<Consumer, Set<String>> consumerStackDerivedPoolIds = this.getStackDerivedPoolIds(
+                        consumerStackIds, this.poolCurator.getConsumerStackDerivedPoolIdMap(
+                        this.getConsumerIds(consumerStackIds.keySet()), stackIds));
 
                     if (!consumerStackDerivedPoolIds.isEmpty()) {
                         log.info("Updating stacked entitlements for {} consumers...",
                             consumerStackDerivedPoolIds.size());
 
-                        for (Consumer consumer : consumerStackedEnts.keySet()) {
-                            Set<String> subPoolIds = consumerStackDerivedPoolIds.get(consumer.getId());
+                        // Resolve pool IDs...
+                        Map<String, Pool> subPools = this.getPoolsById(consumerStackDerivedPoolIds.values());
 
-                            if (subPoolIds != null && !subPoolIds.isEmpty()) {
-                                // Resolve pool IDs...
-                                Collection<Pool> subPools = this.poolCurator.listAllByIds(subPoolIds).list();
+                        for (Map.Entry<Consumer, Set<String>> entry :
+                            consumerStackDerivedPoolIds.entrySet()) {
 
-                                // Invoke the rules engine to update the affected pools
-                                if (subPools != null && !subPools.isEmpty()) {
-                                    log.debug("Updating {} stacking pools for consumer: {}",
-                                        subPools.size(), consumer);
+                            List<Pool> consumerSubPools = new ArrayList<>();
+                            for (String poolId : entry.getValue()) {
+                                Pool pool = subPools.get(poolId);
 
-                                    this.poolRules.updatePoolsFromStack(
-                                        consumer, subPools, null, alreadyDeletedPoolIds, true);
+                                if (pool != null) {
+                                    consumerSubPools.add(pool);
                                 }
                             }
+
+                            // Invoke the rules engine to update the affected pools
+                            if (!consumerSubPools.isEmpty()) {
+                                log.debug("Updating {} stacking pools for consumer: {}",
+                                    consumerSubPools.size(), entry.getKey());
+
+                                this.poolRules.updatePoolsFromStack(
+                                    entry.getKey(), consumerSubPools, null, alreadyDeletedPoolIds, true);
+                            }
                         }
                     }
                 }
@@ -2385,7 +2806,9 @@ public class CandlepinPoolManager implements PoolManager {
                 log.info("Recomputing status for {} consumers", consumerStackedEnts.keySet().size());
 
                 // Recalculate status for affected consumers
-                for (List<Consumer> subList : Iterables.partition(consumerStackedEnts.keySet(), 1000)) {
+                for (List<Consumer> subList : Iterables.partition(consumerStackedEnts.keySet(),
+                    COMPLIANCE_BLOCK_SIZE)) {
+
                     for (Consumer consumer : subList) {
                         this.complianceRules.getStatus(consumer);
                         this.systemPurposeComplianceRules.getStatus(consumer, consumer.getEntitlements(),
@@ -2507,6 +2930,11 @@ public class CandlepinPoolManager implements PoolManager {
             ownerId, productId, subscriptionId, activeOn, filters, pageRequest, postFilter,
             addFuture, onlyFuture, after);
 
+        // Load what filtering and listing the pools needs up front, instead of lazily for each pool
+        if (page != null) {
+            this.poolCurator.applyFetchProfile(page.getPageData(), PoolCurator.FetchProfile.POOL_LIST);
+        }
+
         if (consumer == null && key == null) {
             return page;
         }
@@ -2528,11 +2956,14 @@ public class CandlepinPoolManager implements PoolManager {
             resultingPools = this.filterPoolsForActKey(key, resultingPools, includeWarnings);
         }
 
-        // Set maxRecords once we are done filtering
-        page.setMaxRecords(resultingPools.size());
+        // Set maxRecords once we are done filtering. Cursor paging only lists the pools following
+        // the cursor, and never reports a record count.
+        if (pageRequest == null || !pageRequest.isCursorPaging()) {
+            page.setMaxRecords(resultingPools.size());
+        }
 
-        if (pageRequest != null && pageRequest.isPaging()) {
-            resultingPools = poolCurator.takeSubList(pageRequest, resultingPools);
+        if (pageRequest != null) {
+            resultingPools = poolCurator.takeSubList(pageRequest, resultingPools, page);
         }
 
         page.setPageData(resultingPools);
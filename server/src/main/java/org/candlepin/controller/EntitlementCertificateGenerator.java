@@ -117,6 +117,15 @@ public class EntitlementCertificateGenerator {
         Map<String, Product> products, Map<String, PoolQuantity> poolQuantities,
         Map<String, Entitlement> entitlements, boolean save) {
 
+        if (poolQuantities != null) {
+            List<Pool> pools = new LinkedList<>();
+            for (PoolQuantity poolQuantity : poolQuantities.values()) {
+                pools.add(poolQuantity.getPool());
+            }
+
+            this.poolCurator.applyFetchProfile(pools, PoolCurator.FetchProfile.CERT_GENERATION);
+        }
+
         try {
             return this.entCertServiceAdapter.generateEntitlementCerts(consumer, poolQuantities,
                 entitlements, products, save);
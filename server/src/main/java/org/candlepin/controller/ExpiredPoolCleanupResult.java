@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import org.candlepin.model.Pool;
+
+import java.util.Collection;
+import java.util.Date;
+
+
+
+/**
+ * The statistics of a single run of the expired pool cleanup: how many pools were deleted in how
+ * many blocks, how long the longest block held its transaction, and the range of expiration dates
+ * of the deleted pools. Whether expired pools were left behind, because the cleanup ran out of
+ * time, is indicated by {@link #isComplete()}; the expiration dates of those pools are not known.
+ */
+public class ExpiredPoolCleanupResult {
+    private final long started;
+    private long duration;
+    private int blockCount;
+    private int poolCount;
+    private long longestBlock;
+    private Date oldestExpiration;
+    private Date newestExpiration;
+    private boolean complete;
+
+    public ExpiredPoolCleanupResult() {
+        this.started = System.currentTimeMillis();
+    }
+
+    void addBlock(Collection<Pool> pools, long blockDuration) {
+        ++this.blockCount;
+        this.poolCount += pools.size();
+        this.longestBlock = Math.max(this.longestBlock, blockDuration);
+
+        for (Pool pool : pools) {
+            Date endDate = pool.getEndDate();
+
+            if (endDate != null) {
+                if (this.oldestExpiration == null || endDate.before(this.oldestExpiration)) {
+                    this.oldestExpiration = endDate;
+                }
+
+                if (this.newestExpiration == null || endDate.after(this.newestExpiration)) {
+                    this.newestExpiration = endDate;
+                }
+            }
+        }
+    }
+
+    void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    void finish() {
+        this.duration = System.currentTimeMillis() - this.started;
+    }
+
+    /**
+     * @return
+     *  the number of blocks processed, including a final empty or partial block
+     */
+    public int getBlockCount() {
+        return this.blockCount;
+    }
+
+    /**
+     * @return
+     *  the number of expired pools deleted
+     */
+    public int getPoolCount() {
+        return this.poolCount;
+    }
+
+    /**
+     * @return
+     *  the total duration of the cleanup, in milliseconds
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * @return
+     *  the duration of the longest block, in milliseconds
+     */
+    public long getLongestBlock() {
+        return this.longestBlock;
+    }
+
+    /**
+     * @return
+     *  the earliest expiration date of the deleted pools, or null if no pools were deleted
+     */
+    public Date getOldestExpiration() {
+        return this.oldestExpiration;
+    }
+
+    /**
+     * @return
+     *  the latest expiration date of the deleted pools, or null if no pools were deleted
+     */
+    public Date getNewestExpiration() {
+        return this.newestExpiration;
+    }
+
+    /**
+     * @return
+     *  true if no expired pools remained when the cleanup stopped; false if it stopped because it
+     *  ran out of time
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+            .append("Deleted ").append(this.poolCount).append(" expired pool(s) in ")
+            .append(this.blockCount).append(" block(s) over ").append(this.duration).append("ms")
+            .append(" (longest block: ").append(this.longestBlock).append("ms)");
+
+        if (this.oldestExpiration != null) {
+            builder.append("; expirations: ").append(this.oldestExpiration)
+                .append(" to ").append(this.newestExpiration);
+        }
+
+        if (!this.complete) {
+            builder.append("; expired pools remain");
+        }
+
+        return builder.toString();
+    }
+}
@@ -148,6 +148,52 @@ public class ManifestManager {
         return export;
     }
 
+    /**
+     * Generates a manifest for the specified consumer and streams it directly to the specified
+     * response as it is generated, without storing it on disk first.
+     *
+     * @param consumerUuid the target consumer's UUID.
+     * @param cdnLabel the CDN label to store in the meta file.
+     * @param webUrl the URL pointing to the manifest's originating web application.
+     * @param apiUrl the API URL pointing to the manifest's originating candlepin API.
+     * @param extensionData data to be passed to the {@link ExportExtensionAdapter} when creating
+     *                      a new export of the target consumer.
+     * @param response the response to write the manifest to.
+     * @throws ExportCreationException when an export fails.
+     */
+    public void writeManifestToResponse(String consumerUuid, String cdnLabel, String webUrl,
+        String apiUrl, Map<String, String> extensionData, HttpServletResponse response)
+        throws ExportCreationException {
+
+        log.info("Exporting consumer {}", consumerUuid);
+
+        Consumer consumer = validateConsumerForExport(consumerUuid, cdnLabel);
+        poolManager.regenerateDirtyEntitlements(consumer);
+
+        try {
+            response.setContentType("application/zip");
+            response.setHeader("Content-Disposition", "attachment; filename=" +
+                exporter.getExportFileName(consumer));
+
+            // NOTE: The output stream is expected to be closed by its creator.
+            BufferedOutputStream output = new BufferedOutputStream(response.getOutputStream());
+            exporter.writeFullExport(consumer, cdnLabel, webUrl, apiUrl, extensionData, output);
+            output.flush();
+        }
+        catch (IOException | ExportCreationException e) {
+            // Reset the response data so that a json response can be returned, by RestEasy,
+            // if nothing has been sent to the client yet.
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+
+            throw e instanceof ExportCreationException ? (ExportCreationException) e :
+                new ExportCreationException("Unable to create export archive", e);
+        }
+
+        sink.queueEvent(eventFactory.exportCreated(consumer));
+    }
+
     /**
      * Stores the specified archive via the {@link ManifestFileService} and triggers an
      * asynchronous manifest import.
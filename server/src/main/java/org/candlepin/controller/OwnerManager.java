@@ -14,6 +14,7 @@
  */
 package org.candlepin.controller;
 
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ContentAccessCertificateCurator;
@@ -77,6 +78,7 @@ public class OwnerManager {
     private OwnerEnvContentAccessCurator ownerEnvContentAccessCurator;
     private UeberCertificateCurator uberCertificateCurator;
     private OwnerServiceAdapter ownerServiceAdapter;
+    private UserPrincipalCache principalCache;
 
     @Inject
     public OwnerManager(ConsumerCurator consumerCurator,
@@ -88,7 +90,8 @@ public class OwnerManager {
         ContentAccessCertServiceAdapter contentAccessCertService,
         ContentAccessCertificateCurator contentAccessCertCurator,
         OwnerEnvContentAccessCurator ownerEnvContentAccessCurator,
-        UeberCertificateCurator uberCertificateCurator, OwnerServiceAdapter ownerServiceAdapter) {
+        UeberCertificateCurator uberCertificateCurator, OwnerServiceAdapter ownerServiceAdapter,
+        UserPrincipalCache principalCache) {
 
         this.consumerCurator = consumerCurator;
         this.activationKeyCurator = activationKeyCurator;
@@ -105,6 +108,7 @@ public class OwnerManager {
         this.contentAccessCertCurator = contentAccessCertCurator;
         this.ownerEnvContentAccessCurator = ownerEnvContentAccessCurator;
         this.uberCertificateCurator = uberCertificateCurator;
+        this.principalCache = principalCache;
         this.ownerServiceAdapter = ownerServiceAdapter;
     }
     @Transactional
@@ -173,6 +177,9 @@ public class OwnerManager {
             permissionCurator.delete(perm);
         }
 
+        // Cached principals of users with access to this owner still carry their permissions
+        this.ownerCurator.afterCommit(() -> this.principalCache.clear());
+
         log.info("Deleting all products...");
         this.productManager.removeAllProducts(owner);
 
@@ -167,6 +167,24 @@ public interface PoolManager {
      */
     void cleanupExpiredPools();
 
+    /**
+     * Deletes expired pools in blocks of the given size, oldest expiration first, until either no
+     * expired pools remain or the given amount of time has passed. Each block is deleted in a
+     * transaction of its own unless a transaction was already started before this method is
+     * called.
+     *
+     * @param blockSize
+     *  the number of pools to delete per block
+     *
+     * @param maxRunTime
+     *  the time, in milliseconds, after which no further blocks are started; if less than 1, the
+     *  cleanup continues until no expired pools remain
+     *
+     * @return
+     *  the statistics of the cleanup
+     */
+    ExpiredPoolCleanupResult cleanupExpiredPools(int blockSize, long maxRunTime);
+
 
     /**
      * List entitlement pools.
@@ -0,0 +1,383 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.common.config.Configuration;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
+
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+
+
+
+/**
+ * Runs the refresh of several owners concurrently on a bounded pool of worker threads.
+ * <p></p>
+ * Each owner is refreshed in isolation: its worker opens a unit of work, request scope and
+ * transaction of its own, and uses pool and owner managers created within that scope, so that
+ * events are queued on a sink of its own and only sent once its transaction has committed. An
+ * owner whose refresh fails on a lock conflict, such as a deadlock or a concurrent update of the
+ * same rows, is retried from scratch in a new transaction up to the configured number of
+ * attempts. A failing owner never affects the owners refreshed alongside it; failures are
+ * collected and reported in the {@link RefreshResult} instead.
+ */
+public class RefreshExecutor {
+    private static Logger log = LoggerFactory.getLogger(RefreshExecutor.class);
+
+    /** The base delay, in milliseconds, before retrying an owner which failed on a lock conflict */
+    private static final long RETRY_DELAY = 250;
+
+    /** SQL states reported by the supported databases for deadlocks and serialization failures */
+    private static final Set<String> LOCK_CONFLICT_SQL_STATES = Collections.unmodifiableSet(
+        new TreeSet<>(Arrays.asList("40001", "40P01", "55P03")));
+
+    /**
+     * The work performed for a single owner. Implementations must only use the managers they
+     * are given, as those are bound to the transaction of the worker running them.
+     */
+    @FunctionalInterface
+    public interface OwnerRefresh {
+        void refresh(CandlepinPoolManager poolManager, OwnerManager ownerManager, Owner owner);
+    }
+
+    private final Configuration config;
+    private final CandlepinRequestScope requestScope;
+    private final UnitOfWork unitOfWork;
+    private final Provider<EntityManager> entityManagerProvider;
+    private final Provider<CandlepinPoolManager> poolManagerProvider;
+    private final Provider<OwnerManager> ownerManagerProvider;
+    private final Provider<EventSink> eventSinkProvider;
+    private final OwnerCurator ownerCurator;
+
+    @Inject
+    public RefreshExecutor(Configuration config, CandlepinRequestScope requestScope, UnitOfWork unitOfWork,
+        Provider<EntityManager> entityManagerProvider, Provider<CandlepinPoolManager> poolManagerProvider,
+        Provider<OwnerManager> ownerManagerProvider, Provider<EventSink> eventSinkProvider,
+        OwnerCurator ownerCurator) {
+
+        this.config = config;
+        this.requestScope = requestScope;
+        this.unitOfWork = unitOfWork;
+        this.entityManagerProvider = entityManagerProvider;
+        this.poolManagerProvider = poolManagerProvider;
+        this.ownerManagerProvider = ownerManagerProvider;
+        this.eventSinkProvider = eventSinkProvider;
+        this.ownerCurator = ownerCurator;
+    }
+
+    /**
+     * Fetches the number of worker threads owners are refreshed on.
+     *
+     * @return
+     *  the number of worker threads; a value of 1 or less indicates owners should be refreshed
+     *  serially by the caller
+     */
+    public int getThreadCount() {
+        return this.config.getInt(ConfigProperties.REFRESH_THREADS, 1);
+    }
+
+    /**
+     * Refreshes the given owners concurrently, and waits for all of them to complete. The owners
+     * are looked up again by key by their workers, so the caller's instances are never shared
+     * across threads.
+     *
+     * @param refreshes
+     *  a mapping of owner keys to the work to perform for each owner
+     *
+     * @return
+     *  the aggregated result of the refresh
+     */
+    public RefreshResult execute(Map<String, OwnerRefresh> refreshes) {
+        RefreshResult result = new RefreshResult(refreshes.size());
+
+        if (refreshes.isEmpty()) {
+            return result;
+        }
+
+        int threads = Math.max(1, Math.min(this.getThreadCount(), refreshes.size()));
+        int maxAttempts = Math.max(1, this.config.getInt(ConfigProperties.REFRESH_MAX_ATTEMPTS, 3));
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+        log.info("Refreshing {} owner(s) using {} thread(s)", refreshes.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(refreshes.size());
+            for (Map.Entry<String, OwnerRefresh> entry : refreshes.entrySet()) {
+                futures.add(executor.submit(() -> {
+                    if (mdc != null) {
+                        MDC.setContextMap(mdc);
+                    }
+
+                    try {
+                        this.refreshOwner(entry.getKey(), entry.getValue(), maxAttempts, result);
+                    }
+                    finally {
+                        MDC.clear();
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (ExecutionException e) {
+            // Failures are recorded per owner; anything getting this far is a bug in the worker itself
+            throw new RuntimeException("Unexpected failure while refreshing owners", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while refreshing owners", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Owner refresh complete: {}", result);
+        return result;
+    }
+
+    private void refreshOwner(String ownerKey, OwnerRefresh refresh, int maxAttempts, RefreshResult result) {
+        MDC.put("org", ownerKey);
+
+        for (int attempt = 1; attempt <= maxAttempts; ++attempt) {
+            try {
+                this.refreshOwnerInTransaction(ownerKey, refresh);
+                result.succeeded(ownerKey);
+
+                return;
+            }
+            catch (RuntimeException e) {
+                if (attempt < maxAttempts && isLockConflict(e)) {
+                    log.warn("Lock conflict refreshing owner {}; retrying. Attempt: {}/{}", ownerKey,
+                        attempt, maxAttempts, e);
+
+                    result.retried();
+
+                    try {
+                        Thread.sleep(RETRY_DELAY * attempt);
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        result.failed(ownerKey, e);
+
+                        return;
+                    }
+
+                    continue;
+                }
+
+                log.error("Unable to refresh owner {}", ownerKey, e);
+                result.failed(ownerKey, e);
+
+                return;
+            }
+        }
+    }
+
+    private void refreshOwnerInTransaction(String ownerKey, OwnerRefresh refresh) {
+        this.requestScope.enter();
+        this.unitOfWork.begin();
+
+        EventSink eventSink = null;
+        EntityTransaction transaction = null;
+
+        try {
+            eventSink = this.eventSinkProvider.get();
+            transaction = this.entityManagerProvider.get().getTransaction();
+            transaction.begin();
+
+            Owner owner = this.ownerCurator.getByKey(ownerKey);
+            if (owner == null) {
+                throw new IllegalStateException("Owner no longer exists: " + ownerKey);
+            }
+
+            refresh.refresh(this.poolManagerProvider.get(), this.ownerManagerProvider.get(), owner);
+
+            transaction.commit();
+            eventSink.sendEvents();
+        }
+        catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            if (eventSink != null) {
+                eventSink.rollback();
+            }
+
+            throw e;
+        }
+        finally {
+            this.unitOfWork.end();
+            this.requestScope.exit();
+        }
+    }
+
+    /**
+     * Checks whether or not the given exception, or any of its causes, indicates the transaction
+     * failed because it conflicted with another transaction rather than because of its content.
+     */
+    static boolean isLockConflict(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LockTimeoutException || cause instanceof OptimisticLockException ||
+                cause instanceof PessimisticLockException || cause instanceof LockAcquisitionException ||
+                cause instanceof StaleStateException) {
+
+                return true;
+            }
+
+            if (cause instanceof SQLException &&
+                LOCK_CONFLICT_SQL_STATES.contains(((SQLException) cause).getSQLState())) {
+
+                return true;
+            }
+
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The aggregated result of refreshing a set of owners.
+     */
+    public static class RefreshResult {
+        private final int total;
+        private final Set<String> refreshed = new TreeSet<>();
+        private final Map<String, Throwable> failures = new TreeMap<>();
+        private final AtomicInteger retries = new AtomicInteger();
+
+        public RefreshResult(int total) {
+            this.total = total;
+        }
+
+        synchronized void succeeded(String ownerKey) {
+            this.refreshed.add(ownerKey);
+            log.debug("Refreshed owner {} ({}/{} complete)", ownerKey, this.getCompleted(), this.total);
+        }
+
+        synchronized void failed(String ownerKey, Throwable cause) {
+            this.failures.put(ownerKey, cause);
+            log.warn("Failed to refresh owner {} ({}/{} complete)", ownerKey, this.getCompleted(),
+                this.total);
+        }
+
+        void retried() {
+            this.retries.incrementAndGet();
+        }
+
+        /**
+         * @return
+         *  the number of owners the refresh was started for
+         */
+        public int getTotal() {
+            return this.total;
+        }
+
+        /**
+         * @return
+         *  the number of owners which have either been refreshed or have failed
+         */
+        public synchronized int getCompleted() {
+            return this.refreshed.size() + this.failures.size();
+        }
+
+        /**
+         * @return
+         *  the keys of the owners which were refreshed successfully
+         */
+        public synchronized Set<String> getRefreshedOwners() {
+            return Collections.unmodifiableSet(new TreeSet<>(this.refreshed));
+        }
+
+        /**
+         * @return
+         *  a mapping of the keys of owners which could not be refreshed to the cause of the failure
+         */
+        public synchronized Map<String, Throwable> getFailures() {
+            return Collections.unmodifiableMap(new TreeMap<>(this.failures));
+        }
+
+        /**
+         * @return
+         *  the number of times an owner refresh was retried after a lock conflict
+         */
+        public int getRetries() {
+            return this.retries.get();
+        }
+
+        /**
+         * @return
+         *  true if every owner was refreshed successfully; false otherwise
+         */
+        public synchronized boolean isSuccessful() {
+            return this.failures.isEmpty() && this.refreshed.size() == this.total;
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder builder = new StringBuilder()
+                .append("Refreshed ").append(this.refreshed.size())
+                .append(" of ").append(this.total).append(" owner(s)");
+
+            if (this.retries.get() > 0) {
+                builder.append(" with ").append(this.retries.get()).append(" retried attempt(s)");
+            }
+
+            if (!this.failures.isEmpty()) {
+                builder.append("; failed: ").append(this.failures.keySet());
+            }
+
+            return builder.toString();
+        }
+    }
+}
@@ -14,6 +14,8 @@
  */
 package org.candlepin.controller;
 
+import org.candlepin.controller.RefreshExecutor.OwnerRefresh;
+import org.candlepin.controller.RefreshExecutor.RefreshResult;
 import org.candlepin.model.Owner;
 import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
@@ -31,6 +33,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -47,6 +52,8 @@ public class Refresher {
     private OwnerManager ownerManager;
     private boolean lazy;
     private UnitOfWork uow;
+    private RefreshExecutor executor;
+    private RefreshResult result;
     private static Logger log = LoggerFactory.getLogger(Refresher.class);
 
     private Map<String, Owner> owners = new HashMap<>();
@@ -67,6 +74,32 @@ public class Refresher {
         return this;
     }
 
+    /**
+     * Sets the executor used to refresh several owners concurrently. Without an executor, or when
+     * the executor is configured with a single thread, all owners are refreshed serially by the
+     * calling thread, within its transaction.
+     *
+     * @param executor
+     *  the executor to use for concurrent refreshes
+     *
+     * @return
+     *  this Refresher instance
+     */
+    public Refresher setExecutor(RefreshExecutor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Fetches the result of the last run of this refresher.
+     *
+     * @return
+     *  the result of the last run, or null if this refresher has not yet been run
+     */
+    public RefreshResult getResult() {
+        return this.result;
+    }
+
     public Refresher add(Owner owner) {
         if (owner == null || owner.getKey() == null) {
             throw new IllegalArgumentException("Owner is null or lacks identifying information");
@@ -128,6 +161,9 @@ public class Refresher {
             subscriptions.addAll(subs);
         }
 
+        // Group the subscriptions by owner, so the refresh of each owner can be isolated from the others
+        Map<String, List<SubscriptionInfo>> subscriptionsByOwner = new LinkedHashMap<>();
+
         for (SubscriptionInfo subscription : subscriptions) {
             // drop any subs for owners in our owners list. we'll get them with the full
             // refreshPools call.
@@ -144,6 +180,69 @@ public class Refresher {
                 continue;
             }
 
+            subscriptionsByOwner.computeIfAbsent(so.getKey(), key -> new LinkedList<>())
+                .add(subscription);
+        }
+
+        int ownerCount = subscriptionsByOwner.size() + this.owners.size();
+
+        if (this.executor != null && this.executor.getThreadCount() > 1 && ownerCount > 1) {
+            Map<String, OwnerRefresh> refreshes = new LinkedHashMap<>();
+
+            // Only the subscription IDs are handed to the workers; each worker fetches its owner's
+            // subscriptions again, so the instances loaded here are never shared across threads
+            for (Map.Entry<String, List<SubscriptionInfo>> entry : subscriptionsByOwner.entrySet()) {
+                List<String> subscriptionIds = new LinkedList<>();
+                for (SubscriptionInfo subscription : entry.getValue()) {
+                    subscriptionIds.add(subscription.getId());
+                }
+
+                refreshes.put(entry.getKey(), (poolManager, ownerManager, owner) ->
+                    this.refreshSubscriptions(poolManager, this.fetchSubscriptions(subscriptionIds)));
+            }
+
+            for (String ownerKey : this.owners.keySet()) {
+                refreshes.put(ownerKey, this::refreshOwner);
+            }
+
+            this.result = this.executor.execute(refreshes);
+            return;
+        }
+
+        this.result = new RefreshResult(ownerCount);
+
+        for (Map.Entry<String, List<SubscriptionInfo>> entry : subscriptionsByOwner.entrySet()) {
+            this.refreshSubscriptions(this.poolManager, entry.getValue());
+            this.result.succeeded(entry.getKey());
+        }
+
+        for (Owner owner : this.owners.values()) {
+            this.refreshOwner(this.poolManager, this.ownerManager, owner);
+            this.result.succeeded(owner.getKey());
+        }
+    }
+
+    private List<SubscriptionInfo> fetchSubscriptions(Collection<String> subscriptionIds) {
+        List<SubscriptionInfo> subscriptions = new LinkedList<>();
+
+        for (String subscriptionId : subscriptionIds) {
+            SubscriptionInfo subscription = this.subAdapter.getSubscription(subscriptionId);
+
+            if (subscription == null) {
+                log.debug("Skipping subscription which no longer exists: {}", subscriptionId);
+                continue;
+            }
+
+            subscriptions.add(subscription);
+        }
+
+        return subscriptions;
+    }
+
+    private void refreshSubscriptions(CandlepinPoolManager poolManager,
+        Collection<SubscriptionInfo> subscriptions) {
+
+        for (SubscriptionInfo subscription : subscriptions) {
             /*
              * on the off chance that this is actually a new subscription, make
              * the required pools. this shouldn't happen; we should really get a
@@ -155,17 +254,17 @@ public class Refresher {
              * dirty, they will never get regenerated
              */
             Pool masterPool = poolManager.convertToMasterPool(subscription);
-            poolManager.refreshPoolsForMasterPool(masterPool, true, lazy,
+            poolManager.refreshPoolsForMasterPool(masterPool, true, this.lazy,
                 Collections.<String, Product>emptyMap());
         }
+    }
 
-        for (Owner owner : this.owners.values()) {
-            poolManager.refreshPoolsWithRegeneration(this.subAdapter, owner, this.lazy);
-            poolManager.recalculatePoolQuantitiesForOwner(owner);
+    private void refreshOwner(CandlepinPoolManager poolManager, OwnerManager ownerManager, Owner owner) {
+        poolManager.refreshPoolsWithRegeneration(this.subAdapter, owner, this.lazy);
+        poolManager.recalculatePoolQuantitiesForOwner(owner);
 
-            ownerManager.refreshContentAccessMode(this.ownerAdapter, owner);
-            ownerManager.updateRefreshDate(owner);
-        }
+        ownerManager.refreshContentAccessMode(this.ownerAdapter, owner);
+        ownerManager.updateRefreshDate(owner);
     }
 
 }
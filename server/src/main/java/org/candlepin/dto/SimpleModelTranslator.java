@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 
@@ -39,12 +40,16 @@ public class SimpleModelTranslator implements ModelTranslator {
     // output => input => translator
     protected Map<Class, Map<Class, ObjectTranslator>> translators;
 
+    // output => input => translator, as resolved by findTranslatorByClass for requested classes
+    // which may only be mapped through one of their superclasses or interfaces
+    protected Map<Class, Map<Class, ObjectTranslator>> resolvedTranslators;
 
     /**
      * Initializes a new ModelTranslator instance.
      */
     public SimpleModelTranslator() {
         this.translators = new HashMap<>();
+        this.resolvedTranslators = new ConcurrentHashMap<>();
     }
 
     /**
@@ -74,6 +79,7 @@ public class SimpleModelTranslator implements ModelTranslator {
 
         ObjectTranslator<I, O> existing = (ObjectTranslator<I, O>) inputMappings.get(inputClass);
         inputMappings.put(inputClass, translator);
+        this.resolvedTranslators.clear();
 
         return existing;
     }
@@ -91,6 +97,8 @@ public class SimpleModelTranslator implements ModelTranslator {
             throw new IllegalArgumentException("outputClass is null");
         }
 
+        this.resolvedTranslators.clear();
+
         Map<Class, ObjectTranslator> inputMappings = this.translators.get(outputClass);
         return inputMappings != null ? (ObjectTranslator<I, O>) inputMappings.remove(inputClass) : null;
     }
@@ -105,6 +113,7 @@ public class SimpleModelTranslator implements ModelTranslator {
         }
 
         int mappings = 0;
+        this.resolvedTranslators.clear();
 
         for (Map<Class, ObjectTranslator> inputMappings : this.translators.values()) {
             Iterator<ObjectTranslator> translators = inputMappings.values().iterator();
@@ -214,6 +223,11 @@ public class SimpleModelTranslator implements ModelTranslator {
      * 7. If C is not null, go to step 2
      * 8. Return T
      * </pre>
+     * Translators found are remembered for the given pair of classes, so the class hierarchy is only
+     * walked the first time a pair is looked up, or after the registered translators have changed.
+     * This matters most when translating large result sets, as each nested object translated for
+     * each element of a result set, many of which are Hibernate proxies of their entity classes,
+     * requires its own lookup.
      *
      * @param inputClass
      *  The input class for which to find a translator
@@ -240,7 +254,13 @@ public class SimpleModelTranslator implements ModelTranslator {
             throw new IllegalArgumentException("outputClass is null");
         }
 
-        ObjectTranslator<I, O> translator = null;
+        Map<Class, ObjectTranslator> resolved = this.resolvedTranslators
+            .computeIfAbsent(outputClass, key -> new ConcurrentHashMap<>());
+
+        ObjectTranslator<I, O> translator = (ObjectTranslator<I, O>) resolved.get(inputClass);
+        if (translator != null) {
+            return translator;
+        }
 
         // TODO: This is broken for finding nearest output. Output cannot be less specific than
         // specified; it can only get more specific.
@@ -261,6 +281,7 @@ public class SimpleModelTranslator implements ModelTranslator {
             throw new TranslationException(msg);
         }
 
+        resolved.put(inputClass, translator);
         return translator;
     }
 
@@ -32,6 +32,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.config.DatabaseConfigFactory;
 import org.candlepin.controller.QpidStatusMonitor;
 import org.candlepin.controller.SuspendModeTransitioner;
+import org.candlepin.hibernate.RequestStatisticsLoadListener;
 import org.candlepin.logging.LoggerContextListener;
 import org.candlepin.pinsetter.core.PinsetterContextListener;
 import org.candlepin.pki.impl.JSSProviderLoader;
@@ -145,6 +146,7 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
     public void withInjector(Injector injector) {
         // Must call super.contextInitialized() before accessing injector
         insertValidationEventListeners(injector);
+        insertStatisticsEventListeners(injector);
         ResourceLocatorMap map = injector.getInstance(ResourceLocatorMap.class);
         map.init();
 
@@ -309,19 +311,37 @@ public class CandlepinContextListener extends GuiceResteasyBootstrapServletConte
      * @param injector
      */
     private void insertValidationEventListeners(Injector injector) {
+        EventListenerRegistry registry = getEventListenerRegistry(injector);
+
+        javax.inject.Provider<BeanValidationEventListener> listenerProvider =
+            injector.getProvider(BeanValidationEventListener.class);
+        registry.getEventListenerGroup(EventType.PRE_INSERT).appendListener(listenerProvider.get());
+        registry.getEventListenerGroup(EventType.PRE_UPDATE).appendListener(listenerProvider.get());
+        registry.getEventListenerGroup(EventType.PRE_DELETE).appendListener(listenerProvider.get());
+    }
+
+    /**
+     * Adds the listener counting the entities and collections loaded for the request statistics.
+     * The listener is appended after the default listeners, so collections are only counted once
+     * they have been fetched.
+     * @param injector
+     */
+    private void insertStatisticsEventListeners(Injector injector) {
+        EventListenerRegistry registry = getEventListenerRegistry(injector);
+
+        RequestStatisticsLoadListener listener = new RequestStatisticsLoadListener();
+        registry.getEventListenerGroup(EventType.POST_LOAD).appendListener(listener);
+        registry.getEventListenerGroup(EventType.INIT_COLLECTION).appendListener(listener);
+    }
+
+    private EventListenerRegistry getEventListenerRegistry(Injector injector) {
         javax.inject.Provider<EntityManagerFactory> emfProvider =
             injector.getProvider(EntityManagerFactory.class);
         HibernateEntityManagerFactory hibernateEntityManagerFactory =
             (HibernateEntityManagerFactory) emfProvider.get();
         SessionFactoryImpl sessionFactoryImpl =
             (SessionFactoryImpl) hibernateEntityManagerFactory.getSessionFactory();
-        EventListenerRegistry registry =
-            sessionFactoryImpl.getServiceRegistry().getService(EventListenerRegistry.class);
 
-        javax.inject.Provider<BeanValidationEventListener> listenerProvider =
-            injector.getProvider(BeanValidationEventListener.class);
-        registry.getEventListenerGroup(EventType.PRE_INSERT).appendListener(listenerProvider.get());
-        registry.getEventListenerGroup(EventType.PRE_UPDATE).appendListener(listenerProvider.get());
-        registry.getEventListenerGroup(EventType.PRE_DELETE).appendListener(listenerProvider.get());
+        return sessionFactoryImpl.getServiceRegistry().getService(EventListenerRegistry.class);
     }
 }
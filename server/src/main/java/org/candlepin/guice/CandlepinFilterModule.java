@@ -20,6 +20,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.servlet.filter.CandlepinPersistFilter;
 import org.candlepin.servlet.filter.CandlepinScopeFilter;
 import org.candlepin.servlet.filter.EventFilter;
+import org.candlepin.servlet.filter.RequestStatisticsFilter;
 
 import com.google.inject.servlet.ServletModule;
 
@@ -56,6 +57,7 @@ public class CandlepinFilterModule extends ServletModule {
 
         filterRegex(regex).through(CandlepinScopeFilter.class);
         filterRegex(regex).through(CandlepinPersistFilter.class);
+        filterRegex(regex).through(RequestStatisticsFilter.class);
         filterRegex(regex).through(LoggingFilter.class, loggingFilterConfig);
         filterRegex(regex).through(EventFilter.class);
 
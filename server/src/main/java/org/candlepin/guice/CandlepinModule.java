@@ -37,6 +37,7 @@ import org.candlepin.auth.Principal;
 import org.candlepin.bind.BindChainFactory;
 import org.candlepin.bind.BindContextFactory;
 import org.candlepin.bind.PreEntitlementRulesCheckOpFactory;
+import org.candlepin.cache.ExportCache;
 import org.candlepin.cache.JCacheManagerProvider;
 import org.candlepin.common.config.Configuration;
 import org.candlepin.common.config.ConfigurationPrefixes;
@@ -124,6 +125,7 @@ import org.candlepin.resource.EventResource;
 import org.candlepin.resource.GuestIdResource;
 import org.candlepin.resource.HypervisorResource;
 import org.candlepin.resource.JobResource;
+import org.candlepin.resource.MetricsResource;
 import org.candlepin.resource.OwnerContentResource;
 import org.candlepin.resource.OwnerProductResource;
 import org.candlepin.resource.OwnerResource;
@@ -145,7 +147,11 @@ import org.candlepin.resteasy.filter.AuthorizationFeature;
 import org.candlepin.resteasy.filter.CandlepinQueryInterceptor;
 import org.candlepin.resteasy.filter.CandlepinSuspendModeFilter;
 import org.candlepin.resteasy.filter.ConsumerCheckInFilter;
+import org.candlepin.resteasy.filter.MetricsFeature;
 import org.candlepin.resteasy.filter.PinsetterAsyncFilter;
+import org.candlepin.resteasy.filter.ReadOnlyRequestFeature;
+import org.candlepin.resteasy.filter.ReadOnlyRequestFilter;
+import org.candlepin.resteasy.filter.RequestStatisticsFeature;
 import org.candlepin.resteasy.filter.SecurityHoleAuthorizationFilter;
 import org.candlepin.resteasy.filter.StoreFactory;
 import org.candlepin.resteasy.filter.SuperAdminAuthorizationFilter;
@@ -263,6 +269,7 @@ public class CandlepinModule extends AbstractModule {
         bind(RulesResource.class);
         bind(AdminResource.class);
         bind(StatusResource.class);
+        bind(MetricsResource.class);
         bind(EnvironmentResource.class);
         bind(NotSupportedExceptionMapper.class);
         bind(NotAuthorizedExceptionMapper.class);
@@ -381,6 +388,10 @@ public class CandlepinModule extends AbstractModule {
         bind(VersionResponseFilter.class);
         bind(LinkHeaderResponseFilter.class);
         bind(DynamicJsonFilter.class);
+        bind(ReadOnlyRequestFeature.class);
+        bind(ReadOnlyRequestFilter.class);
+        bind(RequestStatisticsFeature.class);
+        bind(MetricsFeature.class);
 
         bindConstant().annotatedWith(Names.named("PREFIX_APIURL_KEY")).to(ConfigProperties.PREFIX_APIURL);
     }
@@ -398,6 +409,7 @@ public class CandlepinModule extends AbstractModule {
 
     private void configureExporter() {
         bind(Exporter.class);
+        bind(ExportCache.class);
         bind(MetaExporter.class);
         bind(ConsumerTypeExporter.class);
         bind(ConsumerExporter.class);
@@ -42,6 +42,17 @@ public class CandlepinRequestScope implements Scope {
         ResteasyProviderFactory.popContextData(CandlepinRequestScopeData.class);
     }
 
+    /**
+     * Checks whether or not the current thread is within a scoping block, without the cost of
+     * attempting to provision a scoped object outside of one.
+     *
+     * @return
+     *  true if the current thread is within a scoping block; false otherwise
+     */
+    public static boolean isActive() {
+        return ResteasyProviderFactory.getContextData(CandlepinRequestScopeData.class) != null;
+    }
+
     public <T> Provider<T> scope(final Key<T> key, final Provider<T> unscoped) {
         return new Provider<T>() {
             public T get() {
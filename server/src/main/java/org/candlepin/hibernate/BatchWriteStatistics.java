@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.BaseSessionEventListener;
+
+
+
+/**
+ * Session event listener which counts the JDBC work performed by a session while it is active,
+ * used to report how well bulk writes are being batched. Session event listeners cannot be
+ * removed from a session once added, so the listener stops counting once stopped rather than
+ * being detached.
+ * <p></p>
+ * Rather than being added to a session, statistics may also be begun for the current thread, in
+ * which case the {@link RequestStatisticsListener} already registered with every session forwards
+ * the session's events to them until they are stopped. This avoids adding a listener to the
+ * session each time statistics are collected.
+ */
+public class BatchWriteStatistics extends BaseSessionEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<BatchWriteStatistics> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean active;
+
+    private int flushes;
+    private int flushedEntities;
+    private int preparedStatements;
+    private int executedStatements;
+    private int executedBatches;
+    private long start;
+    private long end;
+
+    public BatchWriteStatistics() {
+        this.active = true;
+        this.start = System.currentTimeMillis();
+    }
+
+    /**
+     * Begins collecting statistics of the JDBC work performed by the sessions of the current
+     * thread, unless statistics are already being collected for it.
+     *
+     * @return
+     *  the new statistics being collected for the current thread, or null if statistics were
+     *  already being collected for it
+     */
+    public static BatchWriteStatistics begin() {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+
+        BatchWriteStatistics statistics = new BatchWriteStatistics();
+        CURRENT.set(statistics);
+
+        return statistics;
+    }
+
+    /**
+     * Fetches the statistics being collected for the current thread.
+     *
+     * @return
+     *  the statistics being collected for the current thread, or null if statistics are not being
+     *  collected for it
+     */
+    public static BatchWriteStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops counting the JDBC work performed by the session, or by the sessions of the current
+     * thread if the statistics were begun for it.
+     *
+     * @return
+     *  this statistics instance
+     */
+    public BatchWriteStatistics stop() {
+        if (this.active) {
+            this.active = false;
+            this.end = System.currentTimeMillis();
+        }
+
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+
+        return this;
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        if (this.active) {
+            ++this.preparedStatements;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        if (this.active) {
+            ++this.executedStatements;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        if (this.active) {
+            ++this.executedBatches;
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (this.active) {
+            ++this.flushes;
+            this.flushedEntities += numberOfEntities;
+        }
+    }
+
+    /**
+     * @return
+     *  the number of times the session was flushed
+     */
+    public int getFlushes() {
+        return this.flushes;
+    }
+
+    /**
+     * @return
+     *  the number of entities processed by the flushes of the session
+     */
+    public int getFlushedEntities() {
+        return this.flushedEntities;
+    }
+
+    /**
+     * @return
+     *  the number of JDBC statements prepared
+     */
+    public int getPreparedStatements() {
+        return this.preparedStatements;
+    }
+
+    /**
+     * @return
+     *  the number of JDBC statements executed individually, outside of a batch
+     */
+    public int getExecutedStatements() {
+        return this.executedStatements;
+    }
+
+    /**
+     * @return
+     *  the number of JDBC batches executed
+     */
+    public int getExecutedBatches() {
+        return this.executedBatches;
+    }
+
+    /**
+     * @return
+     *  the time, in milliseconds, the statistics were collected for
+     */
+    public long getDuration() {
+        return (this.active ? System.currentTimeMillis() : this.end) - this.start;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d flush(es) of %d entities; %d JDBC batch(es), %d statement(s) executed " +
+            "individually, %d statement(s) prepared; %dms", this.flushes, this.flushedEntities,
+            this.executedBatches, this.executedStatements, this.preparedStatements, this.getDuration());
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+
+
+/**
+ * Statement inspector which records the SQL of each statement prepared in the request statistics
+ * being collected for the current thread, if any. The SQL is not altered. The inspector is shared
+ * by every session, as configured through the "hibernate.session_factory.statement_inspector"
+ * property.
+ */
+public class RequestStatementInspector implements StatementInspector {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        RequestStatistics stats = RequestStatistics.current();
+        if (stats != null) {
+            stats.statementPrepared(sql);
+        }
+
+        return sql;
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * Collects the database work performed on behalf of a single request: the JDBC statements
+ * prepared and executed, the time spent executing them, the entities and collections loaded and
+ * the flushes performed, along with the SQL of the statements prepared.
+ * <p></p>
+ * Statistics are collected for the thread which began them, until they are ended, by the
+ * Hibernate listeners and statement inspector in this package. Work performed on threads without
+ * statistics, such as by Pinsetter jobs, is not collected. Statistics are not thread-safe, and
+ * should not be read until they have been ended.
+ */
+public class RequestStatistics {
+    /** The maximum number of distinct SQL statements tracked per request */
+    public static final int MAX_TRACKED_STATEMENTS = 100;
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private final long start;
+    private long end;
+
+    private String endpoint;
+    private int preparedStatements;
+    private int executedStatements;
+    private int executedBatches;
+    private int flushes;
+    private int entitiesLoaded;
+    private int collectionsFetched;
+    private long databaseTime;
+    private int untrackedStatements;
+    private final Map<String, Integer> statements;
+
+    private RequestStatistics() {
+        this.start = System.nanoTime();
+        this.end = -1;
+        this.statements = new LinkedHashMap<>();
+    }
+
+    /**
+     * Begins collecting statistics for the current thread, replacing any statistics already being
+     * collected for it.
+     *
+     * @return
+     *  the statistics being collected for the current thread
+     */
+    public static RequestStatistics begin() {
+        RequestStatistics stats = new RequestStatistics();
+        CURRENT.set(stats);
+
+        return stats;
+    }
+
+    /**
+     * Fetches the statistics being collected for the current thread.
+     *
+     * @return
+     *  the statistics being collected for the current thread, or null if statistics are not being
+     *  collected for it
+     */
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops collecting statistics for the current thread.
+     *
+     * @return
+     *  the statistics which had been collected for the current thread, or null if statistics were
+     *  not being collected for it
+     */
+    public static RequestStatistics end() {
+        RequestStatistics stats = CURRENT.get();
+        CURRENT.remove();
+
+        if (stats != null && stats.end < 0) {
+            stats.end = System.nanoTime();
+        }
+
+        return stats;
+    }
+
+    void statementPrepared(String sql) {
+        ++this.preparedStatements;
+
+        if (sql == null) {
+            return;
+        }
+
+        Integer count = this.statements.get(sql);
+        if (count != null) {
+            this.statements.put(sql, count + 1);
+        }
+        else if (this.statements.size() < MAX_TRACKED_STATEMENTS) {
+            this.statements.put(sql, 1);
+        }
+        else {
+            ++this.untrackedStatements;
+        }
+    }
+
+    void statementExecuted(long nanos) {
+        ++this.executedStatements;
+        this.databaseTime += nanos;
+    }
+
+    void batchExecuted(long nanos) {
+        ++this.executedBatches;
+        this.databaseTime += nanos;
+    }
+
+    void flushed() {
+        ++this.flushes;
+    }
+
+    void entityLoaded() {
+        ++this.entitiesLoaded;
+    }
+
+    void collectionFetched() {
+        ++this.collectionsFetched;
+    }
+
+    /**
+     * Sets the name of the endpoint which served the request.
+     *
+     * @param endpoint
+     *  The name of the endpoint which served the request
+     */
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return
+     *  the name of the endpoint which served the request, or null if the request was not
+     *  dispatched to an endpoint
+     */
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * @return
+     *  the number of JDBC statements prepared
+     */
+    public int getPreparedStatements() {
+        return this.preparedStatements;
+    }
+
+    /**
+     * @return
+     *  the number of JDBC statements executed individually, outside of a batch
+     */
+    public int getExecutedStatements() {
+        return this.executedStatements;
+    }
+
+    /**
+     * @return
+     *  the number of JDBC batches executed
+     */
+    public int getExecutedBatches() {
+        return this.executedBatches;
+    }
+
+    /**
+     * @return
+     *  the number of session flushes performed
+     */
+    public int getFlushes() {
+        return this.flushes;
+    }
+
+    /**
+     * @return
+     *  the number of entities loaded from the database
+     */
+    public int getEntitiesLoaded() {
+        return this.entitiesLoaded;
+    }
+
+    /**
+     * @return
+     *  the number of lazy collections fetched; collections fetched together by a batch fetch are
+     *  counted once
+     */
+    public int getCollectionsFetched() {
+        return this.collectionsFetched;
+    }
+
+    /**
+     * @return
+     *  the time, in milliseconds, spent executing JDBC statements and batches
+     */
+    public long getDatabaseTime() {
+        return TimeUnit.NANOSECONDS.toMillis(this.databaseTime);
+    }
+
+    /**
+     * @return
+     *  the time, in nanoseconds, spent executing JDBC statements and batches
+     */
+    public long getDatabaseTimeNanos() {
+        return this.databaseTime;
+    }
+
+    /**
+     * @return
+     *  the time, in milliseconds, for which the statistics were collected
+     */
+    public long getDuration() {
+        return TimeUnit.NANOSECONDS.toMillis((this.end < 0 ? System.nanoTime() : this.end) - this.start);
+    }
+
+    /**
+     * Fetches the SQL of the statements prepared most often, along with the number of times each
+     * was prepared, in descending order of count.
+     *
+     * @param limit
+     *  The maximum number of statements to fetch
+     *
+     * @return
+     *  a list of the SQL statements prepared most often, and their counts
+     */
+    public List<Map.Entry<String, Integer>> getFrequentStatements(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(this.statements.entrySet());
+        entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    /**
+     * @return
+     *  the number of statements prepared which were not tracked, as the maximum number of distinct
+     *  statements had already been tracked
+     */
+    public int getUntrackedStatements() {
+        return this.untrackedStatements;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d statement(s) prepared, %d executed individually, %d batch(es) " +
+            "executed in %dms; %d entities loaded, %d collection(s) fetched, %d flush(es); %dms",
+            this.preparedStatements, this.executedStatements, this.executedBatches,
+            this.getDatabaseTime(), this.entitiesLoaded, this.collectionsFetched, this.flushes,
+            this.getDuration());
+    }
+}
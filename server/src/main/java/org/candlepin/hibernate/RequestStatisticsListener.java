@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.BaseSessionEventListener;
+
+
+
+/**
+ * Session event listener which times the JDBC statements and batches executed by its session, and
+ * counts its flushes, adding them to the request statistics being collected for the current
+ * thread, if any. The session's events are also forwarded to the batch write statistics being
+ * collected for the current thread, if any. An instance is created for each session, as
+ * configured through the "hibernate.session.events.auto" property.
+ */
+public class RequestStatisticsListener extends BaseSessionEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        BatchWriteStatistics batchStats = BatchWriteStatistics.current();
+        if (batchStats != null) {
+            batchStats.jdbcPrepareStatementStart();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        this.statementStart = System.nanoTime();
+
+        BatchWriteStatistics batchStats = BatchWriteStatistics.current();
+        if (batchStats != null) {
+            batchStats.jdbcExecuteStatementStart();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestStatistics stats = RequestStatistics.current();
+        if (stats != null) {
+            stats.statementExecuted(System.nanoTime() - this.statementStart);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        this.batchStart = System.nanoTime();
+
+        BatchWriteStatistics batchStats = BatchWriteStatistics.current();
+        if (batchStats != null) {
+            batchStats.jdbcExecuteBatchStart();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestStatistics stats = RequestStatistics.current();
+        if (stats != null) {
+            stats.batchExecuted(System.nanoTime() - this.batchStart);
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestStatistics stats = RequestStatistics.current();
+        if (stats != null) {
+            stats.flushed();
+        }
+
+        BatchWriteStatistics batchStats = BatchWriteStatistics.current();
+        if (batchStats != null) {
+            batchStats.flushEnd(numberOfEntities, numberOfCollections);
+        }
+    }
+}
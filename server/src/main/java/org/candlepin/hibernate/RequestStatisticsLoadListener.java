@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+
+
+/**
+ * Event listener which counts the entities loaded and the lazy collections fetched in the request
+ * statistics being collected for the current thread, if any. Registered with the session factory
+ * after the default listeners.
+ */
+public class RequestStatisticsLoadListener implements PostLoadEventListener,
+    InitializeCollectionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestStatistics stats = RequestStatistics.current();
+        if (stats != null) {
+            stats.entityLoaded();
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        RequestStatistics stats = RequestStatistics.current();
+        if (stats != null) {
+            stats.collectionFetched();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import org.candlepin.hibernate.RequestStatistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+
+/**
+ * The aggregated database statistics of the requests served by a single endpoint.
+ */
+public class EndpointStatistics {
+    private static final double[] COUNT_BOUNDS = { 0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 5000 };
+    private static final double[] LOAD_BOUNDS = { 0, 1, 10, 100, 1000, 10000, 100000 };
+    private static final double[] TIME_BOUNDS =
+        { 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+    private final String endpoint;
+    private final LongAdder requests;
+    private final LongAdder slowRequests;
+    private final LongAdder flushes;
+    private final Histogram statements;
+    private final Histogram entitiesLoaded;
+    private final Histogram collectionsFetched;
+    private final Histogram databaseTime;
+
+    public EndpointStatistics(String endpoint) {
+        this.endpoint = endpoint;
+        this.requests = new LongAdder();
+        this.slowRequests = new LongAdder();
+        this.flushes = new LongAdder();
+        this.statements = new Histogram(COUNT_BOUNDS);
+        this.entitiesLoaded = new Histogram(LOAD_BOUNDS);
+        this.collectionsFetched = new Histogram(COUNT_BOUNDS);
+        this.databaseTime = new Histogram(TIME_BOUNDS);
+    }
+
+    /**
+     * Adds the statistics of a request served by the endpoint to its aggregates.
+     *
+     * @param stats
+     *  The statistics collected for the request
+     *
+     * @param slow
+     *  Whether or not the request exceeded the configured thresholds
+     */
+    public void record(RequestStatistics stats, boolean slow) {
+        this.requests.increment();
+        this.flushes.add(stats.getFlushes());
+        this.statements.observe(stats.getPreparedStatements());
+        this.entitiesLoaded.observe(stats.getEntitiesLoaded());
+        this.collectionsFetched.observe(stats.getCollectionsFetched());
+        this.databaseTime.observe((double) stats.getDatabaseTimeNanos() / TimeUnit.SECONDS.toNanos(1));
+
+        if (slow) {
+            this.slowRequests.increment();
+        }
+    }
+
+    /**
+     * @return
+     *  the name of the endpoint
+     */
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * @return
+     *  the number of requests served by the endpoint
+     */
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    /**
+     * @return
+     *  the number of requests served by the endpoint which exceeded the configured thresholds
+     */
+    public long getSlowRequests() {
+        return this.slowRequests.sum();
+    }
+
+    /**
+     * @return
+     *  the number of session flushes performed by requests served by the endpoint
+     */
+    public long getFlushes() {
+        return this.flushes.sum();
+    }
+
+    /**
+     * @return
+     *  a histogram of the number of JDBC statements prepared per request
+     */
+    public Histogram getStatements() {
+        return this.statements;
+    }
+
+    /**
+     * @return
+     *  a histogram of the number of entities loaded per request
+     */
+    public Histogram getEntitiesLoaded() {
+        return this.entitiesLoaded;
+    }
+
+    /**
+     * @return
+     *  a histogram of the number of lazy collections fetched per request
+     */
+    public Histogram getCollectionsFetched() {
+        return this.collectionsFetched;
+    }
+
+    /**
+     * @return
+     *  a histogram of the time, in seconds, spent executing JDBC statements per request
+     */
+    public Histogram getDatabaseTime() {
+        return this.databaseTime;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+
+
+/**
+ * A histogram counting observed values into a fixed set of buckets, each bucket counting the
+ * values less than or equal to its upper bound. Values greater than the largest bound are counted
+ * by an implicit, unbounded final bucket.
+ * <p></p>
+ * Histograms are safe for use by several threads at once, though a reader may see the effects of
+ * an observation made concurrently with its read on some of the histogram's counts but not others.
+ */
+public class Histogram {
+    /** The label used for the upper bound of the final, unbounded bucket */
+    public static final String INFINITE_BOUND = "+Inf";
+
+    private final double[] bounds;
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+    private final DoubleAdder sum;
+
+    /**
+     * Creates a new histogram with buckets for the given upper bounds.
+     *
+     * @param bounds
+     *  The upper bounds of the histogram's buckets, in ascending order
+     *
+     * @throws IllegalArgumentException
+     *  if no bounds are provided, or the bounds are not in ascending order
+     */
+    public Histogram(double... bounds) {
+        if (bounds == null || bounds.length == 0) {
+            throw new IllegalArgumentException("no bucket bounds provided");
+        }
+
+        for (int i = 1; i < bounds.length; ++i) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bucket bounds are not in ascending order");
+            }
+        }
+
+        this.bounds = Arrays.copyOf(bounds, bounds.length);
+        this.counts = new AtomicLongArray(bounds.length + 1);
+        this.count = new LongAdder();
+        this.sum = new DoubleAdder();
+    }
+
+    /**
+     * Records an observation of the given value.
+     *
+     * @param value
+     *  The value observed
+     */
+    public void observe(double value) {
+        int index = Arrays.binarySearch(this.bounds, value);
+        if (index < 0) {
+            // Not an exact match; the insertion point is the first bound greater than the value
+            index = -index - 1;
+        }
+
+        this.counts.incrementAndGet(index);
+        this.count.increment();
+        this.sum.add(value);
+    }
+
+    /**
+     * @return
+     *  the number of values observed
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * @return
+     *  the sum of the values observed
+     */
+    public double getSum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * Fetches the cumulative counts of the histogram's buckets, keyed by their upper bounds, in
+     * ascending order of bound. The count of each bucket includes the values counted by the
+     * buckets before it, so the count of the final, unbounded bucket is the number of values
+     * observed.
+     *
+     * @return
+     *  a map of bucket upper bounds to the number of values less than or equal to them
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        long total = 0;
+
+        for (int i = 0; i < this.bounds.length; ++i) {
+            total += this.counts.get(i);
+            buckets.put(formatBound(this.bounds[i]), total);
+        }
+
+        total += this.counts.get(this.bounds.length);
+        buckets.put(INFINITE_BOUND, total);
+
+        return buckets;
+    }
+
+    private static String formatBound(double bound) {
+        if (Double.isInfinite(bound) || Double.isNaN(bound)) {
+            return Double.toString(bound);
+        }
+
+        // Plain notation, without trailing zeros: "0.0005" and "100" rather than "5.0E-4" and "100.0"
+        return BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Holds the metrics recorded as Candlepin serves requests: the latency, response size and
+ * in-flight requests of each resource method, and the time taken by each call into the rules.
+ * The metrics are kept for the life of the server, and exported by the metrics resource.
+ */
+@Singleton
+public class MetricsRegistry {
+    private static final double[] RULE_CALL_BOUNDS =
+        { 0.0005, 0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5 };
+
+    private final ConcurrentMap<String, ResourceMethodMetrics> resourceMethods;
+    private final ConcurrentMap<String, Histogram> ruleCalls;
+
+    public MetricsRegistry() {
+        this.resourceMethods = new ConcurrentHashMap<>();
+        this.ruleCalls = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Fetches the metrics of the given resource method, creating them if necessary.
+     *
+     * @param endpoint
+     *  The name of the resource method
+     *
+     * @return
+     *  the metrics of the resource method
+     */
+    public ResourceMethodMetrics getResourceMethodMetrics(String endpoint) {
+        if (endpoint == null) {
+            throw new IllegalArgumentException("endpoint is null");
+        }
+
+        return this.resourceMethods.computeIfAbsent(endpoint, ResourceMethodMetrics::new);
+    }
+
+    /**
+     * @return
+     *  the metrics of every resource method, ordered by name
+     */
+    public List<ResourceMethodMetrics> getResourceMethodMetrics() {
+        List<ResourceMethodMetrics> metrics = new ArrayList<>(this.resourceMethods.values());
+        metrics.sort(Comparator.comparing(ResourceMethodMetrics::getEndpoint));
+
+        return metrics;
+    }
+
+    /**
+     * Records a call into the rules.
+     *
+     * @param function
+     *  The name of the rules function called, including its namespace
+     *
+     * @param nanos
+     *  The time, in nanoseconds, taken by the call
+     */
+    public void observeRuleCall(String function, long nanos) {
+        this.ruleCalls.computeIfAbsent(function, key -> new Histogram(RULE_CALL_BOUNDS))
+            .observe((double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * @return
+     *  histograms of the time, in seconds, taken by calls into the rules, keyed by rules function
+     *  and ordered by function name
+     */
+    public Map<String, Histogram> getRuleCalls() {
+        return new TreeMap<>(this.ruleCalls);
+    }
+}
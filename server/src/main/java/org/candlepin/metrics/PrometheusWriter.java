@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import java.util.Map;
+
+
+
+/**
+ * Builds a metrics exposition in the Prometheus text format, version 0.0.4. Each metric family is
+ * written with its help text and type, followed by one sample per value of its label.
+ */
+public class PrometheusWriter {
+    /** The content type of the Prometheus text format */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder builder;
+
+    public PrometheusWriter() {
+        this.builder = new StringBuilder();
+    }
+
+    /**
+     * Writes a family of histograms, one per value of the given label. Nothing is written if no
+     * histograms are provided.
+     *
+     * @param name
+     *  The name of the metric family
+     *
+     * @param help
+     *  The help text of the metric family
+     *
+     * @param label
+     *  The name of the label distinguishing the histograms
+     *
+     * @param histograms
+     *  The histograms to write, keyed by label value
+     *
+     * @return
+     *  this writer
+     */
+    public PrometheusWriter histogram(String name, String help, String label,
+        Map<String, Histogram> histograms) {
+
+        if (histograms.isEmpty()) {
+            return this;
+        }
+
+        this.header(name, help, "histogram");
+
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            String labels = label + "=\"" + escape(entry.getKey()) + "\"";
+            Histogram histogram = entry.getValue();
+
+            for (Map.Entry<String, Long> bucket : histogram.getBuckets().entrySet()) {
+                this.sample(name + "_bucket", labels + ",le=\"" + bucket.getKey() + "\"", bucket.getValue());
+            }
+
+            this.sample(name + "_sum", labels, histogram.getSum());
+            this.sample(name + "_count", labels, histogram.getCount());
+        }
+
+        return this;
+    }
+
+    /**
+     * Writes a family of gauges, one per value of the given label. Nothing is written if no values
+     * are provided.
+     *
+     * @param name
+     *  The name of the metric family
+     *
+     * @param help
+     *  The help text of the metric family
+     *
+     * @param label
+     *  The name of the label distinguishing the gauges
+     *
+     * @param values
+     *  The values of the gauges, keyed by label value
+     *
+     * @return
+     *  this writer
+     */
+    public PrometheusWriter gauge(String name, String help, String label,
+        Map<String, ? extends Number> values) {
+
+        return this.values(name, help, "gauge", label, values);
+    }
+
+    /**
+     * Writes a family of counters, one per value of the given label. Counter names must carry the
+     * "_total" suffix. Nothing is written if no values are provided.
+     *
+     * @param name
+     *  The name of the metric family
+     *
+     * @param help
+     *  The help text of the metric family
+     *
+     * @param label
+     *  The name of the label distinguishing the counters
+     *
+     * @param values
+     *  The values of the counters, keyed by label value
+     *
+     * @return
+     *  this writer
+     *
+     * @throws IllegalArgumentException
+     *  if the name does not end with "_total"
+     */
+    public PrometheusWriter counter(String name, String help, String label,
+        Map<String, ? extends Number> values) {
+
+        if (!name.endsWith("_total")) {
+            throw new IllegalArgumentException("counter name does not end with _total: " + name);
+        }
+
+        return this.values(name, help, "counter", label, values);
+    }
+
+    private PrometheusWriter values(String name, String help, String type, String label,
+        Map<String, ? extends Number> values) {
+
+        if (values.isEmpty()) {
+            return this;
+        }
+
+        this.header(name, help, type);
+
+        for (Map.Entry<String, ? extends Number> entry : values.entrySet()) {
+            this.sample(name, label + "=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+
+        return this;
+    }
+
+    private void header(String name, String help, String type) {
+        this.builder.append("# HELP ").append(name).append(' ')
+            .append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        this.builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String labels, Number value) {
+        this.builder.append(name).append('{').append(labels).append("} ")
+            .append(format(value)).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            double dvalue = value.doubleValue();
+
+            if (Double.isInfinite(dvalue)) {
+                return dvalue > 0 ? "+Inf" : "-Inf";
+            }
+
+            return Double.toString(dvalue);
+        }
+
+        return value.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.builder.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import org.candlepin.hibernate.RequestStatistics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Singleton;
+
+
+
+/**
+ * Aggregates the database statistics collected for each request by the endpoint which served it.
+ * Requests which were not dispatched to an endpoint, such as requests for unknown paths, are
+ * aggregated together under the {@link #UNMATCHED_ENDPOINT} name.
+ */
+@Singleton
+public class RequestStatisticsRegistry {
+    /** The name under which the statistics of requests not dispatched to an endpoint are kept */
+    public static final String UNMATCHED_ENDPOINT = "unmatched";
+
+    private final ConcurrentMap<String, EndpointStatistics> endpoints;
+
+    public RequestStatisticsRegistry() {
+        this.endpoints = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds the statistics collected for a request to the aggregates of the endpoint which served
+     * it.
+     *
+     * @param stats
+     *  The statistics collected for the request
+     *
+     * @param slow
+     *  Whether or not the request exceeded the configured thresholds
+     */
+    public void record(RequestStatistics stats, boolean slow) {
+        if (stats == null) {
+            return;
+        }
+
+        String endpoint = stats.getEndpoint() != null ? stats.getEndpoint() : UNMATCHED_ENDPOINT;
+        this.endpoints.computeIfAbsent(endpoint, EndpointStatistics::new)
+            .record(stats, slow);
+    }
+
+    /**
+     * Fetches the aggregated statistics of the given endpoint.
+     *
+     * @param endpoint
+     *  The name of the endpoint
+     *
+     * @return
+     *  the aggregated statistics of the endpoint, or null if it has not served any requests
+     */
+    public EndpointStatistics getEndpointStatistics(String endpoint) {
+        return endpoint != null ? this.endpoints.get(endpoint) : null;
+    }
+
+    /**
+     * @return
+     *  the aggregated statistics of every endpoint which has served a request, ordered by
+     *  endpoint name
+     */
+    public List<EndpointStatistics> getEndpointStatistics() {
+        List<EndpointStatistics> stats = new ArrayList<>(this.endpoints.values());
+        stats.sort(Comparator.comparing(EndpointStatistics::getEndpoint));
+
+        return stats;
+    }
+
+    /**
+     * Discards the aggregated statistics of every endpoint.
+     */
+    public void clear() {
+        this.endpoints.clear();
+    }
+}
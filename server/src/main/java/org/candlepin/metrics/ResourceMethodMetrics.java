@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+
+/**
+ * The latency, response size and in-flight metrics of a single resource method.
+ */
+public class ResourceMethodMetrics {
+    private static final double[] LATENCY_BOUNDS =
+        { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60 };
+    private static final double[] SIZE_BOUNDS = { 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
+
+    private final String endpoint;
+    private final Histogram latency;
+    private final Histogram responseSize;
+    private final AtomicLong inFlight;
+
+    public ResourceMethodMetrics(String endpoint) {
+        this.endpoint = endpoint;
+        this.latency = new Histogram(LATENCY_BOUNDS);
+        this.responseSize = new Histogram(SIZE_BOUNDS);
+        this.inFlight = new AtomicLong();
+    }
+
+    /**
+     * Records the start of a request to the resource method.
+     */
+    public void requestStarted() {
+        this.inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records the completion of a request to the resource method.
+     *
+     * @param nanos
+     *  The time, in nanoseconds, taken to serve the request, including writing its response
+     *
+     * @param bytes
+     *  The size, in bytes, of the response entity written
+     */
+    public void requestCompleted(long nanos, long bytes) {
+        this.inFlight.decrementAndGet();
+        this.latency.observe((double) nanos / TimeUnit.SECONDS.toNanos(1));
+        this.responseSize.observe(bytes);
+    }
+
+    /**
+     * @return
+     *  the name of the resource method
+     */
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * @return
+     *  a histogram of the time, in seconds, taken to serve requests to the resource method
+     */
+    public Histogram getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * @return
+     *  a histogram of the size, in bytes, of the response entities written by the resource method
+     */
+    public Histogram getResponseSize() {
+        return this.responseSize;
+    }
+
+    /**
+     * @return
+     *  the number of requests to the resource method currently being served
+     */
+    public long getInFlight() {
+        return this.inFlight.get();
+    }
+}
@@ -17,11 +17,14 @@ package org.candlepin.model;
 import org.candlepin.auth.Principal;
 import org.candlepin.auth.permissions.Permission;
 import org.candlepin.common.config.Configuration;
+import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.common.exceptions.ConcurrentModificationException;
 import org.candlepin.common.paging.Page;
 import org.candlepin.common.paging.PageRequest;
 import org.candlepin.config.DatabaseConfigFactory;
+import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.guice.PrincipalProvider;
+import org.candlepin.hibernate.BatchWriteStatistics;
 
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
@@ -32,6 +35,7 @@ import org.hibernate.Criteria;
 import org.hibernate.NaturalIdLoadAccess;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
 import org.hibernate.LockOptions;
 import org.hibernate.LockMode;
 import org.hibernate.criterion.Criterion;
@@ -53,17 +57,22 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.OptimisticLockException;
 import javax.persistence.TypedQuery;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 
 
 
@@ -82,6 +91,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     @Inject protected Provider<I18n> i18nProvider;
     @Inject protected Configuration config;
     @Inject private PrincipalProvider principalProvider;
+    @Inject private Provider<RequestEntityMap> requestEntityMapProvider;
 
     private final Class<E> entityType;
     private NaturalIdLoadAccess<E> natIdLoader;
@@ -113,6 +123,66 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return config.getInt(DatabaseConfigFactory.QUERY_PARAMETER_LIMIT);
     }
 
+    /**
+     * Checks whether or not the database supports recursive common table expressions
+     * (WITH RECURSIVE). Curators fall back to walking hierarchies one level per query when it
+     * does not.
+     *
+     * @return
+     *  true if recursive queries may be used; false otherwise
+     */
+    public boolean useRecursiveQueries() {
+        return config.getBoolean(DatabaseConfigFactory.RECURSIVE_QUERIES, false);
+    }
+
+    /**
+     * Fetches the strategy to use to restrict a native query to the given set of IDs. The strategy
+     * configured for the database is used where it supports the IDs; otherwise the IDs are bound
+     * in blocks to IN operators. Temporary tables are only used for sets which would not fit in a
+     * single IN block, as loading them costs more than the IN operator they replace.
+     *
+     * @param ids
+     *  the IDs the query is to be restricted to
+     *
+     * @return
+     *  the IdSetStrategy to use for the given IDs
+     */
+    public IdSetStrategy getIdSetStrategy(Collection<?> ids) {
+        return this.getIdSetStrategy(ids, this.getInBlockSize());
+    }
+
+    /**
+     * Fetches the strategy to use to restrict a native query to the given set of IDs, binding no
+     * more than the given number of IDs to each IN block. This allows queries with other
+     * parameters to keep each block within the query parameter limit.
+     *
+     * @param ids
+     *  the IDs the query is to be restricted to
+     *
+     * @param blockSize
+     *  the maximum number of IDs to bind to a single IN operator
+     *
+     * @return
+     *  the IdSetStrategy to use for the given IDs
+     */
+    public IdSetStrategy getIdSetStrategy(Collection<?> ids, int blockSize) {
+        String strategy = config.getString(DatabaseConfigFactory.ID_SET_STRATEGY, IdSetStrategy.IN_LIST);
+
+        if (ids != null && !ids.isEmpty()) {
+            if (IdSetStrategy.ARRAY.equalsIgnoreCase(strategy) && IdSetStrategy.ArrayStrategy.supports(ids)) {
+                return new IdSetStrategy.ArrayStrategy();
+            }
+
+            if (IdSetStrategy.TEMP_TABLE.equalsIgnoreCase(strategy) && ids.size() > blockSize &&
+                IdSetStrategy.TempTableStrategy.supports(ids)) {
+
+                return new IdSetStrategy.TempTableStrategy(this.currentSession(), this.getBatchBlockSize());
+            }
+        }
+
+        return new IdSetStrategy.InListStrategy(blockSize);
+    }
+
     /**
      * Get one or zero items.  Thanks http://stackoverflow.com/a/6378045/6124862
      * @param query
@@ -171,6 +241,126 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return id == null ? null : this.get(entityType, id);
     }
 
+    /**
+     * Fetches the entity looked up by the given natural key with the permissions of the current
+     * principal earlier in the current request, if it is still managed by the current session and
+     * still has the same key. Lookups made outside of a request are never served from the request
+     * entity map.
+     *
+     * @param key
+     *  the natural key of the entity to fetch
+     *
+     * @param keyFunction
+     *  a function returning the natural key of an entity
+     *
+     * @return
+     *  the entity previously looked up by the given key, or null if no such entity can be reused
+     */
+    protected E getRequestEntity(String key, Function<E, String> keyFunction) {
+        return this.getRequestEntity(key, keyFunction, false);
+    }
+
+    /**
+     * Fetches the entity looked up by the given natural key earlier in the current request, if it
+     * is still managed by the current session and still has the same key. Unless any principal is
+     * accepted, only entities looked up with the permissions of the current principal are reused.
+     *
+     * @param key
+     *  the natural key of the entity to fetch
+     *
+     * @param keyFunction
+     *  a function returning the natural key of an entity
+     *
+     * @param anyPrincipal
+     *  whether or not entities looked up for other principals may be reused; only suitable for
+     *  lookups which do not apply permissions
+     *
+     * @return
+     *  the entity previously looked up by the given key, or null if no such entity can be reused
+     */
+    protected E getRequestEntity(String key, Function<E, String> keyFunction, boolean anyPrincipal) {
+        RequestEntityMap entityMap = this.getRequestEntityMap();
+        if (entityMap == null || key == null) {
+            return null;
+        }
+
+        String scope = anyPrincipal ? null : RequestEntityMap.getScope(this.principalProvider.get());
+        E entity = entityMap.get(this.entityType, key, scope,
+            e -> key.equals(keyFunction.apply(e)) && this.currentSession().contains(e));
+
+        if (entity != null) {
+            log.trace("Reusing {} {} looked up earlier in the request", this.entityType.getSimpleName(), key);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Stores the given entity, looked up by the given natural key with the permissions of the
+     * current principal, in the request entity map so that later lookups by the same key within
+     * the current request can reuse it.
+     *
+     * @param key
+     *  the natural key the entity was looked up by
+     *
+     * @param entity
+     *  the entity looked up
+     *
+     * @return
+     *  the given entity
+     */
+    protected E putRequestEntity(String key, E entity) {
+        RequestEntityMap entityMap = this.getRequestEntityMap();
+        if (entityMap != null) {
+            entityMap.put(this.entityType, key, RequestEntityMap.getScope(this.principalProvider.get()),
+                entity);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Stores the given entity, looked up by the given natural key, in the request entity map for
+     * the principal with the given scope, rather than for the current principal.
+     *
+     * @param key
+     *  the natural key the entity was looked up by
+     *
+     * @param scope
+     *  the scope of the principal the entity may be reused for
+     *
+     * @param entity
+     *  the entity looked up
+     *
+     * @return
+     *  the given entity
+     */
+    protected E putRequestEntity(String key, String scope, E entity) {
+        RequestEntityMap entityMap = this.getRequestEntityMap();
+        if (entityMap != null) {
+            entityMap.put(this.entityType, key, scope, entity);
+        }
+
+        return entity;
+    }
+
+    private RequestEntityMap getRequestEntityMap() {
+        if (this.requestEntityMapProvider == null || !CandlepinRequestScope.isActive()) {
+            // Not running as part of a request or job; nothing to reuse
+            return null;
+        }
+
+        RequestEntityMap entityMap = this.requestEntityMapProvider.get();
+        return entityMap.isEnabled() ? entityMap : null;
+    }
+
+    private void clearRequestEntities() {
+        RequestEntityMap entityMap = this.getRequestEntityMap();
+        if (entityMap != null) {
+            entityMap.clear();
+        }
+    }
+
     /**
      * @param entity to be created.
      * @return newly created entity
@@ -214,7 +404,10 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     @Transactional
     public Page<List<E>> listAll(PageRequest pageRequest, boolean postFilter) {
         Page<List<E>> resultsPage;
-        if (postFilter) {
+        if (postFilter && pageRequest != null && pageRequest.isCursorPaging()) {
+            resultsPage = this.listCursorPageForPostFilter(this.createSecureCriteria(), pageRequest);
+        }
+        else if (postFilter) {
             // Create a copy of the page request with just the order and sort by values.
             // Since we are filtering after the results are returned, we don't want
             // to send the page or page size values in.
@@ -242,11 +435,15 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         Page<List<E>> page = new Page<>();
 
         if (pageRequest != null) {
-            Criteria count = createSecureCriteria();
-            page.setMaxRecords(findRowCount(count));
+            // Cursor paging skips the row count, as it's the most expensive part of paging deep
+            // into large tables.
+            if (!pageRequest.isCursorPaging()) {
+                Criteria count = createSecureCriteria();
+                page.setMaxRecords(findRowCount(count));
+            }
 
             Criteria c = createSecureCriteria();
-            page.setPageData(loadPageData(c, pageRequest));
+            page.setPageData(loadPageData(c, pageRequest, page));
             page.setPageRequest(pageRequest);
         }
         else {
@@ -259,7 +456,11 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     }
 
     @SuppressWarnings("unchecked")
-    private List<E> loadPageData(Criteria c, PageRequest pageRequest) {
+    private List<E> loadPageData(Criteria c, PageRequest pageRequest, Page<?> page) {
+        if (pageRequest.isCursorPaging()) {
+            return loadCursorPageData(c, pageRequest, page);
+        }
+
         c.addOrder(createPagingOrder(pageRequest));
 
         if (pageRequest.isPaging()) {
@@ -270,6 +471,73 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return c.list();
     }
 
+    @SuppressWarnings("unchecked")
+    private List<E> loadCursorPageData(Criteria c, PageRequest pageRequest, Page<?> page) {
+        CursorPaging paging = this.applyCursorPaging(c, pageRequest);
+
+        // Fetch one extra row to tell us whether or not there is another page after this one
+        int perPage = pageRequest.getPerPage();
+        c.setMaxResults(perPage + 1);
+
+        List<E> results = c.list();
+
+        if (results.size() > perPage) {
+            results = new ArrayList<>(results.subList(0, perPage));
+            page.setNextCursor(paging.buildCursor(results.get(perPage - 1)));
+        }
+
+        return results;
+    }
+
+    /**
+     * Lists the rows following the cursor of the given page request, in keyset order, for results
+     * which are to be filtered before they are paged. As the filter may drop any number of rows,
+     * the page size is not applied here; the filtered results are to be paged with
+     * {@link #takeSubList(PageRequest, List, Page)}.
+     */
+    @SuppressWarnings("unchecked")
+    private Page<List<E>> listCursorPageForPostFilter(Criteria c, PageRequest pageRequest) {
+        this.applyCursorPaging(c, pageRequest);
+
+        Page<List<E>> page = new Page<>();
+        page.setPageData(c.list());
+        page.setPageRequest(pageRequest);
+
+        return page;
+    }
+
+    private CursorPaging applyCursorPaging(Criteria c, PageRequest pageRequest) {
+        CriteriaImpl cImpl = (CriteriaImpl) c;
+        if (cImpl.getProjection() != null) {
+            throw new IllegalStateException("cursor paging cannot be applied to a projected criteria");
+        }
+
+        CursorPaging paging = this.createCursorPaging(cImpl.getEntityOrClassName(), pageRequest);
+
+        Criterion restriction = paging.getRestriction();
+        if (restriction != null) {
+            c.add(restriction);
+        }
+
+        for (Order order : paging.getOrders()) {
+            c.addOrder(order);
+        }
+
+        return paging;
+    }
+
+    private CursorPaging createCursorPaging(String entityName, PageRequest pageRequest) {
+        ClassMetadata metadata = this.currentSession().getSessionFactory().getClassMetadata(entityName);
+
+        try {
+            return new CursorPaging(metadata, pageRequest);
+        }
+        catch (IllegalArgumentException e) {
+            throw new BadRequestException(this.i18nProvider.get().tr("Invalid cursor paging request: {0}",
+                e.getMessage()), e);
+        }
+    }
+
     private Order createPagingOrder(PageRequest p) {
         String sortBy = (p.getSortBy() == null) ? AbstractHibernateObject.DEFAULT_SORT_FIELD : p.getSortBy();
         PageRequest.Order order = (p.getOrder() == null) ? PageRequest.DEFAULT_ORDER : p.getOrder();
@@ -284,6 +552,24 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         }
     }
 
+    /**
+     * Fetches the number of entities of this curator's type, along with the latest time any of
+     * them was updated, without loading the entities themselves. Together, these change whenever
+     * an entity is created, updated or deleted. Only applicable to entities with an "updated"
+     * property.
+     *
+     * @return
+     *  an array holding the entity count and the latest update time, which is null if there are no
+     *  entities
+     */
+    public Object[] getCountAndLastUpdated() {
+        return (Object[]) this.currentSession().createCriteria(this.entityType)
+            .setProjection(Projections.projectionList()
+                .add(Projections.rowCount())
+                .add(Projections.max("updated")))
+            .uniqueResult();
+    }
+
     private Integer findRowCount(Criteria c) {
         c.setProjection(Projections.rowCount());
         return ((Long) c.uniqueResult()).intValue();
@@ -293,7 +579,18 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     public Page<ResultIterator<E>> paginateResults(CandlepinQuery<E> query, PageRequest pageRequest) {
         Page<ResultIterator<E>> page = new Page<>();
 
-        if (pageRequest != null) {
+        if (pageRequest != null && pageRequest.isCursorPaging()) {
+            try {
+                page.setNextCursor(query.applyCursor(pageRequest));
+            }
+            catch (IllegalArgumentException e) {
+                throw new BadRequestException(this.i18nProvider.get().tr(
+                    "Invalid cursor paging request: {0}", e.getMessage()), e);
+            }
+
+            page.setPageRequest(pageRequest);
+        }
+        else if (pageRequest != null) {
             page.setMaxRecords(query.getRowCount());
 
             query.addOrder(this.createPagingOrder(pageRequest));
@@ -319,7 +616,10 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     @Transactional
     public Page<List<E>> listByCriteria(Criteria query, PageRequest pageRequest, boolean postFilter) {
         Page<List<E>> resultsPage;
-        if (postFilter) {
+        if (postFilter && pageRequest != null && pageRequest.isCursorPaging()) {
+            resultsPage = this.listCursorPageForPostFilter(query, pageRequest);
+        }
+        else if (postFilter) {
             // Create a copy of the page request with just the order and sort by values.
             // Since we are filtering after the results are returned, we don't want
             // to send the page or page size values in.
@@ -489,21 +789,25 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         Page<List<E>> page = new Page<>();
 
         if (pageRequest != null) {
-            // see https://forum.hibernate.org/viewtopic.php?t=974802
-
-            // Save original Projection and ResultTransformer
-            CriteriaImpl cImpl = (CriteriaImpl) c;
-            Projection origProjection = cImpl.getProjection();
-            ResultTransformer origRt = cImpl.getResultTransformer();
-
-            // Get total number of records by setting a rowCount projection
-            page.setMaxRecords(findRowCount(c));
-
-            // Restore original Projection and ResultTransformer
-            c.setProjection(origProjection);
-            c.setResultTransformer(origRt);
+            // Cursor paging skips the row count, as it's the most expensive part of paging deep
+            // into large tables.
+            if (!pageRequest.isCursorPaging()) {
+                // see https://forum.hibernate.org/viewtopic.php?t=974802
+
+                // Save original Projection and ResultTransformer
+                CriteriaImpl cImpl = (CriteriaImpl) c;
+                Projection origProjection = cImpl.getProjection();
+                ResultTransformer origRt = cImpl.getResultTransformer();
+
+                // Get total number of records by setting a rowCount projection
+                page.setMaxRecords(findRowCount(c));
+
+                // Restore original Projection and ResultTransformer
+                c.setProjection(origProjection);
+                c.setResultTransformer(origRt);
+            }
 
-            page.setPageData(loadPageData(c, pageRequest));
+            page.setPageData(loadPageData(c, pageRequest, page));
             page.setPageRequest(pageRequest);
         }
         else {
@@ -574,12 +878,45 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
     public void clear() {
         try {
             getEntityManager().clear();
+            this.clearRequestEntities();
         }
         catch (OptimisticLockException e) {
             throw new ConcurrentModificationException(getConcurrentModificationMessage(), e);
         }
     }
 
+    /**
+     * Runs the given action once the current transaction has been committed, or immediately if no
+     * transaction is active. The action is not run if the transaction is rolled back. Intended for
+     * updating state kept outside of the database, such as caches, which must not reflect changes
+     * other transactions cannot yet see.
+     *
+     * @param action
+     *  the action to run once the current transaction has been committed
+     */
+    public void afterCommit(Runnable action) {
+        Transaction transaction = this.currentSession().getTransaction();
+
+        if (transaction == null || !transaction.isActive()) {
+            action.run();
+            return;
+        }
+
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                // Intentionally left empty
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
     public Session currentSession() {
         return (Session) entityManager.get().getDelegate();
     }
@@ -647,30 +984,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
 
     public Collection<E> saveAll(Collection<E> entities, boolean flush, boolean evict) {
         if (entities != null && !entities.isEmpty()) {
-            try {
-                Session session = this.currentSession();
-                EntityManager em = this.getEntityManager();
-                Iterable<List<E>> blocks = Iterables.partition(entities, getBatchBlockSize());
-
-                for (List<E> block : blocks) {
-                    for (E entity : block) {
-                        session.save(entity);
-                    }
-
-                    if (flush) {
-                        em.flush();
-
-                        if (evict) {
-                            for (E entity : block) {
-                                session.evict(entity);
-                            }
-                        }
-                    }
-                }
-            }
-            catch (OptimisticLockException e) {
-                throw new ConcurrentModificationException(getConcurrentModificationMessage(), e);
-            }
+            this.writeInBatches("saveAll", entities, Session::save, flush, evict, false);
         }
 
         return entities;
@@ -678,30 +992,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
 
     public Collection<E> updateAll(Collection<E> entities, boolean flush, boolean evict) {
         if (entities != null && !entities.isEmpty()) {
-            try {
-                Session session = this.currentSession();
-                EntityManager em = this.getEntityManager();
-                Iterable<List<E>> blocks = Iterables.partition(entities, getBatchBlockSize());
-
-                for (List<E> block : blocks) {
-                    for (E entity : block) {
-                        session.update(entity);
-                    }
-
-                    if (flush) {
-                        em.flush();
-
-                        if (evict) {
-                            for (E entity : block) {
-                                session.evict(entity);
-                            }
-                        }
-                    }
-                }
-            }
-            catch (OptimisticLockException e) {
-                throw new ConcurrentModificationException(getConcurrentModificationMessage(), e);
-            }
+            this.writeInBatches("updateAll", entities, Session::update, flush, evict, false);
         }
 
         return entities;
@@ -709,30 +1000,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
 
     public Iterable<E> saveOrUpdateAll(Iterable<E> entities, boolean flush, boolean evict) {
         if (entities != null) {
-            try {
-                Session session = this.currentSession();
-                EntityManager em = this.getEntityManager();
-                Iterable<List<E>> blocks = Iterables.partition(entities, getBatchBlockSize());
-
-                for (List<E> block : blocks) {
-                    for (E entity : block) {
-                        session.saveOrUpdate(entity);
-                    }
-
-                    if (flush) {
-                        em.flush();
-
-                        if (evict) {
-                            for (E entity : block) {
-                                session.evict(entity);
-                            }
-                        }
-                    }
-                }
-            }
-            catch (OptimisticLockException e) {
-                throw new ConcurrentModificationException(getConcurrentModificationMessage(), e);
-            }
+            this.writeInBatches("saveOrUpdateAll", entities, Session::saveOrUpdate, flush, evict, false);
         }
 
         return entities;
@@ -740,38 +1008,97 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
 
     public Collection<E> mergeAll(Collection<E> entities, boolean flush) {
         if (entities != null && !entities.isEmpty()) {
-            try {
-                Session session = this.currentSession();
-                EntityManager em = this.getEntityManager();
+            this.writeInBatches("mergeAll", entities, Session::merge, flush, false, true);
+        }
 
-                if (flush) {
-                    int i = 0;
-                    for (E entity : entities) {
-                        session.merge(entity);
+        return entities;
+    }
 
-                        if (++i % getBatchBlockSize() == 0) {
-                            em.flush();
-                            session.clear();
-                        }
-                    }
+    /**
+     * Writes the given entities in blocks of the size returned by getBatchBlockSize. When flushing,
+     * each block is flushed as it is completed, and the JDBC batch size of the session is set to
+     * the block size for the duration of the write, so that each block is sent to the database as
+     * one JDBC batch per table and operation rather than as one statement per row. Inserts and
+     * updates are ordered by entity type and key to that end (see hibernate.order_inserts and
+     * hibernate.order_updates).
+     * <p></p>
+     * When debug logging is enabled, the number of statements and batches executed are logged
+     * once the write completes.
+     *
+     * @param operation
+     *  the name of the operation, used when logging
+     *
+     * @param entities
+     *  the entities to write
+     *
+     * @param writer
+     *  the session operation to apply to each entity
+     *
+     * @param flush
+     *  whether or not to flush the session after each block
+     *
+     * @param evict
+     *  whether or not to evict the entities of each block from the session once flushed
+     *
+     * @param clear
+     *  whether or not to clear the session once each block has been flushed
+     */
+    private void writeInBatches(String operation, Iterable<E> entities, BiConsumer<Session, E> writer,
+        boolean flush, boolean evict, boolean clear) {
+
+        Session session = this.currentSession();
+        EntityManager em = this.getEntityManager();
+        int blockSize = this.getBatchBlockSize();
+
+        // Collected through the statistics listener every session already has, rather than by
+        // adding a listener to the session on each call
+        BatchWriteStatistics statistics = flush && log.isDebugEnabled() ? BatchWriteStatistics.begin() : null;
+
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        int count = 0;
+        int blocks = 0;
+
+        try {
+            if (flush) {
+                session.setJdbcBatchSize(blockSize);
+            }
+
+            for (List<E> block : Iterables.partition(entities, blockSize)) {
+                for (E entity : block) {
+                    writer.accept(session, entity);
+                }
+
+                count += block.size();
+                ++blocks;
 
-                    if (i % getBatchBlockSize() != 0) {
-                        em.flush();
+                if (flush) {
+                    em.flush();
+
+                    if (clear) {
                         session.clear();
+                        this.clearRequestEntities();
                     }
-                }
-                else {
-                    for (E entity : entities) {
-                        session.merge(entity);
+                    else if (evict) {
+                        for (E entity : block) {
+                            session.evict(entity);
+                        }
                     }
                 }
             }
-            catch (OptimisticLockException e) {
-                throw new ConcurrentModificationException(getConcurrentModificationMessage(), e);
-            }
         }
+        catch (OptimisticLockException e) {
+            throw new ConcurrentModificationException(getConcurrentModificationMessage(), e);
+        }
+        finally {
+            if (flush) {
+                session.setJdbcBatchSize(sessionBatchSize);
+            }
 
-        return entities;
+            if (statistics != null) {
+                log.debug("{} wrote {} {} entities in {} block(s): {}", operation, count,
+                    this.entityType.getSimpleName(), blocks, statistics.stop());
+            }
+        }
     }
 
     public void refresh(Iterable<E> entities) {
@@ -824,6 +1151,42 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         return results.subList(fromIndex, toIndex);
     }
 
+    /**
+     * Takes the requested page from results which were listed with post-filtering enabled and then
+     * filtered. Offset paging is applied as by {@link #takeSubList(PageRequest, List)}. For cursor
+     * paging, the results must follow the cursor in keyset order, as listed by the post-filtering
+     * list methods; the first page of them is kept, and the cursor of the next page, if any, is set
+     * on the given page.
+     *
+     * @param pageRequest
+     *  the page request used to list the results
+     *
+     * @param results
+     *  the filtered results
+     *
+     * @param page
+     *  the page on which to set the cursor of the next page
+     *
+     * @return
+     *  the results of the requested page
+     */
+    public List<E> takeSubList(PageRequest pageRequest, List<E> results, Page<?> page) {
+        if (pageRequest.isCursorPaging()) {
+            int perPage = pageRequest.getPerPage();
+            if (results.size() <= perPage) {
+                return results;
+            }
+
+            List<E> pageData = new ArrayList<>(results.subList(0, perPage));
+            CursorPaging paging = this.createCursorPaging(this.entityType.getName(), pageRequest);
+            page.setNextCursor(paging.buildCursor(pageData.get(perPage - 1)));
+
+            return pageData;
+        }
+
+        return pageRequest.isPaging() ? this.takeSubList(pageRequest, results) : results;
+    }
+
     private String getConcurrentModificationMessage() {
         return i18nProvider.get().tr("Request failed due to concurrent modification, please re-try.");
     }
@@ -1065,6 +1428,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
         Iterable<List<Map.Entry<Object, Object>>> blocks = Iterables.partition(values.entrySet(),
             getCaseBlockSize());
 
+        Map<String, IdSetStrategy> strategies = this.getCriteriaIdSetStrategies(criteria);
         int count = 0;
         int lastBlock = -1;
 
@@ -1099,44 +1463,7 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
                 }
 
                 // Add criteria
-                if (criteria != null && !criteria.isEmpty()) {
-                    for (Map.Entry<String, Object> criterion : criteria.entrySet()) {
-                        if (criterion.getValue() instanceof Collection) {
-                            if (((Collection) criterion.getValue()).size() > 0) {
-                                int inBlocks = (int) Math.ceil((((Collection) criterion.getValue()).size() /
-                                    (float) getInBlockSize()));
-
-                                builder.append(whereStarted ? " AND " : " WHERE ");
-                                whereStarted = true;
-
-                                if (inBlocks > 1) {
-                                    builder.append('(');
-
-                                    for (int i = 0; i < inBlocks; ++i) {
-                                        if (i != 0) {
-                                            builder.append(" OR ");
-                                        }
-
-                                        builder.append(criterion.getKey()).append(" IN (:param")
-                                            .append(++param).append(')');
-                                    }
-
-                                    builder.append(')');
-                                }
-                                else {
-                                    builder.append(criterion.getKey()).append(" IN (:param").append(++param)
-                                        .append(')');
-                                }
-                            }
-                        }
-                        else {
-                            builder.append(whereStarted ? " AND " : " WHERE ");
-                            whereStarted = true;
-
-                            builder.append(criterion.getKey()).append(" = :param").append(++param);
-                        }
-                    }
-                }
+                this.appendSQLCriteria(builder, criteria, strategies, whereStarted, param);
 
                 query = session.createNativeQuery(builder.toString());
             }
@@ -1158,19 +1485,8 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
             }
 
             // Set criteria if the block size has changed
-            if (block.size() != lastBlock && criteria != null && !criteria.isEmpty()) {
-                for (Object criterion : criteria.values()) {
-                    if (criterion instanceof Collection) {
-                        Iterable<List> inBlocks = this.partition((Collection) criterion);
-
-                        for (List inBlock : inBlocks) {
-                            query.setParameterList("param" + String.valueOf(++param), inBlock);
-                        }
-                    }
-                    else {
-                        query.setParameter("param" + String.valueOf(++param), criterion);
-                    }
-                }
+            if (block.size() != lastBlock) {
+                this.bindSQLCriteria(query, criteria, strategies, param);
             }
 
             int blockUpdates = query.executeUpdate();
@@ -1205,71 +1521,140 @@ public abstract class AbstractHibernateCurator<E extends Persisted> {
      *  the number of rows deleted as a result of this query
      */
     protected int bulkSQLDelete(String table, Map<String, Object> criteria) {
+        Map<String, IdSetStrategy> strategies = this.getCriteriaIdSetStrategies(criteria);
         StringBuilder builder = new StringBuilder("DELETE FROM ").append(table);
 
-        // Add criteria
-        if (criteria != null && !criteria.isEmpty()) {
-            boolean whereStarted = false;
-            int param = 0;
+        this.appendSQLCriteria(builder, criteria, strategies, false, 0);
 
+        NativeQuery query = this.currentSession().createNativeQuery(builder.toString());
+        this.bindSQLCriteria(query, criteria, strategies, 0);
+
+        return query.executeUpdate();
+    }
+
+    /**
+     * Selects the IdSetStrategy to use for each of the collection criteria in the given map.
+     *
+     * @param criteria
+     *  A mapping of criteria (column name => value)
+     *
+     * @return
+     *  A mapping of column names to the IdSetStrategy to use for the collection criteria
+     */
+    private Map<String, IdSetStrategy> getCriteriaIdSetStrategies(Map<String, Object> criteria) {
+        Map<String, IdSetStrategy> strategies = new HashMap<>();
+
+        if (criteria != null) {
             for (Map.Entry<String, Object> criterion : criteria.entrySet()) {
                 if (criterion.getValue() instanceof Collection) {
-                    if (((Collection) criterion.getValue()).size() > 0) {
-                        int inBlocks = (int) Math.ceil((((Collection) criterion.getValue()).size() /
-                            (float) getInBlockSize()));
+                    strategies.put(criterion.getKey(),
+                        this.getIdSetStrategy((Collection) criterion.getValue()));
+                }
+            }
+        }
+
+        return strategies;
+    }
+
+    /**
+     * Appends the given criteria to an SQL statement as a conjunction. Collection criteria are
+     * rendered using their IdSetStrategy; where the strategy splits the collection into several
+     * blocks, the blocks are combined with a disjunction. Parameters are named "param" followed by
+     * their position.
+     *
+     * @param builder
+     *  The builder containing the statement to which the criteria are to be appended
+     *
+     * @param criteria
+     *  A mapping of criteria to append (column name => value)
+     *
+     * @param strategies
+     *  The strategies to use for the collection criteria, as returned by
+     *  getCriteriaIdSetStrategies
+     *
+     * @param whereStarted
+     *  Whether or not the statement already includes a WHERE clause
+     *
+     * @param param
+     *  The position of the last parameter already present in the statement
+     */
+    private void appendSQLCriteria(StringBuilder builder, Map<String, Object> criteria,
+        Map<String, IdSetStrategy> strategies, boolean whereStarted, int param) {
+
+        if (criteria == null || criteria.isEmpty()) {
+            return;
+        }
 
-                        builder.append(whereStarted ? " AND " : " WHERE ");
-                        whereStarted = true;
+        for (Map.Entry<String, Object> criterion : criteria.entrySet()) {
+            if (criterion.getValue() instanceof Collection) {
+                if (((Collection) criterion.getValue()).size() > 0) {
+                    IdSetStrategy strategy = strategies.get(criterion.getKey());
+                    int blocks = Iterables.size(strategy.partition((Collection) criterion.getValue()));
 
-                        if (inBlocks > 1) {
-                            builder.append('(');
+                    builder.append(whereStarted ? " AND " : " WHERE ");
+                    whereStarted = true;
 
-                            for (int i = 0; i < inBlocks; ++i) {
-                                if (i != 0) {
-                                    builder.append(" OR ");
-                                }
+                    if (blocks > 1) {
+                        builder.append('(');
 
-                                builder.append(criterion.getKey()).append(" IN ( :param").append(++param)
-                                    .append(')');
+                        for (int i = 0; i < blocks; ++i) {
+                            if (i != 0) {
+                                builder.append(" OR ");
                             }
 
-                            builder.append(')');
-                        }
-                        else {
-                            builder.append(criterion.getKey()).append(" IN ( :param")
-                                .append(++param) .append(')');
+                            builder.append(strategy.getPredicate(criterion.getKey(), "param" + (++param)));
                         }
+
+                        builder.append(')');
+                    }
+                    else {
+                        builder.append(strategy.getPredicate(criterion.getKey(), "param" + (++param)));
                     }
                 }
-                else {
-                    builder.append(whereStarted ? " AND " : " WHERE ");
-                    whereStarted = true;
+            }
+            else {
+                builder.append(whereStarted ? " AND " : " WHERE ");
+                whereStarted = true;
 
-                    builder.append(criterion.getKey()).append(" = :param").append(++param);
-                }
+                builder.append(criterion.getKey()).append(" = :param").append(++param);
             }
         }
+    }
 
-        NativeQuery query = this.currentSession().createNativeQuery(builder.toString());
+    /**
+     * Binds the values of the given criteria to a statement built by appendSQLCriteria.
+     *
+     * @param query
+     *  The statement to which the criteria are to be bound
+     *
+     * @param criteria
+     *  A mapping of criteria to bind (column name => value)
+     *
+     * @param strategies
+     *  The strategies used to append the collection criteria to the statement
+     *
+     * @param param
+     *  The position of the last parameter bound before the criteria
+     */
+    private void bindSQLCriteria(NativeQuery query, Map<String, Object> criteria,
+        Map<String, IdSetStrategy> strategies, int param) {
 
-        if (criteria != null && !criteria.isEmpty()) {
-            int param = 0;
+        if (criteria == null || criteria.isEmpty()) {
+            return;
+        }
 
-            for (Object criterion : criteria.values()) {
-                if (criterion instanceof Collection) {
-                    Iterable<List> inBlocks = this.partition((Collection) criterion);
+        for (Map.Entry<String, Object> criterion : criteria.entrySet()) {
+            if (criterion.getValue() instanceof Collection) {
+                IdSetStrategy strategy = strategies.get(criterion.getKey());
 
-                    for (List inBlock : inBlocks) {
-                        query.setParameterList("param" + String.valueOf(++param), inBlock);
-                    }
-                }
-                else {
-                    query.setParameter("param" + String.valueOf(++param), criterion);
+                for (Object block : strategy.partition((Collection) criterion.getValue())) {
+                    strategy.bind(query, "param" + (++param), (List) block);
                 }
             }
+            else {
+                query.setParameter("param" + (++param), criterion.getValue());
+            }
         }
-
-        return query.executeUpdate();
     }
 
     /**
@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.common.paging.PageRequest;
 import org.candlepin.util.ElementTransformer;
 
 import org.hibernate.Session;
@@ -100,6 +101,21 @@ public interface CandlepinQuery<T> extends Iterable<T> {
      */
     CandlepinQuery<T> setLockMode(LockModeType lockMode);
 
+    /**
+     * Sets the number of results to read ahead of the caller when iterating over the results of
+     * this query. Reading a block of results before they are processed allows the lazy
+     * collections of the entities in the block to be initialized together by Hibernate's batch
+     * fetching, rather than with one query per entity as each is processed. A count of one or
+     * less disables reading ahead.
+     *
+     * @param count
+     *  The number of results to read ahead when iterating over the results of this query
+     *
+     * @return
+     *  this query instance
+     */
+    CandlepinQuery<T> setReadAhead(int count);
+
     /**
      * Returns a CandlepinQuery instance that transforms the results using the given element
      * transformer.
@@ -282,4 +298,28 @@ public interface CandlepinQuery<T> extends Iterable<T> {
      */
     int getRowCount();
 
+    /**
+     * Configures this query to fetch the page of results described by the cursor (keyset) paging
+     * configuration of the given page request. Results are ordered by the requested sort field
+     * with the entity identifier as a tie-breaker, and restricted to those following the row
+     * identified by the request's cursor, if any. The number of results is limited to the page
+     * size of the request.
+     * <p></p>
+     * This method executes a lightweight query fetching only the sort keys of the page to
+     * determine whether another page follows. It must be called before any other method that
+     * executes this query.
+     *
+     * @param pageRequest
+     *  a page request configured for cursor paging
+     *
+     * @throws IllegalArgumentException
+     *  if the page request is not configured for cursor paging, or its sort field or cursor cannot
+     *  be applied to this query
+     *
+     * @return
+     *  the continuation token for the page following the one this query will fetch, or null if
+     *  this query fetches the last page
+     */
+    String applyCursor(PageRequest pageRequest);
+
 }
@@ -142,6 +142,7 @@ public class Consumer extends AbstractHibernateObject implements Linkable, Owned
     private String usage;
 
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "cp_sp_add_on", joinColumns = @JoinColumn(name = "consumer_id"))
     @Column(name = "add_on")
     private Set<String> addOns = new HashSet<>();
@@ -196,6 +197,7 @@ public class Consumer extends AbstractHibernateObject implements Linkable, Owned
     private Set<Entitlement> entitlements;
 
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "cp_consumer_facts", joinColumns = @JoinColumn(name = "cp_consumer_id"))
     @MapKeyColumn(name = "mapkey")
     @Column(name = "element")
@@ -210,6 +212,7 @@ public class Consumer extends AbstractHibernateObject implements Linkable, Owned
 
     private Date lastCheckin;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "consumer", orphanRemoval = true, cascade = { CascadeType.ALL })
     private Set<ConsumerInstalledProduct> installedProducts;
 
@@ -221,6 +224,7 @@ public class Consumer extends AbstractHibernateObject implements Linkable, Owned
         orphanRemoval = true, cascade = { CascadeType.ALL })
     private List<GuestId> guestIds;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "consumer",
         orphanRemoval = true, cascade = { CascadeType.ALL })
     private Set<ConsumerCapability> capabilities;
@@ -231,6 +235,7 @@ public class Consumer extends AbstractHibernateObject implements Linkable, Owned
 
     @Valid  // Enable validation.  See http://stackoverflow.com/a/13992948
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "cp_consumer_content_tags", joinColumns = @JoinColumn(name = "consumer_id"))
     @Column(name = "content_tag")
     private Set<String> contentTags;
@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.cache.ConsumerIdentityCache;
 import org.candlepin.common.config.Configuration;
 import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.common.exceptions.NotFoundException;
@@ -70,6 +71,13 @@ import javax.persistence.TypedQuery;
 public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     private static Logger log = LoggerFactory.getLogger(ConsumerCurator.class);
 
+    /**
+     * The number of consumers read ahead when iterating over consumer searches. Matches the batch
+     * size of the consumer collections included in consumer listings, so each block of consumers
+     * initializes each of its collections with a single query.
+     */
+    private static final int CONSUMER_SEARCH_READ_AHEAD = 100;
+
     @Inject private EntitlementCurator entitlementCurator;
     @Inject private ConsumerTypeCurator consumerTypeCurator;
     @Inject private DeletedConsumerCurator deletedConsumerCurator;
@@ -77,6 +85,7 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     @Inject private FactValidator factValidator;
     @Inject private OwnerCurator ownerCurator;
     @Inject private Provider<HostCache> cachedHostsProvider;
+    @Inject private ConsumerIdentityCache identityCache;
 
     public ConsumerCurator() {
         super(Consumer.class);
@@ -101,6 +110,7 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             owner.getKey(), owner.getDisplayName());
 
         super.delete(entity);
+        this.identityCache.evict(entity.getUuid());
 
         DeletedConsumer existing = deletedConsumerCurator.findByConsumerUuid(dc.getConsumerUuid());
         if (existing != null) {
@@ -318,10 +328,42 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
     // to bypass the authentication. Do not call it!
     // TODO: Come up with a better way to do this!
     public Consumer getConsumer(String uuid) {
+        Consumer consumer = this.getRequestEntity(uuid, Consumer::getUuid);
+        if (consumer != null) {
+            return consumer;
+        }
+
         Criteria criteria = this.createSecureCriteria()
             .add(Restrictions.eq("uuid", uuid));
 
-        return (Consumer) criteria.uniqueResult();
+        return this.putRequestEntity(uuid, (Consumer) criteria.uniqueResult());
+    }
+
+    /**
+     * Fetches the consumer with the given ID along with its owner, in a single query. Like
+     * getConsumer, this is intended for use only while authenticating a consumer, when the
+     * consumer has previously been resolved from the credential it presented.
+     *
+     * @param consumerId
+     *  The ID of the consumer to fetch
+     *
+     * @return
+     *  the consumer with the given ID, or null if no such consumer exists
+     */
+    public Consumer getConsumerWithOwner(String consumerId) {
+        List<Consumer> consumers = this.getEntityManager()
+            .createQuery("SELECT c FROM Consumer c JOIN FETCH c.owner WHERE c.id = :cid", Consumer.class)
+            .setParameter("cid", consumerId)
+            .getResultList();
+
+        Consumer consumer = consumers.isEmpty() ? null : consumers.get(0);
+        if (consumer == null) {
+            return null;
+        }
+
+        // The consumer is only reused by lookups made as the consumer principal being authenticated
+        String scope = RequestEntityMap.getScope("consumer", consumer.getUuid());
+        return this.putRequestEntity(consumer.getUuid(), scope, consumer);
     }
 
     /**
@@ -1095,7 +1137,8 @@ public class ConsumerCurator extends AbstractHibernateCurator<Consumer> {
             }
         }
 
-        return this.cpQueryFactory.<Consumer>buildQuery(this.currentSession(), crit);
+        return this.cpQueryFactory.<Consumer>buildQuery(this.currentSession(), crit)
+            .setReadAhead(CONSUMER_SEARCH_READ_AHEAD);
     }
 
     /*
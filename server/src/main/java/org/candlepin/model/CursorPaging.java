@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.candlepin.common.paging.PageCursor;
+import org.candlepin.common.paging.PageRequest;
+
+import org.hibernate.HibernateException;
+import org.hibernate.NullPrecedence;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.StringRepresentableType;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+
+
+/**
+ * The CursorPaging class provides the plumbing shared by the curators and queries to page
+ * through results with a cursor (keyset) rather than an offset.
+ * <p></p>
+ * Rows are ordered by the requested sort field, using the entity identifier as a tie-breaker to
+ * guarantee a stable order. A page is then fetched by seeking past the sort value and identifier
+ * of the last row of the previous page, which the database can satisfy with an index range scan
+ * regardless of how deep into the listing the page is. The sort field must be a basic property of
+ * the entity being listed.
+ * <p></p>
+ * When the sort field is nullable, rows without a sort value are always ordered last, whatever the
+ * sort order, so the seek can account for them: pages ending on a non-null value continue into the
+ * null rows once the non-null values run out, and pages ending on a null value seek by identifier
+ * alone within the null rows.
+ */
+class CursorPaging {
+
+    private final ClassMetadata metadata;
+    private final String sortBy;
+    private final PageRequest.Order order;
+    private final PageCursor cursor;
+    private final boolean nullable;
+
+    /**
+     * Creates a new CursorPaging instance for the given entity and page request.
+     *
+     * @param metadata
+     *  the Hibernate metadata of the entity being paged
+     *
+     * @param pageRequest
+     *  a page request configured for cursor paging
+     *
+     * @throws IllegalArgumentException
+     *  if the page request is not configured for cursor paging, its sort field is not a basic
+     *  property of the entity, or its cursor is malformed or was issued for a different sort
+     */
+    public CursorPaging(ClassMetadata metadata, PageRequest pageRequest) {
+        if (metadata == null) {
+            throw new IllegalArgumentException("metadata is null");
+        }
+
+        if (pageRequest == null || !pageRequest.isCursorPaging()) {
+            throw new IllegalArgumentException("pageRequest is not configured for cursor paging");
+        }
+
+        this.metadata = metadata;
+        this.sortBy = pageRequest.getSortBy() != null ?
+            pageRequest.getSortBy() :
+            AbstractHibernateObject.DEFAULT_SORT_FIELD;
+        this.order = pageRequest.getOrder() != null ? pageRequest.getOrder() : PageRequest.DEFAULT_ORDER;
+
+        // Fail early if we can't represent the sort field in a cursor
+        this.getStringType(this.sortBy);
+        this.nullable = this.isNullable(this.sortBy);
+
+        if (!pageRequest.getCursor().isEmpty()) {
+            this.cursor = PageCursor.decode(pageRequest.getCursor());
+
+            if (!this.sortBy.equals(this.cursor.getSortBy()) || this.order != this.cursor.getOrder()) {
+                throw new IllegalArgumentException("cursor does not match the requested sort field or order");
+            }
+        }
+        else {
+            this.cursor = null;
+        }
+    }
+
+    /**
+     * Fetches the restriction which limits results to those following the cursor of the page
+     * request.
+     *
+     * @return
+     *  the restriction to apply to the query, or null if the first page was requested
+     */
+    public Criterion getRestriction() {
+        if (this.cursor == null) {
+            return null;
+        }
+
+        String idName = this.metadata.getIdentifierPropertyName();
+        Object value = this.fromString(this.sortBy, this.cursor.getLastValue());
+        Object id = this.fromString(idName, this.cursor.getLastId());
+
+        if (value == null) {
+            // Null sort values are ordered last, so only null rows can follow a null value
+            return Restrictions.and(Restrictions.isNull(this.sortBy), this.seek(idName, id));
+        }
+
+        if (this.sortBy.equals(idName)) {
+            return this.seek(idName, id);
+        }
+
+        Criterion restriction = Restrictions.or(
+            this.seek(this.sortBy, value),
+            Restrictions.and(Restrictions.eq(this.sortBy, value), this.seek(idName, id)));
+
+        // The null rows follow every non-null value
+        return this.nullable ? Restrictions.or(restriction, Restrictions.isNull(this.sortBy)) : restriction;
+    }
+
+    /**
+     * Fetches the orderings required for stable cursor paging: the requested sort field, followed
+     * by the entity identifier.
+     *
+     * @return
+     *  an array containing the orderings to apply to the query
+     */
+    public Order[] getOrders() {
+        String idName = this.metadata.getIdentifierPropertyName();
+
+        if (this.sortBy.equals(idName)) {
+            return new Order[] { this.buildOrder(idName) };
+        }
+
+        Order sortOrder = this.buildOrder(this.sortBy);
+        if (this.nullable) {
+            sortOrder.nulls(NullPrecedence.LAST);
+        }
+
+        return new Order[] { sortOrder, this.buildOrder(idName) };
+    }
+
+    /**
+     * Fetches the names of the properties making up the cursor key, in the order expected by the
+     * buildCursor method.
+     *
+     * @return
+     *  an array containing the sort field name and the identifier name
+     */
+    public String[] getKeyProperties() {
+        return new String[] { this.sortBy, this.metadata.getIdentifierPropertyName() };
+    }
+
+    /**
+     * Builds the continuation token for the page following the row with the given sort value and
+     * identifier.
+     *
+     * @param value
+     *  the sort value of the last row of the current page
+     *
+     * @param id
+     *  the identifier of the last row of the current page
+     *
+     * @return
+     *  an encoded continuation token
+     */
+    public String buildCursor(Object value, Serializable id) {
+        String idName = this.metadata.getIdentifierPropertyName();
+
+        return new PageCursor(this.sortBy, this.order, this.toString(this.sortBy, value),
+            this.toString(idName, id)).encode();
+    }
+
+    /**
+     * Builds the continuation token for the page following the given entity.
+     *
+     * @param entity
+     *  the last entity of the current page
+     *
+     * @return
+     *  an encoded continuation token
+     */
+    public String buildCursor(Object entity) {
+        Object value = this.sortBy.equals(this.metadata.getIdentifierPropertyName()) ?
+            this.metadata.getIdentifier(entity, null) :
+            this.metadata.getPropertyValue(entity, this.sortBy);
+
+        return this.buildCursor(value, this.metadata.getIdentifier(entity, null));
+    }
+
+    private Criterion seek(String property, Object value) {
+        return this.order == PageRequest.Order.ASCENDING ?
+            Restrictions.gt(property, value) :
+            Restrictions.lt(property, value);
+    }
+
+    private Order buildOrder(String property) {
+        return this.order == PageRequest.Order.ASCENDING ? Order.asc(property) : Order.desc(property);
+    }
+
+    private boolean isNullable(String property) {
+        if (property.equals(this.metadata.getIdentifierPropertyName())) {
+            return false;
+        }
+
+        String[] names = this.metadata.getPropertyNames();
+        boolean[] nullability = this.metadata.getPropertyNullability();
+
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i].equals(property)) {
+                return nullability[i];
+            }
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String toString(String property, Object value) {
+        return value != null ? this.getStringType(property).toString(value) : null;
+    }
+
+    private Object fromString(String property, String value) {
+        try {
+            return value != null ? this.getStringType(property).fromStringValue(value) : null;
+        }
+        catch (HibernateException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("cursor contains a malformed value for " + property, e);
+        }
+    }
+
+    private StringRepresentableType getStringType(String property) {
+        Type type;
+
+        try {
+            type = property.equals(this.metadata.getIdentifierPropertyName()) ?
+                this.metadata.getIdentifierType() :
+                this.metadata.getPropertyType(property);
+        }
+        catch (HibernateException e) {
+            throw new IllegalArgumentException("cannot page by unknown field: " + property, e);
+        }
+
+        if (!(type instanceof StringRepresentableType)) {
+            throw new IllegalArgumentException("cannot page by non-basic field: " + property);
+        }
+
+        return (StringRepresentableType) type;
+    }
+}
@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.common.paging.PageRequest;
 import org.candlepin.util.ElementTransformer;
 
 import com.google.inject.persist.Transactional;
@@ -25,15 +26,19 @@ import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projection;
+import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Projections;
 import org.hibernate.internal.CriteriaImpl;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.loader.criteria.CriteriaQueryTranslator;
+import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.type.Type;
 
+import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Collections;
@@ -64,6 +69,7 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
     protected int offset;
     protected int limit;
     protected LockMode lockMode;
+    protected int readAhead;
 
     /**
      * Creates a new DetachedCandlepinQuery instance using the specified criteria and session.
@@ -97,6 +103,7 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
         this.offset = -1;
         this.limit = -1;
         this.lockMode = null;
+        this.readAhead = 0;
     }
 
     /**
@@ -239,6 +246,15 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CandlepinQuery<T> setReadAhead(int count) {
+        this.readAhead = count;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -391,6 +407,14 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
         }
 
         ScrollableResults cursor = executable.scroll(ScrollMode.FORWARD_ONLY);
+
+        if (this.readAhead > 1) {
+            // Elements are read ahead before they're processed, so they can't be evicted by the
+            // cursor's iterator as it moves on
+            ResultIterator<T> iterator = new ColumnarResultIterator<>(this.session, cursor, column, false);
+            return new ReadAheadResultIterator<>(this.session, iterator, this.readAhead, evict);
+        }
+
         return new ColumnarResultIterator<>(this.session, cursor, column, evict);
     }
 
@@ -472,4 +496,60 @@ public class DetachedCandlepinQuery<T> implements CandlepinQuery<T> {
         Long count = (Long) executable.uniqueResult();
         return count != null ? count.intValue() : 0;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public String applyCursor(PageRequest pageRequest) {
+        CriteriaImpl executable = (CriteriaImpl) this.criteria.getExecutableCriteria(this.session);
+
+        if (executable.getProjection() != null) {
+            throw new IllegalArgumentException("cursor paging cannot be applied to a projected query");
+        }
+
+        ClassMetadata metadata = this.session.getSessionFactory()
+            .getClassMetadata(executable.getEntityOrClassName());
+
+        CursorPaging paging = new CursorPaging(metadata, pageRequest);
+
+        // Impl note:
+        // These are added to the detached criteria, rather than an executable copy, so they persist
+        // between executions like any other ordering applied to this query.
+        Criterion restriction = paging.getRestriction();
+        if (restriction != null) {
+            this.criteria.add(restriction);
+        }
+
+        for (Order order : paging.getOrders()) {
+            this.criteria.addOrder(order);
+        }
+
+        // Fetch only the keys of the page, plus one extra row to tell us whether or not there is
+        // another page after this one.
+        int perPage = pageRequest.getPerPage();
+
+        ProjectionList keys = Projections.projectionList();
+        for (String property : paging.getKeyProperties()) {
+            keys.add(Projections.property(property));
+        }
+
+        executable = (CriteriaImpl) this.getExecutableCriteria();
+        executable.setProjection(keys);
+        executable.setFirstResult(0);
+        executable.setMaxResults(perPage + 1);
+
+        List<Object[]> rows = (List<Object[]>) executable.list();
+
+        this.offset = -1;
+        this.limit = perPage;
+
+        if (rows != null && rows.size() > perPage) {
+            Object[] last = rows.get(perPage - 1);
+            return paging.buildCursor(last[0], (Serializable) last[1]);
+        }
+
+        return null;
+    }
 }
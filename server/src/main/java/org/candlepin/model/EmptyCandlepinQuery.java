@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.common.paging.PageRequest;
 import org.candlepin.util.ElementTransformer;
 
 import org.hibernate.Session;
@@ -134,6 +135,19 @@ public class EmptyCandlepinQuery<T> implements CandlepinQuery<T> {
         return this;
     }
 
+    /**
+     * Returns a reference to this CandlepinQuery instance.
+     *
+     * @param count
+     *
+     * @return
+     *  this query instance
+     */
+    @Override
+    public CandlepinQuery<T> setReadAhead(int count) {
+        return this;
+    }
+
     /**
      * Returns a reference to this CandlepinQuery instance.
      *
@@ -287,4 +301,15 @@ public class EmptyCandlepinQuery<T> implements CandlepinQuery<T> {
     public int getRowCount() {
         return 0;
     }
+
+    /**
+     * Always returns null, as there is never a page following an empty result.
+     *
+     * @return
+     *  null
+     */
+    @Override
+    public String applyCursor(PageRequest pageRequest) {
+        return null;
+    }
 }
@@ -19,6 +19,7 @@ import org.candlepin.common.paging.Page;
 import org.candlepin.common.paging.PageRequest;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
@@ -540,6 +541,68 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
         return Collections.<Entitlement>emptyList();
     }
 
+    /**
+     * Fetches the state of the entitlements of the given consumer without loading the entitlements
+     * themselves. Each row holds the ID, update time, quantity and dirty flag of an entitlement,
+     * followed by the ID and update time of its pool, ordered by entitlement ID.
+     *
+     * @param consumer
+     *  The consumer for which to fetch entitlement states
+     *
+     * @return
+     *  a list of entitlement state rows for the given consumer
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getEntitlementStates(Consumer consumer) {
+        String jpql = "SELECT e.id, e.updated, e.quantity, e.dirty, p.id, p.updated " +
+            "FROM Entitlement e JOIN e.pool p " +
+            "WHERE e.consumer.id = :consumer_id " +
+            "ORDER BY e.id ASC";
+
+        if (consumer != null) {
+            return this.getEntityManager()
+                .createQuery(jpql)
+                .setParameter("consumer_id", consumer.getId())
+                .getResultList();
+        }
+
+        return Collections.<Object[]>emptyList();
+    }
+
+    /**
+     * Fetches the UUIDs of the products, derived products, provided products and derived provided
+     * products of the pools the given consumer is entitled to, without loading the products. As
+     * product versions are distinct entities, the UUIDs change whenever any of these products do.
+     *
+     * @param consumer
+     *  The consumer for which to fetch product UUIDs
+     *
+     * @return
+     *  a set of the UUIDs of the products of the given consumer's entitled pools
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getEntitledPoolProductUuids(Consumer consumer) {
+        Set<String> uuids = new HashSet<>();
+
+        if (consumer != null) {
+            String[] joins = { "p.product", "p.derivedProduct", "p.providedProducts",
+                "p.derivedProvidedProducts" };
+
+            for (String join : joins) {
+                String jpql = "SELECT DISTINCT prod.uuid " +
+                    "FROM Entitlement e JOIN e.pool p JOIN " + join + " prod " +
+                    "WHERE e.consumer.id = :consumer_id";
+
+                uuids.addAll(this.getEntityManager()
+                    .createQuery(jpql)
+                    .setParameter("consumer_id", consumer.getId())
+                    .getResultList());
+            }
+        }
+
+        return uuids;
+    }
+
     /**
      * List all entitled product IDs from entitlements which overlap the given date range.
      *
@@ -1022,6 +1085,14 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
         if (consumer != null && poolIds != null && poolIds.iterator().hasNext()) {
             ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
 
+            Collection<String> ids = poolIds instanceof Collection ?
+                (Collection<String>) poolIds :
+                Lists.newArrayList(poolIds);
+
+            // Leave room for the consumer ID parameter in each block
+            IdSetStrategy strategy = this.getIdSetStrategy(ids,
+                Math.min(this.getInBlockSize(), this.getQueryParameterLimit() - 1));
+
             // Impl note:
             // We do this in direct SQL, as it lets us take a sane path from base to dependent
             // entitlements, rather than the lunacy that would be required with HQL, JPQL or
@@ -1040,15 +1111,13 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
                 // Dependent pool => dependent entitlement
                 "JOIN cp_entitlement e ON e.pool_id = ppp2.pool_id " +
                 "WHERE e.consumer_id = :consumer_id " +
-                "  AND ppp1.pool_id IN (:pool_ids) ";
-
+                "  AND " + strategy.getPredicate("ppp1.pool_id", "pool_ids");
 
-            int blockSize = Math.min(this.getInBlockSize(), this.getQueryParameterLimit() - 1);
             Query query = getEntityManager().createNativeQuery(querySql)
                 .setParameter("consumer_id", consumer.getId());
 
-            for (List<String> block : Iterables.partition(poolIds, blockSize)) {
-                query.setParameter("pool_ids", block);
+            for (List<String> block : strategy.partition(ids)) {
+                strategy.bind(query, "pool_ids", block);
                 entitlementIds.addAll(query.getResultList());
             }
 
@@ -1070,13 +1139,13 @@ public class EntitlementCurator extends AbstractHibernateCurator<Entitlement> {
                     // Dependent pool => dependent entitlement
                     "JOIN cp_entitlement e ON e.pool_id = ppp2.pool_id " +
                     "WHERE e.consumer_id = :consumer_id " +
-                    "  AND ppp1.pool_id IN (:pool_ids) ";
+                    "  AND " + strategy.getPredicate("ppp1.pool_id", "pool_ids");
 
                 query = getEntityManager().createNativeQuery(querySql)
                     .setParameter("consumer_id", consumer.getId());
 
-                for (List<String> block : Iterables.partition(poolIds, blockSize)) {
-                    query.setParameter("pool_ids", block);
+                for (List<String> block : strategy.partition(ids)) {
+                    strategy.bind(query, "pool_ids", block);
                     entitlementIds.addAll(query.getResultList());
                 }
             }
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import com.google.common.collect.Iterables;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import javax.persistence.Query;
+
+
+
+/**
+ * The IdSetStrategy defines how a native query restricts a column to a potentially very large set
+ * of IDs. Rather than building a statement with an IN operator per block of IDs, databases which
+ * support it can be given the entire set at once, keeping both the statement text and the number
+ * of round-trips constant regardless of the size of the set.
+ * <p></p>
+ * A strategy is used in three steps: the predicate is added to the statement, the IDs are
+ * partitioned into the sets the statement is to be executed for, and each set is bound to the
+ * statement before executing it:
+ * <pre>
+ *  IdSetStrategy strategy = this.getIdSetStrategy(ids);
+ *  Query query = this.getEntityManager().createNativeQuery(
+ *      "SELECT ... WHERE " + strategy.getPredicate("p.id", "ids"));
+ *
+ *  for (List&lt;String&gt; block : strategy.partition(ids)) {
+ *      strategy.bind(query, "ids", block);
+ *      ...
+ *  }
+ * </pre>
+ */
+public interface IdSetStrategy {
+
+    /** The names by which the strategies are selected in the database configuration */
+    String IN_LIST = "in";
+    String ARRAY = "array";
+    String TEMP_TABLE = "temp_table";
+
+    /**
+     * Builds an SQL predicate restricting the given column to the IDs bound to the given
+     * parameter.
+     *
+     * @param column
+     *  the column to restrict, including its table alias, if any
+     *
+     * @param parameter
+     *  the name of the parameter to which the IDs will be bound; must be a valid SQL identifier
+     *
+     * @return
+     *  an SQL predicate
+     */
+    String getPredicate(String column, String parameter);
+
+    /**
+     * Partitions the given IDs into the sets for which the statement is to be executed.
+     *
+     * @param ids
+     *  the IDs to partition
+     *
+     * @return
+     *  an iterable collection of lists of IDs, each of which is to be bound to one execution of
+     *  the statement
+     */
+    <T> Iterable<List<T>> partition(Collection<T> ids);
+
+    /**
+     * Binds a set of IDs, as returned by the partition method, to the given parameter of the
+     * statement.
+     *
+     * @param query
+     *  the statement to which the IDs are to be bound
+     *
+     * @param parameter
+     *  the name of the parameter, as provided to getPredicate
+     *
+     * @param ids
+     *  the IDs to bind
+     */
+    void bind(Query query, String parameter, List<?> ids);
+
+    /**
+     * The default strategy, which binds the IDs as a list parameter to an IN operator, executing
+     * the statement once per block of IDs.
+     */
+    class InListStrategy implements IdSetStrategy {
+        private final int blockSize;
+
+        public InListStrategy(int blockSize) {
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("blockSize is less than one");
+            }
+
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public String getPredicate(String column, String parameter) {
+            return column + " IN (:" + parameter + ")";
+        }
+
+        @Override
+        public <T> Iterable<List<T>> partition(Collection<T> ids) {
+            return Iterables.partition(ids, this.blockSize);
+        }
+
+        @Override
+        public void bind(Query query, String parameter, List<?> ids) {
+            query.setParameter(parameter, ids);
+        }
+    }
+
+    /**
+     * Binds the entire set of IDs to a single parameter, which the database splits into an array
+     * to compare the column against. This keeps the statement identical for sets of any size, so
+     * it is only parsed and planned once. Requires PostgreSQL.
+     * <p></p>
+     * Impl note: the IDs are bound as a single delimited string rather than as a JDBC array, as
+     * Hibernate cannot bind arrays to native queries without a custom type. The delimiter is a
+     * control character which never occurs in generated IDs; sets containing it are not supported.
+     */
+    class ArrayStrategy implements IdSetStrategy {
+        public static final char DELIMITER = '\u001F';
+
+        @Override
+        public String getPredicate(String column, String parameter) {
+            return column + " = ANY(string_to_array(:" + parameter + ", chr(31)))";
+        }
+
+        @Override
+        public <T> Iterable<List<T>> partition(Collection<T> ids) {
+            return Collections.singletonList(new ArrayList<>(ids));
+        }
+
+        @Override
+        public void bind(Query query, String parameter, List<?> ids) {
+            StringBuilder builder = new StringBuilder();
+
+            for (Object id : ids) {
+                if (builder.length() > 0) {
+                    builder.append(DELIMITER);
+                }
+
+                builder.append(id);
+            }
+
+            query.setParameter(parameter, builder.toString());
+        }
+
+        /**
+         * Checks whether or not the given IDs can be bound by this strategy.
+         *
+         * @param ids
+         *  the IDs to check
+         *
+         * @return
+         *  true if the IDs are all non-empty strings which do not contain the delimiter
+         */
+        public static boolean supports(Collection<?> ids) {
+            for (Object id : ids) {
+                if (!(id instanceof String) || ((String) id).isEmpty() ||
+                    ((String) id).indexOf(DELIMITER) != -1) {
+
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Loads the IDs into a temporary table, which lives for the duration of the database session,
+     * and restricts the column with a subquery against it. Each parameter uses a table of its
+     * own, which is emptied before the IDs are loaded into it. Intended for MySQL and MariaDB,
+     * which offer no array type.
+     * <p></p>
+     * Note that creating temporary tables within a transaction is rejected by MySQL servers
+     * enforcing GTID consistency with statement-based replication.
+     */
+    class TempTableStrategy implements IdSetStrategy {
+        public static final String TABLE_PREFIX = "cp_tmp_ids_";
+        public static final int MAX_ID_LENGTH = 64;
+
+        private final Session session;
+        private final int batchSize;
+
+        public TempTableStrategy(Session session, int batchSize) {
+            if (session == null) {
+                throw new IllegalArgumentException("session is null");
+            }
+
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize is less than one");
+            }
+
+            this.session = session;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String getPredicate(String column, String parameter) {
+            return column + " IN (SELECT id FROM " + TABLE_PREFIX + parameter + ")";
+        }
+
+        @Override
+        public <T> Iterable<List<T>> partition(Collection<T> ids) {
+            return Collections.singletonList(new ArrayList<>(ids));
+        }
+
+        @Override
+        public void bind(Query query, String parameter, List<?> ids) {
+            String table = TABLE_PREFIX + parameter;
+
+            this.session.createNativeQuery("CREATE TEMPORARY TABLE IF NOT EXISTS " + table +
+                " (id VARCHAR(" + MAX_ID_LENGTH + ") NOT NULL PRIMARY KEY)")
+                .addSynchronizedQuerySpace(table)
+                .executeUpdate();
+
+            this.session.createNativeQuery("DELETE FROM " + table)
+                .addSynchronizedQuerySpace(table)
+                .executeUpdate();
+
+            for (List<?> block : Iterables.partition(new LinkedHashSet<>(ids), this.batchSize)) {
+                StringBuilder builder = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (id) VALUES ");
+
+                for (int i = 0; i < block.size(); ++i) {
+                    builder.append(i > 0 ? ", " : "").append("(:id").append(i).append(')');
+                }
+
+                NativeQuery insert = this.session.createNativeQuery(builder.toString())
+                    .addSynchronizedQuerySpace(table);
+
+                for (int i = 0; i < block.size(); ++i) {
+                    insert.setParameter("id" + i, block.get(i));
+                }
+
+                insert.executeUpdate();
+            }
+        }
+
+        /**
+         * Checks whether or not the given IDs can be bound by this strategy.
+         *
+         * @param ids
+         *  the IDs to check
+         *
+         * @return
+         *  true if the IDs are all strings which fit in the temporary table
+         */
+        public static boolean supports(Collection<?> ids) {
+            for (Object id : ids) {
+                if (!(id instanceof String) || ((String) id).length() > MAX_ID_LENGTH) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -36,8 +36,10 @@ import org.hibernate.criterion.Restrictions;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Singleton;
@@ -168,6 +170,40 @@ public class JobCurator extends AbstractHibernateCurator<JobStatus> {
         return statuses;
     }
 
+    /**
+     * Counts the jobs in each of the given states. States without any jobs are included with a
+     * count of zero.
+     *
+     * @param states
+     *  A collection of the job states to count
+     *
+     * @return
+     *  A map of the given job states to the number of jobs in each state
+     */
+    public Map<JobState, Long> countJobsByState(Collection<JobState> states) {
+        Map<JobState, Long> counts = new EnumMap<>(JobState.class);
+
+        if (states != null && !states.isEmpty()) {
+            for (JobState state : states) {
+                counts.put(state, 0L);
+            }
+
+            String jpql = "SELECT js.state, COUNT(js) FROM JobStatus js WHERE js.state IN (:states) " +
+                "GROUP BY js.state";
+
+            List<Object[]> rows = this.getEntityManager()
+                .createQuery(jpql, Object[].class)
+                .setParameter("states", states)
+                .getResultList();
+
+            for (Object[] row : rows) {
+                counts.put((JobState) row[0], (Long) row[1]);
+            }
+        }
+
+        return counts;
+    }
+
     @SuppressWarnings("unchecked")
     public CandlepinQuery<JobStatus> findWaitingJobs() {
         // Perhaps unique jobClass/target combinations, However we're already in a weird state if
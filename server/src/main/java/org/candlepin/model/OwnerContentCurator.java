@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 
 import javax.inject.Singleton;
+import javax.persistence.LockModeType;
 
 /**
  * The OwnerContentCurator provides functionality for managing the mapping between owners and
@@ -388,7 +389,8 @@ public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent>
     }
 
     /**
-     * Builds a query which can be used to fetch the current collection of orphaned content. Due
+     * Builds a query which can be used to fetch the current collection of orphaned content: content
+     * which is neither linked to an owner nor referenced by a product linked to an owner. Due
      * to the nature of this request, it is highly advised that this query be run within a
      * transaction, with a pessimistic lock mode set.
      *
@@ -396,27 +398,89 @@ public class OwnerContentCurator extends AbstractHibernateCurator<OwnerContent>
      *  A CandlepinQuery for fetching the orphaned content
      */
     public CandlepinQuery<Content> getOrphanedContent() {
+        List<String> uuids = this.getOrphanedContentUuids();
+
+        if (uuids != null && !uuids.isEmpty()) {
+            DetachedCriteria criteria = DetachedCriteria.forClass(Content.class)
+                .add(CPRestrictions.in("uuid", uuids))
+                .addOrder(Order.asc("uuid"));
+
+            return this.cpQueryFactory.<Content>buildQuery(this.currentSession(), criteria);
+        }
+
+        return this.cpQueryFactory.<Content>buildQuery();
+    }
+
+    /**
+     * Fetches the UUIDs of the current collection of orphaned content, in UUID order. Content is
+     * orphaned when it is neither linked to an owner nor referenced by a product linked to an
+     * owner, so content still provided by an owned product is never treated as orphaned. Unlike
+     * {@link #getOrphanedContent()}, this does not load any entities, allowing orphans to be processed
+     * in batches.
+     *
+     * @return
+     *  a list containing the UUIDs of the orphaned content
+     */
+    public List<String> getOrphanedContentUuids() {
         // As with many of the owner=>content lookups, we have to do this in two queries. Since
         // we need to start from content and do a left join back to owner content, we have to use
         // a native query instead of any of the ORM query languages
 
         String sql = "SELECT c.uuid " +
             "FROM cp2_content c LEFT JOIN cp2_owner_content oc ON c.uuid = oc.content_uuid " +
-            "WHERE oc.owner_id IS NULL";
+            "WHERE oc.owner_id IS NULL " +
+            "AND NOT EXISTS (SELECT pc.content_uuid FROM " + ProductContent.DB_TABLE + " pc " +
+            "JOIN " + OwnerProduct.DB_TABLE + " op ON pc.product_uuid = op.product_uuid " +
+            "WHERE pc.content_uuid = c.uuid) " +
+            "ORDER BY c.uuid";
 
-        List<String> uuids = this.getEntityManager()
+        return this.getEntityManager()
             .createNativeQuery(sql)
             .getResultList();
+    }
 
-        if (uuids != null && !uuids.isEmpty()) {
-            DetachedCriteria criteria = DetachedCriteria.forClass(Content.class)
-                .add(CPRestrictions.in("uuid", uuids))
-                .addOrder(Order.asc("uuid"));
+    /**
+     * Deletes the given orphaned content, along with its modified product IDs and product
+     * mappings, using bulk deletes rather than loading and deleting each entity. The content rows
+     * are locked and checked to still be orphaned first; any content which has been linked to an
+     * owner, or to a product linked to an owner, since it was found to be orphaned is left
+     * untouched. As such, the only product mappings removed are those of orphaned products.
+     *
+     * @param uuids
+     *  a collection of UUIDs of orphaned content to delete
+     *
+     * @return
+     *  the number of content entities deleted
+     */
+    @Transactional
+    public int deleteOrphanedContent(Collection<String> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return 0;
+        }
 
-            return this.cpQueryFactory.<Content>buildQuery(this.currentSession(), criteria);
+        String jpql = "SELECT c.uuid FROM Content c " +
+            "WHERE c.uuid IN (:uuids) " +
+            "AND NOT EXISTS (SELECT oc.owner.id FROM OwnerContent oc WHERE oc.content.uuid = c.uuid) " +
+            "AND NOT EXISTS (SELECT pc.id FROM ProductContent pc, OwnerProduct op " +
+            "    WHERE pc.content.uuid = c.uuid AND op.product.uuid = pc.product.uuid)";
+
+        List<String> orphans = this.getEntityManager()
+            .createQuery(jpql, String.class)
+            .setParameter("uuids", uuids)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getResultList();
+
+        if (orphans.isEmpty()) {
+            return 0;
         }
 
-        return this.cpQueryFactory.<Content>buildQuery();
+        Map<String, Object> criteria = Collections.<String, Object>singletonMap("content_uuid", orphans);
+
+        this.bulkSQLDelete("cp2_content_modified_products", criteria);
+        this.bulkSQLDelete(ProductContent.DB_TABLE, criteria);
+
+        return this.bulkSQLDelete(Content.DB_TABLE,
+            Collections.<String, Object>singletonMap("uuid", orphans));
     }
 
     /**
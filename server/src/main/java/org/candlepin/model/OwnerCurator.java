@@ -102,9 +102,16 @@ public class OwnerCurator extends AbstractHibernateCurator<Owner> {
      */
     @Transactional
     public Owner getByKeySecure(String key) {
-        return (Owner) createSecureCriteria()
+        Owner owner = this.getRequestEntity(key, Owner::getKey);
+        if (owner != null) {
+            return owner;
+        }
+
+        owner = (Owner) createSecureCriteria()
             .add(Restrictions.eq("key", key))
             .uniqueResult();
+
+        return this.putRequestEntity(key, owner);
     }
 
     /**
@@ -115,7 +122,8 @@ public class OwnerCurator extends AbstractHibernateCurator<Owner> {
      */
     @Transactional
     public Owner getByKey(String key) {
-        return this.currentSession().bySimpleNaturalId(Owner.class).load(key);
+        Owner owner = this.getRequestEntity(key, Owner::getKey, true);
+        return owner != null ? owner : this.currentSession().bySimpleNaturalId(Owner.class).load(key);
     }
 
     @Transactional
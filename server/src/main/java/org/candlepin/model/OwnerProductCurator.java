@@ -39,6 +39,7 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Singleton;
+import javax.persistence.LockModeType;
 
 
 
@@ -420,27 +421,83 @@ public class OwnerProductCurator extends AbstractHibernateCurator<OwnerProduct>
      *  A CandlepinQuery for fetching the orphaned products
      */
     public CandlepinQuery<Product> getOrphanedProducts() {
+        List<String> uuids = this.getOrphanedProductUuids();
+
+        if (uuids != null && !uuids.isEmpty()) {
+            DetachedCriteria criteria = DetachedCriteria.forClass(Product.class)
+                .add(CPRestrictions.in("uuid", uuids))
+                .addOrder(Order.asc("uuid"));
+
+            return this.cpQueryFactory.<Product>buildQuery(this.currentSession(), criteria);
+        }
+
+        return this.cpQueryFactory.<Product>buildQuery();
+    }
+
+    /**
+     * Fetches the UUIDs of the current collection of orphaned products, in UUID order. Unlike
+     * {@link #getOrphanedProducts()}, this does not load any entities, allowing orphans to be processed
+     * in batches.
+     *
+     * @return
+     *  a list containing the UUIDs of the orphaned products
+     */
+    public List<String> getOrphanedProductUuids() {
         // As with many of the owner=>product lookups, we have to do this in two queries. Since
         // we need to start from product and do a left join back to owner products, we have to use
         // a native query instead of any of the ORM query languages
 
         String sql = "SELECT p.uuid " +
             "FROM cp2_products p LEFT JOIN cp2_owner_products op ON p.uuid = op.product_uuid " +
-            "WHERE op.owner_id IS NULL";
+            "WHERE op.owner_id IS NULL " +
+            "ORDER BY p.uuid";
 
-        List<String> uuids = this.getEntityManager()
+        return this.getEntityManager()
             .createNativeQuery(sql)
             .getResultList();
+    }
 
-        if (uuids != null && !uuids.isEmpty()) {
-            DetachedCriteria criteria = DetachedCriteria.forClass(Product.class)
-                .add(CPRestrictions.in("uuid", uuids))
-                .addOrder(Order.asc("uuid"));
+    /**
+     * Deletes the given orphaned products, along with their attributes, dependent product IDs,
+     * certificates and content mappings, using bulk deletes rather than loading and deleting each
+     * entity. The product rows are locked and checked to still be orphaned first; any product
+     * which has been linked to an owner since it was found to be orphaned is left untouched.
+     *
+     * @param uuids
+     *  a collection of UUIDs of orphaned products to delete
+     *
+     * @return
+     *  the number of products deleted
+     */
+    @Transactional
+    public int deleteOrphanedProducts(Collection<String> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return 0;
+        }
 
-            return this.cpQueryFactory.<Product>buildQuery(this.currentSession(), criteria);
+        String jpql = "SELECT p.uuid FROM Product p " +
+            "WHERE p.uuid IN (:uuids) " +
+            "AND NOT EXISTS (SELECT op.owner.id FROM OwnerProduct op WHERE op.product.uuid = p.uuid)";
+
+        List<String> orphans = this.getEntityManager()
+            .createQuery(jpql, String.class)
+            .setParameter("uuids", uuids)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .getResultList();
+
+        if (orphans.isEmpty()) {
+            return 0;
         }
 
-        return this.cpQueryFactory.<Product>buildQuery();
+        Map<String, Object> criteria = Collections.<String, Object>singletonMap("product_uuid", orphans);
+
+        this.bulkSQLDelete("cp2_product_attributes", criteria);
+        this.bulkSQLDelete("cp2_product_dependent_products", criteria);
+        this.bulkSQLDelete(ProductCertificate.DB_TABLE, criteria);
+        this.bulkSQLDelete(ProductContent.DB_TABLE, criteria);
+
+        return this.bulkSQLDelete(Product.DB_TABLE,
+            Collections.<String, Object>singletonMap("uuid", orphans));
     }
 
     /**
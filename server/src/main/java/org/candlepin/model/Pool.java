@@ -392,6 +392,14 @@ public class Pool extends AbstractHibernateObject<Pool> implements Owned, Named,
     @JsonIgnore
     private Cdn cdn;
 
+    /**
+     * A digest of the subscription this pool was last refreshed from; only set on master pools
+     */
+    @Column(name = "subscription_fingerprint")
+    @Size(max = 64)
+    @JsonIgnore
+    private String subscriptionFingerprint;
+
 
     public Pool() {
         this.activeSubscription = Boolean.TRUE;
@@ -1472,6 +1480,14 @@ public class Pool extends AbstractHibernateObject<Pool> implements Owned, Named,
         this.upstreamConsumerId = upstreamConsumerId;
     }
 
+    public String getSubscriptionFingerprint() {
+        return subscriptionFingerprint;
+    }
+
+    public void setSubscriptionFingerprint(String subscriptionFingerprint) {
+        this.subscriptionFingerprint = subscriptionFingerprint;
+    }
+
     public Cdn getCdn() {
         return cdn;
     }
@@ -21,6 +21,7 @@ import org.candlepin.model.activationkeys.ActivationKey;
 import org.candlepin.model.activationkeys.ActivationKeyPool;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.persist.Transactional;
@@ -59,9 +60,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.PersistenceUnitUtil;
 import javax.persistence.TypedQuery;
 
 import javax.inject.Singleton;
@@ -77,6 +82,43 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
     /** The recommended number of expired pools to fetch in a single call to listExpiredPools */
     public static final int EXPIRED_POOL_BLOCK_SIZE = 1000;
 
+    /** The recommended number of subscriptions to look up in a single call to mapPoolsBySubscriptionIds */
+    public static final int SUBSCRIPTION_POOL_BLOCK_SIZE = 500;
+
+    /**
+     * Named sets of pool associations which are used together, and can be loaded for a collection
+     * of pools in a fixed number of queries by applying the profile with applyFetchProfile.
+     */
+    public enum FetchProfile {
+        /** Associations translated when listing pools */
+        POOL_LIST("pool-list", true, false),
+
+        /** Associations used by the compliance rules */
+        COMPLIANCE("compliance", false, false),
+
+        /** Associations used to generate entitlement certificates, including branding and content */
+        CERT_GENERATION("cert-generation", true, true);
+
+        private final String name;
+        private final boolean branding;
+        private final boolean content;
+
+        FetchProfile(String name, boolean branding, boolean content) {
+            this.name = name;
+            this.branding = branding;
+            this.content = content;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
     private static Logger log = LoggerFactory.getLogger(PoolCurator.class);
     private ConsumerCurator consumerCurator;
     private ConsumerTypeCurator consumerTypeCurator;
@@ -157,15 +199,20 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
             return new HashSet<>();
         }
 
+        Set<String> entIds = new HashSet<>();
+        for (Entitlement ent : ents) {
+            entIds.add(ent.getId());
+        }
+
         Set<Pool> output = new HashSet<>();
 
         // Impl note:
         // We're using the partitioning here as it's slightly faster to do individual queries,
         // and we eliminate the risk of hitting the query param limit. Since we weren't using
         // a CPQuery object to begin with, this is a low-effort win here.
-        for (List<Entitlement> block : this.partition(ents)) {
+        for (List<String> block : this.partition(this.getPoolGraphIdsForSourceEntitlements(entIds))) {
             List<Pool> pools = createSecureCriteria()
-                .add(CPRestrictions.in("sourceEntitlement", block))
+                .add(CPRestrictions.in("id", block))
                 .setFetchMode("entitlements", FetchMode.JOIN)
                 .list();
 
@@ -174,21 +221,6 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
             }
         }
 
-        if (output.size() > 0) {
-            Set<Pool> pools = this.listBySourceEntitlements(convertPoolsToEntitlements(output));
-            output.addAll(pools);
-        }
-
-        return output;
-    }
-
-    private Set<Entitlement> convertPoolsToEntitlements(Collection<Pool> pools) {
-        Set<Entitlement> output = new HashSet<>();
-
-        for (Pool p : pools) {
-            output.addAll(p.getEntitlements());
-        }
-
         return output;
     }
 
@@ -228,7 +260,8 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
     /**
      * Fetches a block of non-derived, expired pools from the database, using the specified block
      * size. If the given block size is a non-positive integer, all non-derived, expired pools will
-     * be retrieved.
+     * be retrieved. Pools are returned in order of their expiration, such that the pools which
+     * expired first are always cleaned up first.
      * <p></p>
      * <strong>Note:</strong> This method does not set the offset (first result) for the block.
      * Unless the pools are being deleted, this method will repeatedly return the same pools. To
@@ -254,7 +287,9 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
 
         Criteria criteria = this.createSecureCriteria("tgtPool")
             .add(Restrictions.lt("tgtPool.endDate", now))
-            .add(Subqueries.notExists(entCheck));
+            .add(Subqueries.notExists(entCheck))
+            .addOrder(Order.asc("tgtPool.endDate"))
+            .addOrder(Order.asc("tgtPool.id"));
 
         if (blockSize > 0) {
             criteria.setMaxResults(blockSize);
@@ -1194,18 +1229,24 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         Set<String> output = new HashSet<>();
 
         if (poolIds != null && poolIds.iterator().hasNext()) {
+            Collection<String> ids = poolIds instanceof Collection ?
+                (Collection<String>) poolIds :
+                Lists.newArrayList(poolIds);
+
+            IdSetStrategy strategy = this.getIdSetStrategy(ids);
+
             // TODO: Update this method to use the pool hierarchy columns when they're available
             String sql = "SELECT DISTINCT ss2.pool_id " +
                 "FROM cp2_pool_source_sub ss1 " +
                 "JOIN cp2_pool_source_sub ss2 ON ss2.subscription_id = ss1.subscription_id " +
                 "WHERE ss1.subscription_sub_key = 'master' " +
                 "  AND ss2.subscription_sub_key != 'master' " +
-                "  AND ss1.pool_id IN (:pool_ids)";
+                "  AND " + strategy.getPredicate("ss1.pool_id", "pool_ids");
 
             javax.persistence.Query query = this.getEntityManager().createNativeQuery(sql);
 
-            for (List<String> block : this.partition(poolIds)) {
-                query.setParameter("pool_ids", block);
+            for (List<String> block : strategy.partition(ids)) {
+                strategy.bind(query, "pool_ids", block);
                 output.addAll(query.getResultList());
             }
         }
@@ -1294,6 +1335,123 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return pids;
     }
 
+    /**
+     * Fetches the IDs of the given pools and of every pool derived from them, directly or
+     * indirectly: the pools derived from a master pool's subscription, the pools derived from the
+     * entitlements of any of those pools, and so on. Pools which do not exist are not included in
+     * the output.
+     *
+     * @param poolIds
+     *  A collection of pool IDs from which to walk the pool graph
+     *
+     * @return
+     *  A set containing the IDs of the given pools and all of the pools derived from them
+     */
+    public Set<String> getPoolGraphIds(Collection<String> poolIds) {
+        return this.walkPoolGraph("p.id", poolIds, true);
+    }
+
+    /**
+     * Fetches the IDs of the pools derived from the given entitlements, along with the pools
+     * derived from the entitlements of those pools, and so on.
+     *
+     * @param entIds
+     *  A collection of entitlement IDs from which to walk the pool graph
+     *
+     * @return
+     *  A set containing the IDs of all of the pools derived from the given entitlements
+     */
+    public Set<String> getPoolGraphIdsForSourceEntitlements(Collection<String> entIds) {
+        return this.walkPoolGraph("p.sourceentitlement_id", entIds, false);
+    }
+
+    /**
+     * Walks the graph of derived pools from the pools whose seed column matches any of the given
+     * IDs. Where the database supports it, the entire walk is done with a recursive query, one
+     * round-trip per block of seed IDs; otherwise the graph is walked one level per query.
+     *
+     * @param seedColumn
+     *  The column of the cp_pool table, aliased as "p", selecting the pools to start from
+     *
+     * @param ids
+     *  The IDs to match against the seed column
+     *
+     * @param subscriptionEdges
+     *  Whether or not to follow master pools to the pools derived from their subscription, in
+     *  addition to following entitlements to the pools derived from them
+     *
+     * @return
+     *  A set containing the IDs of the seed pools and of every pool reachable from them
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> walkPoolGraph(String seedColumn, Collection<String> ids, boolean subscriptionEdges) {
+        Set<String> output = new HashSet<>();
+
+        if (ids == null || ids.isEmpty()) {
+            return output;
+        }
+
+        IdSetStrategy strategy = this.getIdSetStrategy(ids);
+        String seedSql = "SELECT p.id FROM cp_pool p WHERE " + strategy.getPredicate(seedColumn, "ids");
+
+        if (!this.useRecursiveQueries()) {
+            javax.persistence.Query query = this.getEntityManager().createNativeQuery(seedSql);
+
+            for (List<String> block : strategy.partition(ids)) {
+                strategy.bind(query, "ids", block);
+                output.addAll(query.getResultList());
+            }
+
+            Collection<String> level = new HashSet<>(output);
+            while (!level.isEmpty()) {
+                Set<String> next = new HashSet<>(
+                    this.getPoolIdsForSourceEntitlements(this.getEntitlementIdsForPools(level)));
+
+                if (subscriptionEdges) {
+                    next.addAll(this.getDerivedPoolIdsForPools(level));
+                }
+
+                next.removeAll(output);
+                output.addAll(next);
+                level = next;
+            }
+
+            return output;
+        }
+
+        String edgeSql = "SELECT e.pool_id AS parent_id, p.id AS child_id " +
+            "FROM cp_entitlement e " +
+            "JOIN cp_pool p ON p.sourceentitlement_id = e.id";
+
+        if (subscriptionEdges) {
+            edgeSql += " UNION ALL " +
+                "SELECT ss1.pool_id AS parent_id, ss2.pool_id AS child_id " +
+                "FROM cp2_pool_source_sub ss1 " +
+                "JOIN cp2_pool_source_sub ss2 ON ss2.subscription_id = ss1.subscription_id " +
+                "WHERE ss1.subscription_sub_key = 'master' " +
+                "  AND ss2.subscription_sub_key != 'master'";
+        }
+
+        // Impl note: UNION (rather than UNION ALL) discards pools which have already been visited,
+        // which also guarantees the walk terminates should the graph ever contain a cycle.
+        String sql = "WITH RECURSIVE pool_graph (pool_id) AS (" +
+            seedSql +
+            " UNION " +
+            "SELECT edge.child_id FROM pool_graph pg " +
+            "JOIN (" + edgeSql + ") edge ON edge.parent_id = pg.pool_id" +
+            ") " +
+            "SELECT pool_id FROM pool_graph";
+
+        javax.persistence.Query query = this.getEntityManager().createNativeQuery(sql);
+
+        for (List<String> block : strategy.partition(ids)) {
+            strategy.bind(query, "ids", block);
+            output.addAll(query.getResultList());
+        }
+
+        return output;
+    }
+
     @SuppressWarnings("unchecked")
     public CandlepinQuery<Pool> getPoolsBySubscriptionId(String subId) {
         String jpql = "SELECT DISTINCT ss.pool.id FROM SourceSubscription ss WHERE ss.subscriptionId = :sid";
@@ -1336,6 +1494,28 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return this.cpQueryFactory.<Pool>buildQuery();
     }
 
+    /**
+     * Fetches the pools originating from the given subscriptions, mapped by subscription ID. This
+     * allows callers processing many subscriptions to look up their pools with a single query rather
+     * than one per subscription. The pools of each subscription are ordered by ID.
+     *
+     * @param subIds
+     *  a collection of subscription IDs for which to fetch pools
+     *
+     * @return
+     *  a mapping of subscription IDs to the pools originating from the given subscriptions; subscriptions
+     *  without any pools will not be present in the map
+     */
+    public Map<String, List<Pool>> mapPoolsBySubscriptionIds(Collection<String> subIds) {
+        Map<String, List<Pool>> poolMap = new HashMap<>();
+
+        for (Pool pool : this.getPoolsBySubscriptionIds(subIds).list()) {
+            poolMap.computeIfAbsent(pool.getSubscriptionId(), key -> new ArrayList<>()).add(pool);
+        }
+
+        return poolMap;
+    }
+
     @SuppressWarnings("unchecked")
     public List<Pool> getOwnersFloatingPools(Owner owner) {
         return currentSession().createCriteria(Pool.class)
@@ -1662,6 +1842,115 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         }
     }
 
+    /**
+     * Loads the associations of the given profile for all of the given pools, so they can be used
+     * without lazily loading them one pool or product at a time. The pool collections are batch
+     * fetched, so each is initialized for every pool with a single query; the product collections
+     * are then initialized with a query per collection, fetching them for all of the products
+     * referenced by the pools at once.
+     *
+     * @param pools
+     *  The pools for which to load associations; must be managed by the current session
+     *
+     * @param profile
+     *  The profile determining which associations to load
+     */
+    public void applyFetchProfile(Collection<Pool> pools, FetchProfile profile) {
+        if (pools == null || pools.isEmpty() || profile == null) {
+            return;
+        }
+
+        Map<String, Product> products = new HashMap<>();
+        Map<String, Product> allProducts = new HashMap<>();
+
+        for (Pool pool : pools) {
+            if (pool == null) {
+                continue;
+            }
+
+            // Pool attributes are loaded by subselect, for all of the pools queried with this one
+            pool.getAttributes().isEmpty();
+
+            Hibernate.initialize(pool.getProvidedProducts());
+            Hibernate.initialize(pool.getDerivedProvidedProducts());
+
+            if (profile.branding) {
+                Hibernate.initialize(pool.getBranding());
+            }
+
+            for (Product product : Arrays.asList(pool.getProduct(), pool.getDerivedProduct())) {
+                if (product != null && product.getUuid() != null) {
+                    products.put(product.getUuid(), product);
+                }
+            }
+
+            Stream.of(pool.getProvidedProducts(), pool.getDerivedProvidedProducts())
+                .filter(Objects::nonNull)
+                .flatMap(Collection::stream)
+                .filter(product -> product != null && product.getUuid() != null)
+                .forEach(product -> allProducts.put(product.getUuid(), product));
+        }
+
+        // Cert generation includes the attributes and content of every product, while other
+        // profiles only need the attributes of the pools' own products
+        if (profile.content) {
+            products.putAll(allProducts);
+        }
+
+        this.fetchProductCollections(products.values(), "attributes", null);
+
+        if (profile.content) {
+            this.fetchProductCollections(products.values(), "productContent", "content");
+        }
+
+        log.debug("Applied fetch profile \"{}\" to {} pools and {} products", profile, pools.size(),
+            products.size());
+    }
+
+    /**
+     * Initializes the given collection of the given products, which must be managed by the current
+     * session, by fetch joining it. Products for which the collection is already loaded are skipped.
+     *
+     * @param products
+     *  The products for which to initialize the collection
+     *
+     * @param collection
+     *  The name of the collection to initialize
+     *
+     * @param element
+     *  The name of an association of the collection's elements to fetch with it, or null
+     */
+    private void fetchProductCollections(Collection<Product> products, String collection,
+        String element) {
+
+        PersistenceUnitUtil util = this.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+
+        List<String> uuids = products.stream()
+            .filter(product -> !util.isLoaded(product, collection))
+            .map(Product::getUuid)
+            .collect(Collectors.toList());
+
+        if (uuids.isEmpty()) {
+            return;
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.")
+            .append(collection).append(" c");
+
+        if (element != null) {
+            jpql.append(" LEFT JOIN FETCH c.").append(element);
+        }
+
+        jpql.append(" WHERE p.uuid IN (:uuids)");
+
+        for (List<String> block : this.partition(uuids)) {
+            this.getEntityManager()
+                .createQuery(jpql.toString(), Product.class)
+                .setParameter("uuids", block)
+                .getResultList();
+        }
+    }
+
     /**
      * Fetches a mapping of pool IDs to sets of product IDs representing the provided products of
      * the given pool. The returned map will only contain mappings for pools specified in the given
@@ -1942,6 +2231,52 @@ public class PoolCurator extends AbstractHibernateCurator<Pool> {
         return consumerPoolMap;
     }
 
+    /**
+     * Fetches the IDs of the stack derived pools of the given consumers for the given stack IDs,
+     * mapped by consumer ID and then by the ID of the stack from which each pool is derived. Pools
+     * derived from the given stacks of other consumers are not fetched. If no such pools can be
+     * found, an empty map is returned.
+     *
+     * @param consumerIds
+     *  A collection of IDs of the consumers whose stack derived pools should be fetched
+     *
+     * @param stackIds
+     *  A collection of stack IDs to use to fetch consumer pool IDs
+     *
+     * @return
+     *  a map of consumer IDs to maps of stack IDs to the pool IDs of the pools derived from them
+     */
+    public Map<String, Map<String, String>> getConsumerStackDerivedPoolIdMap(Iterable<String> consumerIds,
+        Iterable<String> stackIds) {
+
+        Map<String, Map<String, String>> consumerPoolMap = new HashMap<>();
+
+        if (consumerIds != null && consumerIds.iterator().hasNext() &&
+            stackIds != null && stackIds.iterator().hasNext()) {
+
+            String jpql = "SELECT ss.sourceConsumer.id, ss.sourceStackId, ss.derivedPool.id " +
+                "FROM SourceStack ss " +
+                "WHERE ss.sourceConsumer.id IN (:consumerids) AND ss.sourceStackId IN (:stackids)";
+
+            TypedQuery<Object[]> query = this.getEntityManager().createQuery(jpql, Object[].class);
+
+            for (List<String> consumerBlock : this.partition(consumerIds)) {
+                query.setParameter("consumerids", consumerBlock);
+
+                for (List<String> stackBlock : this.partition(stackIds)) {
+                    query.setParameter("stackids", stackBlock);
+
+                    for (Object[] row : query.getResultList()) {
+                        consumerPoolMap.computeIfAbsent((String) row[0], key -> new HashMap<>())
+                            .put((String) row[1], (String) row[2]);
+                    }
+                }
+            }
+        }
+
+        return consumerPoolMap;
+    }
+
     /**
      * Fetches a list of pool IDs for stack derived pools that will be unentitled with the deletion
      * of the specified entitlement IDs.
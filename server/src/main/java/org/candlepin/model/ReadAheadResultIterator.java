@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.hibernate.Session;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+
+
+/**
+ * The ReadAheadResultIterator wraps another ResultIterator, reading its elements in blocks ahead
+ * of the caller. Since every element in a block is loaded into the session before any of them is
+ * processed, the lazy collections of the entities in the block are initialized together by
+ * Hibernate's batch fetching (for collections mapped with a batch size), instead of with one query
+ * per entity.
+ *
+ * ReadAheadResultIterators should be closed after iteration to close the backing resources.
+ * Omitting this step will prevent some elements from being evicted and will leave database
+ * connections open longer than necessary.
+ *
+ * @param <T> The element type to be returned by this iterator's "next" method.
+ */
+public class ReadAheadResultIterator<T> implements ResultIterator<T> {
+    private final Session session;
+    private final ResultIterator<T> iterator;
+    private final int count;
+    private final boolean evict;
+
+    private final Deque<T> buffer;
+    private T toEvict;
+
+    /**
+     * Creates a new ReadAheadResultIterator to iterate over the elements provided by the given
+     * iterator, reading up to the given number of elements ahead of the caller.
+     *
+     * @param session
+     *  The session from which the elements originate
+     *
+     * @param iterator
+     *  The ResultIterator over which to iterate; must not evict its elements itself
+     *
+     * @param count
+     *  The number of elements to read ahead at a time
+     *
+     * @param evict
+     *  Whether or not to auto-evict queried objects after they've been processed
+     */
+    public ReadAheadResultIterator(Session session, ResultIterator<T> iterator, int count, boolean evict) {
+        if (session == null) {
+            throw new IllegalArgumentException("session is null");
+        }
+
+        if (iterator == null) {
+            throw new IllegalArgumentException("iterator is null");
+        }
+
+        if (count < 1) {
+            throw new IllegalArgumentException("count is less than one");
+        }
+
+        this.session = session;
+        this.iterator = iterator;
+        this.count = count;
+        this.evict = evict;
+
+        this.buffer = new LinkedList<>();
+        this.toEvict = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.toEvict != null) {
+            this.session.evict(this.toEvict);
+            this.toEvict = null;
+        }
+
+        // Only read the next block once the current one has been processed, so callers which
+        // clear the session between blocks don't detach elements which have yet to be processed
+        if (this.buffer.isEmpty()) {
+            while (this.buffer.size() < this.count && this.iterator.hasNext()) {
+                this.buffer.add(this.iterator.next());
+            }
+        }
+
+        return !this.buffer.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T element = this.buffer.poll();
+
+        if (this.evict && element != null) {
+            this.toEvict = element;
+        }
+
+        return element;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException(
+            "The remove operation is not supported on ReadAheadResultIterator instances."
+        );
+    }
+
+    @Override
+    public void close() {
+        if (this.evict) {
+            if (this.toEvict != null) {
+                this.buffer.add(this.toEvict);
+            }
+
+            for (T element : this.buffer) {
+                if (element != null) {
+                    this.session.evict(element);
+                }
+            }
+        }
+
+        this.toEvict = null;
+        this.buffer.clear();
+
+        this.iterator.close();
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import org.candlepin.auth.Principal;
+import org.candlepin.guice.CandlepinRequestScoped;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+
+
+/**
+ * Identity map of the entities looked up by natural key, such as a consumer UUID or an owner key,
+ * during a single request. Hibernate only resolves entities from its session when they are looked
+ * up by ID, so without this map, the lookups made for the same entity by the authentication and
+ * authorization filters and then by the resource each issue a query of their own.
+ * <p></p>
+ * Entities are stored along with the scope of the principal they were looked up for, as lookups
+ * applying the permissions of one principal must not reuse entities found with the permissions of
+ * another. Callers are expected to validate the entities they get back against the session in
+ * use, as the session may have been cleared since.
+ * <p></p>
+ * As the map holds strong references to its entities until its scope ends, it is only used once
+ * enabled, which is done for HTTP requests by the scope filter. Pinsetter jobs also run within the
+ * request scope, often for far longer and across many more entities, and do not use the map.
+ */
+@CandlepinRequestScoped
+public class RequestEntityMap {
+    private final Map<Class<?>, Map<String, Entry>> entities = new HashMap<>();
+
+    private boolean enabled;
+
+    private int hits;
+    private int misses;
+
+    /**
+     * Builds the scope of the principal with the given type and name.
+     *
+     * @param type
+     *  the type of the principal
+     *
+     * @param name
+     *  the name of the principal
+     *
+     * @return
+     *  the scope of the principal
+     */
+    public static String getScope(String type, String name) {
+        return type + ":" + name;
+    }
+
+    /**
+     * Builds the scope of the given principal, under which entities looked up with its permissions
+     * are stored.
+     *
+     * @param principal
+     *  the principal for which to build a scope, or null if there is no principal yet
+     *
+     * @return
+     *  the scope of the principal
+     */
+    public static String getScope(Principal principal) {
+        return principal != null ? getScope(principal.getType(), principal.getName()) : "";
+    }
+
+    /**
+     * Enables the use of this map for the remainder of its scope.
+     */
+    public void enable() {
+        this.enabled = true;
+    }
+
+    /**
+     * @return
+     *  true if this map has been enabled for use; false otherwise
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Fetches the entity of the given type stored under the given key, provided it is still
+     * valid and was stored for the given scope. Entities failing validation are removed from the
+     * map.
+     *
+     * @param type
+     *  the type of entity to fetch
+     *
+     * @param key
+     *  the natural key of the entity to fetch
+     *
+     * @param scope
+     *  the scope the entity must have been stored for, or null to accept entities stored for any
+     *  scope
+     *
+     * @param validator
+     *  a predicate checking whether or not the stored entity can still be used
+     *
+     * @return
+     *  the stored entity, or null if no valid entity is stored under the key
+     */
+    public <E> E get(Class<E> type, String key, String scope, Predicate<? super E> validator) {
+        Map<String, Entry> typeEntities = this.entities.get(type);
+        Entry entry = typeEntities != null ? typeEntities.get(key) : null;
+        E entity = null;
+
+        if (entry != null && (scope == null || scope.equals(entry.scope))) {
+            entity = type.cast(entry.entity);
+
+            if (!validator.test(entity)) {
+                typeEntities.remove(key);
+                entity = null;
+            }
+        }
+
+        if (entity != null) {
+            ++this.hits;
+        }
+        else {
+            ++this.misses;
+        }
+
+        return entity;
+    }
+
+    /**
+     * Stores the given entity under the given key for the given scope, replacing any entity of the
+     * same type previously stored under it.
+     *
+     * @param type
+     *  the type of the entity to store
+     *
+     * @param key
+     *  the natural key of the entity
+     *
+     * @param scope
+     *  the scope of the principal the entity was looked up for
+     *
+     * @param entity
+     *  the entity to store
+     */
+    public <E> void put(Class<E> type, String key, String scope, E entity) {
+        if (key != null && scope != null && entity != null) {
+            this.entities.computeIfAbsent(type, k -> new HashMap<>()).put(key, new Entry(scope, entity));
+        }
+    }
+
+    /**
+     * Removes the entity of the given type stored under the given key, if any.
+     *
+     * @param type
+     *  the type of the entity to remove
+     *
+     * @param key
+     *  the natural key of the entity
+     */
+    public void remove(Class<?> type, String key) {
+        Map<String, Entry> typeEntities = this.entities.get(type);
+
+        if (typeEntities != null) {
+            typeEntities.remove(key);
+        }
+    }
+
+    /**
+     * Removes all stored entities, such as when the session they were loaded into is cleared.
+     */
+    public void clear() {
+        this.entities.clear();
+    }
+
+    /**
+     * @return
+     *  the number of lookups served from the map, each of which spared a query
+     */
+    public int getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return
+     *  the number of lookups which were not served from the map
+     */
+    public int getMisses() {
+        return this.misses;
+    }
+
+    private static class Entry {
+        private final String scope;
+        private final Object entity;
+
+        public Entry(String scope, Object entity) {
+            this.scope = scope;
+            this.entity = entity;
+        }
+    }
+}
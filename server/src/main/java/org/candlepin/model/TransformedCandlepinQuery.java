@@ -14,6 +14,7 @@
  */
 package org.candlepin.model;
 
+import org.candlepin.common.paging.PageRequest;
 import org.candlepin.util.ElementTransformer;
 
 import org.hibernate.Session;
@@ -164,6 +165,15 @@ public class TransformedCandlepinQuery<I, O> implements CandlepinQuery<O> {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CandlepinQuery<O> setReadAhead(int count) {
+        this.query.setReadAhead(count);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -293,4 +303,12 @@ public class TransformedCandlepinQuery<I, O> implements CandlepinQuery<O> {
         return this.query.getRowCount();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String applyCursor(PageRequest pageRequest) {
+        return this.query.applyCursor(pageRequest);
+    }
+
 }
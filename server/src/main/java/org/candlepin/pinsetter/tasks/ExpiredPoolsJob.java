@@ -14,15 +14,20 @@
  */
 package org.candlepin.pinsetter.tasks;
 
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.controller.ExpiredPoolCleanupResult;
 import org.candlepin.controller.PoolManager;
 
 import com.google.inject.Inject;
 
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * ExpiredPoolsJob: Runs periodically throughout the day to look for any pools past their
  * expiration date.
@@ -30,11 +35,17 @@ import org.slf4j.LoggerFactory;
  * If found we clean up the subscription, pool, and it's entitlements. This is primarily
  * done on a scheduled basis to make sure we re-source derived pools if the stack has
  * other still valid entitlements.
+ *
+ * Pools are deleted in small blocks, oldest expiration first, each in a transaction of its own.
+ * Every run is bounded in time and leaves any pools it didn't get to for the next one, so the job
+ * runs often and keeps up with expirations as they happen, rather than deleting a large wave of
+ * them at once.
  */
+@DisallowConcurrentExecution
 public class ExpiredPoolsJob extends KingpinJob {
 
-    // Every hour:
-    public static final String DEFAULT_SCHEDULE = "0 0 0/1 * * ?";
+    // Every five minutes:
+    public static final String DEFAULT_SCHEDULE = "0 0/5 * * * ?";
 
     private PoolManager poolManager;
 
@@ -46,6 +57,16 @@ public class ExpiredPoolsJob extends KingpinJob {
     }
 
     public void toExecute(JobExecutionContext ctx) throws JobExecutionException {
-        poolManager.cleanupExpiredPools();
+        int blockSize = this.config.getInt(ConfigProperties.EXPIRED_POOLS_BLOCK_SIZE);
+        long maxRunTime = TimeUnit.SECONDS.toMillis(
+            this.config.getLong(ConfigProperties.EXPIRED_POOLS_MAX_RUN_TIME));
+
+        ExpiredPoolCleanupResult result = poolManager.cleanupExpiredPools(blockSize, maxRunTime);
+
+        if (!result.isComplete()) {
+            log.warn("Expired pool cleanup ran out of time; remaining pools will be deleted on the next run");
+        }
+
+        ctx.setResult(result.toString());
     }
 }
@@ -16,9 +16,12 @@ package org.candlepin.pinsetter.tasks;
 
 import static org.quartz.JobBuilder.*;
 
+import org.candlepin.audit.EventSink;
 import org.candlepin.common.filter.LoggingFilter;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.controller.AutobindDisabledForOwnerException;
 import org.candlepin.controller.Entitler;
+import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.Entitlement;
@@ -28,22 +31,36 @@ import org.candlepin.pinsetter.core.model.JobStatus;
 import org.candlepin.resource.dto.AutobindData;
 import org.candlepin.util.Util;
 
-import org.apache.log4j.MDC;
 import org.jboss.resteasy.spi.BadRequestException;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.xnap.commons.i18n.I18n;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
 
 /**
  * HealEntireOrgJob
@@ -52,17 +69,37 @@ public class HealEntireOrgJob extends UniqueByEntityJob {
     private static Logger log = LoggerFactory.getLogger(HealEntireOrgJob.class);
     protected static String prefix = "heal_entire_org_";
 
+    /**
+     * The job data key of the UUID of the last consumer of a contiguous run of processed consumers,
+     * from which a restarted job resumes
+     */
+    public static final String CHECKPOINT = "heal_checkpoint";
+
+    /** The number of processed consumers between two checkpoints */
+    protected static final int CHECKPOINT_INTERVAL = 100;
+
     protected OwnerCurator ownerCurator;
     protected Entitler entitler;
     protected ConsumerCurator consumerCurator;
     private I18n i18n;
+    private CandlepinRequestScope requestScope;
+    private Provider<Entitler> entitlerProvider;
+    private Provider<EntityManager> entityManagerProvider;
+    private Provider<EventSink> eventSinkProvider;
 
     @Inject
-    public HealEntireOrgJob(Entitler e, ConsumerCurator c, OwnerCurator o, I18n i18n) {
+    public HealEntireOrgJob(Entitler e, ConsumerCurator c, OwnerCurator o, I18n i18n,
+        CandlepinRequestScope requestScope, Provider<Entitler> entitlerProvider,
+        Provider<EntityManager> entityManagerProvider, Provider<EventSink> eventSinkProvider) {
+
         this.entitler = e;
         this.consumerCurator = c;
         this.ownerCurator = o;
         this.i18n = i18n;
+        this.requestScope = requestScope;
+        this.entitlerProvider = entitlerProvider;
+        this.entityManagerProvider = entityManagerProvider;
+        this.eventSinkProvider = eventSinkProvider;
     }
 
     @Override
@@ -82,19 +119,52 @@ public class HealEntireOrgJob extends UniqueByEntityJob {
 
             Date entitleDate = (Date) map.get("entitle_date");
 
-            for (String uuid : ownerCurator.getConsumerUuids(owner).list()) {
-                // Do not send in product IDs.  CandlepinPoolManager will take care
-                // of looking up the non or partially compliant products to bind.
-                try {
-                    Consumer consumer = consumerCurator.getConsumer(uuid);
-                    healSingleConsumer(consumer, owner, entitleDate);
-                }
-                // We want to catch everything and continue.
-                // Perhaps add something to surface errors later
-                catch (Exception e) {
-                    log.debug("Healing failed for UUID \"{}\" with message: {}", uuid, e.getMessage());
+            // Consumers are processed in UUID order, so a restarted job can skip those up to the
+            // last checkpoint
+            List<String> uuids = new ArrayList<>(ownerCurator.getConsumerUuids(owner).list());
+            Collections.sort(uuids);
+
+            String checkpoint = getCheckpoint(ctx);
+            int resumed = 0;
+
+            if (checkpoint != null) {
+                int index = Collections.binarySearch(uuids, checkpoint);
+                resumed = index >= 0 ? index + 1 : -(index + 1);
+                uuids = uuids.subList(resumed, uuids.size());
+
+                log.info("Resuming heal of owner {} after {} consumer(s) processed before a restart",
+                    owner.getKey(), resumed);
+            }
+
+            HealProgress progress = new HealProgress(ctx, uuids, resumed);
+            int threads = Math.min(this.config.getInt(ConfigProperties.HEAL_THREADS, 1), uuids.size());
+
+            if (threads > 1) {
+                this.healConsumersInParallel(owner.getKey(), uuids, entitleDate, threads, progress);
+            }
+            else {
+                for (int i = 0; i < uuids.size(); ++i) {
+                    String uuid = uuids.get(i);
+                    boolean healed = false;
+
+                    // Do not send in product IDs.  CandlepinPoolManager will take care
+                    // of looking up the non or partially compliant products to bind.
+                    try {
+                        Consumer consumer = consumerCurator.getConsumer(uuid);
+                        healSingleConsumer(consumer, owner, entitleDate);
+                        healed = true;
+                    }
+                    // We want to catch everything and continue; failures are counted in the job result
+                    catch (Exception e) {
+                        log.warn("Healing failed for UUID \"{}\" with message: {}", uuid, e.getMessage());
+                    }
+
+                    progress.complete(i, healed);
                 }
             }
+
+            log.info("Heal of owner {} complete: {}", owner.getKey(), progress);
+            ctx.setResult(progress.toString());
         }
         catch (Exception e) {
             log.error("EntitlerJob encountered a problem.", e);
@@ -114,6 +184,189 @@ public class HealEntireOrgJob extends UniqueByEntityJob {
         entitler.sendEvents(ents);
     }
 
+    /**
+     * Heals the given consumers on a bounded pool of worker threads. Workers pull consumers off
+     * a shared index rather than being handed fixed shards, so a worker stuck on a large consumer
+     * does not hold back the others. Each worker runs within a unit of work and request scope of
+     * its own, and heals each consumer in a separate transaction, so a failing consumer is rolled
+     * back on its own and never affects the others.
+     */
+    private void healConsumersInParallel(String ownerKey, List<String> uuids, Date entitleDate,
+        int threads, HealProgress progress) throws InterruptedException {
+
+        log.info("Healing {} consumer(s) of owner {} using {} thread(s)", uuids.size(), ownerKey, threads);
+
+        AtomicInteger next = new AtomicInteger();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(() -> {
+                    if (mdc != null) {
+                        MDC.setContextMap(mdc);
+                    }
+
+                    this.requestScope.enter();
+                    this.unitOfWork.begin();
+
+                    try {
+                        for (int index = next.getAndIncrement(); index < uuids.size();
+                            index = next.getAndIncrement()) {
+
+                            boolean healed = this.healConsumerInTransaction(uuids.get(index), ownerKey,
+                                entitleDate);
+
+                            progress.complete(index, healed);
+                        }
+                    }
+                    finally {
+                        this.unitOfWork.end();
+                        this.requestScope.exit();
+                        MDC.clear();
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException("Unexpected failure while healing consumers", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean healConsumerInTransaction(String uuid, String ownerKey, Date entitleDate) {
+        EntityManager entityManager = this.entityManagerProvider.get();
+        EntityTransaction transaction = entityManager.getTransaction();
+        EventSink eventSink = this.eventSinkProvider.get();
+
+        try {
+            transaction.begin();
+
+            Owner owner = this.ownerCurator.getByKey(ownerKey);
+            Consumer consumer = this.consumerCurator.getConsumer(uuid);
+
+            if (owner == null || consumer == null) {
+                // Deleted since the job started; nothing left to heal
+                transaction.commit();
+                return false;
+            }
+
+            // Do not send in product IDs.  CandlepinPoolManager will take care
+            // of looking up the non or partially compliant products to bind.
+            Entitler workerEntitler = this.entitlerProvider.get();
+            List<Entitlement> ents = workerEntitler.bindByProducts(
+                AutobindData.create(consumer, owner).on(entitleDate), true);
+
+            workerEntitler.sendEvents(ents);
+            transaction.commit();
+            eventSink.sendEvents();
+
+            return true;
+        }
+        catch (Exception e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            eventSink.rollback();
+            log.warn("Healing failed for UUID \"{}\" with message: {}", uuid, e.getMessage());
+
+            return false;
+        }
+        finally {
+            // Workers heal many consumers in one unit of work; don't let the session grow with them
+            entityManager.clear();
+        }
+    }
+
+    private static String getCheckpoint(JobExecutionContext ctx) {
+        JobDetail detail = ctx.getJobDetail();
+        return detail != null ? detail.getJobDataMap().getString(CHECKPOINT) : null;
+    }
+
+    /**
+     * Tracks the progress of a heal, and periodically records the last consumer of the contiguous
+     * run of processed consumers as a checkpoint in the job's data, from which the job resumes if
+     * it is recovered after a restart.
+     */
+    private static class HealProgress {
+        private final JobExecutionContext ctx;
+        private final List<String> uuids;
+        private final boolean[] processed;
+        private final int resumed;
+        private final long started;
+
+        private int contiguous;
+        private int healed;
+        private int failed;
+        private int lastCheckpoint;
+
+        public HealProgress(JobExecutionContext ctx, List<String> uuids, int resumed) {
+            this.ctx = ctx;
+            this.uuids = uuids;
+            this.processed = new boolean[uuids.size()];
+            this.resumed = resumed;
+            this.started = System.currentTimeMillis();
+        }
+
+        public synchronized void complete(int index, boolean success) {
+            this.processed[index] = true;
+
+            if (success) {
+                ++this.healed;
+            }
+            else {
+                ++this.failed;
+            }
+
+            while (this.contiguous < this.processed.length && this.processed[this.contiguous]) {
+                ++this.contiguous;
+            }
+
+            if (this.contiguous - this.lastCheckpoint >= CHECKPOINT_INTERVAL) {
+                this.checkpoint(this.uuids.get(this.contiguous - 1));
+                this.lastCheckpoint = this.contiguous;
+            }
+        }
+
+        private void checkpoint(String uuid) {
+            JobDetail detail = this.ctx.getJobDetail();
+            if (detail == null) {
+                return;
+            }
+
+            detail.getJobDataMap().put(CHECKPOINT, uuid);
+
+            try {
+                // Durable jobs may be replaced while running, which persists the updated job data
+                Scheduler scheduler = this.ctx.getScheduler();
+                if (scheduler != null) {
+                    scheduler.addJob(detail, true);
+                }
+            }
+            catch (SchedulerException e) {
+                log.warn("Unable to record heal checkpoint: {}", uuid, e);
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            long elapsed = Math.max(1, System.currentTimeMillis() - this.started);
+            double rate = (this.healed + this.failed) * 1000.0 / elapsed;
+
+            return String.format("Healed %d of %d consumer(s), %d failed, %d resumed from checkpoint; " +
+                "%.1fs at %.2f consumer(s)/s", this.healed, this.uuids.size(), this.failed, this.resumed,
+                elapsed / 1000.0, rate);
+        }
+    }
+
     public static JobDetail healEntireOrg(Owner owner, Date entitleDate) {
         JobDataMap map = new JobDataMap();
         map.put(JobStatus.OWNER_ID, owner.getKey());
@@ -126,6 +379,7 @@ public class HealEntireOrgJob extends UniqueByEntityJob {
         JobDetail detail = newJob(HealEntireOrgJob.class)
             .withIdentity("heal_entire_org_" + Util.generateUUID())
             .usingJobData(map)
+            .requestRecovery(true) // resume from the last checkpoint upon restarts
             .storeDurably(true) //required if we have to postpone the job
             .build();
 
@@ -14,16 +14,11 @@
  */
 package org.candlepin.pinsetter.tasks;
 
-import org.candlepin.model.CandlepinQuery;
-import org.candlepin.model.Content;
-import org.candlepin.model.ContentCurator;
 import org.candlepin.model.OwnerContentCurator;
-import org.candlepin.model.Product;
-import org.candlepin.model.ProductCurator;
 import org.candlepin.model.OwnerProductCurator;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
-import com.google.inject.persist.Transactional;
 
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
@@ -31,13 +26,18 @@ import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.function.ToIntFunction;
 
 
 
 /**
  * The OrphanCleanupJob searches for orphaned entities (products and content and the time of
  * writing) and removes them.
+ * <p></p>
+ * Orphans are removed in batches of UUIDs using bulk deletes, rather than by loading and deleting
+ * each entity. Each batch is committed on its own, so neither the session nor the transaction
+ * grows with the number of orphans.
  */
 public class OrphanCleanupJob extends KingpinJob {
     private static Logger log = LoggerFactory.getLogger(OrphanCleanupJob.class);
@@ -45,51 +45,49 @@ public class OrphanCleanupJob extends KingpinJob {
     // Every Sunday at 3:00am
     public static final String DEFAULT_SCHEDULE = "0 0 3 ? * 1";
 
-    private ContentCurator contentCurator;
     private OwnerContentCurator ownerContentCurator;
-    private ProductCurator productCurator;
     private OwnerProductCurator ownerProductCurator;
 
     @Inject
-    public OrphanCleanupJob(ContentCurator contentCurator, OwnerContentCurator ownerContentCurator,
-        ProductCurator productCurator, OwnerProductCurator ownerProductCurator) {
+    public OrphanCleanupJob(OwnerContentCurator ownerContentCurator,
+        OwnerProductCurator ownerProductCurator) {
 
         this.ownerContentCurator = ownerContentCurator;
-        this.contentCurator = contentCurator;
         this.ownerProductCurator = ownerProductCurator;
-        this.productCurator = productCurator;
     }
 
     @Override
-    @Transactional
     public void toExecute(JobExecutionContext ctx) throws JobExecutionException {
         log.debug("Deleting orphaned entities...");
-        int count;
+        long start = System.currentTimeMillis();
 
-        // Content
-        count = 0;
-        CandlepinQuery<Content> contentQuery = this.ownerContentCurator.getOrphanedContent()
-            .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        // Content goes first, as removing it also removes its mappings to orphaned products
+        int contentCount = this.deleteOrphans("content", this.ownerContentCurator.getOrphanedContentUuids(),
+            this.ownerContentCurator.getInBlockSize(), this.ownerContentCurator::deleteOrphanedContent);
 
-        for (Content content : contentQuery) {
-            this.contentCurator.delete(content);
-            ++count;
-        }
+        int productCount = this.deleteOrphans("product", this.ownerProductCurator.getOrphanedProductUuids(),
+            this.ownerProductCurator.getInBlockSize(), this.ownerProductCurator::deleteOrphanedProducts);
+
+        String result = String.format("Deleted %d orphaned content and %d orphaned product entities in %dms",
+            contentCount, productCount, System.currentTimeMillis() - start);
+
+        log.info(result);
+        ctx.setResult(result);
+    }
+
+    private int deleteOrphans(String type, List<String> uuids, int batchSize,
+        ToIntFunction<List<String>> deleter) {
 
-        this.contentCurator.flush();
-        log.debug("{} orphaned content entities deleted", count);
+        int count = 0;
 
-        // Products
-        count = 0;
-        CandlepinQuery<Product> productQuery = this.ownerProductCurator.getOrphanedProducts()
-            .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        log.debug("Found {} orphaned {} entities", uuids.size(), type);
 
-        for (Product product : productQuery) {
-            this.productCurator.delete(product);
-            ++count;
+        for (List<String> batch : Iterables.partition(uuids, batchSize)) {
+            // Each batch is deleted and committed in its own transaction
+            count += deleter.applyAsInt(batch);
         }
 
-        this.productCurator.flush();
-        log.debug("{} orphaned product entities deleted", count);
+        log.debug("{} orphaned {} entities deleted", count, type);
+        return count;
     }
 }
@@ -18,6 +18,8 @@ import static org.quartz.JobBuilder.*;
 
 import org.candlepin.common.filter.LoggingFilter;
 import org.candlepin.controller.PoolManager;
+import org.candlepin.controller.RefreshExecutor;
+import org.candlepin.controller.RefreshExecutor.RefreshResult;
 import org.candlepin.controller.Refresher;
 import org.candlepin.model.Product;
 import org.candlepin.model.ProductCurator;
@@ -45,16 +47,19 @@ public class RefreshPoolsForProductJob extends KingpinJob {
     private ProductCurator productCurator;
     private SubscriptionServiceAdapter subAdapter;
     private OwnerServiceAdapter ownerAdapter;
+    private RefreshExecutor refreshExecutor;
 
     public static final String LAZY_REGEN = "lazy_regen";
 
     @Inject
     public RefreshPoolsForProductJob(ProductCurator productCurator, PoolManager poolManager,
-        SubscriptionServiceAdapter subAdapter, OwnerServiceAdapter ownerAdapter) {
+        SubscriptionServiceAdapter subAdapter, OwnerServiceAdapter ownerAdapter,
+        RefreshExecutor refreshExecutor) {
         this.poolManager = poolManager;
         this.productCurator = productCurator;
         this.subAdapter = subAdapter;
         this.ownerAdapter = ownerAdapter;
+        this.refreshExecutor = refreshExecutor;
     }
 
     @Override
@@ -66,14 +71,34 @@ public class RefreshPoolsForProductJob extends KingpinJob {
         Product product = this.productCurator.get(productUuid);
 
         if (product != null) {
-            Refresher refresher = poolManager.getRefresher(this.subAdapter, this.ownerAdapter, lazy);
+            Refresher refresher = poolManager.getRefresher(this.subAdapter, this.ownerAdapter, lazy)
+                .setExecutor(this.refreshExecutor);
 
             refresher.add(product);
             refresher.run();
 
+            RefreshResult refreshResult = refresher.getResult();
+
+            // Owners are refreshed in isolation, so those which succeeded remain refreshed even
+            // if others have failed; the job is still failed so the failures can be looked into.
+            if (refreshResult != null && !refreshResult.isSuccessful()) {
+                String message = "Unable to refresh pools for product \"" + productUuid + "\": " +
+                    refreshResult;
+
+                context.setResult(message);
+                throw new JobExecutionException(message);
+            }
+
             result.append("Pools refreshed for product: ")
-                .append(productUuid)
-                .append("\n");
+                .append(productUuid);
+
+            if (refreshResult != null) {
+                result.append(" (")
+                    .append(refreshResult)
+                    .append(")");
+            }
+
+            result.append("\n");
         }
         else {
             result.append("Unable to refresh pools for product \"")
@@ -23,6 +23,7 @@ import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.Signature;
 import java.security.cert.CertificateException;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
@@ -114,6 +115,34 @@ public interface PKIUtility {
     boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException;
 
+    /**
+     * Builds a set of SHA256withRSA signature verifiers, one for the CA certificate and one for each
+     * upstream CA certificate. This allows data which can only be read once, such as a streamed
+     * manifest, to be checked against all of the CA certificates in a single pass, even if the
+     * signature itself is not known until the data has been read. Data is considered verified if
+     * any of the returned verifiers accepts the signature.
+     *
+     * @throws CertificateException
+     *  If the CA certificates cannot be parsed
+     *
+     * @throws IOException
+     *  If the CA certificates cannot be read
+     *
+     * @return
+     *  a list of signature verifiers, initialized for verification
+     */
+    List<Signature> getSHA256WithRSAVerifiers() throws CertificateException, IOException;
+
+    /**
+     * Builds a SHA256withRSA signature initialized for signing with the CA key. This allows data
+     * which is generated as a stream, such as a manifest being written to a client, to be signed
+     * in a single pass as it is written, rather than being read back once it is complete.
+     *
+     * @return
+     *  a signature, initialized for signing
+     */
+    Signature getSHA256WithRSASigner();
+
     KeyPair generateNewKeyPair() throws NoSuchAlgorithmException;
 
     byte[] getSHA256WithRSAHash(InputStream input);
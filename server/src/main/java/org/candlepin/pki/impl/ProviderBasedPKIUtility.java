@@ -50,6 +50,7 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -207,8 +208,7 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
     @Override
     public byte[] getSHA256WithRSAHash(InputStream input) {
         try {
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(reader.getCaKey());
+            Signature signature = this.getSHA256WithRSASigner();
 
             updateSignature(input, signature);
             return signature.sign();
@@ -218,6 +218,19 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
         }
     }
 
+    @Override
+    public Signature getSHA256WithRSASigner() {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(reader.getCaKey());
+
+            return signature;
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public boolean verifySHA256WithRSAHashAgainstCACerts(File input, byte[] signedHash)
         throws CertificateException, IOException {
@@ -242,6 +255,30 @@ public abstract class ProviderBasedPKIUtility implements PKIUtility {
         return false;
     }
 
+    @Override
+    public List<Signature> getSHA256WithRSAVerifiers() throws CertificateException, IOException {
+        List<Signature> verifiers = new ArrayList<>();
+        verifiers.add(this.createSHA256WithRSAVerifier(reader.getCACert()));
+
+        for (X509Certificate cert : reader.getUpstreamCACerts()) {
+            verifiers.add(this.createSHA256WithRSAVerifier(cert));
+        }
+
+        return verifiers;
+    }
+
+    private Signature createSHA256WithRSAVerifier(Certificate certificate) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(certificate);
+
+            return signature;
+        }
+        catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Verify a digital signature.  The method calculates a digital signature using the SHA256withRSA
      * algorithm (and the public key from the certificate parameter) and then compares it with the signature
@@ -14,6 +14,8 @@
  */
 package org.candlepin.policy.js;
 
+import org.candlepin.metrics.MetricsRegistry;
+
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.RhinoException;
@@ -36,11 +38,13 @@ public class JsRunner {
     private Object rulesNameSpace;
     private String namespace;
     private Scriptable scope;
+    private MetricsRegistry metricsRegistry;
 
     private boolean initialized = false;
 
-    public JsRunner(Scriptable scope) {
+    public JsRunner(Scriptable scope, MetricsRegistry metricsRegistry) {
         this.scope = scope;
+        this.metricsRegistry = metricsRegistry;
     }
 
     /**
@@ -96,12 +100,18 @@ public class JsRunner {
             throw new NoSuchMethodException("no such javascript method: " + method);
         }
         Context context = Context.enter();
+        long start = System.nanoTime();
         try {
             return (T) unwrapReturnValue(((Function) func).call(context, scope,
                 localScope, Context.emptyArgs));
         }
         finally {
             Context.exit();
+
+            if (this.metricsRegistry != null) {
+                long elapsed = System.nanoTime() - start;
+                this.metricsRegistry.observeRuleCall(this.namespace + "." + method, elapsed);
+            }
         }
     }
 
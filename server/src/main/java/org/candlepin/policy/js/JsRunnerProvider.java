@@ -14,6 +14,7 @@
  */
 package org.candlepin.policy.js;
 
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.Rules;
 import org.candlepin.model.Rules.RulesSourceEnum;
 import org.candlepin.model.RulesCurator;
@@ -43,6 +44,7 @@ public class JsRunnerProvider implements Provider<JsRunner> {
 
     private RulesCurator rulesCurator;
     private Provider<JsRunnerRequestCache> cacheProvider;
+    private MetricsRegistry metricsRegistry;
     private Script script;
     private Scriptable scope;
     /**
@@ -82,9 +84,11 @@ public class JsRunnerProvider implements Provider<JsRunner> {
     }
 
     @Inject
-    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider) {
+    public JsRunnerProvider(RulesCurator rulesCurator, Provider<JsRunnerRequestCache> cacheProvider,
+        MetricsRegistry metricsRegistry) {
         this.rulesCurator = rulesCurator;
         this.cacheProvider = cacheProvider;
+        this.metricsRegistry = metricsRegistry;
 
         log.debug("Compiling rules for initial load");
         this.rulesCurator.updateDbRules();
@@ -169,7 +173,7 @@ public class JsRunnerProvider implements Provider<JsRunner> {
             scriptLock.readLock().unlock();
         }
 
-        return new JsRunner(rulesScope);
+        return new JsRunner(rulesScope, this.metricsRegistry);
     }
 
     public String getRulesVersion() {
@@ -30,6 +30,7 @@ import org.candlepin.model.Entitlement;
 import org.candlepin.model.EntitlementCurator;
 import org.candlepin.model.GuestId;
 import org.candlepin.model.Pool;
+import org.candlepin.model.PoolCurator;
 import org.candlepin.model.Product;
 import org.candlepin.policy.js.JsRunner;
 import org.candlepin.policy.js.JsonJsContext;
@@ -71,13 +72,15 @@ public class ComplianceRules {
     private EventSink eventSink;
     private ConsumerCurator consumerCurator;
     private ConsumerTypeCurator consumerTypeCurator;
+    private PoolCurator poolCurator;
     private RulesObjectMapper mapper;
     private ModelTranslator translator;
 
     @Inject
     public ComplianceRules(JsRunner jsRules, EntitlementCurator entCurator,
         StatusReasonMessageGenerator generator, EventSink eventSink, ConsumerCurator consumerCurator,
-        ConsumerTypeCurator consumerTypeCurator, RulesObjectMapper mapper, ModelTranslator translator) {
+        ConsumerTypeCurator consumerTypeCurator, PoolCurator poolCurator, RulesObjectMapper mapper,
+        ModelTranslator translator) {
 
         this.jsRules = jsRules;
         this.entCurator = entCurator;
@@ -85,6 +88,7 @@ public class ComplianceRules {
         this.eventSink = eventSink;
         this.consumerCurator = consumerCurator;
         this.consumerTypeCurator = consumerTypeCurator;
+        this.poolCurator = poolCurator;
         this.mapper = mapper;
         this.translator = translator;
 
@@ -194,6 +198,17 @@ public class ComplianceRules {
             return new ComplianceStatus(new Date());
         }
 
+        // Load what the rules need of the entitlements' pools together, rather than one pool at a
+        // time as the entitlements are translated
+        List<Pool> pools = Stream.concat(
+            newEntitlements != null ? newEntitlements.stream() : Stream.empty(),
+            consumer.getEntitlements() != null ? consumer.getEntitlements().stream() : Stream.empty())
+                .map(Entitlement::getPool)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        this.poolCurator.applyFetchProfile(pools, PoolCurator.FetchProfile.COMPLIANCE);
+
         JsonJsContext args = new JsonJsContext(mapper);
         args.put("consumer", this.translator.translate(consumer, ConsumerDTO.class));
         args.put("entitlements", entStream);
@@ -163,6 +163,24 @@ public class PoolRules {
         return pools;
     }
 
+    /**
+     * Checks whether or not a bonus pool should exist for the given master pool, as created by
+     * {@link #createAndEnrichPools(Pool, List)} when the master pool has none.
+     *
+     * @param masterPool
+     *  the master pool to check
+     *
+     * @return
+     *  true if a bonus pool should exist for the master pool; false otherwise
+     */
+    public boolean expectsBonusPool(Pool masterPool) {
+        String virtLimit = masterPool.getProductAttributeValue(Product.Attributes.VIRT_LIMIT);
+        long quantity = masterPool.getQuantity() != null ? masterPool.getQuantity() : 1;
+
+        return virtLimit != null && poolManager.isManaged(masterPool) &&
+            getVirtQuantity(virtLimit, quantity) != null;
+    }
+
     /*
      * If this subscription carries a virt_limit, we need to either create a
      * bonus pool for any guest (legacy behavior, only in hosted), or a pool for
@@ -21,6 +21,8 @@ import org.candlepin.auth.SystemPrincipal;
 import org.candlepin.cache.CandlepinCache;
 import org.candlepin.common.auth.SecurityHole;
 import org.candlepin.common.config.Configuration;
+import org.candlepin.metrics.EndpointStatistics;
+import org.candlepin.metrics.RequestStatisticsRegistry;
 import org.candlepin.model.User;
 import org.candlepin.model.UserCurator;
 import org.candlepin.service.UserServiceAdapter;
@@ -56,15 +58,18 @@ public class AdminResource {
     private EventSink sink;
     private Configuration config;
     private CandlepinCache candlepinCache;
+    private RequestStatisticsRegistry requestStatistics;
 
     @Inject
     public AdminResource(UserServiceAdapter userService, UserCurator userCurator,
-        EventSink dispatcher, Configuration config, CandlepinCache candlepinCache) {
+        EventSink dispatcher, Configuration config, CandlepinCache candlepinCache,
+        RequestStatisticsRegistry requestStatistics) {
         this.userService = userService;
         this.userCurator = userCurator;
         this.sink = dispatcher;
         this.config = config;
         this.candlepinCache = candlepinCache;
+        this.requestStatistics = requestStatistics;
     }
 
     @GET
@@ -110,4 +115,15 @@ public class AdminResource {
     public List<QueueStatus> getQueueStats() {
         return sink.getQueueInfo();
     }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    @Path("statistics")
+    @ApiOperation(
+        notes = "Histograms of the statements prepared, entities and collections loaded and time " +
+        "spent in the database by the requests served by each endpoint since startup.",
+        value = "Get Request Statistics")
+    public List<EndpointStatistics> getRequestStatistics() {
+        return this.requestStatistics.getEndpointStatistics();
+    }
 }
@@ -2309,7 +2309,8 @@ public class ConsumerResource {
      * @param cdnLabel
      * @param webAppPrefix
      * @param apiUrl
-     * @return the generated file archive.
+     * @return the generated file archive; or null if streaming exports are enabled, in which case
+     *         the archive has already been written to the response and there is no file to return.
      */
     @Deprecated
     @ApiOperation(
@@ -2336,6 +2337,15 @@ public class ConsumerResource {
         ConsumerType ctype = this.consumerTypeCurator.getConsumerType(consumer);
 
         try {
+            if (config.getBoolean(ConfigProperties.STREAMING_EXPORT)) {
+                // Stream the manifest to the client as it is generated, as is done for stored
+                // exports in downloadExistingExport. The response is committed by then, so the null
+                // return value is never written as an entity.
+                manifestManager.writeManifestToResponse(consumerUuid, cdnLabel, webAppPrefix, apiUrl,
+                    getExtensionParamMap(extensionArgs), response);
+                return null;
+            }
+
             File archive = manifestManager.generateManifest(consumerUuid, cdnLabel, webAppPrefix, apiUrl,
                 getExtensionParamMap(extensionArgs));
             response.addHeader("Content-Disposition", "attachment; filename=" + archive.getName());
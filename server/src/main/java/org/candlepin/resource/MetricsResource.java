@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resource;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.audit.QueueStatus;
+import org.candlepin.cache.ConsumerIdentityCache;
+import org.candlepin.cache.UserPrincipalCache;
+import org.candlepin.metrics.EndpointStatistics;
+import org.candlepin.metrics.Histogram;
+import org.candlepin.metrics.MetricsRegistry;
+import org.candlepin.metrics.PrometheusWriter;
+import org.candlepin.metrics.RequestStatisticsRegistry;
+import org.candlepin.metrics.ResourceMethodMetrics;
+import org.candlepin.model.JobCurator;
+import org.candlepin.pinsetter.core.model.JobStatus.JobState;
+
+import com.google.inject.Inject;
+import com.mchange.v2.c3p0.C3P0Registry;
+import com.mchange.v2.c3p0.PooledDataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+/**
+ * Exposes the server's metrics in the Prometheus text format: the latency, response sizes and
+ * in-flight requests of each resource method, the database statistics of the requests served by
+ * each resource method, the time taken by calls into the rules, and gauges of the authentication
+ * caches, the database connection pool, the Pinsetter job queue and the ActiveMQ event queues.
+ */
+@Path("/metrics")
+@Api("metrics")
+public class MetricsResource {
+    private static Logger log = LoggerFactory.getLogger(MetricsResource.class);
+
+    /** The job states counted as queued or running by the Pinsetter gauge */
+    private static final List<JobState> ACTIVE_JOB_STATES =
+        Arrays.asList(JobState.CREATED, JobState.PENDING, JobState.WAITING, JobState.RUNNING);
+
+    private MetricsRegistry metricsRegistry;
+    private RequestStatisticsRegistry requestStatistics;
+    private JobCurator jobCurator;
+    private EventSink eventSink;
+    private ConsumerIdentityCache consumerIdentityCache;
+    private UserPrincipalCache userPrincipalCache;
+
+    @Inject
+    public MetricsResource(MetricsRegistry metricsRegistry, RequestStatisticsRegistry requestStatistics,
+        JobCurator jobCurator, EventSink eventSink, ConsumerIdentityCache consumerIdentityCache,
+        UserPrincipalCache userPrincipalCache) {
+        this.metricsRegistry = metricsRegistry;
+        this.requestStatistics = requestStatistics;
+        this.jobCurator = jobCurator;
+        this.eventSink = eventSink;
+        this.consumerIdentityCache = consumerIdentityCache;
+        this.userPrincipalCache = userPrincipalCache;
+    }
+
+    @GET
+    @Produces({MediaType.TEXT_PLAIN})
+    @ApiOperation(
+        notes = "Retrieves the server's metrics in the Prometheus text format",
+        value = "Get Metrics")
+    public Response getMetrics() {
+        PrometheusWriter writer = new PrometheusWriter();
+
+        List<ResourceMethodMetrics> methods = this.metricsRegistry.getResourceMethodMetrics();
+        writer.histogram("candlepin_http_request_duration_seconds",
+            "Time taken to serve requests, including writing their responses", "method",
+            collect(methods, ResourceMethodMetrics::getEndpoint, ResourceMethodMetrics::getLatency));
+        writer.histogram("candlepin_http_response_size_bytes",
+            "Size of the response entities written", "method",
+            collect(methods, ResourceMethodMetrics::getEndpoint, ResourceMethodMetrics::getResponseSize));
+        writer.gauge("candlepin_http_requests_in_flight",
+            "Number of requests currently being served", "method",
+            collect(methods, ResourceMethodMetrics::getEndpoint, ResourceMethodMetrics::getInFlight));
+
+        List<EndpointStatistics> endpoints = this.requestStatistics.getEndpointStatistics();
+        writer.histogram("candlepin_request_db_statements",
+            "Number of JDBC statements prepared per request", "method",
+            collect(endpoints, EndpointStatistics::getEndpoint, EndpointStatistics::getStatements));
+        writer.histogram("candlepin_request_db_entities_loaded",
+            "Number of entities loaded per request", "method",
+            collect(endpoints, EndpointStatistics::getEndpoint, EndpointStatistics::getEntitiesLoaded));
+        writer.histogram("candlepin_request_db_collections_fetched",
+            "Number of lazy collections fetched per request", "method",
+            collect(endpoints, EndpointStatistics::getEndpoint, EndpointStatistics::getCollectionsFetched));
+        writer.histogram("candlepin_request_db_time_seconds",
+            "Time spent executing JDBC statements per request", "method",
+            collect(endpoints, EndpointStatistics::getEndpoint, EndpointStatistics::getDatabaseTime));
+
+        writer.histogram("candlepin_rules_call_duration_seconds",
+            "Time taken by calls into the rules", "function",
+            this.metricsRegistry.getRuleCalls());
+
+        writer.gauge("candlepin_cache_entries",
+            "Number of entries in the authentication caches", "cache",
+            this.getCacheValues(ConsumerIdentityCache::size, UserPrincipalCache::size));
+        writer.counter("candlepin_cache_hits_total",
+            "Number of lookups which found a cached entry", "cache",
+            this.getCacheValues(ConsumerIdentityCache::getHits, UserPrincipalCache::getHits));
+        writer.counter("candlepin_cache_misses_total",
+            "Number of lookups which did not find an unexpired cached entry", "cache",
+            this.getCacheValues(ConsumerIdentityCache::getMisses, UserPrincipalCache::getMisses));
+
+        writer.gauge("candlepin_db_pool_connections",
+            "Number of connections in the database connection pool", "state",
+            this.getConnectionPoolCounts());
+        writer.gauge("candlepin_pinsetter_jobs",
+            "Number of Pinsetter jobs queued or running", "state",
+            this.getJobCounts());
+        writer.gauge("candlepin_event_queue_messages",
+            "Number of messages pending in the ActiveMQ event queues", "queue",
+            this.getEventQueueCounts());
+
+        return Response.ok(writer.toString(), PrometheusWriter.CONTENT_TYPE).build();
+    }
+
+    private static <T, V> Map<String, V> collect(Collection<T> elements, Function<T, String> label,
+        Function<T, V> value) {
+
+        Map<String, V> values = new LinkedHashMap<>();
+        for (T element : elements) {
+            values.put(label.apply(element), value.apply(element));
+        }
+
+        return values;
+    }
+
+    private <V extends Number> Map<String, V> getCacheValues(Function<ConsumerIdentityCache, V> consumerValue,
+        Function<UserPrincipalCache, V> userValue) {
+
+        Map<String, V> values = new LinkedHashMap<>();
+        values.put("consumer_identity", consumerValue.apply(this.consumerIdentityCache));
+        values.put("user_principal", userValue.apply(this.userPrincipalCache));
+
+        return values;
+    }
+
+    private Map<String, Integer> getConnectionPoolCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        try {
+            int busy = 0;
+            int idle = 0;
+            int awaiting = 0;
+
+            for (Object source : C3P0Registry.getPooledDataSources()) {
+                PooledDataSource pool = (PooledDataSource) source;
+
+                busy += pool.getNumBusyConnectionsDefaultUser();
+                idle += pool.getNumIdleConnectionsDefaultUser();
+                awaiting += pool.getNumThreadsAwaitingCheckoutDefaultUser();
+            }
+
+            counts.put("busy", busy);
+            counts.put("idle", idle);
+            counts.put("awaiting", awaiting);
+        }
+        catch (SQLException e) {
+            log.warn("Unable to read the database connection pool statistics", e);
+        }
+
+        return counts;
+    }
+
+    private Map<String, Long> getJobCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+
+        Map<JobState, Long> jobs = this.jobCurator.countJobsByState(ACTIVE_JOB_STATES);
+        for (Map.Entry<JobState, Long> entry : jobs.entrySet()) {
+            counts.put(entry.getKey().name(), entry.getValue());
+        }
+
+        return counts;
+    }
+
+    private Map<String, Long> getEventQueueCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+
+        List<QueueStatus> queues = this.eventSink.getQueueInfo();
+        if (queues != null) {
+            for (QueueStatus queue : queues) {
+                counts.put(queue.getQueueName(), queue.getPendingMessageCount());
+            }
+        }
+
+        return counts;
+    }
+}
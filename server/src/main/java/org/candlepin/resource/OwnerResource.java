@@ -97,6 +97,7 @@ import org.candlepin.resource.util.ConsumerTypeValidator;
 import org.candlepin.resource.util.EntitlementFinderUtil;
 import org.candlepin.resource.util.ResolverUtil;
 import org.candlepin.resteasy.DateFormat;
+import org.candlepin.resteasy.ReadOnlyRequest;
 import org.candlepin.resteasy.parameter.KeyValueParameter;
 import org.candlepin.service.ContentAccessCertServiceAdapter;
 import org.candlepin.service.OwnerServiceAdapter;
@@ -1344,6 +1345,7 @@ public class OwnerResource {
      * @httpcode 200
      */
     @GET
+    @ReadOnlyRequest
     @Produces(MediaType.APPLICATION_JSON)
     @Path("{owner_key}/consumers")
     @SuppressWarnings("checkstyle:indentation")
@@ -1376,6 +1378,7 @@ public class OwnerResource {
     }
 
     @GET
+    @ReadOnlyRequest
     @Produces(MediaType.APPLICATION_JSON)
     @Path("{owner_key}/consumers/count")
     @SuppressWarnings("checkstyle:indentation")
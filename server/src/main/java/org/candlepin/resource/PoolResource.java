@@ -41,6 +41,7 @@ import org.candlepin.model.PoolFilterBuilder;
 import org.candlepin.model.SubscriptionsCertificate;
 import org.candlepin.resource.util.CalculatedAttributesUtil;
 import org.candlepin.resource.util.ResourceDateParser;
+import org.candlepin.resteasy.ReadOnlyRequest;
 
 import com.google.inject.Inject;
 
@@ -121,6 +122,7 @@ public class PoolResource {
     @Wrapped(element = "pools")
     @Deprecated
     @SecurityHole
+    @ReadOnlyRequest
     public List<PoolDTO> list(@QueryParam("owner") String ownerId,
         @QueryParam("consumer") String consumerUuid,
         @QueryParam("product") String productId,
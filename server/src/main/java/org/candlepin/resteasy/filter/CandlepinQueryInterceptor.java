@@ -16,14 +16,17 @@ package org.candlepin.resteasy.filter;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.inject.Inject;
-import com.google.inject.Provider;
+import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.common.paging.Page;
 import org.candlepin.common.paging.PageRequest;
 import org.candlepin.model.AbstractHibernateObject;
 import org.candlepin.model.CandlepinQuery;
 import org.candlepin.model.ResultIterator;
 import org.candlepin.resteasy.JsonProvider;
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Order;
@@ -31,7 +34,9 @@ import org.jboss.resteasy.annotations.interception.ServerInterceptor;
 import org.jboss.resteasy.core.ServerResponse;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.jboss.resteasy.spi.interception.PostProcessInterceptor;
+import org.xnap.commons.i18n.I18n;
 
+import javax.inject.Provider;
 import javax.persistence.EntityManager;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.StreamingOutput;
@@ -45,26 +50,43 @@ import java.util.Objects;
 @ServerInterceptor
 public class CandlepinQueryInterceptor implements PostProcessInterceptor {
 
+    /**
+     * The number of elements streamed between each flush of the output and each clearing of the
+     * streaming session
+     */
+    public static final int DEFAULT_STREAM_BATCH_SIZE = 1000;
+
     protected final JsonProvider jsonProvider;
     protected final Provider<EntityManager> emProvider;
+    protected final Provider<I18n> i18nProvider;
+
+    protected int streamBatchSize = DEFAULT_STREAM_BATCH_SIZE;
 
     @Inject
-    public CandlepinQueryInterceptor(
-        final JsonProvider jsonProvider, final Provider<EntityManager> emProvider) {
+    public CandlepinQueryInterceptor(final JsonProvider jsonProvider,
+        final Provider<EntityManager> emProvider, final Provider<I18n> i18nProvider) {
         this.jsonProvider = Objects.requireNonNull(jsonProvider);
         this.emProvider = Objects.requireNonNull(emProvider);
+        this.i18nProvider = Objects.requireNonNull(i18nProvider);
     }
 
     /**
-     * Opens a new session from the current session's session factory.
+     * Opens a new session from the current session's session factory. If the current session is
+     * read-only, as it is for read-only requests, so is the new session.
      *
      * @return a newly opened session
      */
     protected Session openSession() {
         final Session currentSession = (Session) this.emProvider.get().getDelegate();
         final SessionFactory factory = currentSession.getSessionFactory();
+        final Session session = factory.openSession();
+
+        if (currentSession.isDefaultReadOnly()) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
 
-        return factory.openSession();
+        return session;
     }
 
     @Override
@@ -100,6 +122,11 @@ public class CandlepinQueryInterceptor implements PostProcessInterceptor {
         if (pageRequest == null) {
             return;
         }
+
+        if (pageRequest.isCursorPaging()) {
+            applyCursorPaging(pageRequest, query);
+            return;
+        }
         // Impl note:
         // Sorting will always be required (for consistency) if a page request object is
         // present -- either isPaging() will be true, or we'll have ordering config.
@@ -130,12 +157,51 @@ public class CandlepinQueryInterceptor implements PostProcessInterceptor {
         }
     }
 
+    private void applyCursorPaging(final PageRequest pageRequest, final CandlepinQuery query) {
+        final Page page = new Page();
+
+        try {
+            // The cursor paging applies its own ordering, and seeks past the previous page rather
+            // than counting and skipping rows.
+            page.setNextCursor(query.applyCursor(pageRequest));
+        }
+        catch (final IllegalArgumentException e) {
+            throw new BadRequestException(this.i18nProvider.get().tr(
+                "Invalid cursor paging request: {0}", e.getMessage()), e);
+        }
+
+        page.setPageRequest(pageRequest);
+        ResteasyProviderFactory.pushContext(Page.class, page);
+    }
+
+    /**
+     * Builds the output streamer which writes the results of the given query as a JSON array.
+     * <p></p>
+     * The results are written to a single generator by a single writer, without flushing the
+     * output after each element. Instead, the output is flushed and the session cleared every
+     * batch of elements, so entities loaded while translating and serializing the elements do
+     * not accumulate in the session when streaming very large result sets.
+     *
+     * @param session
+     *  the session the query is run with, owned by the streamer
+     *
+     * @param query
+     *  the query whose results are to be streamed
+     *
+     * @return
+     *  the output streamer for the query
+     */
     private StreamingOutput buildOutputStreamer(
         final Session session, final CandlepinQuery query) {
 
         final ObjectMapper mapper = this.jsonProvider
             .locateMapper(Object.class, MediaType.APPLICATION_JSON_TYPE);
 
+        final ObjectWriter writer = mapper.writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        final int batchSize = this.streamBatchSize;
+
         return stream -> {
             try (
                 final JsonGenerator generator = mapper.getJsonFactory().createGenerator(stream);
@@ -143,8 +209,18 @@ public class CandlepinQueryInterceptor implements PostProcessInterceptor {
 
                 generator.writeStartArray();
 
+                int count = 0;
                 while (iterator.hasNext()) {
-                    mapper.writeValue(generator, iterator.next());
+                    writer.writeValue(generator, iterator.next());
+
+                    if (++count % batchSize == 0) {
+                        generator.flush();
+
+                        // The elements written so far are no longer needed
+                        if (session != null) {
+                            session.clear();
+                        }
+                    }
                 }
 
                 generator.writeEndArray();
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.metrics.MetricsRegistry;
+
+import java.lang.reflect.Method;
+
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.Provider;
+
+
+
+/**
+ * DynamicFeature implementation that applies a metrics filter to each resource method, recording
+ * the method's latency, response sizes and in-flight requests in the metrics registry. The filter
+ * is registered ahead of authentication, so it sees requests rejected by the authentication and
+ * authorization filters, and as the outermost writer interceptor, so the response sizes recorded
+ * are those of the entities as written. This Feature is run as part of the JAX-RS bootstrap
+ * process not on every request.
+ */
+@Provider
+public class MetricsFeature implements DynamicFeature {
+
+    private MetricsRegistry metricsRegistry;
+
+    @Inject
+    public MetricsFeature(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        String endpoint = getEndpoint(resourceInfo);
+
+        MetricsFilter filter = new MetricsFilter(this.metricsRegistry.getResourceMethodMetrics(endpoint));
+        context.register(filter, Priorities.AUTHENTICATION - 1);
+    }
+
+    /**
+     * Builds the name under which the metrics and request statistics of the given resource method
+     * are recorded, in the form "SimpleClassName.method".
+     *
+     * @param resourceInfo
+     *  the resource method for which to build an endpoint name
+     *
+     * @return
+     *  the endpoint name of the resource method
+     */
+    static String getEndpoint(ResourceInfo resourceInfo) {
+        Method method = resourceInfo.getResourceMethod();
+        return resourceInfo.getResourceClass().getSimpleName() + "." + method.getName();
+    }
+}
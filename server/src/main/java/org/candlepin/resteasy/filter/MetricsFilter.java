@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.metrics.ResourceMethodMetrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+
+
+/**
+ * This filter is applied to each resource method by the MetricsFeature. It counts a request as
+ * in-flight from the time it is dispatched to the resource method until its response has been
+ * written, and records the time taken and the size of the response entity in the metrics of the
+ * resource method.
+ * <p></p>
+ * Responses without an entity are complete once the response filters have run. Responses with an
+ * entity are only complete once the entity has been written, which for streamed query results is
+ * where most of the work of the request is done, so those are recorded by the writer interceptor.
+ */
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+
+    private final ResourceMethodMetrics metrics;
+
+    public MetricsFilter(ResourceMethodMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("metrics is null");
+        }
+
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+        this.metrics.requestStarted();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        // HEAD responses carry the headers of an entity without the entity being written
+        if (!responseContext.hasEntity() || HttpMethod.HEAD.equals(requestContext.getMethod())) {
+            Object start = requestContext.getProperty(START_PROPERTY);
+            requestContext.removeProperty(START_PROPERTY);
+
+            this.complete(start, 0);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Object start = context.getProperty(START_PROPERTY);
+        if (start == null) {
+            context.proceed();
+            return;
+        }
+
+        context.removeProperty(START_PROPERTY);
+
+        CountingOutputStream stream = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(stream);
+
+        try {
+            context.proceed();
+        }
+        finally {
+            this.complete(start, stream.getCount());
+        }
+    }
+
+    private void complete(Object start, long bytes) {
+        // Only requests which passed through the request filter are counted as in-flight
+        if (start instanceof Long) {
+            this.metrics.requestCompleted(System.nanoTime() - (Long) start, bytes);
+        }
+    }
+
+    /**
+     * Output stream which counts the bytes written through it
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        public CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            ++this.count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+    }
+}
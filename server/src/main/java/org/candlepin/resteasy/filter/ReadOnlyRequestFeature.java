@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.resteasy.ReadOnlyRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.Provider;
+
+
+
+/**
+ * DynamicFeature implementation that applies the read-only request filter to the GET and HEAD
+ * resource methods marked with the ReadOnlyRequest annotation, either directly or through their
+ * resource class. This Feature is run as part of the JAX-RS bootstrap process not on every request.
+ */
+@Provider
+public class ReadOnlyRequestFeature implements DynamicFeature {
+    private static final Logger log = LoggerFactory.getLogger(ReadOnlyRequestFeature.class);
+
+    private ReadOnlyRequestFilter readOnlyRequestFilter;
+
+    @Inject
+    public ReadOnlyRequestFeature(ReadOnlyRequestFilter readOnlyRequestFilter) {
+        this.readOnlyRequestFilter = readOnlyRequestFilter;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Method method = resourceInfo.getResourceMethod();
+
+        boolean annotated = method.isAnnotationPresent(ReadOnlyRequest.class) ||
+            resourceInfo.getResourceClass().isAnnotationPresent(ReadOnlyRequest.class);
+
+        if (!annotated) {
+            return;
+        }
+
+        String name = method.getDeclaringClass().getName() + "." + method.getName();
+        if (method.isAnnotationPresent(GET.class) || method.isAnnotationPresent(HEAD.class)) {
+            log.debug("Registering read-only request filter on {}", name);
+            context.register(this.readOnlyRequestFilter);
+        }
+        else if (method.isAnnotationPresent(ReadOnlyRequest.class)) {
+            log.warn("Ignoring read-only request annotation on {}: not a GET or HEAD method", name);
+        }
+    }
+}
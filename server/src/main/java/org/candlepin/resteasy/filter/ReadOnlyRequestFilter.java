@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import com.google.inject.Provider;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+
+
+
+/**
+ * This filter is applied to resource methods annotated with @ReadOnlyRequest. It switches the
+ * request's Hibernate session to read-only mode, in which loaded entities are neither snapshotted
+ * nor dirty-checked, and to manual flushing, so the session is never flushed implicitly.
+ * <p></p>
+ * As changes made to entities during such a request would silently be discarded, the session is
+ * guarded against writes: any flush of the session fails, and the request fails once the resource
+ * method has completed if the session holds changes which were never written. Bulk queries, such
+ * as the HQL update used to record consumer check-ins, do not flush the session and are allowed.
+ * <p></p>
+ * The session is left in read-only mode until the unit of work of the request ends, so that
+ * query results streamed once the response filters have run are read-only as well.
+ */
+@Priority(Priorities.USER)
+public class ReadOnlyRequestFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static Logger log = LoggerFactory.getLogger(ReadOnlyRequestFilter.class);
+
+    static final String GUARD_PROPERTY = ReadOnlyRequestFilter.class.getName() + ".method";
+
+    private final Provider<EntityManager> entityManagerProvider;
+
+    @Inject
+    public ReadOnlyRequestFilter(Provider<EntityManager> entityManagerProvider) {
+        this.entityManagerProvider = entityManagerProvider;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        ResourceInfo resourceInfo = ResteasyProviderFactory.getContextData(ResourceInfo.class);
+        Method method = resourceInfo != null ? resourceInfo.getResourceMethod() : null;
+        String name = method != null ? method.getDeclaringClass().getSimpleName() + "." + method.getName() :
+            requestContext.getUriInfo().getPath();
+
+        Session session = this.getSession();
+        session.addEventListeners(new ReadOnlyGuard(name));
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+
+        requestContext.setProperty(GUARD_PROPERTY, name);
+        log.trace("Serving {} from a read-only session", name);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+        throws IOException {
+
+        String name = (String) requestContext.getProperty(GUARD_PROPERTY);
+        if (name == null) {
+            return;
+        }
+
+        requestContext.removeProperty(GUARD_PROPERTY);
+        Session session = this.getSession();
+
+        if (session.isOpen() && session.isDirty()) {
+            throw new IllegalStateException(String.format(
+                "Read-only request %s modified entities which were never written to the database", name));
+        }
+    }
+
+    private Session getSession() {
+        return this.entityManagerProvider.get().unwrap(Session.class);
+    }
+
+    /**
+     * Session event listener which fails any explicit flush of the session it is added to.
+     */
+    static class ReadOnlyGuard extends BaseSessionEventListener {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        ReadOnlyGuard(String name) {
+            this.name = name;
+        }
+
+        // Impl note: partial flushes are not guarded, as every query starts one to check whether
+        // the session needs to be flushed, even when it is in manual flush mode.
+        @Override
+        public void flushStart() {
+            throw new IllegalStateException(String.format(
+                "Read-only request %s attempted to write to the database", this.name));
+        }
+    }
+}
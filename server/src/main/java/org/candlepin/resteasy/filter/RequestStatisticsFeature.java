@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import org.candlepin.hibernate.RequestStatistics;
+
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.Provider;
+
+
+
+/**
+ * DynamicFeature implementation that applies a filter to each resource method which names the
+ * method as the endpoint of the request statistics being collected for the request. The filter
+ * runs ahead of authentication, so requests rejected by the authentication or authorization
+ * filters are still attributed to their endpoint. This Feature is run as part of the JAX-RS
+ * bootstrap process not on every request.
+ */
+@Provider
+public class RequestStatisticsFeature implements DynamicFeature {
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        // Named as by the metrics feature, so the request statistics and metrics of an endpoint match
+        String endpoint = MetricsFeature.getEndpoint(resourceInfo);
+
+        context.register(new EndpointFilter(endpoint), Priorities.AUTHENTICATION - 1);
+    }
+
+    /**
+     * Request filter which sets the endpoint of the current request statistics
+     */
+    private static class EndpointFilter implements ContainerRequestFilter {
+        private final String endpoint;
+
+        public EndpointFilter(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext) {
+            RequestStatistics stats = RequestStatistics.current();
+            if (stats != null) {
+                stats.setEndpoint(this.endpoint);
+            }
+        }
+    }
+}
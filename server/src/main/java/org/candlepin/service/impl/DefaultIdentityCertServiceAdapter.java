@@ -14,6 +14,7 @@
  */
 package org.candlepin.service.impl;
 
+import org.candlepin.cache.ConsumerIdentityCache;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.CertificateSerialCurator;
 import org.candlepin.model.Consumer;
@@ -49,6 +50,7 @@ public class DefaultIdentityCertServiceAdapter implements
     private IdentityCertificateCurator idCertCurator;
     private KeyPairCurator keyPairCurator;
     private CertificateSerialCurator serialCurator;
+    private ConsumerIdentityCache identityCache;
     private Function<Date, Date> endDateGenerator;
 
     @SuppressWarnings("unchecked")
@@ -57,11 +59,13 @@ public class DefaultIdentityCertServiceAdapter implements
         IdentityCertificateCurator identityCertCurator,
         KeyPairCurator keyPairCurator,
         CertificateSerialCurator serialCurator,
+        ConsumerIdentityCache identityCache,
         @Named("endDateGenerator") Function endDtGen) {
         this.pki = pki;
         this.idCertCurator = identityCertCurator;
         this.keyPairCurator = keyPairCurator;
         this.serialCurator = serialCurator;
+        this.identityCache = identityCache;
         this.endDateGenerator = endDtGen;
     }
 
@@ -76,6 +80,8 @@ public class DefaultIdentityCertServiceAdapter implements
         if (certificate != null) {
             idCertCurator.delete(certificate);
         }
+
+        identityCache.evict(consumer.getUuid());
     }
 
     @Override
@@ -115,6 +121,7 @@ public class DefaultIdentityCertServiceAdapter implements
             idCertCurator.delete(certificate);
         }
 
+        identityCache.evict(consumer.getUuid());
         return generate(consumer);
     }
 
@@ -19,6 +19,7 @@ import org.candlepin.auth.SubResource;
 import org.candlepin.auth.permissions.Permission;
 import org.candlepin.auth.permissions.PermissionFactory;
 import org.candlepin.auth.permissions.PermissionFactory.PermissionType;
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.model.Owner;
 import org.candlepin.model.OwnerCurator;
 import org.candlepin.model.PermissionBlueprint;
@@ -59,17 +60,19 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
     private PermissionBlueprintCurator permissionCurator;
     private OwnerCurator ownerCurator;
     private PermissionFactory permissionFactory;
+    private UserPrincipalCache principalCache;
 
     @Inject
     public DefaultUserServiceAdapter(UserCurator userCurator, RoleCurator roleCurator,
         PermissionBlueprintCurator permissionCurator, OwnerCurator ownerCurator,
-        PermissionFactory permissionFactory) {
+        PermissionFactory permissionFactory, UserPrincipalCache principalCache) {
 
         this.userCurator = userCurator;
         this.roleCurator = roleCurator;
         this.permissionCurator = permissionCurator;
         this.ownerCurator = ownerCurator;
         this.permissionFactory = permissionFactory;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -181,6 +184,9 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
             }
         }
 
+        // The user's principal is cached under its previous username
+        this.evictPrincipal(username);
+
         return this.userCurator.merge(entity);
     }
 
@@ -218,6 +224,8 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
             entity.clearRoles();
             this.userCurator.delete(entity);
         }
+
+        this.evictPrincipal(username);
     }
 
     /**
@@ -342,6 +350,9 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
             }
         }
 
+        // Users assigned to the new role gain its permissions
+        this.clearPrincipals();
+
         return this.roleCurator.create(entity);
     }
 
@@ -437,6 +448,8 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
             }
         }
 
+        this.clearPrincipals();
+
         return this.roleCurator.merge(entity);
     }
 
@@ -456,6 +469,8 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
         }
 
         roleEntity.addUser(userEntity);
+        this.evictPrincipal(username);
+
         return this.roleCurator.merge(roleEntity);
     }
 
@@ -475,6 +490,8 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
         }
 
         roleEntity.removeUser(userEntity);
+        this.evictPrincipal(username);
+
         return this.roleCurator.merge(roleEntity);
     }
 
@@ -503,6 +520,7 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
         }
 
         roleEntity.addPermission(pentity);
+        this.clearPrincipals();
 
         return this.roleCurator.merge(roleEntity);
     }
@@ -541,6 +559,8 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
             }
 
             if (removed) {
+                this.clearPrincipals();
+
                 roleEntity.setPermissions(permissions);
                 roleEntity = this.roleCurator.merge(roleEntity);
             }
@@ -559,6 +579,8 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
         if (entity != null) {
             entity.clearUsers();
             this.roleCurator.delete(entity);
+
+            this.clearPrincipals();
         }
     }
 
@@ -577,4 +599,20 @@ public class DefaultUserServiceAdapter implements UserServiceAdapter {
     public List<? extends RoleInfo> listRoles() {
         return this.roleCurator.listAll().list();
     }
+
+    /**
+     * Discards the cached principal of the given user once the current transaction commits.
+     * Discarding it any earlier would allow other requests to cache it again, as built from the
+     * user's previous state.
+     */
+    private void evictPrincipal(String username) {
+        this.userCurator.afterCommit(() -> this.principalCache.evict(username));
+    }
+
+    /**
+     * Discards all cached principals once the current transaction commits.
+     */
+    private void clearPrincipals() {
+        this.userCurator.afterCommit(() -> this.principalCache.clear());
+    }
 }
@@ -15,8 +15,10 @@
 package org.candlepin.servlet.filter;
 
 import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.RequestEntityMap;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
 import org.slf4j.Logger;
@@ -48,10 +50,13 @@ public class CandlepinScopeFilter implements Filter {
     private static Logger log = LoggerFactory.getLogger(CandlepinScopeFilter.class);
 
     private final CandlepinRequestScope requestScope;
+    private final Provider<RequestEntityMap> requestEntityMapProvider;
 
     @Inject
-    public CandlepinScopeFilter(CandlepinRequestScope requestScope) {
+    public CandlepinScopeFilter(CandlepinRequestScope requestScope,
+        Provider<RequestEntityMap> requestEntityMapProvider) {
         this.requestScope = requestScope;
+        this.requestEntityMapProvider = requestEntityMapProvider;
     }
 
     @Override
@@ -65,6 +70,8 @@ public class CandlepinScopeFilter implements Filter {
 
         requestScope.enter();
         try {
+            // Entities looked up by natural key are only reused within HTTP requests; see RequestEntityMap
+            requestEntityMapProvider.get().enable();
             chain.doFilter(request, response);
         }
         finally {
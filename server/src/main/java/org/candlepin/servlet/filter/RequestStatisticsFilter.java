@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.servlet.filter;
+
+import org.candlepin.common.config.Configuration;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.hibernate.RequestStatistics;
+import org.candlepin.metrics.RequestStatisticsRegistry;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * RequestStatisticsFilter
+ *
+ * A servlet filter used to collect the database statistics of each request, aggregate them by
+ * the endpoint which served the request, and log the requests which exceed the configured
+ * thresholds along with the SQL they prepared most often.
+ */
+@Singleton
+public class RequestStatisticsFilter implements Filter {
+    private static Logger log = LoggerFactory.getLogger(RequestStatisticsFilter.class);
+
+    /** The maximum number of distinct statements logged for a slow request */
+    private static final int LOGGED_STATEMENTS = 10;
+
+    private final RequestStatisticsRegistry registry;
+    private final boolean enabled;
+    private final int statementThreshold;
+    private final long dbTimeThreshold;
+    private final int entityThreshold;
+
+    @Inject
+    public RequestStatisticsFilter(Configuration config, RequestStatisticsRegistry registry) {
+        this.registry = registry;
+        this.enabled = config.getBoolean(ConfigProperties.REQUEST_STATISTICS_ENABLED);
+        this.statementThreshold = config.getInt(ConfigProperties.REQUEST_STATISTICS_STATEMENT_THRESHOLD);
+        this.dbTimeThreshold = config.getLong(ConfigProperties.REQUEST_STATISTICS_DB_TIME_THRESHOLD);
+        this.entityThreshold = config.getInt(ConfigProperties.REQUEST_STATISTICS_ENTITY_THRESHOLD);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+        FilterChain chain) throws IOException, ServletException {
+
+        if (!this.enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestStatistics.begin();
+
+        try {
+            chain.doFilter(request, response);
+        }
+        finally {
+            RequestStatistics stats = RequestStatistics.end();
+
+            boolean slow = this.exceedsThresholds(stats);
+            this.registry.record(stats, slow);
+
+            if (slow) {
+                this.logSlowRequest(request, stats);
+            }
+        }
+    }
+
+    private boolean exceedsThresholds(RequestStatistics stats) {
+        return stats.getPreparedStatements() > this.statementThreshold ||
+            stats.getDatabaseTime() > this.dbTimeThreshold ||
+            stats.getEntitiesLoaded() > this.entityThreshold;
+    }
+
+    private void logSlowRequest(ServletRequest request, RequestStatistics stats) {
+        StringBuilder builder = new StringBuilder();
+
+        for (Map.Entry<String, Integer> entry : stats.getFrequentStatements(LOGGED_STATEMENTS)) {
+            builder.append("\n  ").append(entry.getValue()).append("x ").append(entry.getKey());
+        }
+
+        if (stats.getUntrackedStatements() > 0) {
+            builder.append("\n  ").append(stats.getUntrackedStatements()).append("x (untracked)");
+        }
+
+        String target = null;
+        if (request instanceof HttpServletRequest) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            target = httpRequest.getMethod() + " " + httpRequest.getRequestURI();
+        }
+
+        log.warn("Request {} ({}) exceeded the request statistics thresholds: {}; most frequent SQL:{}",
+            target, stats.getEndpoint(), stats, builder);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+    }
+}
@@ -76,6 +76,37 @@ public class EntitlementImporter {
         throws IOException, SyncDataFormatException {
 
         EntitlementDTO entitlement = mapper.readValue(reader, EntitlementDTO.class);
+        return this.importObject(entitlement, owner, productsById, consumerUuid, meta);
+    }
+
+    /**
+     * Builds a subscription from an upstream entitlement which has already been deserialized, such
+     * as one read while streaming a manifest.
+     *
+     * @param entitlement
+     *  the upstream entitlement to convert
+     *
+     * @param owner
+     *  the owner the subscription is being imported into
+     *
+     * @param productsById
+     *  a mapping of product IDs to the products present in the imported manifest
+     *
+     * @param consumerUuid
+     *  the UUID of the upstream consumer the manifest was exported from
+     *
+     * @param meta
+     *  the metadata of the imported manifest
+     *
+     * @throws SyncDataFormatException
+     *  if the entitlement references a product which is not present in the manifest
+     *
+     * @return
+     *  the subscription built from the given entitlement
+     */
+    public SubscriptionDTO importObject(EntitlementDTO entitlement, Owner owner,
+        Map<String, ProductDTO> productsById, String consumerUuid, Meta meta)
+        throws SyncDataFormatException {
 
         SubscriptionDTO subscription = new SubscriptionDTO();
 
@@ -14,6 +14,7 @@
  */
 package org.candlepin.sync;
 
+import org.candlepin.cache.ExportCache;
 import org.candlepin.common.config.Configuration;
 import org.candlepin.common.util.VersionUtil;
 import org.candlepin.config.ConfigProperties;
@@ -47,24 +48,39 @@ import org.candlepin.service.model.CertificateInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.security.Signature;
+import java.security.SignatureException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -72,6 +88,8 @@ import java.util.zip.ZipOutputStream;
  */
 public class Exporter {
     private static final String EXTENSIONS_BASE_DIR = "extensions";
+    private static final String CONSUMER_EXPORT_FILE = "consumer_export.zip";
+    private static final String META_FILE = "meta.json";
 
     private static Logger log = LoggerFactory.getLogger(Exporter.class);
 
@@ -102,6 +120,7 @@ public class Exporter {
     private ProductCurator productCurator;
     private ExportExtensionAdapter exportExtensionAdapter;
     private ModelTranslator translator;
+    private ExportCache exportCache;
 
     private static final String LEGACY_RULES_FILE = "/rules/default-rules.js";
     private SyncUtils syncUtils;
@@ -120,7 +139,7 @@ public class Exporter {
         CdnExporter cdnExporter,
         ProductCurator productCurator,
         SyncUtils syncUtils, ExportExtensionAdapter extensionAdapter,
-        ModelTranslator translator) {
+        ModelTranslator translator, ExportCache exportCache) {
 
         this.consumerTypeCurator = consumerTypeCurator;
         this.ownerCurator = ownerCurator;
@@ -148,6 +167,7 @@ public class Exporter {
         mapper = syncUtils.getObjectMapper();
         this.exportExtensionAdapter = extensionAdapter;
         this.translator = translator;
+        this.exportCache = exportCache;
     }
 
     public File getFullExport(Consumer consumer) throws ExportCreationException {
@@ -169,21 +189,74 @@ public class Exporter {
         String apiUrl, Map<String, String> extensionData) throws ExportCreationException {
         try {
             File tmpDir = syncUtils.makeTempDir("export");
-            File baseDir = new File(tmpDir.getAbsolutePath(), "export");
-            baseDir.mkdir();
+            String fingerprint = this.getExportFingerprint(consumer, cdnLabel, webUrl, apiUrl,
+                extensionData);
 
-            exportMeta(baseDir, cdnLabel);
-            exportConsumer(baseDir, consumer, webUrl, apiUrl);
-            exportIdentityCertificate(baseDir, consumer);
-            exportEntitlements(baseDir, consumer);
-            exportEntitlementsCerts(baseDir, consumer, null, true);
-            exportProducts(baseDir, consumer);
-            exportConsumerTypes(baseDir);
-            exportRules(baseDir);
-            exportDistributorVersions(baseDir);
-            exportContentDeliveryNetworks(baseDir);
-            exportExtensionData(baseDir, consumer, extensionData);
-            return makeArchive(consumer, tmpDir, baseDir);
+            // Cached exports are captured from, and replayed through, the streaming writer
+            if (fingerprint != null || this.isStreamingExportEnabled()) {
+                return this.writeFullExportFile(tmpDir, consumer, cdnLabel, webUrl, apiUrl, extensionData,
+                    fingerprint);
+            }
+
+            return this.makeFullExportFile(tmpDir, consumer, cdnLabel, webUrl, apiUrl, extensionData);
+        }
+        catch (IOException e) {
+            log.error("Error generating entitlement export", e);
+            throw new ExportCreationException("Unable to create export archive", e);
+        }
+    }
+
+    private File writeFullExportFile(File tmpDir, Consumer consumer, String cdnLabel, String webUrl,
+        String apiUrl, Map<String, String> extensionData, String fingerprint)
+        throws IOException, ExportCreationException {
+
+        // Write the signed archive straight into its final file, skipping the export
+        // directory and the intermediate consumer_export.zip
+        File archive = new File(tmpDir, this.getExportFileName(consumer));
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(archive))) {
+            this.writeFullExport(consumer, cdnLabel, webUrl, apiUrl, extensionData, fingerprint, out);
+        }
+
+        log.debug("Returning file: " + archive.getAbsolutePath());
+        return archive;
+    }
+
+    private File makeFullExportFile(File tmpDir, Consumer consumer, String cdnLabel, String webUrl,
+        String apiUrl, Map<String, String> extensionData) throws IOException, ExportCreationException {
+
+        File baseDir = new File(tmpDir.getAbsolutePath(), "export");
+        baseDir.mkdir();
+
+        exportAll(new DirectorySink(baseDir), consumer, cdnLabel, webUrl, apiUrl, extensionData);
+        return makeArchive(consumer, tmpDir, baseDir);
+    }
+
+    /**
+     * Writes a manifest archive for the target {@link Consumer} directly to the given stream.
+     * Each file is compressed into the inner consumer_export.zip as soon as it has been
+     * serialized, and the inner archive is signed as it is written, so the manifest is built
+     * without any intermediate files. The stream is left open once the archive is complete.
+     * <p></p>
+     * If export caching is enabled and the consumer has not changed since it was last exported,
+     * the previously generated archive is written instead.
+     *
+     * @param consumer the target consumer to export.
+     * @param cdnLabel the CDN label to store in the meta file.
+     * @param webUrl the URL pointing to the manifest's originating web application.
+     * @param apiUrl the API URL pointing to the manifest's originating candlepin API.
+     * @param extensionData the data to pass to the {@link ExportExtensionAdapter}
+     * @param out the stream to write the manifest archive to.
+     * @throws ExportCreationException when an error occurs while writing the manifest archive.
+     */
+    public void writeFullExport(Consumer consumer, String cdnLabel, String webUrl, String apiUrl,
+        Map<String, String> extensionData, OutputStream out) throws ExportCreationException {
+
+        try {
+            String fingerprint = this.getExportFingerprint(consumer, cdnLabel, webUrl, apiUrl,
+                extensionData);
+
+            this.writeFullExport(consumer, cdnLabel, webUrl, apiUrl, extensionData, fingerprint, out);
         }
         catch (IOException e) {
             log.error("Error generating entitlement export", e);
@@ -191,6 +264,199 @@ public class Exporter {
         }
     }
 
+    /**
+     * Writes a manifest archive for the target {@link Consumer}, from the export cache if it holds
+     * the content of an archive generated from the given fingerprint, or from scratch otherwise.
+     * The content of an archive generated from scratch is cached, unless it exceeds the maximum
+     * size of a cached archive.
+     *
+     * @param fingerprint the fingerprint of the export, or null if it is not to be cached.
+     */
+    private void writeFullExport(Consumer consumer, String cdnLabel, String webUrl, String apiUrl,
+        Map<String, String> extensionData, String fingerprint, OutputStream out)
+        throws IOException, ExportCreationException {
+
+        byte[] cached = exportCache.getArchive(consumer.getUuid(), fingerprint);
+        if (cached != null) {
+            // The cached content omits the metadata, which must reflect this export
+            this.writeArchive(consumer, out, null, sink -> {
+                exportMeta(sink, cdnLabel);
+                copyCachedContent(sink, cached);
+            });
+
+            return;
+        }
+
+        ExportWriter writer = sink -> exportAll(sink, consumer, cdnLabel, webUrl, apiUrl, extensionData);
+
+        if (fingerprint != null) {
+            // Keep a compressed copy of the content as it is written, so it can be cached once complete
+            BoundedOutputStream content = new BoundedOutputStream(exportCache.getMaxArchiveSize());
+            this.writeArchive(consumer, out, content, writer);
+
+            if (content.isTruncated()) {
+                // Too large to cache; drop any stale archive rather than keep it around
+                exportCache.evictArchive(consumer.getUuid());
+            }
+            else {
+                exportCache.putArchive(consumer.getUuid(), fingerprint, content.toByteArray());
+            }
+        }
+        else {
+            this.writeArchive(consumer, out, null, writer);
+        }
+    }
+
+    /**
+     * Writes a signed manifest archive to the given stream, with the content written by the given
+     * writer. If a capture stream is provided, every file of the content other than the metadata
+     * is also compressed into a zip archive written to it.
+     */
+    private void writeArchive(Consumer consumer, OutputStream out, OutputStream capture,
+        ExportWriter writer) throws ExportCreationException {
+
+        log.info("Streaming signed export archive for consumer: {}", consumer.getUuid());
+
+        try {
+            ZipOutputStream archive = new ZipOutputStream(out);
+            archive.setComment("signed Candlepin export for " + consumer.getUuid());
+            archive.putNextEntry(new ZipEntry(CONSUMER_EXPORT_FILE));
+
+            Signature signer = pki.getSHA256WithRSASigner();
+            ZipOutputStream export = new ZipOutputStream(new SigningOutputStream(archive, signer));
+            export.setComment("Candlepin export for " + consumer.getUuid());
+
+            ZipOutputStream captured = capture != null ? new ZipOutputStream(capture) : null;
+            ZipSink sink = new ZipSink(export, "export/", captured);
+            writer.write(sink);
+            sink.finish();
+
+            if (captured != null) {
+                captured.close();
+            }
+
+            // Finishing, rather than closing, the inner archive leaves the outer entry open
+            export.finish();
+            archive.closeEntry();
+
+            addSignatureToArchive(archive, signer.sign());
+            archive.finish();
+            archive.flush();
+        }
+        catch (IOException | SignatureException e) {
+            log.error("Error generating entitlement export", e);
+            throw new ExportCreationException("Unable to create export archive", e);
+        }
+    }
+
+    /**
+     * Copies the files of cached archive content into the given export.
+     */
+    private void copyCachedContent(ExportSink sink, byte[] content) throws IOException {
+        ZipInputStream zipstream = new ZipInputStream(new ByteArrayInputStream(content));
+
+        for (ZipEntry entry = zipstream.getNextEntry(); entry != null; entry = zipstream.getNextEntry()) {
+            try (OutputStream out = sink.newEntry(entry.getName())) {
+                IOUtils.copy(zipstream, out);
+            }
+        }
+    }
+
+    /**
+     * Fetches the name of the manifest archive generated for the target {@link Consumer}.
+     *
+     * @param consumer the consumer being exported.
+     * @return the file name of the consumer's manifest archive.
+     */
+    public String getExportFileName(Consumer consumer) {
+        return String.format("%s-%s.zip", consumer.getUuid(), "export");
+    }
+
+    /**
+     * Builds a fingerprint of everything a full export of the given consumer is generated from:
+     * the consumer and its identity certificate, its entitlements, their certificates, pools and
+     * products, the rules, and the consumer types, distributor versions and CDNs of this server,
+     * along with the export parameters. Any change to these produces a different fingerprint.
+     * <p></p>
+     * The fingerprint is built from identifiers, update times and counts fetched by projection, so
+     * checking the cache does not load the entities the export itself would.
+     *
+     * @return
+     *  the fingerprint of the export, or null if export caching is disabled or the export cannot
+     *  be cached
+     */
+    private String getExportFingerprint(Consumer consumer, String cdnLabel, String webUrl, String apiUrl,
+        Map<String, String> extensionData) throws IOException {
+
+        if (!exportCache.isEnabled()) {
+            return null;
+        }
+
+        IdentityCertificate idCert = consumer.getIdCert();
+
+        StringBuilder state = new StringBuilder()
+            .append(consumer.getUuid()).append('|')
+            .append(getTime(consumer.getUpdated())).append('|')
+            .append(idCert != null ? idCert.getSerial().getId() : null).append('|')
+            .append(cdnLabel).append('|')
+            .append(getPrefixWebUrl(webUrl)).append('|')
+            .append(getPrefixApiUrl(apiUrl)).append('|')
+            .append(new TreeMap<>(extensionData != null ? extensionData : new HashMap<>())).append('|')
+            .append(getTime(rules.getRulesUpdated())).append('|')
+            .append(getVersion()).append('|');
+
+        // Rows are ordered by entitlement ID: entitlement ID, updated, quantity, dirty, pool ID, updated
+        for (Object[] row : entitlementCurator.getEntitlementStates(consumer)) {
+            if (Boolean.TRUE.equals(row[3])) {
+                // Dirty entitlements fail the export; leave it to the export to report
+                return null;
+            }
+
+            state.append(row[0]).append(':')
+                .append(getTime((Date) row[1])).append(':')
+                .append(row[2]).append(':')
+                .append(row[4]).append(':')
+                .append(getTime((Date) row[5])).append(',');
+        }
+        state.append('|');
+
+        state.append(new TreeSet<>(entCertAdapter.listEntitlementSerialIds(consumer))).append('|')
+            .append(new TreeSet<>(entitlementCurator.getEntitledPoolProductUuids(consumer))).append('|')
+            .append(getCountAndLastUpdated(consumerTypeCurator.getCountAndLastUpdated())).append('|')
+            .append(getCountAndLastUpdated(distVerCurator.getCountAndLastUpdated())).append('|')
+            .append(getCountAndLastUpdated(cdnCurator.getCountAndLastUpdated()));
+
+        return DigestUtils.sha256Hex(state.toString());
+    }
+
+    private static String getCountAndLastUpdated(Object[] state) {
+        return state != null ? state[0] + ":" + getTime((Date) state[1]) : null;
+    }
+
+    private static Long getTime(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private boolean isStreamingExportEnabled() {
+        return config.getBoolean(ConfigProperties.STREAMING_EXPORT);
+    }
+
+    private void exportAll(ExportSink sink, Consumer consumer, String cdnLabel, String webUrl,
+        String apiUrl, Map<String, String> extensionData) throws IOException, ExportCreationException {
+
+        exportMeta(sink, cdnLabel);
+        exportConsumer(sink, consumer, webUrl, apiUrl);
+        exportIdentityCertificate(sink, consumer);
+        exportEntitlements(sink, consumer);
+        exportEntitlementsCerts(sink, consumer, null, true);
+        exportProducts(sink, consumer);
+        exportConsumerTypes(sink);
+        exportRules(sink);
+        exportDistributorVersions(sink);
+        exportContentDeliveryNetworks(sink);
+        exportExtensionData(sink, consumer, extensionData);
+    }
+
     public File getEntitlementExport(Consumer consumer, Set<Long> serials) throws ExportCreationException {
         // TODO: need to delete tmpDir (which contains the archive,
         // which we need to return...)
@@ -199,8 +465,9 @@ public class Exporter {
             File baseDir = new File(tmpDir.getAbsolutePath(), "export");
             baseDir.mkdir();
 
-            exportMeta(baseDir, null);
-            exportEntitlementsCerts(baseDir, consumer, serials, false);
+            ExportSink sink = new DirectorySink(baseDir);
+            exportMeta(sink, null);
+            exportEntitlementsCerts(sink, consumer, serials, false);
             return makeArchive(consumer, tmpDir, baseDir);
         }
         catch (IOException e) {
@@ -221,7 +488,7 @@ public class Exporter {
         log.info("Creating archive of " + exportDir.getAbsolutePath() + " in: " +
             exportFileName);
 
-        File archive = createZipArchiveWithDir(tempDir, exportDir, "consumer_export.zip",
+        File archive = createZipArchiveWithDir(tempDir, exportDir, CONSUMER_EXPORT_FILE,
             "Candlepin export for " + consumer.getUuid());
 
         InputStream archiveInputStream = null;
@@ -307,10 +574,13 @@ public class Exporter {
 
     private void addFileToArchive(ZipOutputStream out, int charsToDropFromName,
         File file) throws IOException, FileNotFoundException {
-        log.debug("Adding file to archive: " +
-            file.getAbsolutePath().substring(charsToDropFromName));
-        out.putNextEntry(new ZipEntry(
-            file.getAbsolutePath().substring(charsToDropFromName)));
+        addFileToArchive(out, file.getAbsolutePath().substring(charsToDropFromName), file);
+    }
+
+    private void addFileToArchive(ZipOutputStream out, String name, File file)
+        throws IOException, FileNotFoundException {
+        log.debug("Adding file to archive: " + name);
+        out.putNextEntry(new ZipEntry(name));
         FileInputStream in = null;
         try {
             in = new FileInputStream(file);
@@ -338,22 +608,14 @@ public class Exporter {
         out.closeEntry();
     }
 
-    private void exportMeta(File baseDir, String cdnKey)
+    private void exportMeta(ExportSink sink, String cdnKey)
         throws IOException {
-        File file = new File(baseDir.getCanonicalPath(), "meta.json");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(file);
+        try (Writer writer = sink.newWriter(META_FILE)) {
             Meta m = new Meta(getVersion(), new Date(),
                 principalProvider.get().getName(),
                 null, cdnKey);
             meta.export(mapper, writer, m);
         }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
     }
 
     private String getPrefixWebUrl(String override) {
@@ -383,29 +645,20 @@ public class Exporter {
         return map.get("version") + "-" + map.get("release");
     }
 
-    private void exportConsumer(File baseDir, Consumer consumer, String webAppPrefix,
+    private void exportConsumer(ExportSink sink, Consumer consumer, String webAppPrefix,
         String apiUrl)
         throws IOException {
-        File file = new File(baseDir.getCanonicalPath(), "consumer.json");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(file);
+        try (Writer writer = sink.newWriter("consumer.json")) {
             this.consumerExporter.export(mapper, writer, consumer,
                 getPrefixWebUrl(webAppPrefix), getPrefixApiUrl(apiUrl));
         }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
     }
 
-    private void exportEntitlementsCerts(File baseDir, Consumer consumer,
+    private void exportEntitlementsCerts(ExportSink sink, Consumer consumer,
         Set<Long> serials, boolean manifest)
         throws IOException {
 
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlement_certificates");
-        entCertDir.mkdir();
+        sink.mkdir("entitlement_certificates");
 
         for (EntitlementCertificate cert : entCertAdapter.listForConsumer(consumer)) {
             if (manifest && !this.exportRules.canExport(cert.getEntitlement())) {
@@ -418,42 +671,32 @@ public class Exporter {
 
             if ((serials == null) || (serials.contains(cert.getSerial().getId()))) {
                 log.debug("Exporting entitlement certificate: " + cert.getSerial());
-                File file = new File(entCertDir.getCanonicalPath(),
-                    cert.getSerial().getId() + ".pem");
-                FileWriter writer = null;
-                try {
-                    writer = new FileWriter(file);
-                    entCert.export(writer, cert);
-                }
-                finally {
-                    if (writer != null) {
-                        writer.close();
-                    }
-                }
+                String path = "entitlement_certificates/" + cert.getSerial().getId() + ".pem";
+
+                // Certificates are never modified in place; regenerating one issues a new serial
+                this.exportFragment(sink, path, "entitlement-cert:" + cert.getSerial().getId(),
+                    writer -> entCert.export(writer, cert));
             }
         }
     }
 
-    private void exportIdentityCertificate(File baseDir, Consumer consumer)
+    private void exportIdentityCertificate(ExportSink sink, Consumer consumer)
         throws IOException {
 
-        File idcertdir = new File(baseDir.getCanonicalPath(), "upstream_consumer");
-        idcertdir.mkdir();
+        sink.mkdir("upstream_consumer");
 
         IdentityCertificate cert = consumer.getIdCert();
-        File file = new File(idcertdir.getCanonicalPath(),
-            cert.getSerial().getId() + ".json");
+        String path = "upstream_consumer/" + cert.getSerial().getId() + ".json";
 
         // paradigm dictates this should go in an exporter.export method
-        try (FileWriter writer = new FileWriter(file)) {
+        try (Writer writer = sink.newWriter(path)) {
             mapper.writeValue(writer, this.translator.translate(cert, CertificateDTO.class));
         }
     }
 
-    private void exportEntitlements(File baseDir, Consumer consumer)
+    private void exportEntitlements(ExportSink sink, Consumer consumer)
         throws IOException, ExportCreationException {
-        File entCertDir = new File(baseDir.getCanonicalPath(), "entitlements");
-        entCertDir.mkdir();
+        sink.mkdir("entitlements");
 
         for (Entitlement ent : entitlementCurator.listByConsumer(consumer)) {
             if (ent.isDirty()) {
@@ -473,24 +716,62 @@ public class Exporter {
             if (log.isDebugEnabled()) {
                 log.debug("Exporting entitlement for product" + ent.getPool().getProductId());
             }
-            FileWriter writer = null;
-            try {
-                File file = new File(entCertDir.getCanonicalPath(), ent.getId() + ".json");
-                writer = new FileWriter(file);
+
+            try (Writer writer = sink.newWriter("entitlements/" + ent.getId() + ".json")) {
                 entExporter.export(mapper, writer, ent);
             }
-            finally {
-                if (writer != null) {
-                    writer.close();
+        }
+    }
+
+    private void exportProducts(ExportSink sink, Consumer consumer) throws IOException {
+        sink.mkdir("products");
+
+        for (Product product : this.getExportedProducts(consumer).values()) {
+            // Clear the owner and UUID so they can be re-generated/assigned on import
+            // product.setUuid(null);
+            // product.setOwner(null);
+
+            String productId = product.getId();
+            String fragmentKey = this.getProductFragmentKey(product);
+
+            this.exportFragment(sink, "products/" + productId + ".json",
+                fragmentKey != null ? "product:" + fragmentKey : null,
+                writer -> productExporter.export(mapper, writer, product));
+
+            // Real products have a numeric id.
+            if (StringUtils.isNumeric(product.getId())) {
+                Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
+                String certKey = fragmentKey != null ?
+                    "product-cert:" + owner.getKey() + ":" + fragmentKey :
+                    null;
+
+                byte[] cached = exportCache.getFragment(certKey);
+                if (cached != null) {
+                    try (OutputStream out = sink.newEntry("products/" + product.getId() + ".pem")) {
+                        out.write(cached);
+                    }
+
+                    continue;
+                }
+
+                CertificateInfo cert = productAdapter.getProductCertificate(owner.getKey(), product.getId());
+
+                // XXX: not all product adapters implement getProductCertificate,
+                // so just skip over this if we get null back
+                // XXX: need to decide if the cert should always be in the export, or never.
+                if (cert != null) {
+                    this.exportFragment(sink, "products/" + product.getId() + ".pem", certKey,
+                        writer -> productCertExporter.export(writer, cert));
                 }
             }
         }
     }
 
-    private void exportProducts(File baseDir, Consumer consumer) throws IOException {
-        File productDir = new File(baseDir.getCanonicalPath(), "products");
-        productDir.mkdir();
-
+    /**
+     * Fetches the products of the consumer's entitlements which are included in its export,
+     * including provided and derived products, mapped by product ID.
+     */
+    private Map<String, Product> getExportedProducts(Consumer consumer) {
         Map<String, Product> products = new HashMap<>();
         for (Entitlement entitlement : consumer.getEntitlements()) {
             Pool pool = entitlement.getPool();
@@ -515,148 +796,119 @@ public class Exporter {
             }
         }
 
-        for (Product product : products.values()) {
-            // Clear the owner and UUID so they can be re-generated/assigned on import
-            // product.setUuid(null);
-            // product.setOwner(null);
+        return products;
+    }
 
-            String path = productDir.getCanonicalPath();
-            String productId = product.getId();
-            File file = new File(path, productId + ".json");
-            FileWriter writer = null;
-            try {
-                writer = new FileWriter(file);
-                productExporter.export(mapper, writer, product);
-            }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
+    /**
+     * Builds the key identifying a version of a product in the export cache, or null if the
+     * product has not been persisted and therefore has no version.
+     */
+    private String getProductFragmentKey(Product product) {
+        return product.getUuid() != null ? product.getUuid() + ":" + product.getEntityVersion() : null;
+    }
 
-            // Real products have a numeric id.
-            if (StringUtils.isNumeric(product.getId())) {
-                Owner owner = ownerCurator.findOwnerById(consumer.getOwnerId());
+    /**
+     * Writes a file of the export from the export cache, if it holds the file, or by serializing
+     * it and adding it to the cache otherwise.
+     *
+     * @param cacheKey the key of the file in the export cache, or null if the file is not to be cached
+     */
+    private void exportFragment(ExportSink sink, String path, String cacheKey, FragmentExporter exporter)
+        throws IOException {
 
-                CertificateInfo cert = productAdapter.getProductCertificate(owner.getKey(), product.getId());
+        if (cacheKey == null || !exportCache.isEnabled()) {
+            try (Writer writer = sink.newWriter(path)) {
+                exporter.export(writer);
+            }
 
-                // XXX: not all product adapters implement getProductCertificate,
-                // so just skip over this if we get null back
-                // XXX: need to decide if the cert should always be in the export, or never.
-                if (cert != null) {
-                    file = new File(productDir.getCanonicalPath(), product.getId() + ".pem");
-                    writer = new FileWriter(file);
-                    productCertExporter.export(writer, cert);
-                    writer.close();
-                }
+            return;
+        }
+
+        byte[] content = exportCache.getFragment(cacheKey);
+        if (content == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(buffer)) {
+                exporter.export(writer);
             }
+
+            content = buffer.toByteArray();
+            exportCache.putFragment(cacheKey, content);
+        }
+
+        try (OutputStream out = sink.newEntry(path)) {
+            out.write(content);
         }
     }
 
-    private void exportConsumerTypes(File baseDir) throws IOException {
-        File typeDir = new File(baseDir.getCanonicalPath(), "consumer_types");
-        typeDir.mkdir();
+    private void exportConsumerTypes(ExportSink sink) throws IOException {
+        sink.mkdir("consumer_types");
 
         for (ConsumerType type : consumerTypeCurator.listAll()) {
-            File file = new File(typeDir.getCanonicalPath(), type.getLabel() + ".json");
-            FileWriter writer = null;
-            try {
-                writer = new FileWriter(file);
+            try (Writer writer = sink.newWriter("consumer_types/" + type.getLabel() + ".json")) {
                 consumerType.export(mapper, writer, type);
             }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
         }
     }
 
-    private void exportRules(File baseDir) throws IOException {
+    private void exportRules(ExportSink sink) throws IOException {
         // Because old candlepin servers assume to import a file in rules dir, we had to
         // move to a new directory for versioned rules file:
-        File newRulesDir = new File(baseDir.getCanonicalPath(), "rules2");
-        newRulesDir.mkdir();
-        File newRulesFile = new File(newRulesDir.getCanonicalPath(), "rules.js");
-        FileWriter writer = null;
-        try {
-            writer = new FileWriter(newRulesFile);
+        sink.mkdir("rules2");
+        try (Writer writer = sink.newWriter("rules2/rules.js")) {
             rules.export(writer);
         }
-        finally {
-            if (writer != null) {
-                writer.close();
-            }
-        }
 
-        exportLegacyRules(baseDir);
+        exportLegacyRules(sink);
     }
 
     /*
      * We still need to export a copy of the deprecated default-rules.js so new manifests
      * can still be imported by old candlepin servers.
      */
-    private void exportLegacyRules(File baseDir) throws IOException {
-        File oldRulesDir = new File(baseDir.getCanonicalPath(), "rules");
-        oldRulesDir.mkdir();
-        File oldRulesFile = new File(oldRulesDir.getCanonicalPath(), "default-rules.js");
+    private void exportLegacyRules(ExportSink sink) throws IOException {
+        sink.mkdir("rules");
 
         // TODO: does this need a "exporter" object as well?
-        FileUtils.copyFile(new File(
-            this.getClass().getResource(LEGACY_RULES_FILE).getPath()),
-            oldRulesFile);
+        try (InputStream in = this.getClass().getResourceAsStream(LEGACY_RULES_FILE);
+            OutputStream out = sink.newEntry("rules/default-rules.js")) {
+            IOUtils.copy(in, out);
+        }
     }
 
-    private void exportDistributorVersions(File baseDir) throws IOException {
+    private void exportDistributorVersions(ExportSink sink) throws IOException {
         List<DistributorVersion> versions = distVerCurator.findAll();
         if (versions == null || versions.isEmpty()) {
             return;
         }
 
-        File distVerDir = new File(baseDir.getCanonicalPath(), "distributor_version");
-        distVerDir.mkdir();
+        sink.mkdir("distributor_version");
 
-        FileWriter writer = null;
         for (DistributorVersion dv : versions) {
             if (log.isDebugEnabled()) {
                 log.debug("Exporting Distributor Version" + dv.getName());
             }
-            try {
-                File file = new File(distVerDir.getCanonicalPath(), dv.getName() + ".json");
-                writer = new FileWriter(file);
+
+            try (Writer writer = sink.newWriter("distributor_version/" + dv.getName() + ".json")) {
                 distVerExporter.export(mapper, writer, dv);
             }
-            finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
         }
     }
 
-    private void exportContentDeliveryNetworks(File baseDir) throws IOException {
+    private void exportContentDeliveryNetworks(ExportSink sink) throws IOException {
         ResultIterator<Cdn> iterator = this.cdnCurator.listAll().iterate();
 
         try {
             if (iterator.hasNext()) {
-                File cdnDir = new File(baseDir.getCanonicalPath(), "content_delivery_network");
-                cdnDir.mkdir();
+                sink.mkdir("content_delivery_network");
 
                 while (iterator.hasNext()) {
                     Cdn cdn = iterator.next();
                     log.debug("Exporting CDN: {}", cdn.getName());
 
-                    FileWriter writer = null;
-                    try {
-                        File file = new File(cdnDir.getCanonicalPath(), cdn.getLabel() + ".json");
-                        writer = new FileWriter(file);
+                    try (Writer writer = sink.newWriter("content_delivery_network/" + cdn.getLabel() +
+                        ".json")) {
                         cdnExporter.export(mapper, writer, cdn);
                     }
-                    finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
-                    }
                 }
             }
         }
@@ -665,11 +917,253 @@ public class Exporter {
         }
     }
 
-    private void exportExtensionData(File baseDir, Consumer targetConsumer, Map<String, String> extensionData)
-        throws IOException {
-        File extensionDir = new File(baseDir.getCanonicalPath(), EXTENSIONS_BASE_DIR);
-        extensionDir.mkdir();
+    private void exportExtensionData(ExportSink sink, Consumer targetConsumer,
+        Map<String, String> extensionData) throws IOException {
+        File extensionDir = sink.newDirectory(EXTENSIONS_BASE_DIR);
         exportExtensionAdapter.extendManifest(extensionDir, targetConsumer, extensionData);
     }
 
+    /**
+     * Writes the content of an export.
+     */
+    @FunctionalInterface
+    private interface ExportWriter {
+        void write(ExportSink sink) throws IOException, ExportCreationException;
+    }
+
+    /**
+     * Serializes a single file of an export.
+     */
+    @FunctionalInterface
+    private interface FragmentExporter {
+        void export(Writer writer) throws IOException;
+    }
+
+    /**
+     * The destination of the files making up an export, addressed by their path relative to the
+     * export directory.
+     */
+    private interface ExportSink {
+        OutputStream newEntry(String path) throws IOException;
+
+        /**
+         * Fetches a directory on disk for content which can only be written as files, such as
+         * the output of the {@link ExportExtensionAdapter}. Any files written to it become part
+         * of the export.
+         */
+        File newDirectory(String path) throws IOException;
+
+        void mkdir(String path) throws IOException;
+
+        default Writer newWriter(String path) throws IOException {
+            return new OutputStreamWriter(this.newEntry(path));
+        }
+    }
+
+    /**
+     * An ExportSink which writes each file of the export into a directory on disk.
+     */
+    private static class DirectorySink implements ExportSink {
+        private final File baseDir;
+
+        public DirectorySink(File baseDir) {
+            this.baseDir = baseDir;
+        }
+
+        @Override
+        public OutputStream newEntry(String path) throws IOException {
+            return new FileOutputStream(new File(this.baseDir.getCanonicalPath(), path));
+        }
+
+        @Override
+        public File newDirectory(String path) throws IOException {
+            File directory = new File(this.baseDir.getCanonicalPath(), path);
+            directory.mkdir();
+
+            return directory;
+        }
+
+        @Override
+        public void mkdir(String path) throws IOException {
+            this.newDirectory(path);
+        }
+    }
+
+    /**
+     * An ExportSink which compresses each file of the export straight into a zip archive.
+     * Directories handed out for file-based content are added to the archive, and then
+     * removed, once the export is finished. Every file other than the metadata may also be
+     * compressed into a second, capture archive, without the prefix, for the export cache.
+     */
+    private class ZipSink implements ExportSink {
+        private final ZipOutputStream out;
+        private final String prefix;
+        private final ZipOutputStream capture;
+        private final Map<String, File> directories;
+
+        public ZipSink(ZipOutputStream out, String prefix, ZipOutputStream capture) {
+            this.out = out;
+            this.prefix = prefix;
+            this.capture = capture;
+            this.directories = new LinkedHashMap<>();
+        }
+
+        @Override
+        public OutputStream newEntry(String path) throws IOException {
+            log.debug("Adding entry to archive: {}{}", this.prefix, path);
+            this.out.putNextEntry(new ZipEntry(this.prefix + path));
+
+            ZipOutputStream capture = META_FILE.equals(path) ? null : this.capture;
+            if (capture != null) {
+                capture.putNextEntry(new ZipEntry(path));
+            }
+
+            // Closing the entry's stream must only close the entry, not the archive
+            return new FilterOutputStream(this.out) {
+                @Override
+                public void write(int b) throws IOException {
+                    this.out.write(b);
+
+                    if (capture != null) {
+                        capture.write(b);
+                    }
+                }
+
+                @Override
+                public void write(byte[] buf, int off, int len) throws IOException {
+                    this.out.write(buf, off, len);
+
+                    if (capture != null) {
+                        capture.write(buf, off, len);
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    this.flush();
+                    ((ZipOutputStream) this.out).closeEntry();
+
+                    if (capture != null) {
+                        capture.closeEntry();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public File newDirectory(String path) throws IOException {
+            File directory = syncUtils.makeTempDir("export-" + path);
+            this.directories.put(path, directory);
+
+            return directory;
+        }
+
+        @Override
+        public void mkdir(String path) {
+            // Zip archives built from a directory tree never contain empty directories
+        }
+
+        public void finish() throws IOException {
+            for (Map.Entry<String, File> entry : this.directories.entrySet()) {
+                File directory = entry.getValue();
+
+                try {
+                    this.addFiles(entry.getKey() + "/", directory);
+                }
+                finally {
+                    FileUtils.deleteQuietly(directory);
+                }
+            }
+        }
+
+        private void addFiles(String path, File directory) throws IOException {
+            for (File file : directory.listFiles()) {
+                if (file.isDirectory()) {
+                    this.addFiles(path + file.getName() + "/", file);
+                }
+                else {
+                    try (OutputStream entry = this.newEntry(path + file.getName())) {
+                        Files.copy(file.toPath(), entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An in-memory output stream which holds at most a fixed number of bytes. Once more than that
+     * has been written, the content is discarded and further writes are ignored.
+     */
+    private static class BoundedOutputStream extends ByteArrayOutputStream {
+        private final int limit;
+        private boolean truncated;
+
+        public BoundedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            this.write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] buf, int off, int len) {
+            if (this.truncated) {
+                return;
+            }
+
+            if ((long) this.count + len > this.limit) {
+                this.truncated = true;
+                this.buf = new byte[0];
+                this.count = 0;
+                return;
+            }
+
+            super.write(buf, off, len);
+        }
+
+        public synchronized boolean isTruncated() {
+            return this.truncated;
+        }
+    }
+
+    /**
+     * An output stream which feeds everything written through it to a signature. Closing the
+     * stream does not close the underlying stream.
+     */
+    private static class SigningOutputStream extends FilterOutputStream {
+        private final Signature signature;
+
+        public SigningOutputStream(OutputStream out, Signature signature) {
+            super(out);
+            this.signature = signature;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.update(new byte[] { (byte) b }, 0, 1);
+            this.out.write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws IOException {
+            this.update(buf, off, len);
+            this.out.write(buf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flush();
+        }
+
+        private void update(byte[] buf, int off, int len) throws IOException {
+            try {
+                this.signature.update(buf, off, len);
+            }
+            catch (SignatureException e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
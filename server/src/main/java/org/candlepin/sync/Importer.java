@@ -16,6 +16,7 @@ package org.candlepin.sync;
 
 import org.candlepin.audit.EventSink;
 import org.candlepin.common.config.Configuration;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.controller.PoolManager;
 import org.candlepin.controller.Refresher;
 import org.candlepin.dto.ModelTranslator;
@@ -24,6 +25,7 @@ import org.candlepin.dto.manifest.v1.CertificateDTO;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.DistributorVersionDTO;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
 import org.candlepin.dto.manifest.v1.ProductDTO;
 import org.candlepin.dto.manifest.v1.SubscriptionDTO;
 import org.candlepin.model.CdnCurator;
@@ -57,12 +59,14 @@ import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -70,9 +74,13 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -80,6 +88,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -125,6 +137,13 @@ public class Importer {
         MANIFEST_OLD, MANIFEST_SAME, DISTRIBUTOR_CONFLICT, SIGNATURE_CONFLICT
     }
 
+    /**
+     * Source of a manifest archive which can be opened more than once.
+     */
+    private interface ManifestSource {
+        InputStream open() throws IOException;
+    }
+
     private ConsumerTypeCurator consumerTypeCurator;
     private EntitlementCurator entitlementCurator;
     private ProductCurator productCurator;
@@ -182,6 +201,13 @@ public class Importer {
     public ImportRecord loadExport(Owner owner, File archive, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
         try {
+            if (this.isStreamingImportEnabled()) {
+                StreamedManifest manifest = this.readManifest(owner, archive.getName(),
+                    () -> new FileInputStream(archive), overrides);
+
+                return this.doStreamedImport(owner, manifest, overrides, uploadedFileName);
+            }
+
             return doExport(owner, unpackExportFile(archive.getName(), new FileInputStream(archive)),
                 overrides, uploadedFileName);
         }
@@ -204,6 +230,11 @@ public class Importer {
     public ImportRecord loadStoredExport(ManifestFile export, Owner owner, ConflictOverrides overrides,
         String uploadedFileName) throws ImporterException {
         try {
+            if (this.isStreamingImportEnabled()) {
+                StreamedManifest manifest = this.readStoredManifest(owner, export, overrides);
+                return this.doStreamedImport(owner, manifest, overrides, uploadedFileName);
+            }
+
             ImportRecord result = doExport(owner, extractFromService(export), overrides, uploadedFileName);
             return result;
         }
@@ -303,6 +334,24 @@ public class Importer {
         return unpackExportFile(export.getId(), export.getInputStream());
     }
 
+    // NOTE: As above, the stored manifest must be streamed within a single transaction.
+    /**
+     * Pulls the manifest from the {@link ManifestFileService} and reads it without extracting it
+     * to disk.
+     *
+     * @param owner the {@link Owner} the manifest is being imported into.
+     * @param export the stored manifest file.
+     * @param overrides the conflicts that are to be overridden.
+     * @return the {@link StreamedManifest} read from the stored file.
+     * @throws ManifestFileServiceException
+     * @throws ImporterException
+     */
+    @Transactional
+    protected StreamedManifest readStoredManifest(Owner owner, ManifestFile export,
+        ConflictOverrides overrides) throws ManifestFileServiceException, ImporterException {
+        return this.readManifest(owner, export.getId(), export::getInputStream, overrides);
+    }
+
     /**
      * Check to make sure the meta data is newer than the imported data.
      * @param type ExporterMetadata.TYPE_PER_USER or TYPE_SYSTEM
@@ -315,7 +364,20 @@ public class Importer {
     protected void validateMetadata(String type, Owner owner, File meta, ConflictOverrides forcedConflicts)
         throws IOException, ImporterException {
 
-        Meta m = mapper.readValue(meta, Meta.class);
+        this.validateMetadata(type, owner, mapper.readValue(meta, Meta.class), forcedConflicts);
+    }
+
+    /**
+     * Check to make sure the meta data is newer than the imported data.
+     * @param type ExporterMetadata.TYPE_PER_USER or TYPE_SYSTEM
+     * @param owner Owner in the case of PER_USER
+     * @param m the deserialized meta.json
+     * @param forcedConflicts Conflicts we will override if encountered
+     * @throws ImporterException thrown if the metadata is invalid.
+     */
+    protected void validateMetadata(String type, Owner owner, Meta m, ConflictOverrides forcedConflicts)
+        throws ImporterException {
+
         if (type == null) {
             throw new ImporterException(i18n.tr("Wrong metadata type"));
         }
@@ -465,6 +527,151 @@ public class Importer {
         }
     }
 
+    private boolean isStreamingImportEnabled() {
+        return this.config.getBoolean(ConfigProperties.STREAMING_IMPORT);
+    }
+
+    /**
+     * Reads a manifest archive without extracting it to disk. The archive is read twice: once to
+     * check its signature and structure, and, only once those have been checked, again to
+     * deserialize its products and entitlements. Each stream opened is closed once read.
+     *
+     * @param owner the {@link Owner} the manifest is being imported into.
+     * @param fileName the name of the manifest archive.
+     * @param source the source from which to open the manifest archive.
+     * @param overrides the conflicts that are to be overridden.
+     * @return the {@link StreamedManifest} read from the source.
+     * @throws ImporterException if the archive could not be read, or failed its checks.
+     */
+    private StreamedManifest readManifest(Owner owner, String fileName, ManifestSource source,
+        ConflictOverrides overrides) throws ImporterException {
+
+        StreamedManifest manifest = new StreamedManifest(mapper, pki, new ProductImporter(), owner);
+        InputStream exportInputStream = null;
+
+        try {
+            exportInputStream = source.open();
+            manifest.read(exportInputStream);
+        }
+        catch (FileNotFoundException e) {
+            log.error("Could not find import archive: {}", fileName);
+            throw new ImporterException(i18n.tr("Uploaded manifest file does not exist."), e);
+        }
+        catch (IOException e) {
+            log.error("Unable to read export archive", e);
+            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
+        }
+        catch (CertificateException e) {
+            log.error("Certificate exception checking archive signature", e);
+            throw new ImportExtractionException(
+                i18n.tr("Certificate exception checking archive signature"), e);
+        }
+        finally {
+            IOUtils.closeQuietly(exportInputStream);
+        }
+
+        if (!manifest.hasArchiveEntries()) {
+            throw new ImportExtractionException(i18n.tr(
+                "The archive {0} is not a properly compressed file or is empty", fileName));
+        }
+
+        this.checkManifest(manifest, overrides);
+
+        exportInputStream = null;
+        try {
+            exportInputStream = source.open();
+            manifest.readContent(exportInputStream);
+        }
+        catch (IOException e) {
+            log.error("Unable to read export archive content", e);
+            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e);
+        }
+        finally {
+            IOUtils.closeQuietly(exportInputStream);
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Checks the signature and structure of a manifest read without extraction, before any of its
+     * products or entitlements are deserialized.
+     *
+     * @param manifest the manifest to check.
+     * @param overrides the conflicts that are to be overridden.
+     * @throws ImporterException if the manifest failed its signature check or is incomplete.
+     */
+    private void checkManifest(StreamedManifest manifest, ConflictOverrides overrides)
+        throws ImporterException {
+
+        if (manifest.getSignature() == null) {
+            throw new ImportExtractionException(
+                i18n.tr("The archive does not contain the required signature file"));
+        }
+
+        if (!manifest.hasConsumerExport()) {
+            throw new ImportExtractionException(i18n.tr("The archive does not contain " +
+                "the required consumer_export.zip file"));
+        }
+
+        if (!manifest.isSignatureVerified()) {
+            log.warn("Archive signature check failed.");
+
+            if (!overrides.isForced(Conflict.SIGNATURE_CONFLICT)) {
+                // As with extracted archives, a bad signature is reported immediately
+                throw new ImportConflictException(i18n.tr("Archive failed signature check"),
+                    Conflict.SIGNATURE_CONFLICT);
+            }
+            else {
+                log.warn("Ignoring signature check failure.");
+            }
+        }
+
+        if (manifest.getExtractionError() != null) {
+            log.error("Exception caught importing archive", manifest.getExtractionError());
+            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"),
+                manifest.getExtractionError());
+        }
+
+        if (!manifest.hasConsumerExportEntries()) {
+            throw new ImportExtractionException(i18n.tr(
+                "The archive {0} is not a properly compressed file or is empty",
+                StreamedManifest.CONSUMER_EXPORT));
+        }
+
+        if (!manifest.hasExportContents()) {
+            throw new ImportExtractionException(i18n.tr("The consumer_export archive has no contents"));
+        }
+    }
+
+    private ImportRecord doStreamedImport(Owner owner, StreamedManifest manifest,
+        ConflictOverrides overrides, String uploadedFileName) throws ImporterException {
+
+        Map<String, Object> result = new HashMap<>();
+        try {
+            List<SubscriptionDTO> importSubs = importObjects(owner, manifest, overrides);
+            Meta m = mapper.readValue(manifest.getFile(ImportFile.META.fileName()), Meta.class);
+
+            result.put("subscriptions", importSubs);
+            result.put("meta", m);
+
+            sink.emitImportCreated(owner);
+            return recordImportSuccess(owner, result, overrides, uploadedFileName);
+        }
+        catch (ConstraintViolationException cve) {
+            log.error("Failed to import archive", cve);
+            throw new ImporterException(i18n.tr("Failed to import archive"), cve, result);
+        }
+        catch (PersistenceException pe) {
+            log.error("Failed to import archive", pe);
+            throw new ImporterException(i18n.tr("Failed to import archive"), pe, result);
+        }
+        catch (IOException e) {
+            log.error("Exception caught importing archive", e);
+            throw new ImportExtractionException(i18n.tr("Unable to extract export archive"), e, result);
+        }
+    }
+
     @SuppressWarnings("checkstyle:methodlength")
     @Transactional(rollbackOn = {IOException.class, ImporterException.class,
         RuntimeException.class, ImportConflictException.class})
@@ -582,6 +789,131 @@ public class Importer {
             importSubs = importEntitlements(owner, new HashSet<>(), new File[]{}, consumer.getUuid(), meta);
         }
 
+        this.refreshPools(owner, consumer, importSubs);
+
+        return importSubs;
+    }
+
+    /**
+     * Imports the objects of a manifest which has been read by streaming it from its archive. This
+     * mirrors the import of an extracted manifest, but the content is taken from the already read
+     * manifest rather than from the sync work directory.
+     *
+     * @param owner the {@link Owner} to import data into.
+     * @param manifest the manifest read from the uploaded archive.
+     * @param overrides the conflicts that are to be overridden.
+     * @return the subscriptions imported from the manifest.
+     * @throws IOException if the content of the manifest cannot be deserialized.
+     * @throws ImporterException if the manifest is incomplete or conflicts with existing data.
+     */
+    @Transactional(rollbackOn = {IOException.class, ImporterException.class,
+        RuntimeException.class, ImportConflictException.class})
+    // WARNING: Keep this method public, otherwise @Transactional is ignored:
+    public List<SubscriptionDTO> importObjects(Owner owner, StreamedManifest manifest,
+        ConflictOverrides overrides) throws IOException, ImporterException {
+        ownerCurator.lock(owner);
+
+        log.debug("Importing streamed objects for owner: {}", owner);
+
+        byte[] metadata = manifest.getFile(ImportFile.META.fileName());
+        if (metadata == null) {
+            throw new ImporterException(i18n.tr("The archive does not contain the required meta.json file"));
+        }
+        if (!manifest.hasDirectory(ImportFile.CONSUMER_TYPE.fileName())) {
+            throw new ImporterException(
+                i18n.tr("The archive does not contain the required consumer_types directory"));
+        }
+        byte[] consumerFile = manifest.getFile(ImportFile.CONSUMER.fileName());
+        if (consumerFile == null) {
+            throw new ImporterException(
+                i18n.tr("The archive does not contain the required consumer.json file"));
+        }
+        boolean hasProducts = manifest.hasDirectory(ImportFile.PRODUCTS.fileName());
+        if (hasProducts && !manifest.hasDirectory(ImportFile.ENTITLEMENTS.fileName())) {
+            throw new ImporterException(
+                i18n.tr("The archive does not contain the required entitlements directory"));
+        }
+
+        List<ImportConflictException> conflictExceptions = new LinkedList<>();
+        Meta meta = mapper.readValue(metadata, Meta.class);
+
+        byte[] rules = manifest.getFile(ImportFile.RULES_FILE.fileName());
+        if (rules != null) {
+            rulesImporter.importObject(this.openEntry(rules));
+        }
+        else {
+            log.warn("Skipping rules import, manifest does not contain rules file: {}",
+                ImportFile.RULES_FILE.fileName());
+        }
+
+        importConsumerTypes(manifest.getFiles(ImportFile.CONSUMER_TYPE.fileName()).values());
+        importDistributorVersions(manifest.getFiles(ImportFile.DISTRIBUTOR_VERSIONS.fileName()).values());
+        importContentDeliveryNetworks(
+            manifest.getFiles(ImportFile.CONTENT_DELIVERY_NETWORKS.fileName()).values());
+
+        // per user elements
+        try {
+            validateMetadata(ExporterMetadata.TYPE_PER_USER, owner, meta, overrides);
+        }
+        catch (ImportConflictException e) {
+            conflictExceptions.add(e);
+        }
+
+        ConsumerDTO consumer = null;
+        try {
+            IdentityCertificate idcert = null;
+            Map<String, byte[]> upstreamFiles = manifest.getFiles(ImportFile.UPSTREAM_CONSUMER.fileName());
+
+            for (Map.Entry<String, byte[]> entry : upstreamFiles.entrySet()) {
+                if (entry.getKey().endsWith(".json")) {
+                    log.debug("Import upstream consumeridentity certificate: {}", entry.getKey());
+                    idcert = this.readIdentityCertificate(this.openEntry(entry.getValue()));
+                }
+                else {
+                    log.warn("Extra file found in upstream_consumer directory: {}", entry.getKey());
+                }
+            }
+
+            consumer = importConsumer(owner, this.openEntry(consumerFile), idcert, overrides, meta);
+        }
+        catch (ImportConflictException e) {
+            conflictExceptions.add(e);
+        }
+
+        // At this point we're done checking for any potential conflicts:
+        if (!conflictExceptions.isEmpty()) {
+            log.error("Conflicts occurred during import that were not overridden:");
+            for (ImportConflictException e : conflictExceptions) {
+                log.error("{}", e.message().getConflicts());
+            }
+
+            throw new ImportConflictException(conflictExceptions);
+        }
+
+        if (consumer == null) {
+            throw new IllegalStateException("No consumer found during import");
+        }
+
+        if (!hasProducts) {
+            log.warn("No products found to import, skipping product import.");
+            log.warn("No entitlements in manifest, removing all subscriptions for owner.");
+        }
+
+        // The products and entitlements were deserialized by the second pass over the manifest,
+        // once its signature had been checked
+        if (!manifest.isContentRead()) {
+            throw new IllegalStateException("Manifest content has not been read");
+        }
+
+        List<SubscriptionDTO> importSubs = importEntitlements(owner, manifest.getProducts(),
+            hasProducts ? manifest.getEntitlements() : new ArrayList<>(), consumer.getUuid(), meta);
+
+        this.refreshPools(owner, consumer, importSubs);
+
+        return importSubs;
+    }
+
+    private void refreshPools(Owner owner, ConsumerDTO consumer, List<SubscriptionDTO> importSubs) {
         // Setup our import subscription adapter with the subscriptions imported:
         final String contentAccessMode = StringUtils.isEmpty(consumer.getContentAccessMode()) ?
             ContentAccessCertServiceAdapter.DEFAULT_CONTENT_ACCESS_MODE :
@@ -608,8 +940,6 @@ public class Importer {
         Refresher refresher = poolManager.getRefresher(subAdapter, ownerAdapter);
         refresher.add(owner);
         refresher.run();
-
-        return importSubs;
     }
 
     protected void importRules(File rulesFile, File metadata) throws IOException {
@@ -652,6 +982,17 @@ public class Importer {
         importer.store(consumerTypeObjs);
     }
 
+    protected void importConsumerTypes(Collection<byte[]> consumerTypes) throws IOException {
+        ConsumerTypeImporter importer = new ConsumerTypeImporter(consumerTypeCurator);
+        Set<ConsumerType> consumerTypeObjs = new HashSet<>();
+
+        for (byte[] consumerType : consumerTypes) {
+            consumerTypeObjs.add(importer.createObject(mapper, this.openEntry(consumerType)));
+        }
+
+        importer.store(consumerTypeObjs);
+    }
+
     protected ConsumerDTO importConsumer(Owner owner, File consumerFile, File[] upstreamConsumer,
         ConflictOverrides forcedConflicts, Meta meta) throws IOException, SyncDataFormatException {
 
@@ -661,10 +1002,7 @@ public class Importer {
                 log.debug("Import upstream consumeridentity certificate: {}", uc.getName());
 
                 try (Reader reader = new FileReader(uc)) {
-                    CertificateDTO dtoCert = mapper.readValue(reader, CertificateDTO.class);
-                    idcert = new IdentityCertificate();
-                    ImporterUtils.populateEntity(idcert, dtoCert);
-                    idcert.setId(dtoCert.getId());
+                    idcert = this.readIdentityCertificate(reader);
                 }
             }
             else {
@@ -672,53 +1010,62 @@ public class Importer {
             }
         }
 
-        ConsumerImporter importer = new ConsumerImporter(ownerCurator, idCertCurator, i18n, csCurator);
-        Reader reader = null;
-        ConsumerDTO consumer = null;
+        try (Reader reader = new FileReader(consumerFile)) {
+            return this.importConsumer(owner, reader, idcert, forcedConflicts, meta);
+        }
+    }
 
-        try {
-            reader = new FileReader(consumerFile);
-            consumer = importer.createObject(mapper, reader);
-            // we can not rely on the actual ConsumerType in the ConsumerDto
-            // because it could have an id not in our database. We need to
-            // stick with the label. Hence we need to lookup the ACTUAL type
-            // by label here before attempting to store the UpstreamConsumer
-            ConsumerType type = consumerTypeCurator.getByLabel(consumer.getType().getLabel());
-            consumer.setType(this.translator.translate(type, ConsumerTypeDTO.class));
+    private IdentityCertificate readIdentityCertificate(Reader reader) throws IOException {
+        CertificateDTO dtoCert = mapper.readValue(reader, CertificateDTO.class);
+        IdentityCertificate idcert = new IdentityCertificate();
+        ImporterUtils.populateEntity(idcert, dtoCert);
+        idcert.setId(dtoCert.getId());
 
-            // in older manifests the web app prefix will not
-            // be on the consumer, we can use the one stored in
-            // the metadata
-            if (StringUtils.isEmpty(consumer.getUrlWeb())) {
-                consumer.setUrlWeb(meta.getWebAppPrefix());
-            }
+        return idcert;
+    }
 
-            importer.store(owner, consumer, forcedConflicts, idcert);
-        }
-        finally {
-            if (reader != null) {
-                reader.close();
-            }
+    private ConsumerDTO importConsumer(Owner owner, Reader reader, IdentityCertificate idcert,
+        ConflictOverrides forcedConflicts, Meta meta) throws IOException, SyncDataFormatException {
+
+        ConsumerImporter importer = new ConsumerImporter(ownerCurator, idCertCurator, i18n, csCurator);
+        ConsumerDTO consumer = importer.createObject(mapper, reader);
+
+        // we can not rely on the actual ConsumerType in the ConsumerDto
+        // because it could have an id not in our database. We need to
+        // stick with the label. Hence we need to lookup the ACTUAL type
+        // by label here before attempting to store the UpstreamConsumer
+        ConsumerType type = consumerTypeCurator.getByLabel(consumer.getType().getLabel());
+        consumer.setType(this.translator.translate(type, ConsumerTypeDTO.class));
+
+        // in older manifests the web app prefix will not
+        // be on the consumer, we can use the one stored in
+        // the metadata
+        if (StringUtils.isEmpty(consumer.getUrlWeb())) {
+            consumer.setUrlWeb(meta.getWebAppPrefix());
         }
 
+        importer.store(owner, consumer, forcedConflicts, idcert);
+
         return consumer;
     }
 
     protected Set<ProductDTO> importProducts(File[] products, ProductImporter importer, Owner owner)
         throws IOException {
 
-        Set<ProductDTO> productsToImport = new HashSet<>();
+        List<File> productFiles = new ArrayList<>();
         for (File product : products) {
             // Skip product.pem's, we just need the json to import:
             if (product.getName().endsWith(".json")) {
-                log.debug("Importing product {} for owner {}", product.getName(), owner.getKey());
-
-                try (Reader reader = new FileReader(product)) {
-                    productsToImport.add(importer.createObject(mapper, reader, owner));
-                }
+                productFiles.add(product);
             }
         }
 
+        String ownerKey = owner.getKey();
+        Set<ProductDTO> productsToImport = new HashSet<>(this.readFiles(productFiles, (file, reader) -> {
+            log.debug("Importing product {} for owner {}", file.getName(), ownerKey);
+            return importer.createObject(mapper, reader, owner);
+        }));
+
         // TODO: Do we need to cleanup unused products? Looked at this earlier and it
         // looks somewhat complex and a little bit dangerous, so we're leaving them
         // around for now.
@@ -730,6 +1077,99 @@ public class Importer {
         File[] entitlements, String consumerUuid, Meta meta)
         throws IOException, SyncDataFormatException {
 
+        List<EntitlementDTO> entitlementsToImport = this.readFiles(Arrays.asList(entitlements),
+            (file, reader) -> {
+                log.debug("Import entitlement: {}", file.getName());
+                return mapper.readValue(reader, EntitlementDTO.class);
+            });
+
+        return this.importEntitlements(owner, products, entitlementsToImport, consumerUuid, meta);
+    }
+
+    /**
+     * Deserializes a single file of an extracted manifest
+     */
+    @FunctionalInterface
+    private interface ManifestFileReader<T> {
+        T read(File file, Reader reader) throws IOException;
+    }
+
+    /**
+     * Deserializes the given files of an extracted manifest. If import threads are configured, the
+     * files are fanned out over a pool of worker threads; otherwise they are read serially. In either
+     * case, the results are returned in the order of the given files.
+     *
+     * @param files
+     *  the files to deserialize
+     *
+     * @param fileReader
+     *  the function deserializing a single file; must be safe to call concurrently
+     *
+     * @throws IOException
+     *  if any of the files cannot be read or deserialized
+     *
+     * @return
+     *  a list containing the objects deserialized from the given files
+     */
+    private <T> List<T> readFiles(List<File> files, ManifestFileReader<T> fileReader) throws IOException {
+        int threads = Math.min(this.config.getInt(ConfigProperties.IMPORT_THREADS, 1), files.size());
+        List<T> results = new ArrayList<>(files.size());
+
+        if (threads <= 1) {
+            for (File file : files) {
+                try (Reader reader = new FileReader(file)) {
+                    results.add(fileReader.read(file, reader));
+                }
+            }
+
+            return results;
+        }
+
+        log.debug("Reading {} manifest files using {} threads", files.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<T>> futures = new ArrayList<>(files.size());
+            for (File file : files) {
+                futures.add(executor.submit(() -> {
+                    try (Reader reader = new FileReader(file)) {
+                        return fileReader.read(file, reader);
+                    }
+                }));
+            }
+
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+
+            return results;
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException("Unable to read manifest files", cause);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading manifest files", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected List<SubscriptionDTO> importEntitlements(Owner owner, Set<ProductDTO> products,
+        List<EntitlementDTO> entitlements, String consumerUuid, Meta meta)
+        throws SyncDataFormatException {
+
         log.debug("Importing entitlements for owner: {}", owner);
 
         EntitlementImporter importer = new EntitlementImporter(csCurator, cdnCurator, i18n, productCurator,
@@ -745,19 +1185,9 @@ public class Importer {
         }
 
         List<SubscriptionDTO> subscriptionsToImport = new ArrayList<>();
-        for (File entitlement : entitlements) {
-            Reader reader = null;
-            try {
-                log.debug("Import entitlement: {}", entitlement.getName());
-                reader = new FileReader(entitlement);
-                subscriptionsToImport.add(
-                    importer.importObject(mapper, reader, owner, productsById, consumerUuid, meta));
-            }
-            finally {
-                if (reader != null) {
-                    reader.close();
-                }
-            }
+        for (EntitlementDTO entitlement : entitlements) {
+            subscriptionsToImport.add(
+                importer.importObject(entitlement, owner, productsById, consumerUuid, meta));
         }
 
         // Reconcile the subscriptions so they line up with pools we're tracking
@@ -875,6 +1305,17 @@ public class Importer {
         importer.store(distVers);
     }
 
+    protected void importDistributorVersions(Collection<byte[]> versionFiles) throws IOException {
+        DistributorVersionImporter importer = new DistributorVersionImporter(distVerCurator);
+        Set<DistributorVersionDTO> distVers = new HashSet<>();
+
+        for (byte[] verFile : versionFiles) {
+            distVers.add(importer.createObject(mapper, this.openEntry(verFile)));
+        }
+
+        importer.store(distVers);
+    }
+
     protected void importContentDeliveryNetworks(File[] cdnFiles) throws IOException {
         CdnImporter importer = new CdnImporter(cdnCurator);
         Set<CdnDTO> cdns = new HashSet<>();
@@ -895,6 +1336,21 @@ public class Importer {
         importer.store(cdns);
     }
 
+    protected void importContentDeliveryNetworks(Collection<byte[]> cdnFiles) throws IOException {
+        CdnImporter importer = new CdnImporter(cdnCurator);
+        Set<CdnDTO> cdns = new HashSet<>();
+
+        for (byte[] cdnFile : cdnFiles) {
+            cdns.add(importer.createObject(mapper, this.openEntry(cdnFile)));
+        }
+
+        importer.store(cdns);
+    }
+
+    private Reader openEntry(byte[] content) {
+        return new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+    }
+
     private ImportUpstreamConsumer createImportUpstreamConsumer(Owner owner, UpstreamConsumer uc) {
         ImportUpstreamConsumer iup = null;
         if (uc == null && owner != null) {
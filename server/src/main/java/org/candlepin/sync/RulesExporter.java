@@ -20,6 +20,7 @@ import com.google.inject.Inject;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Date;
 
 /**
  * RulesExporter
@@ -37,4 +38,8 @@ public class RulesExporter {
         writer.write(rulesCurator.getRules().getRules());
     }
 
+    Date getRulesUpdated() {
+        return rulesCurator.getUpdated();
+    }
+
 }
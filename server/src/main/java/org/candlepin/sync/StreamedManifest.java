@@ -0,0 +1,559 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+import org.candlepin.model.Owner;
+import org.candlepin.pki.PKIUtility;
+import org.candlepin.sync.Importer.ImportFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+
+
+/**
+ * The StreamedManifest class reads a signed manifest archive from its stream, without extracting it
+ * to disk.
+ * <p></p>
+ * The manifest is read in two passes. The first pass, {@link #read(InputStream)}, reads the nested
+ * consumer_export.zip archive straight out of the outer archive, feeding its raw bytes to the
+ * signature verifiers of the CA certificates. Only the small control files (metadata, consumer, rules,
+ * consumer types and the like) are kept as-is during this pass; no product or entitlement is
+ * deserialized until the signature has been checked. The second pass,
+ * {@link #readContent(InputStream)}, then deserializes the products and entitlements, and fails if the
+ * nested archive differs from the one read by the first pass. Both passes reject an archive holding
+ * more than one consumer export or signature, as the signature could otherwise be checked against a
+ * different export than the one whose content is imported. Any other content, such as certificate
+ * PEMs, is skipped by both passes.
+ * <p></p>
+ * The products and entitlements are retained as DTOs until the import proper, as the subscriptions
+ * they describe are reconciled with the owner's pools together. Memory use therefore still grows with
+ * the number of entitlements in the manifest, though none of the raw archive content is held.
+ * <p></p>
+ * Reading the manifest does not validate it. Since the signature of the manifest is only known once
+ * the whole archive has been read, errors found in the nested archive are recorded rather than thrown,
+ * allowing the caller to report a signature failure ahead of any problem with the content.
+ */
+class StreamedManifest {
+    private static Logger log = LoggerFactory.getLogger(StreamedManifest.class);
+
+    static final String CONSUMER_EXPORT = "consumer_export.zip";
+    static final String SIGNATURE = "signature";
+    static final String EXPORT_DIR = "export/";
+
+    /** Directories of the nested archive whose files are retained as-is */
+    private static final Set<String> RETAINED_DIRS = new HashSet<>(Arrays.asList(
+        ImportFile.CONSUMER_TYPE.fileName(),
+        ImportFile.UPSTREAM_CONSUMER.fileName(),
+        ImportFile.DISTRIBUTOR_VERSIONS.fileName(),
+        ImportFile.CONTENT_DELIVERY_NETWORKS.fileName(),
+        "rules2"));
+
+    private final ObjectMapper mapper;
+    private final PKIUtility pki;
+    private final ProductImporter productImporter;
+    private final Owner owner;
+
+    private boolean archiveEntriesFound;
+    private byte[] signature;
+    private List<Signature> verifiers;
+    private boolean consumerExportFound;
+    private boolean consumerExportEntriesFound;
+    private boolean exportContentsFound;
+    private IOException extractionError;
+    private byte[] consumerExportDigest;
+    private boolean contentRead;
+
+    private final SortedMap<String, byte[]> files;
+    private final Set<String> directories;
+    private final Set<ProductDTO> products;
+    private final List<EntitlementDTO> entitlements;
+
+    /**
+     * Creates a new StreamedManifest which will read manifests for the given owner.
+     *
+     * @param mapper
+     *  the object mapper to use to deserialize the manifest content
+     *
+     * @param pki
+     *  the PKIUtility instance providing the signature verifiers
+     *
+     * @param productImporter
+     *  the importer to which product entries are fed
+     *
+     * @param owner
+     *  the owner into which the manifest is being imported
+     */
+    public StreamedManifest(ObjectMapper mapper, PKIUtility pki, ProductImporter productImporter,
+        Owner owner) {
+
+        this.mapper = mapper;
+        this.pki = pki;
+        this.productImporter = productImporter;
+        this.owner = owner;
+
+        this.files = new TreeMap<>();
+        this.directories = new HashSet<>();
+        this.products = new HashSet<>();
+        this.entitlements = new ArrayList<>();
+    }
+
+    /**
+     * Reads the manifest archive from the given stream, checking its signature and retaining its
+     * control files. The stream is read to its end, but is not closed.
+     *
+     * @param istream
+     *  the stream from which to read the manifest archive
+     *
+     * @throws IOException
+     *  if the outer archive cannot be read, or contains more than one consumer export or signature
+     *
+     * @throws CertificateException
+     *  if the CA certificates cannot be loaded to verify the signature of the manifest
+     */
+    public void read(InputStream istream) throws IOException, CertificateException {
+        ZipInputStream zipstream = new ZipInputStream(new CloseShieldInputStream(istream));
+
+        for (ZipEntry entry = zipstream.getNextEntry(); entry != null; entry = zipstream.getNextEntry()) {
+            log.debug("Reading manifest entry: {}", entry.getName());
+            this.archiveEntriesFound = true;
+
+            if (CONSUMER_EXPORT.equals(entry.getName())) {
+                if (this.consumerExportFound) {
+                    throw new IOException("The manifest contains more than one consumer export");
+                }
+
+                this.readConsumerExport(zipstream);
+            }
+            else if (SIGNATURE.equals(entry.getName())) {
+                if (this.signature != null) {
+                    throw new IOException("The manifest contains more than one signature");
+                }
+
+                this.signature = IOUtils.toByteArray(zipstream);
+            }
+
+            zipstream.closeEntry();
+        }
+    }
+
+    private void readConsumerExport(InputStream istream) throws IOException, CertificateException {
+        this.consumerExportFound = true;
+        this.verifiers = this.pki.getSHA256WithRSAVerifiers();
+
+        MessageDigest digest = createDigest();
+        InputStream verifying = new VerifyingInputStream(new DigestInputStream(istream, digest),
+            this.verifiers);
+
+        try {
+            ZipInputStream zipstream = new ZipInputStream(new CloseShieldInputStream(verifying));
+
+            for (ZipEntry entry = zipstream.getNextEntry(); entry != null;
+                entry = zipstream.getNextEntry()) {
+
+                this.consumerExportEntriesFound = true;
+
+                if (!entry.isDirectory() && entry.getName().startsWith(EXPORT_DIR)) {
+                    this.exportContentsFound = true;
+                    this.readExportEntry(entry.getName().substring(EXPORT_DIR.length()), zipstream);
+                }
+
+                zipstream.closeEntry();
+            }
+        }
+        catch (IOException e) {
+            log.error("Unable to read consumer export archive", e);
+            this.extractionError = e;
+        }
+
+        // Make sure every byte of the nested archive has been seen by the verifiers, regardless of
+        // how far the zip stream needed to read
+        drain(verifying);
+        this.consumerExportDigest = digest.digest();
+    }
+
+    /**
+     * Reads the products and entitlements of the manifest archive from the given stream, which must
+     * provide the same archive as was previously passed to {@link #read(InputStream)}. This should
+     * only be called once the signature of the manifest has been checked. The stream is read to its
+     * end, but is not closed.
+     *
+     * @param istream
+     *  the stream from which to read the manifest archive
+     *
+     * @throws IOException
+     *  if the archive cannot be read, contains more than one consumer export or signature, or its
+     *  consumer export differs from the one previously read
+     */
+    public void readContent(InputStream istream) throws IOException {
+        if (this.consumerExportDigest == null) {
+            throw new IllegalStateException("The consumer export of the manifest has not been read");
+        }
+
+        ZipInputStream zipstream = new ZipInputStream(new CloseShieldInputStream(istream));
+        byte[] digest = null;
+        boolean signatureFound = false;
+
+        for (ZipEntry entry = zipstream.getNextEntry(); entry != null; entry = zipstream.getNextEntry()) {
+            if (CONSUMER_EXPORT.equals(entry.getName())) {
+                if (digest != null) {
+                    this.discardContent();
+                    throw new IOException("The manifest contains more than one consumer export");
+                }
+
+                digest = this.readConsumerExportContent(zipstream);
+            }
+            else if (SIGNATURE.equals(entry.getName())) {
+                if (signatureFound) {
+                    this.discardContent();
+                    throw new IOException("The manifest contains more than one signature");
+                }
+
+                signatureFound = true;
+            }
+
+            zipstream.closeEntry();
+        }
+
+        if (!MessageDigest.isEqual(this.consumerExportDigest, digest)) {
+            this.discardContent();
+            throw new IOException("The consumer export changed while the manifest was being read");
+        }
+
+        this.contentRead = true;
+    }
+
+    private void discardContent() {
+        this.products.clear();
+        this.entitlements.clear();
+    }
+
+    private byte[] readConsumerExportContent(InputStream istream) throws IOException {
+        MessageDigest digest = createDigest();
+        InputStream digesting = new DigestInputStream(istream, digest);
+        ZipInputStream zipstream = new ZipInputStream(new CloseShieldInputStream(digesting));
+
+        for (ZipEntry entry = zipstream.getNextEntry(); entry != null; entry = zipstream.getNextEntry()) {
+            if (!entry.isDirectory() && entry.getName().startsWith(EXPORT_DIR)) {
+                this.readContentEntry(entry.getName().substring(EXPORT_DIR.length()), zipstream);
+            }
+
+            zipstream.closeEntry();
+        }
+
+        drain(digesting);
+        return digest.digest();
+    }
+
+    private static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unable to create consumer export digest", e);
+        }
+    }
+
+    private static void drain(InputStream istream) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (istream.read(buffer) != -1) {
+            // Intentionally left empty
+        }
+    }
+
+    private void readExportEntry(String name, InputStream istream) throws IOException {
+        int separator = name.indexOf('/');
+        String directory = separator != -1 ? name.substring(0, separator) : null;
+
+        if (directory != null) {
+            this.directories.add(directory);
+        }
+
+        // Products and entitlements are left for the second pass, once the signature is known
+        if (directory == null || RETAINED_DIRS.contains(directory)) {
+            this.files.put(name, IOUtils.toByteArray(istream));
+        }
+    }
+
+    private void readContentEntry(String name, InputStream istream) throws IOException {
+        if (name.startsWith(ImportFile.PRODUCTS.fileName() + "/")) {
+            // Skip product.pem's, we just need the json to import:
+            if (name.endsWith(".json")) {
+                log.debug("Reading product {} for owner {}", name, this.owner.getKey());
+                this.products.add(this.productImporter.createObject(this.mapper, this.openEntry(istream),
+                    this.owner));
+            }
+        }
+        else if (name.startsWith(ImportFile.ENTITLEMENTS.fileName() + "/")) {
+            log.debug("Reading entitlement: {}", name);
+            this.entitlements.add(this.mapper.readValue(this.openEntry(istream), EntitlementDTO.class));
+        }
+    }
+
+    private Reader openEntry(InputStream istream) {
+        // The mapper closes its source once done, which must not close the archive stream
+        return new InputStreamReader(new CloseShieldInputStream(istream), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether or not the outer archive contained any entries. An archive which is not a
+     * properly compressed file will appear to be empty.
+     *
+     * @return
+     *  true if the archive contained at least one entry; false otherwise
+     */
+    public boolean hasArchiveEntries() {
+        return this.archiveEntriesFound;
+    }
+
+    /**
+     * Fetches the signature of the manifest.
+     *
+     * @return
+     *  the signature of the manifest, or null if the archive did not contain a signature
+     */
+    public byte[] getSignature() {
+        return this.signature != null && this.signature.length > 0 ? this.signature : null;
+    }
+
+    /**
+     * Checks the signature of the manifest against the nested consumer export archive, using the CA
+     * certificates.
+     *
+     * @return
+     *  true if the signature was made by one of the CA certificates; false otherwise
+     */
+    public boolean isSignatureVerified() {
+        if (this.verifiers == null || this.getSignature() == null) {
+            return false;
+        }
+
+        for (Signature verifier : this.verifiers) {
+            try {
+                if (verifier.verify(this.signature)) {
+                    return true;
+                }
+            }
+            catch (SignatureException e) {
+                log.debug("Signature check against CA certificate failed", e);
+            }
+        }
+
+        return false;
+    }
+
+    public boolean hasConsumerExport() {
+        return this.consumerExportFound;
+    }
+
+    /**
+     * Checks whether or not the nested consumer export archive contained any entries. A nested
+     * archive which is not a properly compressed file will appear to be empty.
+     *
+     * @return
+     *  true if the consumer export archive contained at least one entry; false otherwise
+     */
+    public boolean hasConsumerExportEntries() {
+        return this.consumerExportEntriesFound;
+    }
+
+    /**
+     * Checks whether or not the consumer export archive contained any files under its export
+     * directory.
+     *
+     * @return
+     *  true if the consumer export contained at least one exported file; false otherwise
+     */
+    public boolean hasExportContents() {
+        return this.exportContentsFound;
+    }
+
+    /**
+     * Fetches the error which occurred while reading the nested consumer export archive, if any.
+     *
+     * @return
+     *  the error which interrupted the read of the consumer export, or null if it was read fully
+     */
+    public IOException getExtractionError() {
+        return this.extractionError;
+    }
+
+    /**
+     * Fetches the content of a file retained from the export directory.
+     *
+     * @param name
+     *  the name of the file, relative to the export directory
+     *
+     * @return
+     *  the content of the file, or null if the manifest did not contain it
+     */
+    public byte[] getFile(String name) {
+        return this.files.get(name);
+    }
+
+    /**
+     * Fetches the files retained from the given directory of the export, ordered by name.
+     *
+     * @param directory
+     *  the name of the directory, relative to the export directory
+     *
+     * @return
+     *  a map of file names, relative to the given directory, to their content
+     */
+    public Map<String, byte[]> getFiles(String directory) {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        String prefix = directory + "/";
+
+        for (Map.Entry<String, byte[]> entry : this.files.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+
+            result.put(entry.getKey().substring(prefix.length()), entry.getValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks whether or not the export contained any files in the given directory.
+     *
+     * @param directory
+     *  the name of the directory, relative to the export directory
+     *
+     * @return
+     *  true if the directory was present in the export; false otherwise
+     */
+    public boolean hasDirectory(String directory) {
+        return this.directories.contains(directory);
+    }
+
+    /**
+     * Checks whether or not the products and entitlements of the manifest have been read.
+     *
+     * @return
+     *  true if {@link #readContent(InputStream)} has completed; false otherwise
+     */
+    public boolean isContentRead() {
+        return this.contentRead;
+    }
+
+    public Set<ProductDTO> getProducts() {
+        return Collections.unmodifiableSet(this.products);
+    }
+
+    public List<EntitlementDTO> getEntitlements() {
+        return Collections.unmodifiableList(this.entitlements);
+    }
+
+    /**
+     * Input stream which feeds the bytes read through it to a set of signature verifiers.
+     */
+    private static class VerifyingInputStream extends FilterInputStream {
+        private final List<Signature> verifiers;
+
+        public VerifyingInputStream(InputStream istream, List<Signature> verifiers) {
+            super(istream);
+            this.verifiers = verifiers;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+
+            if (value != -1) {
+                this.update(new byte[] { (byte) value }, 0, 1);
+            }
+
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+
+            if (count > 0) {
+                this.update(buffer, offset, count);
+            }
+
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            // Skipped bytes must still be verified
+            byte[] buffer = new byte[(int) Math.min(count, 4096)];
+            long skipped = 0;
+
+            while (skipped < count) {
+                int read = this.read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+                if (read == -1) {
+                    break;
+                }
+
+                skipped += read;
+            }
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void update(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                for (Signature verifier : this.verifiers) {
+                    verifier.update(buffer, offset, length);
+                }
+            }
+            catch (SignatureException e) {
+                throw new IOException("Unable to update signature", e);
+            }
+        }
+    }
+}
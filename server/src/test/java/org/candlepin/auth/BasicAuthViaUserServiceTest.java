@@ -19,7 +19,9 @@ import static org.mockito.Mockito.*;
 
 import org.candlepin.auth.permissions.OwnerPermission;
 import org.candlepin.auth.permissions.PermissionFactory;
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.common.exceptions.NotAuthorizedException;
+import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.model.Owner;
 import org.candlepin.model.User;
 import org.candlepin.service.UserServiceAdapter;
@@ -56,6 +58,7 @@ public class BasicAuthViaUserServiceTest {
     @Mock private Injector injector;
     @Mock private Provider<I18n> mockI18n;
     @Mock private PermissionFactory mockPermissionFactory;
+    private UserPrincipalCache principalCache;
     private BasicAuth auth;
 
     @Before
@@ -74,7 +77,8 @@ public class BasicAuthViaUserServiceTest {
         I18n i18n = I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK);
         when(mockI18n.get()).thenReturn(i18n);
 
-        this.auth = new BasicAuth(userService, mockI18n, mockPermissionFactory);
+        this.principalCache = new UserPrincipalCache(new CandlepinCommonTestConfig());
+        this.auth = new BasicAuth(userService, mockI18n, mockPermissionFactory, this.principalCache);
     }
 
     /**
@@ -164,6 +168,30 @@ public class BasicAuthViaUserServiceTest {
         assertEquals(expected, this.auth.getPrincipal(request));
     }
 
+    @Test
+    public void cachedPrincipalIsReused() throws Exception {
+        setUserAndPassword("user", "redhat");
+        when(userService.validateUser("user", "redhat")).thenReturn(true);
+        when(userService.findByLogin("user")).thenReturn(new User());
+
+        Principal principal = this.auth.getPrincipal(request);
+        assertSame(principal, this.auth.getPrincipal(request));
+
+        // Credentials are checked on every request, but the user is only looked up once
+        verify(userService, times(2)).validateUser("user", "redhat");
+        verify(userService, times(1)).findByLogin("user");
+    }
+
+    @Test(expected = NotAuthorizedException.class)
+    public void cachedPrincipalRequiresValidCredentials() throws Exception {
+        when(userService.findByLogin("user")).thenReturn(new User());
+        this.principalCache.put(new UserPrincipal("user", null, false));
+
+        setUserAndPassword("user", "wrong");
+        when(userService.validateUser("user", "wrong")).thenReturn(false);
+        this.auth.getPrincipal(request);
+    }
+
     // TODO:  Add in owner creation/retrieval tests?
 
     private void setUserAndPassword(String username, String password) {
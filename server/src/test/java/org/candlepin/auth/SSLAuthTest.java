@@ -17,6 +17,9 @@ package org.candlepin.auth;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.cache.ConsumerIdentityCache;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ConsumerType;
@@ -33,6 +36,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.xnap.commons.i18n.I18n;
 
+import java.math.BigInteger;
 import java.security.cert.X509Certificate;
 
 import javax.inject.Provider;
@@ -46,14 +50,21 @@ public class SSLAuthTest {
     @Mock private DeletedConsumerCurator deletedConsumerCurator;
     @Mock private Provider<I18n> i18nProvider;
 
+    private ConsumerIdentityCache identityCache;
     private SSLAuth auth;
 
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+
+        CandlepinCommonTestConfig config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.CONSUMER_IDENTITY_CACHE_TTL, "60");
+        this.identityCache = new ConsumerIdentityCache(config);
+
         this.auth = new SSLAuth(this.consumerCurator,
             this.ownerCurator,
             this.deletedConsumerCurator,
+            this.identityCache,
             this.i18nProvider);
     }
 
@@ -115,11 +126,60 @@ public class SSLAuthTest {
         assertNull(this.auth.getPrincipal(httpRequest));
     }
 
+    /**
+     * The consumer resolved from a cert is loaded by its ID on subsequent requests.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void cachedConsumerLoadedById() throws Exception {
+        Owner owner = new Owner("test owner");
+        owner.setId(TestUtil.randomString());
+        ConsumerType ctype = new ConsumerType(ConsumerTypeEnum.SYSTEM);
+        ctype.setId("test-ctype");
+        Consumer consumer = new Consumer("machine_name", "test user", owner, ctype);
+        consumer.setId("consumer_id");
+        consumer.setUuid("453-44423-235");
+
+        mockCert("CN=453-44423-235");
+        when(this.consumerCurator.getConsumer("453-44423-235")).thenReturn(consumer);
+        when(this.ownerCurator.findOwnerById(owner.getId())).thenReturn(owner);
+        when(this.consumerCurator.getConsumerWithOwner("consumer_id")).thenReturn(consumer);
+
+        ConsumerPrincipal expected = new ConsumerPrincipal(consumer, owner);
+        assertEquals(expected, this.auth.getPrincipal(httpRequest));
+        assertEquals(expected, this.auth.getPrincipal(httpRequest));
+
+        verify(this.consumerCurator, times(1)).getConsumer("453-44423-235");
+        verify(this.consumerCurator, times(1)).getConsumerWithOwner("consumer_id");
+        assertEquals(1, this.identityCache.getHits());
+    }
+
+    /**
+     * A cached consumer which no longer exists is resolved from the cert again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void deletedCachedConsumerResolvedAgain() throws Exception {
+        this.identityCache.put("1@CN=Candlepin CA", "235-8", "consumer_id");
+
+        mockCert("CN=235-8");
+        when(this.consumerCurator.getConsumerWithOwner("consumer_id")).thenReturn(null);
+        when(this.consumerCurator.getConsumer("235-8")).thenReturn(null);
+
+        assertNull(this.auth.getPrincipal(httpRequest));
+        verify(this.consumerCurator).getConsumer("235-8");
+        assertEquals(1, this.identityCache.getEvictions());
+    }
+
     private void mockCert(String dn) {
         X509Certificate idCert =  mock(X509Certificate.class);
         X500Principal principal = new X500Principal(dn);
 
         when(idCert.getSubjectX500Principal()).thenReturn(principal);
+        when(idCert.getSerialNumber()).thenReturn(BigInteger.ONE);
+        when(idCert.getIssuerX500Principal()).thenReturn(new X500Principal("CN=Candlepin CA"));
         when(this.httpRequest.getAttribute("javax.servlet.request.X509Certificate"))
             .thenReturn(new X509Certificate[]{idCert});
     }
@@ -18,6 +18,8 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.auth.permissions.PermissionFactory;
+import org.candlepin.cache.UserPrincipalCache;
+import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.model.User;
 import org.candlepin.service.UserServiceAdapter;
 
@@ -66,7 +68,8 @@ public class TrustedUserAuthTest {
         I18n i18n = I18nFactory.getI18n(getClass(), Locale.US, I18nFactory.FALLBACK);
         when(mockI18n.get()).thenReturn(i18n);
 
-        this.auth = new TrustedUserAuth(userService, mockI18n, mockPermissionFactory);
+        this.auth = new TrustedUserAuth(userService, mockI18n, mockPermissionFactory,
+            new UserPrincipalCache(new CandlepinCommonTestConfig()));
     }
 
     @Test
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.auth.permissions;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.auth.Access;
+import org.candlepin.auth.SubResource;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Pool;
+import org.candlepin.model.User;
+import org.candlepin.test.TestUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+
+
+/**
+ * CompiledPermissionsTest
+ */
+public class CompiledPermissionsTest {
+
+    private Owner owner1;
+    private Owner owner2;
+
+    @Before
+    public void init() {
+        this.owner1 = new Owner("owner1", "Owner 1");
+        this.owner1.setId(TestUtil.randomString());
+        this.owner2 = new Owner("owner2", "Owner 2");
+        this.owner2.setId(TestUtil.randomString());
+    }
+
+    @Test
+    public void testOwnerPermissionsGrantHighestAccess() {
+        CompiledPermissions compiled = new CompiledPermissions(Arrays.asList(
+            new OwnerPermission(this.owner1, Access.READ_ONLY),
+            new OwnerPermission(this.owner1, Access.ALL)));
+
+        Consumer consumer = new Consumer("consumer", "user", this.owner1, null);
+
+        assertTrue(compiled.canAccess(this.owner1, SubResource.NONE, Access.ALL));
+        assertTrue(compiled.canAccess(consumer, SubResource.NONE, Access.ALL));
+        assertFalse(compiled.canAccess(this.owner2, SubResource.NONE, Access.READ_ONLY));
+    }
+
+    @Test
+    public void testOwnerPermissionsRespectAccessLevel() {
+        CompiledPermissions compiled = new CompiledPermissions(Collections.singletonList(
+            new OwnerPermission(this.owner1, Access.READ_ONLY)));
+
+        assertTrue(compiled.canAccess(this.owner1, SubResource.NONE, Access.READ_ONLY));
+        assertFalse(compiled.canAccess(this.owner1, SubResource.NONE, Access.CREATE));
+    }
+
+    @Test
+    public void testOtherPermissionsAreConsulted() {
+        User user = new User("user", "password");
+        CompiledPermissions compiled = new CompiledPermissions(Arrays.asList(
+            new OwnerPermission(this.owner2, Access.ALL),
+            new UsernameConsumersPermission(user, this.owner1)));
+
+        Consumer consumer = new Consumer("consumer", "user", this.owner1, null);
+
+        assertTrue(compiled.canAccess(consumer, SubResource.NONE, Access.ALL));
+        assertTrue(compiled.canAccess(this.owner1, SubResource.CONSUMERS, Access.CREATE));
+        assertFalse(compiled.canAccess(this.owner1, SubResource.POOLS, Access.READ_ONLY));
+    }
+
+    @Test
+    public void testInapplicablePermissionsAreSkipped() {
+        Permission permission = mock(Permission.class);
+        doReturn(false).when(permission).appliesTo(any());
+
+        CompiledPermissions compiled = new CompiledPermissions(Collections.singletonList(permission));
+        Pool pool = new Pool();
+
+        assertFalse(compiled.canAccess(pool, SubResource.NONE, Access.READ_ONLY));
+        assertFalse(compiled.canAccess(pool, SubResource.NONE, Access.ALL));
+
+        // Applicability is only resolved once per target class
+        verify(permission, times(1)).appliesTo(Pool.class);
+        verify(permission, never()).canAccess(any(), any(), any());
+    }
+
+    @Test
+    public void testNullTargetConsultsAllPermissions() {
+        Permission permission = mock(Permission.class);
+        doReturn(true).when(permission).canAccess(null, SubResource.NONE, Access.READ_ONLY);
+
+        CompiledPermissions compiled = new CompiledPermissions(Arrays.asList(
+            new OwnerPermission(this.owner1, Access.ALL), permission));
+
+        assertTrue(compiled.canAccess(null, SubResource.NONE, Access.READ_ONLY));
+    }
+}
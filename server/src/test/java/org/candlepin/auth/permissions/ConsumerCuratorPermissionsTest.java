@@ -31,6 +31,7 @@ import org.candlepin.test.DatabaseTestFixture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -96,6 +97,32 @@ public class ConsumerCuratorPermissionsTest extends DatabaseTestFixture {
         assertNull(consumerCurator.findByUuid(c2.getUuid()));
     }
 
+    @Test
+    public void testDetachedPermissionsFilterConsumers() {
+        Owner other = ownerCurator.create(new Owner("Other Corporation"));
+
+        User u = new User("fakeuser", "dontcare");
+        u.addRole(this.createAdminRole(owner));
+
+        Collection<Permission> perms = this.permissionFactory.createUserPermissions(u, true);
+        assertEquals(1, perms.size());
+
+        for (Permission permission : perms) {
+            assertNotSame(owner, permission.getOwner());
+            assertEquals(owner.getId(), permission.getOwner().getId());
+            assertEquals(owner.getKey(), permission.getOwner().getKey());
+        }
+
+        setupPrincipal(new UserPrincipal(u.getUsername(), perms, false));
+
+        Consumer c1 = consumerCurator.create(new Consumer("c1", u.getUsername(), owner, consumerType));
+        consumerCurator.create(new Consumer("c2", u.getUsername(), other, consumerType));
+
+        List<Consumer> results = consumerCurator.listAll().list();
+        assertEquals(1, results.size());
+        assertEquals(c1, results.get(0));
+    }
+
     private User setupOnlyMyConsumersPrincipal() {
         Set<Permission> perms = new HashSet<>();
         User u = new User("fakeuser", "dontcare");
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.Assert.*;
+
+import org.candlepin.cache.ConsumerIdentityCache.ConsumerIdentity;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+
+/**
+ * ConsumerIdentityCacheTest
+ */
+public class ConsumerIdentityCacheTest {
+
+    private CandlepinCommonTestConfig config;
+
+    @Before
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.CONSUMER_IDENTITY_CACHE_TTL, "60");
+        this.config.setProperty(ConfigProperties.CONSUMER_IDENTITY_CACHE_MAX_ENTRIES, "2");
+    }
+
+    @Test
+    public void testDisabled() {
+        this.config.setProperty(ConfigProperties.CONSUMER_IDENTITY_CACHE_TTL, "0");
+        ConsumerIdentityCache cache = new ConsumerIdentityCache(this.config);
+        assertFalse(cache.isEnabled());
+
+        cache.put("serial", "uuid", "id");
+
+        assertNull(cache.get("serial"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testGetCountsHitsAndMisses() {
+        ConsumerIdentityCache cache = new ConsumerIdentityCache(this.config);
+        cache.put("serial", "uuid", "id");
+
+        ConsumerIdentity identity = cache.get("serial");
+        assertNotNull(identity);
+        assertEquals("uuid", identity.getConsumerUuid());
+        assertEquals("id", identity.getConsumerId());
+        assertNull(cache.get("other"));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        ConsumerIdentityCache cache = new ConsumerIdentityCache(this.config);
+
+        cache.put("first", "uuid1", "id1");
+        cache.put("second", "uuid2", "id2");
+
+        // Touch the first entry so the second becomes the least recently used
+        assertNotNull(cache.get("first"));
+        cache.put("third", "uuid3", "id3");
+
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+    }
+
+    @Test
+    public void testEvictDiscardsAllIdentitiesOfConsumer() {
+        ConsumerIdentityCache cache = new ConsumerIdentityCache(this.config);
+
+        cache.put("old_serial", "uuid", "id");
+        cache.put("new_serial", "uuid", "id");
+        cache.evict("uuid");
+
+        assertNull(cache.get("old_serial"));
+        assertNull(cache.get("new_serial"));
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void testEvictIgnoresKeysReplacedOrDiscarded() {
+        ConsumerIdentityCache cache = new ConsumerIdentityCache(this.config);
+
+        cache.put("serial", "uuid1", "id1");
+        cache.put("serial", "uuid2", "id2");
+        cache.put("other_serial", "uuid1", "id1");
+
+        // Touch the replaced entry so that other_serial is discarded as the least recently used
+        assertEquals("uuid2", cache.get("serial").getConsumerUuid());
+        cache.put("third_serial", "uuid3", "id3");
+
+        cache.evict("uuid1");
+        assertEquals(0, cache.getEvictions());
+        assertEquals(2, cache.size());
+
+        cache.evict("uuid3");
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("third_serial"));
+        assertEquals("uuid2", cache.get("serial").getConsumerUuid());
+    }
+
+    @Test
+    public void testExpiredIdentitiesAreDiscarded() throws Exception {
+        this.config.setProperty(ConfigProperties.CONSUMER_IDENTITY_CACHE_TTL, "1");
+        ConsumerIdentityCache cache = new ConsumerIdentityCache(this.config);
+
+        cache.put("serial", "uuid", "id");
+        Thread.sleep(1100);
+
+        assertNull(cache.get("serial"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.Assert.*;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+
+/**
+ * ExportCacheTest
+ */
+public class ExportCacheTest {
+
+    private CandlepinCommonTestConfig config;
+
+    @Before
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.EXPORT_CACHE_TTL, "60");
+        this.config.setProperty(ConfigProperties.EXPORT_CACHE_MAX_FRAGMENTS, "2");
+        this.config.setProperty(ConfigProperties.EXPORT_CACHE_MAX_ARCHIVES, "2");
+        this.config.setProperty(ConfigProperties.EXPORT_CACHE_MAX_ARCHIVE_SIZE, "4");
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        ExportCache cache = new ExportCache(new CandlepinCommonTestConfig());
+        assertFalse(cache.isEnabled());
+
+        cache.putFragment("fragment", new byte[] { 1 });
+        cache.putArchive("consumer", "fingerprint", new byte[] { 1 });
+
+        assertNull(cache.getFragment("fragment"));
+        assertNull(cache.getArchive("consumer", "fingerprint"));
+    }
+
+    @Test
+    public void testFragmentsEvictLeastRecentlyUsed() {
+        ExportCache cache = new ExportCache(this.config);
+        byte[] first = new byte[] { 1 };
+
+        cache.putFragment("first", first);
+        cache.putFragment("second", new byte[] { 2 });
+
+        // Touch the first fragment so the second one is evicted instead
+        assertSame(first, cache.getFragment("first"));
+        cache.putFragment("third", new byte[] { 3 });
+
+        assertSame(first, cache.getFragment("first"));
+        assertNull(cache.getFragment("second"));
+        assertNotNull(cache.getFragment("third"));
+    }
+
+    @Test
+    public void testArchiveRequiresMatchingFingerprint() {
+        ExportCache cache = new ExportCache(this.config);
+        byte[] archive = new byte[] { 1, 2, 3 };
+
+        cache.putArchive("consumer", "fingerprint", archive);
+        assertSame(archive, cache.getArchive("consumer", "fingerprint"));
+
+        assertNull(cache.getArchive("consumer", "changed"));
+        assertNull(cache.getArchive("other", "fingerprint"));
+    }
+
+    @Test
+    public void testArchiveIsReplacedPerConsumer() {
+        ExportCache cache = new ExportCache(this.config);
+        byte[] updated = new byte[] { 2 };
+
+        cache.putArchive("consumer", "fingerprint", new byte[] { 1 });
+        cache.putArchive("consumer", "updated", updated);
+
+        assertNull(cache.getArchive("consumer", "fingerprint"));
+        assertSame(updated, cache.getArchive("consumer", "updated"));
+        assertNull(cache.getArchive("other", "updated"));
+    }
+
+    @Test
+    public void testOversizedArchiveIsNotCached() {
+        ExportCache cache = new ExportCache(this.config);
+
+        cache.putArchive("consumer", "fingerprint", new byte[] { 1 });
+        cache.putArchive("consumer", "updated", new byte[] { 1, 2, 3, 4, 5 });
+
+        assertNull(cache.getArchive("consumer", "fingerprint"));
+        assertNull(cache.getArchive("consumer", "updated"));
+    }
+
+    @Test
+    public void testExpiredArchiveIsDiscarded() throws Exception {
+        this.config.setProperty(ConfigProperties.EXPORT_CACHE_TTL, "1");
+        ExportCache cache = new ExportCache(this.config);
+
+        cache.putArchive("consumer", "fingerprint", new byte[] { 1 });
+        Thread.sleep(1100);
+
+        assertNull(cache.getArchive("consumer", "fingerprint"));
+    }
+
+    @Test
+    public void testEvictAndClear() {
+        ExportCache cache = new ExportCache(this.config);
+
+        cache.putFragment("fragment", new byte[] { 1 });
+        cache.putArchive("consumer", "fingerprint", new byte[] { 1 });
+        cache.putArchive("other", "fingerprint", new byte[] { 1 });
+
+        cache.evictArchive("consumer");
+        assertNull(cache.getArchive("consumer", "fingerprint"));
+        assertNotNull(cache.getArchive("other", "fingerprint"));
+
+        cache.clear();
+        assertNull(cache.getFragment("fragment"));
+        assertNull(cache.getArchive("other", "fingerprint"));
+    }
+}
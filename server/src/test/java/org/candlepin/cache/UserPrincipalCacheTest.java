@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.cache;
+
+import static org.junit.Assert.*;
+
+import org.candlepin.auth.Access;
+import org.candlepin.auth.UserPrincipal;
+import org.candlepin.auth.permissions.OwnerPermission;
+import org.candlepin.auth.permissions.Permission;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.model.Owner;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+
+
+/**
+ * UserPrincipalCacheTest
+ */
+public class UserPrincipalCacheTest {
+
+    private CandlepinCommonTestConfig config;
+
+    @Before
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.USER_PRINCIPAL_CACHE_TTL, "60");
+        this.config.setProperty(ConfigProperties.USER_PRINCIPAL_CACHE_MAX_ENTRIES, "2");
+    }
+
+    @Test
+    public void testDisabled() {
+        this.config.setProperty(ConfigProperties.USER_PRINCIPAL_CACHE_TTL, "0");
+        UserPrincipalCache cache = new UserPrincipalCache(this.config);
+        assertFalse(cache.isEnabled());
+
+        cache.put(new UserPrincipal("user", null, false));
+
+        assertNull(cache.get("user"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPrincipalWithUnsavedOwnerIsNotCached() {
+        UserPrincipalCache cache = new UserPrincipalCache(this.config);
+
+        // An owner granted by an external user service which has not been created yet
+        Permission permission = new OwnerPermission(new Owner("new_owner"), Access.ALL);
+        cache.put(new UserPrincipal("user", Collections.singletonList(permission), false));
+
+        assertNull(cache.get("user"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testGetCountsHitsAndMisses() {
+        UserPrincipalCache cache = new UserPrincipalCache(this.config);
+        UserPrincipal principal = new UserPrincipal("user", null, false);
+        cache.put(principal);
+
+        assertSame(principal, cache.get("user"));
+        assertNull(cache.get("other"));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        UserPrincipalCache cache = new UserPrincipalCache(this.config);
+
+        cache.put(new UserPrincipal("first", null, false));
+        cache.put(new UserPrincipal("second", null, false));
+
+        // Touch the first entry so the second becomes the least recently used
+        assertNotNull(cache.get("first"));
+        cache.put(new UserPrincipal("third", null, false));
+
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+    }
+
+    @Test
+    public void testEvictAndClear() {
+        UserPrincipalCache cache = new UserPrincipalCache(this.config);
+
+        cache.put(new UserPrincipal("first", null, false));
+        cache.put(new UserPrincipal("second", null, false));
+
+        cache.evict("first");
+        assertNull(cache.get("first"));
+        assertNotNull(cache.get("second"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiredPrincipalsAreDiscarded() throws Exception {
+        this.config.setProperty(ConfigProperties.USER_PRINCIPAL_CACHE_TTL, "1");
+        UserPrincipalCache cache = new UserPrincipalCache(this.config);
+
+        cache.put(new UserPrincipal("user", null, false));
+        Thread.sleep(1100);
+
+        assertNull(cache.get("user"));
+        assertEquals(0, cache.size());
+    }
+}
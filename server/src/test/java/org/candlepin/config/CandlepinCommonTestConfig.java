@@ -46,6 +46,8 @@ public class CandlepinCommonTestConfig extends MapConfiguration {
             setProperty(DatabaseConfigFactory.CASE_OPERATOR_BLOCK_SIZE, "10");
             setProperty(DatabaseConfigFactory.BATCH_BLOCK_SIZE, "10");
             setProperty(DatabaseConfigFactory.QUERY_PARAMETER_LIMIT, "32000");
+            setProperty(DatabaseConfigFactory.RECURSIVE_QUERIES, "false");
+            setProperty(DatabaseConfigFactory.ID_SET_STRATEGY, "in");
         }
         catch (URISyntaxException e) {
             throw new RuntimeException("Error loading cert/key resources!", e);
@@ -36,6 +36,7 @@ import org.candlepin.model.EntitlementCurator;
 import org.candlepin.model.Owner;
 import org.candlepin.pinsetter.core.model.JobStatus;
 import org.candlepin.sync.ConflictOverrides;
+import org.candlepin.sync.ExportCreationException;
 import org.candlepin.sync.ExportResult;
 import org.candlepin.sync.Exporter;
 import org.candlepin.sync.Importer;
@@ -59,6 +60,7 @@ import org.xnap.commons.i18n.I18nFactory;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -227,6 +229,61 @@ public class ManifestManagerTest {
         verifyZeroInteractions(fileService);
     }
 
+    @Test
+    public void testWriteManifestToResponse() throws Exception {
+        Consumer consumer = this.createMockConsumer(true);
+        Cdn cdn = new Cdn("test-cdn", "Test CDN", "");
+        String webAppPrefix = "webapp-prefix";
+        String apiUrl = "api-url";
+        Map<String, String> extData = new HashMap<>();
+
+        Event event = mock(Event.class);
+        when(eventFactory.exportCreated(eq(consumer))).thenReturn(event);
+
+        when(consumerCurator.verifyAndLookupConsumer(eq(consumer.getUuid()))).thenReturn(consumer);
+        when(cdnCurator.getByLabel(eq(cdn.getLabel()))).thenReturn(cdn);
+        when(exporter.getExportFileName(eq(consumer))).thenReturn("export.zip");
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ServletOutputStream outputStream = mock(ServletOutputStream.class);
+        when(response.getOutputStream()).thenReturn(outputStream);
+
+        manager.writeManifestToResponse(consumer.getUuid(), cdn.getLabel(), webAppPrefix, apiUrl, extData,
+            response);
+
+        verify(poolManager).regenerateDirtyEntitlements(eq(consumer));
+        verify(response).setContentType("application/zip");
+        verify(response).setHeader(eq("Content-Disposition"), eq("attachment; filename=export.zip"));
+        verify(exporter).writeFullExport(eq(consumer), eq(cdn.getLabel()), eq(webAppPrefix), eq(apiUrl),
+            eq(extData), any(OutputStream.class));
+        verify(exporter, never()).getFullExport(any(Consumer.class), anyString(), anyString(), anyString(),
+            anyMap());
+
+        verify(eventSink).queueEvent(eq(event));
+        verifyZeroInteractions(fileService);
+    }
+
+    @Test
+    public void testWriteManifestToResponseResetsUncommittedResponseOnFailure() throws Exception {
+        Consumer consumer = this.createMockConsumer(true);
+
+        when(consumerCurator.verifyAndLookupConsumer(eq(consumer.getUuid()))).thenReturn(consumer);
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        ServletOutputStream outputStream = mock(ServletOutputStream.class);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.isCommitted()).thenReturn(false);
+
+        doThrow(new ExportCreationException("Unable to create export archive")).when(exporter)
+            .writeFullExport(eq(consumer), any(), any(), any(), anyMap(), any(OutputStream.class));
+
+        assertThrows(ExportCreationException.class, () -> manager.writeManifestToResponse(
+            consumer.getUuid(), null, null, null, new HashMap<>(), response));
+
+        verify(response).reset();
+        verifyZeroInteractions(eventSink);
+    }
+
     @Test
     public void testGenerateAndStoreManifest() throws Exception {
         Consumer consumer = this.createMockConsumer(true);
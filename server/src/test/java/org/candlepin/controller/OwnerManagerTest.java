@@ -16,6 +16,7 @@ package org.candlepin.controller;
 
 import static org.mockito.Mockito.*;
 
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.model.ConsumerCurator;
 import org.candlepin.model.ContentAccessCertificateCurator;
 import org.candlepin.model.EnvironmentCurator;
@@ -79,6 +80,8 @@ public class OwnerManagerTest {
     private UeberCertificateCurator uberCertificateCurator;
     @Mock
     private OwnerServiceAdapter ownerServiceAdapter;
+    @Mock
+    private UserPrincipalCache principalCache;
 
     @Before
     public void setUp() {
@@ -86,7 +89,7 @@ public class OwnerManagerTest {
             exportCurator, importRecordCurator, permissionCurator, ownerProductCurator, productManager,
             ownerContentCurator, contentManager, ownerCurator, contentAccessCertService,
             contentAccessCertCurator, ownerEnvContentAccessCurator, uberCertificateCurator,
-            ownerServiceAdapter);
+            ownerServiceAdapter, principalCache);
     }
 
     @Test
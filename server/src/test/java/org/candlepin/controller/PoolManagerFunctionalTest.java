@@ -281,6 +281,45 @@ public class PoolManagerFunctionalTest extends DatabaseTestFixture {
         assertEquals(0, parentSystem.getEntitlementCount());
     }
 
+    @Test
+    public void testBatchRevocationAggregatesQuantities() throws Exception {
+        Pool monitoringPool = poolCurator.listByOwnerAndProduct(o, monitoring.getId()).get(0);
+        Pool socketPool = createPool(o, socketLimitedProduct, 100L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2050, 3, 2));
+        poolCurator.create(socketPool);
+
+        List<Entitlement> entitlements = new ArrayList<>();
+        for (Consumer consumer : Arrays.asList(parentSystem, childVirtSystem)) {
+            Map<String, Integer> poolQuantities = new HashMap<>();
+            poolQuantities.put(monitoringPool.getId(), 1);
+            poolQuantities.put(socketPool.getId(), 1);
+
+            entitlements.addAll(poolManager.entitleByPools(consumer, poolQuantities));
+        }
+
+        // Keep one of the entitlements to ensure only the revoked quantities are released
+        Map<String, Integer> keptQuantities = new HashMap<>();
+        keptQuantities.put(monitoringPool.getId(), 1);
+        entitlements.addAll(poolManager.entitleByPools(parentSystem, keptQuantities));
+        Entitlement kept = entitlements.remove(entitlements.size() - 1);
+
+        assertEquals(Long.valueOf(3), monitoringPool.getConsumed());
+        assertEquals(Long.valueOf(2), socketPool.getConsumed());
+        assertEquals(3, parentSystem.getEntitlementCount());
+
+        poolManager.revokeEntitlements(entitlements);
+
+        assertEquals(Long.valueOf(1), monitoringPool.getConsumed());
+        assertEquals(Long.valueOf(0), socketPool.getConsumed());
+        assertEquals(1, consumerCurator.get(parentSystem.getId()).getEntitlementCount());
+        assertEquals(0, consumerCurator.get(childVirtSystem.getId()).getEntitlementCount());
+
+        List<Entitlement> remaining = entitlementCurator.listByConsumer(parentSystem);
+        assertEquals(1, remaining.size());
+        assertEquals(kept.getId(), remaining.get(0).getId());
+        assertTrue(entitlementCurator.listByConsumer(childVirtSystem).isEmpty());
+    }
+
     @Test
     public void testRegenerateEntitlementCertificatesWithSingleEntitlement()
         throws Exception {
@@ -477,6 +516,47 @@ public class PoolManagerFunctionalTest extends DatabaseTestFixture {
         assertEquals(4, results.getPageData().size());
     }
 
+    @Test
+    public void testListAllForConsumerWithCursorPagingPagesFilteredPools() {
+        Product p = TestUtil.createProduct("test-product", "Test Product");
+        productCurator.create(p);
+
+        // A pool with no entitlements available is filtered out by the rules
+        Pool errorPool = createPool(o, p, 0L,
+            TestUtil.createDate(2000, 3, 2), TestUtil.createDate(2050, 3, 2));
+        poolCurator.create(errorPool);
+
+        List<Pool> expected = new ArrayList<>(poolManager.listAvailableEntitlementPools(parentSystem,
+            null, parentSystem.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+            new PageRequest(), false, false, null).getPageData());
+        expected.sort(Comparator.comparing(Pool::getId));
+        assertEquals(4, expected.size());
+
+        List<Pool> listed = new ArrayList<>();
+        String cursor = "";
+
+        while (cursor != null) {
+            PageRequest pageRequest = new PageRequest();
+            pageRequest.setPerPage(3);
+            pageRequest.setSortBy("id");
+            pageRequest.setOrder(PageRequest.Order.ASCENDING);
+            pageRequest.setCursor(cursor);
+
+            Page<List<Pool>> page = poolManager.listAvailableEntitlementPools(parentSystem, null,
+                parentSystem.getOwnerId(), null, null, null, true, new PoolFilterBuilder(),
+                pageRequest, false, false, null);
+
+            assertTrue(page.getPageData().size() <= 3);
+            assertNull(page.getMaxRecords());
+
+            listed.addAll(page.getPageData());
+            cursor = page.getNextCursor();
+        }
+
+        assertEquals(expected, listed);
+        assertFalse(listed.contains(errorPool));
+    }
+
     @Test
     public void testListAllForActKeyExcludesErrors() {
         Product p = TestUtil.createProduct("test-product", "Test Product");
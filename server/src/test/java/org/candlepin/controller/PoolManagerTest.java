@@ -216,6 +216,10 @@ public class PoolManagerTest {
 
         doAnswer(returnsFirstArg()).when(this.consumerCuratorMock).lock(any(Consumer.class));
         doAnswer(returnsFirstArg()).when(this.mockPoolCurator).lock(any(Pool.class));
+
+        // No derived pools unless a test says otherwise
+        doAnswer(invocation -> new HashSet<>((Collection<String>) invocation.getArgument(0)))
+            .when(this.mockPoolCurator).getPoolGraphIds(anyCollection());
     }
 
     protected ConsumerType mockConsumerType(ConsumerType ctype) {
@@ -457,6 +461,117 @@ public class PoolManagerTest {
         TestUtil.assertPoolsAreEqual(TestUtil.copyFromSub(sub), argPool.getValue());
     }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Pool mockSubscriptionRefresh(Owner owner, Product product, Subscription sub) {
+        Pool pool = TestUtil.createPool(product);
+        pool.setSourceSubscription(new SourceSubscription(sub.getId(), "master"));
+        pool.setOwner(owner);
+        List<Pool> pools = Arrays.asList(pool);
+
+        this.mockSubscriptions(owner, Arrays.asList(sub));
+        mockPoolsList(pools);
+        when(mockOwnerCurator.getByKey(owner.getKey())).thenReturn(owner);
+        this.mockProducts(owner, product);
+        this.mockProductImport(owner, product);
+        this.mockContentImport(owner, new Content[] {});
+
+        CandlepinQuery<Pool> cqmock = mock(CandlepinQuery.class);
+        when(cqmock.list()).thenReturn(pools);
+        when(cqmock.iterator()).thenAnswer(iom -> pools.iterator());
+        when(mockPoolCurator.listByOwnerAndType(eq(owner), any(PoolType.class))).thenReturn(cqmock);
+
+        return pool;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRefreshPoolsSkipsUnchangedSubscriptions() {
+        Owner owner = this.getOwner();
+        Product product = TestUtil.createProduct();
+        product.setLocked(true);
+
+        Subscription sub = TestUtil.createSubscription(owner, product);
+        sub.setId("testing-subid");
+
+        Pool pool = this.mockSubscriptionRefresh(owner, product, sub);
+        assertNull(pool.getSubscriptionFingerprint());
+
+        // The first refresh has no fingerprint to compare against, and records one
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+        assertNotNull(pool.getSubscriptionFingerprint());
+
+        // The second refresh should not touch the pools of the unchanged subscription at all
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+
+        verify(this.manager, times(1)).updatePoolsForMasterPool(any(List.class), any(Pool.class),
+            any(Long.class), eq(false), any(Map.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRefreshPoolsSkipsUnchangedVirtLimitSubscriptionWithoutExpectedBonusPool() {
+        Owner owner = this.getOwner();
+        Product product = TestUtil.createProduct();
+        product.setAttribute(Product.Attributes.VIRT_LIMIT, "0");
+        product.setLocked(true);
+
+        Subscription sub = TestUtil.createSubscription(owner, product);
+        sub.setId("testing-subid");
+
+        this.mockSubscriptionRefresh(owner, product, sub);
+        when(this.poolRulesMock.expectsBonusPool(any(Pool.class))).thenReturn(false);
+
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+
+        verify(this.manager, times(1)).updatePoolsForMasterPool(any(List.class), any(Pool.class),
+            any(Long.class), eq(false), any(Map.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRefreshPoolsUpdatesUnchangedSubscriptionMissingItsBonusPool() {
+        Owner owner = this.getOwner();
+        Product product = TestUtil.createProduct();
+        product.setAttribute(Product.Attributes.VIRT_LIMIT, "4");
+        product.setLocked(true);
+
+        Subscription sub = TestUtil.createSubscription(owner, product);
+        sub.setId("testing-subid");
+
+        this.mockSubscriptionRefresh(owner, product, sub);
+        when(this.poolRulesMock.expectsBonusPool(any(Pool.class))).thenReturn(true);
+
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+
+        verify(this.manager, times(2)).updatePoolsForMasterPool(any(List.class), any(Pool.class),
+            any(Long.class), eq(false), any(Map.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRefreshPoolsUpdatesChangedSubscriptions() {
+        Owner owner = this.getOwner();
+        Product product = TestUtil.createProduct();
+        product.setLocked(true);
+
+        Subscription sub = TestUtil.createSubscription(owner, product);
+        sub.setId("testing-subid");
+
+        Pool pool = this.mockSubscriptionRefresh(owner, product, sub);
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+        String fingerprint = pool.getSubscriptionFingerprint();
+
+        sub.setQuantity(sub.getQuantity() + 10);
+        this.manager.getRefresher(mockSubAdapter, mockOwnerAdapter).add(owner).run();
+
+        verify(this.manager, times(2)).updatePoolsForMasterPool(any(List.class), any(Pool.class),
+            any(Long.class), eq(false), any(Map.class));
+        assertNotNull(pool.getSubscriptionFingerprint());
+        assertNotEquals(fingerprint, pool.getSubscriptionFingerprint());
+    }
+
     private void mockSubscriptions(Owner owner, Collection<? extends SubscriptionInfo> subscriptions) {
         Set<String> sids = new HashSet<>();
 
@@ -1372,6 +1487,48 @@ public class PoolManagerTest {
         // verify(mockSubAdapter, never()).deleteSubscription(any(String.class));
     }
 
+    @Test
+    public void testCleanupExpiredPoolsInBlocksOldestFirst() {
+        Pool oldest = TestUtil.createPool(owner, product);
+        oldest.setEndDate(TestUtil.createDate(2019, 1, 1));
+        Pool older = TestUtil.createPool(owner, product);
+        older.setEndDate(TestUtil.createDate(2019, 2, 1));
+        Pool old = TestUtil.createPool(owner, product);
+        old.setEndDate(TestUtil.createDate(2019, 3, 1));
+
+        when(mockPoolCurator.listExpiredPools(2))
+            .thenReturn(Arrays.asList(oldest, older))
+            .thenReturn(Arrays.asList(old));
+        doNothing().when(manager).deletePools(anyCollection());
+
+        ExpiredPoolCleanupResult result = manager.cleanupExpiredPools(2, 0);
+
+        verify(mockPoolCurator, times(2)).listExpiredPools(2);
+        verify(manager).deletePools(eq(Arrays.asList(oldest, older)));
+        verify(manager).deletePools(eq(Arrays.asList(old)));
+
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getBlockCount());
+        assertEquals(3, result.getPoolCount());
+        assertEquals(oldest.getEndDate(), result.getOldestExpiration());
+        assertEquals(old.getEndDate(), result.getNewestExpiration());
+    }
+
+    @Test
+    public void testCleanupExpiredPoolsStopsWhenOutOfTime() {
+        Pool pool = TestUtil.createPool(owner, product);
+        pool.setEndDate(TestUtil.createDate(2019, 1, 1));
+
+        when(mockPoolCurator.listExpiredPools(1)).thenReturn(Arrays.asList(pool));
+        doNothing().when(manager).deletePools(anyCollection());
+
+        ExpiredPoolCleanupResult result = manager.cleanupExpiredPools(1, 1);
+
+        assertFalse(result.isComplete());
+        assertTrue(result.getBlockCount() >= 1);
+        assertEquals(result.getBlockCount(), result.getPoolCount());
+    }
+
     private Pool createPoolWithEntitlements() {
         Pool newPool = TestUtil.createPool(owner, product);
         Entitlement e1 = new Entitlement(newPool, TestUtil.createConsumer(owner), owner, 1);
@@ -1527,6 +1684,22 @@ public class PoolManagerTest {
             when(mockPoolCurator.getPoolsBySubscriptionId(eq(subid))).thenReturn(cqmock);
         }
 
+        when(mockPoolCurator.mapPoolsBySubscriptionIds(any(Collection.class)))
+            .thenAnswer(new Answer<Map<String, List<Pool>>>() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public Map<String, List<Pool>> answer(InvocationOnMock iom) throws Throwable {
+                    Collection<String> subIds = (Collection<String>) iom.getArguments()[0];
+                    Map<String, List<Pool>> results = new HashMap<>();
+                    for (String subId : subIds) {
+                        if (PoolManagerTest.subToPools.containsKey(subId)) {
+                            results.put(subId, PoolManagerTest.subToPools.get(subId));
+                        }
+                    }
+                    return results;
+                }
+            });
+
         when(mockPoolCurator.getOwnersFloatingPools(any(Owner.class))).thenReturn(floating);
         when(mockPoolCurator.getPoolsFromBadSubs(any(Owner.class), any(Collection.class)))
             .thenAnswer(new Answer<List<Pool>>() {
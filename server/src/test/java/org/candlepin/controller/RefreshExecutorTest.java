@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.controller;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.controller.RefreshExecutor.OwnerRefresh;
+import org.candlepin.controller.RefreshExecutor.RefreshResult;
+import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.test.TestUtil;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import javax.persistence.PessimisticLockException;
+
+
+
+/**
+ * RefreshExecutorTest
+ */
+public class RefreshExecutorTest {
+
+    private CandlepinCommonTestConfig config;
+    private UnitOfWork unitOfWork;
+    private EntityTransaction transaction;
+    private EventSink eventSink;
+    private OwnerCurator ownerCurator;
+    private RefreshExecutor executor;
+
+    @Before
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.REFRESH_THREADS, "2");
+        this.config.setProperty(ConfigProperties.REFRESH_MAX_ATTEMPTS, "2");
+
+        this.unitOfWork = mock(UnitOfWork.class);
+        this.transaction = mock(EntityTransaction.class);
+        this.eventSink = mock(EventSink.class);
+        this.ownerCurator = mock(OwnerCurator.class);
+
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getTransaction()).thenReturn(this.transaction);
+        when(this.transaction.isActive()).thenReturn(true);
+
+        this.executor = new RefreshExecutor(this.config, new CandlepinRequestScope(), this.unitOfWork,
+            () -> entityManager, () -> mock(CandlepinPoolManager.class), () -> mock(OwnerManager.class),
+            () -> this.eventSink, this.ownerCurator);
+    }
+
+    private Owner mockOwner() {
+        Owner owner = TestUtil.createOwner();
+        when(this.ownerCurator.getByKey(owner.getKey())).thenReturn(owner);
+
+        return owner;
+    }
+
+    @Test
+    public void testOwnersRefreshedInTheirOwnTransactions() {
+        Owner owner1 = this.mockOwner();
+        Owner owner2 = this.mockOwner();
+        AtomicInteger refreshed = new AtomicInteger();
+
+        Map<String, OwnerRefresh> refreshes = new LinkedHashMap<>();
+        refreshes.put(owner1.getKey(), (poolManager, ownerManager, owner) -> refreshed.incrementAndGet());
+        refreshes.put(owner2.getKey(), (poolManager, ownerManager, owner) -> refreshed.incrementAndGet());
+
+        RefreshResult result = this.executor.execute(refreshes);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(2, result.getCompleted());
+        assertEquals(2, refreshed.get());
+
+        verify(this.unitOfWork, times(2)).begin();
+        verify(this.unitOfWork, times(2)).end();
+        verify(this.transaction, times(2)).commit();
+        verify(this.eventSink, times(2)).sendEvents();
+    }
+
+    @Test
+    public void testLockConflictIsRetried() {
+        Owner owner = this.mockOwner();
+        AtomicInteger attempts = new AtomicInteger();
+
+        Map<String, OwnerRefresh> refreshes = new LinkedHashMap<>();
+        refreshes.put(owner.getKey(), (poolManager, ownerManager, refreshed) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new PersistenceException(new PessimisticLockException("deadlock"));
+            }
+        });
+
+        RefreshResult result = this.executor.execute(refreshes);
+
+        assertTrue(result.isSuccessful());
+        assertEquals(1, result.getRetries());
+        assertEquals(2, attempts.get());
+
+        verify(this.transaction).rollback();
+        verify(this.transaction).commit();
+        verify(this.eventSink).rollback();
+    }
+
+    @Test
+    public void testFailedOwnerDoesNotAffectOthers() {
+        Owner owner1 = this.mockOwner();
+        Owner owner2 = this.mockOwner();
+        AtomicInteger attempts = new AtomicInteger();
+
+        Map<String, OwnerRefresh> refreshes = new LinkedHashMap<>();
+        refreshes.put(owner1.getKey(), (poolManager, ownerManager, owner) -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("broken");
+        });
+        refreshes.put(owner2.getKey(), (poolManager, ownerManager, owner) -> { });
+
+        RefreshResult result = this.executor.execute(refreshes);
+
+        assertFalse(result.isSuccessful());
+        assertEquals(2, result.getCompleted());
+        assertEquals(1, attempts.get());
+        assertTrue(result.getFailures().containsKey(owner1.getKey()));
+        assertTrue(result.getRefreshedOwners().contains(owner2.getKey()));
+        assertTrue(result.toString().contains(owner1.getKey()));
+    }
+
+    @Test
+    public void testMissingOwnerFails() {
+        Map<String, OwnerRefresh> refreshes = new LinkedHashMap<>();
+        refreshes.put("missing", (poolManager, ownerManager, owner) -> fail("Refresh should not run"));
+
+        RefreshResult result = this.executor.execute(refreshes);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.getFailures().get("missing") instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testIsLockConflict() {
+        assertTrue(RefreshExecutor.isLockConflict(new PessimisticLockException()));
+        assertTrue(RefreshExecutor.isLockConflict(
+            new RuntimeException(new SQLException("deadlock detected", "40P01"))));
+
+        assertFalse(RefreshExecutor.isLockConflict(new IllegalStateException()));
+        assertFalse(RefreshExecutor.isLockConflict(
+            new RuntimeException(new SQLException("syntax error", "42601"))));
+    }
+}
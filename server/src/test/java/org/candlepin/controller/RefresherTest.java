@@ -14,8 +14,12 @@
  */
 package org.candlepin.controller;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.controller.RefreshExecutor.OwnerRefresh;
+import org.candlepin.controller.RefreshExecutor.RefreshResult;
+
 import org.candlepin.model.Owner;
 import org.candlepin.model.Pool;
 import org.candlepin.model.Product;
@@ -29,6 +33,7 @@ import org.candlepin.test.TestUtil;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.Arrays;
@@ -155,6 +160,109 @@ public class RefresherTest {
             any(Map.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOwnersRefreshedConcurrentlyThroughExecutor() {
+        Owner owner1 = TestUtil.createOwner();
+        Owner owner2 = TestUtil.createOwner();
+
+        RefreshExecutor executor = mock(RefreshExecutor.class);
+        RefreshResult result = new RefreshResult(2);
+        when(executor.getThreadCount()).thenReturn(4);
+        when(executor.execute(any(Map.class))).thenReturn(result);
+
+        refresher.setExecutor(executor);
+        refresher.add(owner1);
+        refresher.add(owner2);
+        refresher.run();
+
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(executor).execute(captor.capture());
+        assertSame(result, refresher.getResult());
+
+        Map<String, OwnerRefresh> refreshes = captor.getValue();
+        assertEquals(2, refreshes.size());
+        assertTrue(refreshes.containsKey(owner1.getKey()));
+        assertTrue(refreshes.containsKey(owner2.getKey()));
+
+        // The refresh of each owner must use the managers of the worker running it
+        verifyZeroInteractions(poolManager, ownerManager);
+
+        CandlepinPoolManager workerPoolManager = mock(CandlepinPoolManager.class);
+        OwnerManager workerOwnerManager = mock(OwnerManager.class);
+        refreshes.get(owner1.getKey()).refresh(workerPoolManager, workerOwnerManager, owner1);
+
+        verify(workerPoolManager).refreshPoolsWithRegeneration(eq(subAdapter), eq(owner1), eq(false));
+        verify(workerPoolManager).recalculatePoolQuantitiesForOwner(eq(owner1));
+        verify(workerOwnerManager).updateRefreshDate(eq(owner1));
+        verifyZeroInteractions(poolManager, ownerManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentSubscriptionRefreshFetchesSubscriptionsInWorker() {
+        Owner owner1 = TestUtil.createOwner();
+        Owner owner2 = TestUtil.createOwner();
+        Product product = TestUtil.createProduct();
+
+        Subscription subscription = new Subscription();
+        subscription.setId("subId");
+        subscription.setOwner(owner2);
+        this.mockAdapterProductSubs(product.getId(), Arrays.asList(subscription));
+
+        // The worker's copy of the subscription, as fetched again from the adapter
+        Subscription workerSubscription = new Subscription();
+        workerSubscription.setId("subId");
+        workerSubscription.setOwner(owner2);
+        when(subAdapter.getSubscription("subId")).thenReturn(workerSubscription);
+
+        RefreshExecutor executor = mock(RefreshExecutor.class);
+        when(executor.getThreadCount()).thenReturn(4);
+        when(executor.execute(any(Map.class))).thenReturn(new RefreshResult(2));
+
+        refresher.setExecutor(executor);
+        refresher.add(owner1);
+        refresher.add(product);
+        refresher.run();
+
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(executor).execute(captor.capture());
+        Map<String, OwnerRefresh> refreshes = captor.getValue();
+        assertTrue(refreshes.containsKey(owner2.getKey()));
+
+        CandlepinPoolManager workerPoolManager = mock(CandlepinPoolManager.class);
+        Pool masterPool = TestUtil.copyFromSub(workerSubscription);
+        when(workerPoolManager.convertToMasterPool(any(SubscriptionInfo.class))).thenReturn(masterPool);
+
+        refreshes.get(owner2.getKey()).refresh(workerPoolManager, mock(OwnerManager.class), owner2);
+
+        verify(workerPoolManager).convertToMasterPool(same(workerSubscription));
+        verify(workerPoolManager, never()).convertToMasterPool(same(subscription));
+        verify(workerPoolManager).refreshPoolsForMasterPool(eq(masterPool), eq(true), eq(false),
+            any(Map.class));
+    }
+
+    @Test
+    public void testSingleThreadedExecutorRefreshesSerially() {
+        Owner owner1 = TestUtil.createOwner();
+        Owner owner2 = TestUtil.createOwner();
+
+        RefreshExecutor executor = mock(RefreshExecutor.class);
+        when(executor.getThreadCount()).thenReturn(1);
+
+        refresher.setExecutor(executor);
+        refresher.add(owner1);
+        refresher.add(owner2);
+        refresher.run();
+
+        verify(executor, never()).execute(any(Map.class));
+        verify(poolManager).refreshPoolsWithRegeneration(eq(subAdapter), eq(owner1), eq(false));
+        verify(poolManager).refreshPoolsWithRegeneration(eq(subAdapter), eq(owner2), eq(false));
+
+        assertTrue(refresher.getResult().isSuccessful());
+        assertEquals(2, refresher.getResult().getRefreshedOwners().size());
+    }
+
     protected void mockAdapterSubs(String input, Collection<? extends SubscriptionInfo> output) {
         doAnswer(iom -> output).when(this.subAdapter).getSubscriptions(eq(input));
     }
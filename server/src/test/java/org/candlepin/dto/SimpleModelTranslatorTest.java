@@ -317,4 +317,35 @@ public class SimpleModelTranslatorTest {
         assertSame(entity, dto.getSourceObject());
     }
 
+    @Test
+    public void testNearestTranslatorReflectsRegistrationChanges() {
+        ModelTranslator modelTranslator = new SimpleModelTranslator();
+        ObjectTranslator translator1 = new TestTranslator();
+        ObjectTranslator translator2 = new TestTranslator();
+
+        ModelEntity entity = new TestModelEntity() {};
+        Class entityClass = entity.getClass();
+
+        modelTranslator.registerTranslator(translator1, ModelEntity.class, TestDTO.class);
+        assertSame(translator1, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+        assertSame(translator1, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+
+        // A more specific translator registered after the lookup must take precedence
+        modelTranslator.registerTranslator(translator2, TestModelEntity.class, TestDTO.class);
+        assertSame(translator2, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+
+        modelTranslator.unregisterTranslator(translator2);
+        assertSame(translator1, modelTranslator.findTranslatorByClass(entityClass, TestDTO.class));
+
+        modelTranslator.unregisterTranslator(ModelEntity.class, TestDTO.class);
+
+        try {
+            modelTranslator.findTranslatorByClass(entityClass, TestDTO.class);
+            fail("Expected a TranslationException once no translator remains registered");
+        }
+        catch (TranslationException e) {
+            // Expected
+        }
+    }
+
 }
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.hibernate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.candlepin.metrics.EndpointStatistics;
+import org.candlepin.model.Owner;
+import org.candlepin.test.DatabaseTestFixture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+
+/**
+ * RequestStatisticsTest
+ */
+public class RequestStatisticsTest extends DatabaseTestFixture {
+
+    @AfterEach
+    public void endStatistics() {
+        RequestStatistics.end();
+    }
+
+    @Test
+    public void testCollectsStatementsForCurrentThread() {
+        Owner owner = this.createOwner();
+        this.getEntityManager().flush();
+        this.getEntityManager().clear();
+
+        RequestStatistics stats = RequestStatistics.begin();
+        assertSame(stats, RequestStatistics.current());
+
+        this.ownerCurator.getByKey(owner.getKey());
+        this.ownerCurator.getByKey(owner.getKey());
+
+        assertSame(stats, RequestStatistics.end());
+        assertNull(RequestStatistics.current());
+
+        assertTrue(stats.getPreparedStatements() > 0);
+        assertTrue(stats.getExecutedStatements() > 0);
+
+        List<Map.Entry<String, Integer>> statements = stats.getFrequentStatements(1);
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).getKey().toLowerCase().contains("cp_owner"));
+    }
+
+    @Test
+    public void testIgnoresWorkWithoutStatistics() {
+        RequestStatistics stats = RequestStatistics.begin();
+        RequestStatistics.end();
+
+        this.createOwner();
+        this.getEntityManager().flush();
+
+        assertEquals(0, stats.getPreparedStatements());
+        assertEquals(0, stats.getFlushes());
+    }
+
+    @Test
+    public void testBoundsTrackedStatements() {
+        RequestStatistics stats = RequestStatistics.begin();
+        RequestStatementInspector inspector = new RequestStatementInspector();
+
+        for (int i = 0; i <= RequestStatistics.MAX_TRACKED_STATEMENTS; ++i) {
+            inspector.inspect("select " + i);
+        }
+
+        inspector.inspect("select 0");
+        RequestStatistics.end();
+
+        assertEquals(RequestStatistics.MAX_TRACKED_STATEMENTS + 2, stats.getPreparedStatements());
+        assertEquals(1, stats.getUntrackedStatements());
+        assertEquals("select 0", stats.getFrequentStatements(1).get(0).getKey());
+        assertEquals(2, (int) stats.getFrequentStatements(1).get(0).getValue());
+    }
+
+    @Test
+    public void testEndpointStatisticsRecordDatabaseTimeInSeconds() {
+        RequestStatistics stats = RequestStatistics.begin();
+        stats.statementExecuted(TimeUnit.MILLISECONDS.toNanos(200));
+        stats.batchExecuted(TimeUnit.MICROSECONDS.toNanos(500));
+        RequestStatistics.end();
+
+        EndpointStatistics endpoint = new EndpointStatistics("TestResource.get");
+        endpoint.record(stats, false);
+
+        assertEquals(0.2005, endpoint.getDatabaseTime().getSum(), 0.0000001);
+        assertEquals(0, (long) endpoint.getDatabaseTime().getBuckets().get("0.1"));
+        assertEquals(1, (long) endpoint.getDatabaseTime().getBuckets().get("0.25"));
+    }
+}
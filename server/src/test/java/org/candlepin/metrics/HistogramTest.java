@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+
+
+/**
+ * HistogramTest
+ */
+public class HistogramTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresBounds() {
+        new Histogram();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresAscendingBounds() {
+        new Histogram(1, 10, 5);
+    }
+
+    @Test
+    public void testObserveCountsIntoCumulativeBuckets() {
+        Histogram histogram = new Histogram(1, 10, 100);
+
+        histogram.observe(0);
+        histogram.observe(1);
+        histogram.observe(5);
+        histogram.observe(100);
+        histogram.observe(1000);
+
+        Map<String, Long> buckets = histogram.getBuckets();
+        assertArrayEquals(new String[] { "1", "10", "100", Histogram.INFINITE_BOUND },
+            buckets.keySet().toArray());
+        assertEquals(Long.valueOf(2), buckets.get("1"));
+        assertEquals(Long.valueOf(3), buckets.get("10"));
+        assertEquals(Long.valueOf(4), buckets.get("100"));
+        assertEquals(Long.valueOf(5), buckets.get(Histogram.INFINITE_BOUND));
+
+        assertEquals(5, histogram.getCount());
+        assertEquals(1106, histogram.getSum(), 0.0001);
+    }
+
+    @Test
+    public void testFractionalBounds() {
+        Histogram histogram = new Histogram(0.5, 2.5);
+        histogram.observe(0.25);
+
+        Map<String, Long> buckets = histogram.getBuckets();
+        assertEquals(Long.valueOf(1), buckets.get("0.5"));
+        assertEquals(Long.valueOf(1), buckets.get("2.5"));
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+
+/**
+ * PrometheusWriterTest
+ */
+public class PrometheusWriterTest {
+
+    @Test
+    public void testWritesHistograms() {
+        Histogram histogram = new Histogram(0.5, 1);
+        histogram.observe(0.25);
+        histogram.observe(2);
+
+        String output = new PrometheusWriter()
+            .histogram("test_duration_seconds", "Test durations", "method",
+                Collections.singletonMap("TestResource.get", histogram))
+            .toString();
+
+        assertEquals("# HELP test_duration_seconds Test durations\n" +
+            "# TYPE test_duration_seconds histogram\n" +
+            "test_duration_seconds_bucket{method=\"TestResource.get\",le=\"0.5\"} 1\n" +
+            "test_duration_seconds_bucket{method=\"TestResource.get\",le=\"1\"} 1\n" +
+            "test_duration_seconds_bucket{method=\"TestResource.get\",le=\"+Inf\"} 2\n" +
+            "test_duration_seconds_sum{method=\"TestResource.get\"} 2.25\n" +
+            "test_duration_seconds_count{method=\"TestResource.get\"} 2\n", output);
+    }
+
+    @Test
+    public void testWritesGauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("busy", 3L);
+        values.put("idle", 7L);
+
+        String output = new PrometheusWriter()
+            .gauge("test_connections", "Test connections", "state", values)
+            .toString();
+
+        assertEquals("# HELP test_connections Test connections\n" +
+            "# TYPE test_connections gauge\n" +
+            "test_connections{state=\"busy\"} 3\n" +
+            "test_connections{state=\"idle\"} 7\n", output);
+    }
+
+    @Test
+    public void testWritesCounters() {
+        String output = new PrometheusWriter()
+            .counter("test_hits_total", "Test hits", "cache", Collections.singletonMap("test", 5L))
+            .toString();
+
+        assertEquals("# HELP test_hits_total Test hits\n" +
+            "# TYPE test_hits_total counter\n" +
+            "test_hits_total{cache=\"test\"} 5\n", output);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCounterWithoutTotalSuffix() {
+        new PrometheusWriter()
+            .counter("test_hits", "Test hits", "cache", Collections.singletonMap("test", 5L));
+    }
+
+    @Test
+    public void testEscapesLabelValues() {
+        String output = new PrometheusWriter()
+            .gauge("test_gauge", "Test", "name", Collections.singletonMap("a\"b\\c\nd", 1))
+            .toString();
+
+        assertTrue(output.contains("test_gauge{name=\"a\\\"b\\\\c\\nd\"} 1\n"));
+    }
+
+    @Test
+    public void testSkipsEmptyFamilies() {
+        String output = new PrometheusWriter()
+            .gauge("test_gauge", "Test", "name", Collections.<String, Long>emptyMap())
+            .histogram("test_histogram", "Test", "name", Collections.<String, Histogram>emptyMap())
+            .toString();
+
+        assertEquals("", output);
+    }
+}
@@ -17,6 +17,7 @@ package org.candlepin.model;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.candlepin.config.DatabaseConfigFactory;
+import org.candlepin.hibernate.BatchWriteStatistics;
 import org.candlepin.test.DatabaseTestFixture;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -353,6 +354,133 @@ public class AbstractHibernateCuratorTest extends DatabaseTestFixture {
         }
     }
 
+    @Test
+    public void testSaveAllWritesInJdbcBatches() {
+        int blockSize = this.config.getInt(DatabaseConfigFactory.BATCH_BLOCK_SIZE);
+        List<Cdn> cdns = new LinkedList<>();
+
+        for (int i = 0; i < blockSize * 3; ++i) {
+            cdns.add(new Cdn("cdn-" + i, "CDN " + i, "https://cdn-" + i + ".example.com"));
+        }
+
+        BatchWriteStatistics statistics = new BatchWriteStatistics();
+        this.cdnCurator.currentSession().addEventListeners(statistics);
+
+        this.cdnCurator.saveAll(cdns, true, true);
+        statistics.stop();
+
+        // Each block should be inserted with a single JDBC batch rather than a statement per row
+        assertEquals(3, statistics.getFlushes());
+        assertEquals(3, statistics.getExecutedBatches());
+        assertEquals(0, statistics.getExecutedStatements());
+        assertEquals(cdns.size(), this.cdnCurator.listAll().list().size());
+    }
+
+    @Test
+    public void testUpdateAllWritesInJdbcBatches() {
+        int blockSize = this.config.getInt(DatabaseConfigFactory.BATCH_BLOCK_SIZE);
+        List<Cdn> cdns = new LinkedList<>();
+
+        for (int i = 0; i < blockSize * 2; ++i) {
+            cdns.add(this.createCdn("cdn-" + i, "https://cdn-" + i + ".example.com"));
+        }
+
+        this.cdnCurator.flush();
+
+        for (Cdn cdn : cdns) {
+            cdn.setName(cdn.getName() + "-updated");
+        }
+
+        BatchWriteStatistics statistics = new BatchWriteStatistics();
+        this.cdnCurator.currentSession().addEventListeners(statistics);
+
+        this.cdnCurator.updateAll(cdns, true, true);
+        statistics.stop();
+
+        assertEquals(2, statistics.getFlushes());
+        assertEquals(2, statistics.getExecutedBatches());
+        assertEquals(0, statistics.getExecutedStatements());
+
+        this.cdnCurator.clear();
+        assertEquals("cdn-0-updated", this.cdnCurator.getByLabel("cdn-0").getName());
+    }
+
+    @Test
+    public void testThreadBatchWriteStatisticsCollectedWithoutSessionListener() {
+        int blockSize = this.config.getInt(DatabaseConfigFactory.BATCH_BLOCK_SIZE);
+        List<Cdn> cdns = new LinkedList<>();
+
+        for (int i = 0; i < blockSize * 2; ++i) {
+            cdns.add(new Cdn("cdn-" + i, "CDN " + i, "https://cdn-" + i + ".example.com"));
+        }
+
+        BatchWriteStatistics statistics = BatchWriteStatistics.begin();
+        assertNotNull(statistics);
+        assertSame(statistics, BatchWriteStatistics.current());
+
+        // Statistics already being collected for the thread should not be replaced
+        assertNull(BatchWriteStatistics.begin());
+
+        try {
+            this.cdnCurator.saveAll(cdns, true, true);
+        }
+        finally {
+            statistics.stop();
+        }
+
+        assertNull(BatchWriteStatistics.current());
+        assertEquals(2, statistics.getFlushes());
+        assertEquals(2, statistics.getExecutedBatches());
+        assertEquals(0, statistics.getExecutedStatements());
+    }
+
+    @Test
+    public void testGetIdSetStrategyUsesConfiguredStrategyWhereSupported() {
+        List<String> ids = Arrays.asList("id1", "id2", "id3");
+
+        this.config.setProperty(DatabaseConfigFactory.ID_SET_STRATEGY, IdSetStrategy.IN_LIST);
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(ids) instanceof IdSetStrategy.InListStrategy);
+
+        this.config.setProperty(DatabaseConfigFactory.ID_SET_STRATEGY, IdSetStrategy.ARRAY);
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(ids) instanceof IdSetStrategy.ArrayStrategy);
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(Arrays.asList(1L, 2L))
+            instanceof IdSetStrategy.InListStrategy);
+    }
+
+    @Test
+    public void testGetIdSetStrategyOnlyUsesTempTablesForLargeSets() {
+        int inBlockSize = this.config.getInt(DatabaseConfigFactory.IN_OPERATOR_BLOCK_SIZE);
+        List<String> ids = new LinkedList<>();
+
+        for (int i = 0; i < inBlockSize; ++i) {
+            ids.add("id" + i);
+        }
+
+        this.config.setProperty(DatabaseConfigFactory.ID_SET_STRATEGY, IdSetStrategy.TEMP_TABLE);
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(ids) instanceof IdSetStrategy.InListStrategy);
+
+        ids.add("one-too-many");
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(ids) instanceof IdSetStrategy.TempTableStrategy);
+    }
+
+    @Test
+    public void testGetIdSetStrategyHonorsBlockSize() {
+        List<String> ids = Arrays.asList("id1", "id2", "id3", "id4", "id5");
+
+        this.config.setProperty(DatabaseConfigFactory.ID_SET_STRATEGY, IdSetStrategy.IN_LIST);
+        List<Integer> sizes = new LinkedList<>();
+        for (List<String> block : this.testOwnerCurator.getIdSetStrategy(ids, 2).partition(ids)) {
+            sizes.add(block.size());
+        }
+
+        assertEquals(Arrays.asList(2, 2, 1), sizes);
+
+        // Temporary tables are used for any set larger than the block size
+        this.config.setProperty(DatabaseConfigFactory.ID_SET_STRATEGY, IdSetStrategy.TEMP_TABLE);
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(ids, 2) instanceof IdSetStrategy.TempTableStrategy);
+        assertTrue(this.testOwnerCurator.getIdSetStrategy(ids, 5) instanceof IdSetStrategy.InListStrategy);
+    }
+
     @Test
     public void testLockAndLoadWithSingleId() {
         Owner owner = this.createOwner("owner_key-1", "owner-1");
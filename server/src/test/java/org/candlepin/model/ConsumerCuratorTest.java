@@ -17,9 +17,11 @@ package org.candlepin.model;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.auth.ConsumerPrincipal;
 import org.candlepin.common.config.Configuration;
 import org.candlepin.common.exceptions.NotFoundException;
 import org.candlepin.config.ConfigProperties;
+import org.candlepin.hibernate.BatchWriteStatistics;
 import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
 import org.candlepin.model.Product.Attributes;
 import org.candlepin.pinsetter.tasks.HypervisorUpdateJob;
@@ -30,6 +32,7 @@ import org.candlepin.util.FactValidator;
 import org.candlepin.util.PropertyValidationException;
 import org.candlepin.util.Util;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -929,6 +932,103 @@ public class ConsumerCuratorTest extends DatabaseTestFixture {
         assertEquals(owner.getId(), dc.getOwnerId());
     }
 
+    @Test
+    public void testGetConsumerWithOwner() {
+        Consumer consumer = new Consumer("testConsumer", "testUser", owner, ct);
+        consumer = consumerCurator.create(consumer);
+        this.getEntityManager().clear();
+
+        Consumer fetched = consumerCurator.getConsumerWithOwner(consumer.getId());
+        assertNotNull(fetched);
+        assertEquals(consumer.getUuid(), fetched.getUuid());
+        assertTrue(Hibernate.isInitialized(fetched.getOwner()));
+        assertEquals(owner.getKey(), fetched.getOwner().getKey());
+
+        assertNull(consumerCurator.getConsumerWithOwner("bad_id"));
+    }
+
+    @Test
+    public void testFindByUuidReusesConsumerWithinRequest() {
+        this.injector.getInstance(RequestEntityMap.class).enable();
+        Consumer consumer = consumerCurator.create(new Consumer("testConsumer", "testUser", owner, ct));
+        this.getEntityManager().clear();
+
+        BatchWriteStatistics statistics = new BatchWriteStatistics();
+        consumerCurator.currentSession().addEventListeners(statistics);
+
+        // As done by the authorization filter and then by the resource
+        Consumer first = consumerCurator.findByUuid(consumer.getUuid());
+        Consumer second = consumerCurator.verifyAndLookupConsumer(consumer.getUuid());
+        statistics.stop();
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(1, statistics.getPreparedStatements());
+    }
+
+    @Test
+    public void testFindByUuidDoesNotReuseConsumerUnlessEnabled() {
+        // As in Pinsetter jobs, which run within the request scope without enabling the map
+        Consumer consumer = consumerCurator.create(new Consumer("testConsumer", "testUser", owner, ct));
+        this.getEntityManager().clear();
+
+        BatchWriteStatistics statistics = new BatchWriteStatistics();
+        consumerCurator.currentSession().addEventListeners(statistics);
+
+        consumerCurator.findByUuid(consumer.getUuid());
+        consumerCurator.findByUuid(consumer.getUuid());
+        statistics.stop();
+
+        assertEquals(2, statistics.getPreparedStatements());
+        assertNull(this.injector.getInstance(RequestEntityMap.class)
+            .get(Consumer.class, consumer.getUuid(), null, e -> true));
+    }
+
+    @Test
+    public void testCuratorClearDiscardsRequestEntities() {
+        RequestEntityMap entityMap = this.injector.getInstance(RequestEntityMap.class);
+        entityMap.enable();
+
+        Consumer consumer = consumerCurator.create(new Consumer("testConsumer", "testUser", owner, ct));
+        this.getEntityManager().clear();
+
+        assertNotNull(consumerCurator.findByUuid(consumer.getUuid()));
+        assertNotNull(entityMap.get(Consumer.class, consumer.getUuid(), null, e -> true));
+
+        consumerCurator.clear();
+        assertNull(entityMap.get(Consumer.class, consumer.getUuid(), null, e -> true));
+    }
+
+    @Test
+    public void testFindByUuidDoesNotReuseConsumerAcrossPrincipals() {
+        this.injector.getInstance(RequestEntityMap.class).enable();
+        Consumer consumer = consumerCurator.create(new Consumer("testConsumer", "testUser", owner, ct));
+        Consumer other = consumerCurator.create(new Consumer("otherConsumer", "testUser", owner, ct));
+        this.getEntityManager().clear();
+
+        this.setupPrincipal(new ConsumerPrincipal(consumer, owner));
+        assertNotNull(consumerCurator.findByUuid(consumer.getUuid()));
+
+        // The other consumer's permissions do not allow it to see the first consumer
+        this.setupPrincipal(new ConsumerPrincipal(other, owner));
+        assertNull(consumerCurator.findByUuid(consumer.getUuid()));
+    }
+
+    @Test
+    public void testFindByUuidReloadsConsumerAfterSessionClear() {
+        this.injector.getInstance(RequestEntityMap.class).enable();
+        Consumer consumer = consumerCurator.create(new Consumer("testConsumer", "testUser", owner, ct));
+        this.getEntityManager().clear();
+
+        Consumer first = consumerCurator.findByUuid(consumer.getUuid());
+        this.getEntityManager().clear();
+        Consumer second = consumerCurator.findByUuid(consumer.getUuid());
+
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertTrue(consumerCurator.currentSession().contains(second));
+    }
+
     @Test
     public void deleteTwice() {
         // attempt to create and delete the same consumer uuid twice
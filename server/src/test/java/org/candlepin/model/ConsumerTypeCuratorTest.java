@@ -21,6 +21,8 @@ import org.candlepin.test.DatabaseTestFixture;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Date;
+
 
 
 /**
@@ -61,6 +63,22 @@ public class ConsumerTypeCuratorTest extends DatabaseTestFixture {
         assertThrows(IllegalStateException.class, () -> consumerTypeCurator.getConsumerType(consumer));
     }
 
+    @Test
+    public void testGetCountAndLastUpdated() {
+        Object[] before = this.consumerTypeCurator.getCountAndLastUpdated();
+        this.createConsumerType();
+
+        Object[] after = this.consumerTypeCurator.getCountAndLastUpdated();
+        assertEquals(((Long) before[0]) + 1, after[0]);
+
+        long lastUpdated = 0;
+        for (ConsumerType ctype : this.consumerTypeCurator.listAll()) {
+            lastUpdated = Math.max(lastUpdated, ctype.getUpdated().getTime());
+        }
+
+        assertEquals(lastUpdated, ((Date) after[1]).getTime());
+    }
+
     @Test
     public void testgetByLabel() {
         String label = "test-label";
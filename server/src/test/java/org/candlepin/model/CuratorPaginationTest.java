@@ -16,6 +16,7 @@ package org.candlepin.model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.common.paging.Page;
 import org.candlepin.common.paging.PageRequest;
 import org.candlepin.test.DatabaseTestFixture;
@@ -27,7 +28,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -187,6 +191,216 @@ public class CuratorPaginationTest extends DatabaseTestFixture {
         assertEquals(pageRequest, pageRequest2);
     }
 
+    private List<Owner> listByCursor(Criteria criteria, String sortBy, PageRequest.Order order,
+        int perPage) {
+
+        List<Owner> owners = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+
+        while (cursor != null) {
+            PageRequest pageRequest = new PageRequest();
+            pageRequest.setSortBy(sortBy);
+            pageRequest.setOrder(order);
+            pageRequest.setPerPage(perPage);
+            pageRequest.setCursor(cursor);
+
+            Page<List<Owner>> p = criteria != null ?
+                ownerCurator.listByCriteria(criteria, pageRequest) :
+                ownerCurator.listAll(pageRequest);
+
+            assertNull(p.getMaxRecords());
+            assertTrue(p.getPageData().size() <= perPage);
+            assertTrue(++pages <= 10, "cursor paging did not terminate");
+
+            owners.addAll(p.getPageData());
+            cursor = p.getNextCursor();
+        }
+
+        return owners;
+    }
+
+    @Test
+    public void testCursorPaging() {
+        List<Owner> owners = this.listByCursor(null, "key", PageRequest.Order.ASCENDING, 3);
+
+        assertEquals(10, owners.size());
+        for (int i = 0; i < owners.size(); i++) {
+            assertEquals(String.valueOf(i), owners.get(i).getKey());
+        }
+    }
+
+    @Test
+    public void testCursorPagingDescending() {
+        List<Owner> owners = this.listByCursor(null, "key", PageRequest.Order.DESCENDING, 4);
+
+        assertEquals(10, owners.size());
+        for (int i = 0; i < owners.size(); i++) {
+            assertEquals(String.valueOf(9 - i), owners.get(i).getKey());
+        }
+    }
+
+    @Test
+    public void testCursorPagingByDefaultSortFieldBreaksTiesById() {
+        // Owners created in the same millisecond share a creation date; the ID tie-breaker must
+        // still visit each of them exactly once.
+        List<Owner> owners = this.listByCursor(null, null, PageRequest.Order.DESCENDING, 3);
+
+        Set<String> ids = new HashSet<>();
+        for (Owner owner : owners) {
+            assertTrue(ids.add(owner.getId()));
+        }
+
+        assertEquals(10, ids.size());
+    }
+
+    private void assertCursorPagingOrdersNullsLast(PageRequest.Order order) {
+        for (Owner owner : ownerCurator.listAll().list()) {
+            int index = Integer.parseInt(owner.getKey());
+            owner.setContentPrefix(index % 2 == 0 ? "prefix" + index : null);
+            ownerCurator.merge(owner);
+        }
+        ownerCurator.flush();
+
+        List<Owner> owners = this.listByCursor(null, "contentPrefix", order, 3);
+
+        Set<String> keys = new HashSet<>();
+        for (Owner owner : owners) {
+            assertTrue(keys.add(owner.getKey()));
+        }
+        assertEquals(10, keys.size());
+
+        for (int i = 0; i < owners.size(); i++) {
+            String expected = i < 5 ?
+                "prefix" + (order == PageRequest.Order.ASCENDING ? i * 2 : 8 - i * 2) :
+                null;
+
+            assertEquals(expected, owners.get(i).getContentPrefix());
+        }
+    }
+
+    @Test
+    public void testCursorPagingByNullableSortFieldOrdersNullsLast() {
+        this.assertCursorPagingOrdersNullsLast(PageRequest.Order.ASCENDING);
+    }
+
+    @Test
+    public void testCursorPagingDescendingByNullableSortFieldOrdersNullsLast() {
+        this.assertCursorPagingOrdersNullsLast(PageRequest.Order.DESCENDING);
+    }
+
+    @Test
+    public void testCursorPagingWithCriteria() {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setSortBy("key");
+        pageRequest.setOrder(PageRequest.Order.ASCENDING);
+        pageRequest.setPerPage(3);
+        pageRequest.setCursor("");
+
+        Page<List<Owner>> p = ownerCurator.listByCriteria(session.createCriteria(Owner.class)
+            .add(Restrictions.gt("key", "5")), pageRequest);
+
+        assertNull(p.getMaxRecords());
+        assertNotNull(p.getNextCursor());
+        assertEquals(3, p.getPageData().size());
+        assertEquals("6", p.getPageData().get(0).getKey());
+        assertEquals("8", p.getPageData().get(2).getKey());
+
+        pageRequest.setCursor(p.getNextCursor());
+        p = ownerCurator.listByCriteria(session.createCriteria(Owner.class)
+            .add(Restrictions.gt("key", "5")), pageRequest);
+
+        assertNull(p.getNextCursor());
+        assertEquals(1, p.getPageData().size());
+        assertEquals("9", p.getPageData().get(0).getKey());
+    }
+
+    @Test
+    public void testCursorPagingWithCandlepinQuery() {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setSortBy("key");
+        pageRequest.setOrder(PageRequest.Order.ASCENDING);
+        pageRequest.setPerPage(4);
+        pageRequest.setCursor("");
+
+        Page<ResultIterator<Owner>> p = ownerCurator.paginateResults(ownerCurator.listAll(), pageRequest);
+
+        assertNull(p.getMaxRecords());
+        assertNotNull(p.getNextCursor());
+
+        List<String> keys = new ArrayList<>();
+        try (ResultIterator<Owner> iterator = p.getPageData()) {
+            while (iterator.hasNext()) {
+                keys.add(iterator.next().getKey());
+            }
+        }
+
+        assertEquals(Arrays.asList("0", "1", "2", "3"), keys);
+    }
+
+    @Test
+    public void testCursorPagingWithPostFilter() {
+        List<Owner> owners = new ArrayList<>();
+        String cursor = "";
+
+        while (cursor != null) {
+            PageRequest pageRequest = new PageRequest();
+            pageRequest.setPerPage(2);
+            pageRequest.setSortBy("key");
+            pageRequest.setOrder(PageRequest.Order.ASCENDING);
+            pageRequest.setCursor(cursor);
+
+            Page<List<Owner>> p = ownerCurator.listAll(pageRequest, true);
+
+            // Filter out the odd keys, as a caller post-filtering the results would
+            List<Owner> filtered = new ArrayList<>();
+            for (Owner owner : p.getPageData()) {
+                if (Integer.parseInt(owner.getKey()) % 2 == 0) {
+                    filtered.add(owner);
+                }
+            }
+
+            List<Owner> pageData = ownerCurator.takeSubList(pageRequest, filtered, p);
+            assertTrue(pageData.size() <= 2);
+
+            owners.addAll(pageData);
+            cursor = p.getNextCursor();
+        }
+
+        List<String> keys = new ArrayList<>();
+        for (Owner owner : owners) {
+            keys.add(owner.getKey());
+        }
+
+        assertEquals(Arrays.asList("0", "2", "4", "6", "8"), keys);
+    }
+
+    @Test
+    public void testCursorPagingRejectsUnknownSortField() {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setSortBy("bogus");
+        pageRequest.setPerPage(3);
+        pageRequest.setCursor("");
+
+        assertThrows(BadRequestException.class, () -> ownerCurator.listAll(pageRequest));
+    }
+
+    @Test
+    public void testCursorPagingRejectsCursorForDifferentSort() {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setSortBy("key");
+        pageRequest.setOrder(PageRequest.Order.ASCENDING);
+        pageRequest.setPerPage(3);
+        pageRequest.setCursor("");
+
+        Page<List<Owner>> p = ownerCurator.listAll(pageRequest);
+
+        pageRequest.setOrder(PageRequest.Order.DESCENDING);
+        pageRequest.setCursor(p.getNextCursor());
+
+        assertThrows(BadRequestException.class, () -> ownerCurator.listAll(pageRequest));
+    }
+
     private List<Owner> createOwners(int owners) {
         List<Owner> ownerList = new ArrayList<>();
         for (int i = 0; i < owners; i++) {
@@ -28,8 +28,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -735,6 +737,51 @@ public class EntitlementCuratorTest extends DatabaseTestFixture {
         assertEquals(ent.getId(), ents.get(0).getId());
     }
 
+    @Test
+    public void testGetEntitlementStates() {
+        firstEntitlement.setDirty(true);
+        entitlementCurator.merge(firstEntitlement);
+        entitlementCurator.flush();
+
+        List<Entitlement> expected = new ArrayList<>(Arrays.asList(firstEntitlement, secondEntitlement));
+        expected.sort(Comparator.comparing(Entitlement::getId));
+
+        List<Object[]> states = entitlementCurator.getEntitlementStates(consumer);
+        assertEquals(2, states.size());
+
+        for (int i = 0; i < expected.size(); ++i) {
+            Entitlement ent = expected.get(i);
+            Object[] state = states.get(i);
+
+            assertEquals(ent.getId(), state[0]);
+            assertEquals(ent.getUpdated().getTime(), ((Date) state[1]).getTime());
+            assertEquals(ent.getQuantity(), state[2]);
+            assertEquals(ent == firstEntitlement, state[3]);
+            assertEquals(ent.getPool().getId(), state[4]);
+            assertEquals(ent.getPool().getUpdated().getTime(), ((Date) state[5]).getTime());
+        }
+
+        assertTrue(entitlementCurator.getEntitlementStates(createConsumer(owner)).isEmpty());
+    }
+
+    @Test
+    public void testGetEntitledPoolProductUuids() {
+        Pool pool = createPool(owner, parentProduct, 1L, dateSource.currentDate(), futureDate);
+        pool.addProvidedProduct(providedProduct1);
+        pool.setDerivedProduct(parentProduct2);
+        pool.addDerivedProvidedProduct(providedProduct2);
+        poolCurator.merge(pool);
+
+        Consumer other = createConsumer(owner);
+        this.bind(other, poolCurator.get(pool.getId()));
+
+        Set<String> expected = new HashSet<>(Arrays.asList(parentProduct.getUuid(),
+            parentProduct2.getUuid(), providedProduct1.getUuid(), providedProduct2.getUuid()));
+
+        assertEquals(expected, entitlementCurator.getEntitledPoolProductUuids(other));
+        assertTrue(entitlementCurator.getEntitledPoolProductUuids(createConsumer(owner)).isEmpty());
+    }
+
     protected List<Product> createProducts(Owner owner, int count, String prefix) {
         List<Product> products = new LinkedList<>();
 
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.google.common.collect.Lists;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.Query;
+
+
+
+/**
+ * IdSetStrategyTest
+ */
+public class IdSetStrategyTest {
+
+    @Test
+    public void testInListStrategyBindsBlocks() {
+        IdSetStrategy strategy = new IdSetStrategy.InListStrategy(2);
+        List<String> ids = Arrays.asList("a", "b", "c");
+        Query query = mock(Query.class);
+
+        assertEquals("p.id IN (:ids)", strategy.getPredicate("p.id", "ids"));
+
+        List<List<String>> blocks = Lists.newArrayList(strategy.partition(ids));
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("c")), blocks);
+
+        strategy.bind(query, "ids", blocks.get(0));
+        verify(query).setParameter("ids", Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void testArrayStrategyBindsSingleParameter() {
+        IdSetStrategy strategy = new IdSetStrategy.ArrayStrategy();
+        List<String> ids = Arrays.asList("a", "b", "c");
+        Query query = mock(Query.class);
+
+        assertEquals("p.id = ANY(string_to_array(:ids, chr(31)))", strategy.getPredicate("p.id", "ids"));
+
+        List<List<String>> blocks = Lists.newArrayList(strategy.partition(ids));
+        assertEquals(Collections.singletonList(ids), blocks);
+
+        strategy.bind(query, "ids", blocks.get(0));
+        verify(query).setParameter("ids", "a\u001Fb\u001Fc");
+    }
+
+    @Test
+    public void testArrayStrategySupportsOnlyDelimitableStrings() {
+        assertTrue(IdSetStrategy.ArrayStrategy.supports(Arrays.asList("a", "b")));
+        assertFalse(IdSetStrategy.ArrayStrategy.supports(Arrays.asList("a", "")));
+        assertFalse(IdSetStrategy.ArrayStrategy.supports(Arrays.asList("a", "b\u001Fc")));
+        assertFalse(IdSetStrategy.ArrayStrategy.supports(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    public void testTempTableStrategyLoadsTable() {
+        Session session = mock(Session.class);
+        NativeQuery statement = mock(NativeQuery.class);
+        doReturn(statement).when(session).createNativeQuery(anyString());
+        doReturn(statement).when(statement).addSynchronizedQuerySpace(anyString());
+
+        IdSetStrategy strategy = new IdSetStrategy.TempTableStrategy(session, 2);
+        List<String> ids = Arrays.asList("a", "b", "c", "a");
+        Query query = mock(Query.class);
+
+        assertEquals("p.id IN (SELECT id FROM cp_tmp_ids_ids)", strategy.getPredicate("p.id", "ids"));
+
+        List<List<String>> blocks = Lists.newArrayList(strategy.partition(ids));
+        assertEquals(1, blocks.size());
+
+        strategy.bind(query, "ids", blocks.get(0));
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(session, times(4)).createNativeQuery(captor.capture());
+        List<String> statements = captor.getAllValues();
+
+        assertTrue(statements.get(0).startsWith("CREATE TEMPORARY TABLE IF NOT EXISTS cp_tmp_ids_ids"));
+        assertEquals("DELETE FROM cp_tmp_ids_ids", statements.get(1));
+        assertEquals("INSERT INTO cp_tmp_ids_ids (id) VALUES (:id0), (:id1)", statements.get(2));
+        assertEquals("INSERT INTO cp_tmp_ids_ids (id) VALUES (:id0)", statements.get(3));
+
+        // Duplicate IDs are only loaded once
+        verify(statement).setParameter("id0", "a");
+        verify(statement).setParameter("id1", "b");
+        verify(statement).setParameter("id0", "c");
+        verify(statement, times(4)).executeUpdate();
+        verifyZeroInteractions(query);
+    }
+
+    @Test
+    public void testTempTableStrategySupportsOnlyShortStrings() {
+        char[] longId = new char[IdSetStrategy.TempTableStrategy.MAX_ID_LENGTH + 1];
+        Arrays.fill(longId, 'a');
+
+        assertTrue(IdSetStrategy.TempTableStrategy.supports(Arrays.asList("a", "b")));
+        assertFalse(IdSetStrategy.TempTableStrategy.supports(Arrays.asList("a", new String(longId))));
+        assertFalse(IdSetStrategy.TempTableStrategy.supports(Arrays.asList(1L, 2L)));
+    }
+}
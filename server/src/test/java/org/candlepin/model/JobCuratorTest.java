@@ -38,9 +38,11 @@ import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
@@ -172,6 +174,22 @@ public class JobCuratorTest extends DatabaseTestFixture {
         assertFalse(waitingList.contains(finishedJob));
     }
 
+    @Test
+    public void countJobsByState() {
+        newJobStatus().state(JobStatus.JobState.WAITING).create();
+        newJobStatus().state(JobStatus.JobState.WAITING).create();
+        newJobStatus().state(JobStatus.JobState.CREATED).create();
+        newJobStatus().state(JobStatus.JobState.FINISHED).create();
+
+        Map<JobState, Long> counts = curator.countJobsByState(
+            Arrays.asList(JobState.WAITING, JobState.CREATED, JobState.RUNNING));
+
+        assertEquals(3, counts.size());
+        assertEquals(Long.valueOf(2), counts.get(JobState.WAITING));
+        assertEquals(Long.valueOf(1), counts.get(JobState.CREATED));
+        assertEquals(Long.valueOf(0), counts.get(JobState.RUNNING));
+    }
+
     @Test
     public void findNumRunningByOwnerAndClass() {
         newJobStatus().state(JobStatus.JobState.WAITING)
@@ -16,6 +16,7 @@ package org.candlepin.model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.candlepin.hibernate.BatchWriteStatistics;
 import org.candlepin.model.ConsumerType.ConsumerTypeEnum;
 import org.candlepin.test.DatabaseTestFixture;
 import org.candlepin.test.TestUtil;
@@ -61,6 +62,26 @@ public class OwnerCuratorTest extends DatabaseTestFixture {
         assertThrows(RollbackException.class, () -> this.commitTransaction());
     }
 
+    @Test
+    public void testGetByKeySecureReusesOwnerWithinRequest() {
+        this.injector.getInstance(RequestEntityMap.class).enable();
+        Owner owner = this.ownerCurator.create(new Owner("memoized_owner"));
+        this.getEntityManager().clear();
+
+        BatchWriteStatistics statistics = new BatchWriteStatistics();
+        this.ownerCurator.currentSession().addEventListeners(statistics);
+
+        Owner first = this.ownerCurator.getByKeySecure(owner.getKey());
+        Owner second = this.ownerCurator.getByKeySecure(owner.getKey());
+        Owner third = this.ownerCurator.getByKey(owner.getKey());
+        statistics.stop();
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals(1, statistics.getPreparedStatements());
+    }
+
     @Test
     public void upstreamUuidConstraint() {
         UpstreamConsumer uc = new UpstreamConsumer("sameuuid");
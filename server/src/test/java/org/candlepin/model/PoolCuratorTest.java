@@ -37,6 +37,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -749,6 +750,49 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertEquals(3, pools.size());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "true", "false" })
+    public void testPoolGraphWalk(String recursive) {
+        this.config.setProperty(DatabaseConfigFactory.RECURSIVE_QUERIES, recursive);
+
+        Pool master = TestUtil.createPool(owner, product);
+        master.setSourceSubscription(new SourceSubscription("graph-sub", "master"));
+        Pool derived = TestUtil.createPool(owner, product);
+        derived.setSourceSubscription(new SourceSubscription("graph-sub", "derived"));
+        Pool unrelated = TestUtil.createPool(owner, product);
+        poolCurator.create(master);
+        poolCurator.create(derived);
+        poolCurator.create(unrelated);
+
+        Entitlement derivedEnt = new Entitlement(derived, consumer, owner, 1);
+        derivedEnt.setId(Util.generateDbUUID());
+        entitlementCurator.create(derivedEnt);
+
+        Pool bonus = TestUtil.createPool(owner, product);
+        bonus.setSourceEntitlement(derivedEnt);
+        poolCurator.create(bonus);
+
+        Entitlement bonusEnt = new Entitlement(bonus, consumer, owner, 1);
+        bonusEnt.setId(Util.generateDbUUID());
+        entitlementCurator.create(bonusEnt);
+
+        Pool nestedBonus = TestUtil.createPool(owner, product);
+        nestedBonus.setSourceEntitlement(bonusEnt);
+        poolCurator.create(nestedBonus);
+
+        Set<String> expected = new HashSet<>(Arrays.asList(master.getId(), derived.getId(), bonus.getId(),
+            nestedBonus.getId()));
+        assertEquals(expected, poolCurator.getPoolGraphIds(Arrays.asList(master.getId())));
+
+        expected = new HashSet<>(Arrays.asList(bonus.getId(), nestedBonus.getId()));
+        assertEquals(expected, poolCurator.getPoolGraphIdsForSourceEntitlements(
+            Arrays.asList(derivedEnt.getId())));
+
+        assertEquals(Collections.singleton(unrelated.getId()),
+            poolCurator.getPoolGraphIds(Arrays.asList(unrelated.getId())));
+        assertTrue(poolCurator.getPoolGraphIds(Collections.<String>emptyList()).isEmpty());
+    }
+
     @Test
     public void retrieveFreeEntitlementsOfPools() {
         Pool pool1 = TestUtil.createPool(owner, product);
@@ -1431,6 +1475,28 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    public void testMapPoolsBySubscriptionIds() {
+        Owner owner2 = createOwner();
+        ownerCurator.create(owner2);
+
+        Pool pool1 = createPool(owner2, "sub1");
+        Pool pool2 = createPool(owner2, "sub2");
+        Pool derived = TestUtil.createPool(owner2, product);
+        derived.setSourceSubscription(new SourceSubscription("sub2", "derived"));
+        poolCurator.create(derived);
+        createPool(owner2, "sub3");
+
+        Map<String, List<Pool>> result = poolCurator.mapPoolsBySubscriptionIds(
+            Arrays.asList("sub1", "sub2", "nonexistent"));
+
+        assertEquals(2, result.size());
+        assertEquals(Arrays.asList(pool1), result.get("sub1"));
+        assertEquals(2, result.get("sub2").size());
+        assertTrue(result.get("sub2").containsAll(Arrays.asList(pool2, derived)));
+        assertFalse(result.containsKey("sub3"));
+    }
+
     @Test
     public void testGetPoolsByFilter() {
         Owner owner1 = createOwner();
@@ -2462,6 +2528,20 @@ public class PoolCuratorTest extends DatabaseTestFixture {
 
         assertNotNull(output);
         assertEquals(0, output.size());
+
+        // Restricted to the given consumers, and keyed by consumer and stack
+        Map<String, Map<String, String>> stackOutput = this.poolCurator.getConsumerStackDerivedPoolIdMap(
+            Arrays.asList(consumer1.getId(), consumer3.getId()), Arrays.asList(stackId1, stackId3));
+
+        assertEquals(2, stackOutput.size());
+        assertEquals(Collections.singletonMap(stackId1, pool1.getId()), stackOutput.get(consumer1.getId()));
+        assertEquals(Collections.singletonMap(stackId3, pool6.getId()), stackOutput.get(consumer3.getId()));
+        assertFalse(stackOutput.containsKey(consumer2.getId()));
+
+        assertEquals(0, this.poolCurator.getConsumerStackDerivedPoolIdMap(
+            Arrays.asList(consumer1.getId()), Arrays.asList(stackId3)).size());
+        assertEquals(0, this.poolCurator.getConsumerStackDerivedPoolIdMap(
+            Collections.<String>emptyList(), Arrays.asList(stackId1)).size());
     }
 
     @Test
@@ -2653,4 +2733,53 @@ public class PoolCuratorTest extends DatabaseTestFixture {
         assertEquals(output, Util.asSet(pool7.getId()));
     }
 
+    @Test
+    public void testApplyFetchProfileLoadsPoolsInFixedNumberOfQueries() {
+        Owner owner = this.createOwner();
+
+        for (int i = 0; i < 10; ++i) {
+            Content content = this.createContent(owner);
+
+            Product provided = TestUtil.createProduct();
+            provided.setAttribute(Product.Attributes.ARCHITECTURE, "x86_64");
+            provided.addContent(content, true);
+            provided = this.createProduct(provided, owner);
+
+            Product product = TestUtil.createProduct();
+            product.setAttribute(Product.Attributes.TYPE, "MKT");
+            product = this.createProduct(product, owner);
+
+            Pool pool = this.createPool(owner, product, Collections.singleton(provided), 10L,
+                TestUtil.createDate(2000, 1, 1), TestUtil.createDate(2100, 1, 1));
+            pool.getBranding().add(new Branding(provided.getId(), "OS", "Branded " + i));
+        }
+
+        this.poolCurator.flush();
+        this.poolCurator.clear();
+
+        List<Pool> pools = this.poolCurator.listByOwner(owner).list();
+        assertEquals(10, pools.size());
+
+        this.assertMaxStatements(9, () ->
+            this.poolCurator.applyFetchProfile(pools, PoolCurator.FetchProfile.CERT_GENERATION));
+
+        // Everything in the profile has been loaded
+        this.assertMaxStatements(0, () -> {
+            for (Pool pool : pools) {
+                assertEquals(1, pool.getProvidedProducts().size());
+                assertEquals("OS", pool.getBranding().iterator().next().getType());
+                assertFalse(pool.getAttributes().containsKey("missing"));
+                assertEquals("MKT", pool.getProduct().getAttributeValue(Product.Attributes.TYPE));
+
+                for (Product provided : pool.getProvidedProducts()) {
+                    assertEquals("x86_64", provided.getAttributeValue(Product.Attributes.ARCHITECTURE));
+
+                    for (ProductContent pc : provided.getProductContent()) {
+                        assertNotNull(pc.getContent().getLabel());
+                    }
+                }
+            }
+        });
+    }
+
 }
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.candlepin.test.DatabaseTestFixture;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+
+
+public class ReadAheadResultIteratorTest extends DatabaseTestFixture {
+
+    private Session session;
+
+    @BeforeEach
+    public void setup() {
+        this.session = (Session) this.getEntityManager().getDelegate();
+    }
+
+    private <T> ReadAheadResultIterator<T> buildIterator(String hql, int count, boolean evict) {
+        Query query = this.session.createQuery(hql);
+        ColumnarResultIterator<T> iterator = new ColumnarResultIterator<>(
+            this.session,
+            query.scroll(ScrollMode.FORWARD_ONLY),
+            0,
+            false);
+
+        return new ReadAheadResultIterator<>(this.session, iterator, count, evict);
+    }
+
+    @Test
+    public void testHasNextWithoutElements() {
+        ReadAheadResultIterator<Owner> iterator = this.buildIterator("SELECT o FROM Owner o", 2, false);
+
+        try {
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, () -> iterator.next());
+        }
+        finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testIteratesOverAllElements() {
+        Owner owner1 = this.createOwner();
+        Owner owner2 = this.createOwner();
+        Owner owner3 = this.createOwner();
+
+        ReadAheadResultIterator<Owner> iterator = this.buildIterator("SELECT o FROM Owner o", 2, false);
+
+        try {
+            List<Owner> owners = new LinkedList<>();
+
+            while (iterator.hasNext()) {
+                owners.add(iterator.next());
+            }
+
+            assertEquals(3, owners.size());
+            assertTrue(owners.contains(owner1));
+            assertTrue(owners.contains(owner2));
+            assertTrue(owners.contains(owner3));
+        }
+        finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testEvictsProcessedAndUnprocessedElements() {
+        this.createOwner();
+        this.createOwner();
+        this.createOwner();
+
+        ReadAheadResultIterator<Owner> iterator = this.buildIterator("SELECT o FROM Owner o", 2, true);
+
+        try {
+            Owner first = iterator.next();
+            Owner second = iterator.next();
+            assertTrue(iterator.hasNext());
+
+            assertFalse(this.session.contains(first));
+            assertFalse(this.session.contains(second));
+
+            // The third element has been read, but not yet processed
+            Owner third = iterator.next();
+            assertTrue(this.session.contains(third));
+
+            iterator.close();
+            assertFalse(this.session.contains(third));
+        }
+        finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testCollectionsOfBufferedElementsAreBatchFetched() {
+        Owner owner = this.createOwner();
+
+        for (int i = 0; i < 3; ++i) {
+            Consumer consumer = this.createConsumer(owner);
+            consumer.setFact("fact", "value-" + i);
+            this.consumerCurator.merge(consumer);
+        }
+
+        this.consumerCurator.flush();
+        this.consumerCurator.clear();
+
+        ReadAheadResultIterator<Consumer> iterator = this.buildIterator("SELECT c FROM Consumer c", 3, false);
+
+        try {
+            List<Consumer> consumers = new LinkedList<>();
+
+            while (iterator.hasNext()) {
+                consumers.add(iterator.next());
+            }
+
+            assertEquals(3, consumers.size());
+            consumers.forEach(consumer -> assertFalse(Hibernate.isInitialized(consumer.getFacts())));
+
+            // Initializing the facts of one consumer initializes those of the others read with it
+            assertEquals(1, consumers.get(0).getFacts().size());
+            consumers.forEach(consumer -> assertTrue(Hibernate.isInitialized(consumer.getFacts())));
+        }
+        finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testRemoveAlwaysFails() {
+        this.createOwner();
+        ReadAheadResultIterator<Owner> iterator = this.buildIterator("SELECT o FROM Owner o", 2, false);
+
+        try {
+            iterator.next();
+            assertThrows(UnsupportedOperationException.class, () -> iterator.remove());
+        }
+        finally {
+            iterator.close();
+        }
+    }
+
+}
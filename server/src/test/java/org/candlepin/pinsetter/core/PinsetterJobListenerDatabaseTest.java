@@ -21,6 +21,8 @@ import static org.quartz.JobKey.*;
 import org.candlepin.TestingModules;
 import org.candlepin.auth.Principal;
 import org.candlepin.common.config.Configuration;
+import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.guice.CandlepinRequestScoped;
 import org.candlepin.guice.PrincipalProvider;
 import org.candlepin.guice.TestPrincipalProvider;
 import org.candlepin.junit.LiquibaseExtension;
@@ -107,6 +109,7 @@ public class PinsetterJobListenerDatabaseTest {
             bind(JobListener.class).to(PinsetterJobListener.class);
             bind(PrincipalProvider.class).to(TestPrincipalProvider.class);
             bind(Principal.class).toProvider(TestPrincipalProvider.class);
+            bindScope(CandlepinRequestScoped.class, new CandlepinRequestScope());
         }
     }
 }
@@ -25,7 +25,9 @@ import org.candlepin.model.Owner;
 import org.candlepin.pinsetter.core.model.JobStatus;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 
@@ -48,6 +50,9 @@ public class EntitleByProductsJobTest extends BaseJobTest {
     private String consumerUuid;
     private Entitler e;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Before
     public void init() {
         super.init();
@@ -110,7 +115,7 @@ public class EntitleByProductsJobTest extends BaseJobTest {
     }
 
     private void serialize(Object obj) throws IOException {
-        ObjectOutput out = new ObjectOutputStream(new FileOutputStream("obj.ser"));
+        ObjectOutput out = new ObjectOutputStream(new FileOutputStream(folder.newFile("obj.ser")));
         out.writeObject(obj);
         out.close();
     }
@@ -32,6 +32,7 @@ import org.candlepin.pinsetter.core.model.JobStatus;
 import org.candlepin.policy.EntitlementRefusedException;
 import org.candlepin.policy.ValidationResult;
 
+import org.apache.commons.io.FileUtils;
 import org.hibernate.mapping.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.AfterEach;
@@ -48,6 +49,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -65,6 +67,7 @@ public class EntitlerJobTest extends BaseJobTest {
     private Entitler e;
     private PoolCurator pC;
     private I18n i18n;
+    private File tempDir;
 
     @BeforeEach
     public void init() {
@@ -159,7 +162,7 @@ public class EntitlerJobTest extends BaseJobTest {
     }
 
     private void serialize(Object obj) throws IOException {
-        ObjectOutput out = new ObjectOutputStream(new FileOutputStream("obj.ser"));
+        ObjectOutput out = new ObjectOutputStream(new FileOutputStream(new File(tempDir, "obj.ser")));
         out.writeObject(obj);
         out.close();
     }
@@ -216,8 +219,13 @@ public class EntitlerJobTest extends BaseJobTest {
             .getErrors().get(0));
     }
 
+    @BeforeEach
+    public void createTempDir() throws IOException {
+        tempDir = Files.createTempDirectory("entitler-job-test").toFile();
+    }
+
     @AfterEach
-    public void cleanup() {
-        new File("obj.ser").delete();
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(tempDir);
     }
 }
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2009 - 2012 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pinsetter.tasks;
+
+import static org.mockito.Mockito.*;
+
+import org.candlepin.controller.ExpiredPoolCleanupResult;
+import org.candlepin.controller.PoolManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobExecutionContext;
+
+/**
+ * ExpiredPoolsJobTest
+ */
+public class ExpiredPoolsJobTest extends BaseJobTest {
+
+    private ExpiredPoolsJob job;
+    @Mock private PoolManager poolManager;
+    @Mock private JobExecutionContext ctx;
+
+    @Before
+    public void startup() {
+        super.init();
+        MockitoAnnotations.initMocks(this);
+        job = new ExpiredPoolsJob(poolManager);
+        injector.injectMembers(job);
+    }
+
+    @Test
+    public void testCleanupIsBoundedByConfiguration() throws Exception {
+        ExpiredPoolCleanupResult result = new ExpiredPoolCleanupResult();
+        when(poolManager.cleanupExpiredPools(anyInt(), anyLong())).thenReturn(result);
+
+        job.execute(ctx);
+
+        verify(poolManager).cleanupExpiredPools(eq(100), eq(240000L));
+        verify(ctx).setResult(eq(result.toString()));
+    }
+}
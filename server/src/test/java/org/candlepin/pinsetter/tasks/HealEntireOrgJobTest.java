@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pinsetter.tasks;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.controller.Entitler;
+import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.CandlepinQuery;
+import org.candlepin.model.Consumer;
+import org.candlepin.model.ConsumerCurator;
+import org.candlepin.model.Owner;
+import org.candlepin.model.OwnerCurator;
+import org.candlepin.resource.dto.AutobindData;
+
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.xnap.commons.i18n.I18n;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+
+
+/**
+ * HealEntireOrgJobTest
+ */
+public class HealEntireOrgJobTest {
+
+    private static final int CONSUMER_COUNT = 150;
+
+    private CandlepinCommonTestConfig config;
+    private Owner owner;
+    private OwnerCurator ownerCurator;
+    private ConsumerCurator consumerCurator;
+    private Entitler entitler;
+    private EntityTransaction transaction;
+    private EventSink eventSink;
+    private Scheduler scheduler;
+    private JobDetail detail;
+    private JobExecutionContext ctx;
+    private List<String> uuids;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() throws Exception {
+        this.config = new CandlepinCommonTestConfig();
+        this.owner = new Owner("heal_owner", "Heal Owner");
+        this.ownerCurator = mock(OwnerCurator.class);
+        this.consumerCurator = mock(ConsumerCurator.class);
+        this.entitler = mock(Entitler.class);
+        this.transaction = mock(EntityTransaction.class);
+        this.eventSink = mock(EventSink.class);
+        this.scheduler = mock(Scheduler.class);
+
+        when(this.ownerCurator.getByKey(this.owner.getKey())).thenReturn(this.owner);
+
+        // Deliberately out of order, to check consumers are processed in UUID order
+        this.uuids = new ArrayList<>();
+        for (int i = CONSUMER_COUNT - 1; i >= 0; --i) {
+            String uuid = String.format("consumer-%04d", i);
+            this.uuids.add(uuid);
+
+            Consumer consumer = new Consumer();
+            consumer.setUuid(uuid);
+            when(this.consumerCurator.getConsumer(uuid)).thenReturn(consumer);
+        }
+
+        CandlepinQuery<String> query = mock(CandlepinQuery.class);
+        when(query.list()).thenReturn(this.uuids);
+        when(this.ownerCurator.getConsumerUuids(this.owner)).thenReturn(query);
+
+        // The heal of a single consumer fails, and must not affect the others
+        when(this.entitler.bindByProducts(any(AutobindData.class), eq(true))).thenAnswer(iom -> {
+            AutobindData data = (AutobindData) iom.getArguments()[0];
+            if ("consumer-0010".equals(data.getConsumer().getUuid())) {
+                throw new IllegalStateException("broken consumer");
+            }
+
+            return new ArrayList<>();
+        });
+
+        when(this.transaction.isActive()).thenReturn(true);
+
+        this.detail = HealEntireOrgJob.healEntireOrg(this.owner, new Date());
+        this.ctx = mock(JobExecutionContext.class);
+        when(this.ctx.getJobDetail()).thenReturn(this.detail);
+        when(this.ctx.getMergedJobDataMap()).thenAnswer(iom -> this.detail.getJobDataMap());
+        when(this.ctx.getScheduler()).thenReturn(this.scheduler);
+    }
+
+    private HealEntireOrgJob buildJob() {
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getTransaction()).thenReturn(this.transaction);
+
+        HealEntireOrgJob job = new HealEntireOrgJob(this.entitler, this.consumerCurator, this.ownerCurator,
+            mock(I18n.class), new CandlepinRequestScope(), () -> this.entitler, () -> entityManager,
+            () -> this.eventSink);
+
+        job.config = this.config;
+        job.unitOfWork = mock(UnitOfWork.class);
+
+        return job;
+    }
+
+    private String getResult() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(this.ctx).setResult(captor.capture());
+
+        return (String) captor.getValue();
+    }
+
+    @Test
+    public void testSerialHealIsolatesFailuresAndCheckpoints() throws Exception {
+        this.buildJob().toExecute(this.ctx);
+
+        verify(this.entitler, times(CONSUMER_COUNT)).bindByProducts(any(AutobindData.class), eq(true));
+        assertTrue(this.getResult().startsWith("Healed 149 of 150 consumer(s), 1 failed, 0 resumed"));
+
+        // A single checkpoint is recorded after the first 100 consumers
+        verify(this.scheduler, times(1)).addJob(this.detail, true);
+        assertEquals("consumer-0099", this.detail.getJobDataMap().getString(HealEntireOrgJob.CHECKPOINT));
+    }
+
+    @Test
+    public void testRestartedHealResumesFromCheckpoint() throws Exception {
+        this.detail.getJobDataMap().put(HealEntireOrgJob.CHECKPOINT, "consumer-0119");
+        this.buildJob().toExecute(this.ctx);
+
+        verify(this.entitler, times(30)).bindByProducts(any(AutobindData.class), eq(true));
+        verify(this.consumerCurator, never()).getConsumer("consumer-0119");
+        verify(this.consumerCurator).getConsumer("consumer-0120");
+        assertTrue(this.getResult().startsWith("Healed 30 of 30 consumer(s), 0 failed, 120 resumed"));
+    }
+
+    @Test
+    public void testParallelHealUsesATransactionPerConsumer() throws Exception {
+        this.config.setProperty(ConfigProperties.HEAL_THREADS, "4");
+        this.buildJob().toExecute(this.ctx);
+
+        verify(this.entitler, times(CONSUMER_COUNT)).bindByProducts(any(AutobindData.class), eq(true));
+        verify(this.transaction, times(CONSUMER_COUNT)).begin();
+        verify(this.transaction, times(CONSUMER_COUNT - 1)).commit();
+        verify(this.transaction, times(1)).rollback();
+        verify(this.eventSink, times(CONSUMER_COUNT - 1)).sendEvents();
+        verify(this.eventSink, times(1)).rollback();
+
+        assertTrue(this.getResult().startsWith("Healed 149 of 150 consumer(s), 1 failed, 0 resumed"));
+
+        // Workers finish out of order, so the checkpoint may land past the first 100 consumers
+        String checkpoint = this.detail.getJobDataMap().getString(HealEntireOrgJob.CHECKPOINT);
+        assertNotNull(checkpoint);
+        assertTrue(checkpoint.compareTo("consumer-0099") >= 0);
+    }
+}
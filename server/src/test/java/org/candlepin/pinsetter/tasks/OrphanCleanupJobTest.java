@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.pinsetter.tasks;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.model.Content;
+import org.candlepin.model.Owner;
+import org.candlepin.model.Product;
+import org.candlepin.test.DatabaseTestFixture;
+import org.candlepin.test.TestUtil;
+
+import org.junit.jupiter.api.Test;
+import org.quartz.JobExecutionContext;
+
+import java.util.Arrays;
+
+import javax.inject.Inject;
+
+
+
+/**
+ * OrphanCleanupJobTest
+ */
+public class OrphanCleanupJobTest extends DatabaseTestFixture {
+    @Inject private OrphanCleanupJob job;
+
+    private Product createProductWithChildren(Content content, Owner... owners) {
+        Product product = TestUtil.createProduct();
+        product.setAttribute("attrib", "value");
+        product.setDependentProductIds(Arrays.asList("dependent"));
+        product.addContent(content, true);
+
+        return this.createProduct(product, owners);
+    }
+
+    @Test
+    public void testOrphansAreDeletedWithTheirChildren() throws Exception {
+        Owner owner = this.createOwner();
+
+        Content ownedContent = this.createContent(owner);
+        Content orphanedContent = TestUtil.createContent("orphan", "orphan");
+        orphanedContent.setModifiedProductIds(Arrays.asList("modified"));
+        orphanedContent = this.createContent(orphanedContent);
+
+        Product ownedProduct = this.createProductWithChildren(ownedContent, owner);
+        Product orphanedProduct = this.createProductWithChildren(orphanedContent);
+
+        this.productCurator.flush();
+        this.productCurator.clear();
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        this.job.execute(context);
+        verify(context).setResult(startsWith("Deleted 1 orphaned content and 1 orphaned product entities"));
+
+        this.productCurator.clear();
+
+        assertNull(this.contentCurator.get(orphanedContent.getUuid()));
+        assertNull(this.productCurator.get(orphanedProduct.getUuid()));
+        assertNotNull(this.contentCurator.get(ownedContent.getUuid()));
+
+        Product product = this.productCurator.get(ownedProduct.getUuid());
+        assertNotNull(product);
+        assertEquals("value", product.getAttributeValue("attrib"));
+        assertEquals(1, product.getProductContent().size());
+    }
+
+    @Test
+    public void testContentOfOwnedProductsIsNotOrphaned() throws Exception {
+        Owner owner = this.createOwner();
+
+        // Content no longer linked to any owner, but still provided by a product which is
+        Content unownedContent = TestUtil.createContent("unowned", "unowned");
+        unownedContent.setModifiedProductIds(Arrays.asList("modified"));
+        unownedContent = this.createContent(unownedContent);
+        Product ownedProduct = this.createProductWithChildren(unownedContent, owner);
+
+        // A second, orphaned product sharing the content must not take the content with it
+        Product orphanedProduct = this.createProductWithChildren(unownedContent);
+
+        this.productCurator.flush();
+        this.productCurator.clear();
+
+        assertEquals(0, this.ownerContentCurator.deleteOrphanedContent(
+            Arrays.asList(unownedContent.getUuid())));
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        this.job.execute(context);
+        verify(context).setResult(startsWith("Deleted 0 orphaned content and 1 orphaned product entities"));
+
+        this.productCurator.clear();
+
+        assertNull(this.productCurator.get(orphanedProduct.getUuid()));
+
+        Content content = this.contentCurator.get(unownedContent.getUuid());
+        assertNotNull(content);
+        assertTrue(content.getModifiedProductIds().contains("modified"));
+
+        Product product = this.productCurator.get(ownedProduct.getUuid());
+        assertNotNull(product);
+        assertEquals(1, product.getProductContent().size());
+        assertEquals(unownedContent.getUuid(),
+            product.getProductContent().iterator().next().getContent().getUuid());
+    }
+
+    @Test
+    public void testOwnedEntitiesAreNotDeletedAsOrphans() {
+        Owner owner = this.createOwner();
+        Content content = this.createContent(owner);
+        Product product = this.createProduct(owner);
+
+        assertEquals(0, this.ownerContentCurator.deleteOrphanedContent(Arrays.asList(content.getUuid())));
+        assertEquals(0, this.ownerProductCurator.deleteOrphanedProducts(Arrays.asList(product.getUuid())));
+
+        this.productCurator.clear();
+        assertNotNull(this.contentCurator.get(content.getUuid()));
+        assertNotNull(this.productCurator.get(product.getUuid()));
+    }
+
+    @Test
+    public void testNoOrphans() throws Exception {
+        Owner owner = this.createOwner();
+        this.createContent(owner);
+        this.createProduct(owner);
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        this.job.execute(context);
+
+        verify(context).setResult(startsWith("Deleted 0 orphaned content and 0 orphaned product entities"));
+    }
+}
@@ -22,6 +22,7 @@ import org.candlepin.config.ConfigProperties;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.jackson.ProductCachedSerializationModule;
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerInstalledProduct;
 import org.candlepin.model.ConsumerType;
@@ -111,7 +112,7 @@ public class AutobindRulesTest {
         when(rulesCurator.getRules()).thenReturn(rules);
         when(rulesCurator.getUpdated()).thenReturn(TestDateUtil.date(2010, 1, 1));
         when(cacheProvider.get()).thenReturn(cache);
-        jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+        jsRules = new JsRunnerProvider(rulesCurator, cacheProvider, new MetricsRegistry()).get();
         mapper =  new RulesObjectMapper(new ProductCachedSerializationModule(mockProductCurator));
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, mockOwnerCurator);
@@ -25,6 +25,7 @@ import org.candlepin.controller.ProductManager;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.jackson.ProductCachedSerializationModule;
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.Entitlement;
 import org.candlepin.model.EnvironmentCurator;
@@ -120,7 +121,7 @@ public class EnforcerTest extends DatabaseTestFixture {
         when(rulesCurator.getUpdated()).thenReturn(TestDateUtil.date(2010, 1, 1));
         when(cacheProvider.get()).thenReturn(cache);
 
-        JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider).get();
+        JsRunner jsRules = new JsRunnerProvider(rulesCurator, cacheProvider, new MetricsRegistry()).get();
 
         translator = new StandardTranslator(consumerTypeCurator, mockEnvironmentCurator, mockOwnerCurator);
 
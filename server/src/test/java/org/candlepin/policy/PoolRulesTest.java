@@ -341,6 +341,27 @@ public class PoolRulesTest {
         }
     }
 
+    @Test
+    public void expectsBonusPoolMatchesBonusPoolCreation() {
+        when(configMock.getBoolean(ConfigProperties.STANDALONE)).thenReturn(true);
+
+        Pool hostLimited = createVirtLimitPool("virtLimitProduct", 10, 10);
+        hostLimited.getProduct().setAttribute(Product.Attributes.HOST_LIMITED, "true");
+        when(poolManagerMock.isManaged(eq(hostLimited))).thenReturn(true);
+        assertTrue(poolRules.expectsBonusPool(hostLimited));
+        assertEquals(2, poolRules.createAndEnrichPools(hostLimited, new LinkedList<>()).size());
+
+        Pool zeroLimit = createVirtLimitPool("virtLimitProduct", 10, 0);
+        when(poolManagerMock.isManaged(eq(zeroLimit))).thenReturn(true);
+        assertFalse(poolRules.expectsBonusPool(zeroLimit));
+        assertEquals(1, poolRules.createAndEnrichPools(zeroLimit, new LinkedList<>()).size());
+
+        Pool unmanaged = createVirtLimitPool("virtLimitProduct", 10, 10);
+        when(poolManagerMock.isManaged(eq(unmanaged))).thenReturn(false);
+        assertFalse(poolRules.expectsBonusPool(unmanaged));
+        assertEquals(1, poolRules.createAndEnrichPools(unmanaged, new LinkedList<>()).size());
+    }
+
     // Make sure host_limited false is working:
     @Test
     public void hostedVirtLimitWithHostLimitedFalseCreatesBonusPools() {
@@ -21,6 +21,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.Date;
 
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.Rules;
 import org.candlepin.model.Rules.RulesSourceEnum;
 import org.candlepin.model.RulesCurator;
@@ -54,7 +55,7 @@ public class JsRunnerProviderTest {
         when(rulesCurator.getRules()).thenReturn(rules);
         when(rules.getRules()).thenReturn("");
         when(rules.getRulesSource()).thenReturn(RulesSourceEnum.DATABASE);
-        provider = new JsRunnerProvider(rulesCurator, cacheProvider);
+        provider = new JsRunnerProvider(rulesCurator, cacheProvider, new MetricsRegistry());
     }
 
     @Test
@@ -20,6 +20,7 @@ import static org.mockito.Mockito.*;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.jackson.ProductCachedSerializationModule;
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.ConsumerTypeCurator;
 import org.candlepin.model.EnvironmentCurator;
 import org.candlepin.model.Owner;
@@ -83,7 +84,7 @@ public class ActivationKeyRulesTest {
         when(rulesCuratorMock.getRules()).thenReturn(rules);
         when(cacheProvider.get()).thenReturn(cache);
 
-        provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
+        provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider, new MetricsRegistry());
         ProductCurator productCurator = mock(ProductCurator.class);
         translator = new StandardTranslator(mockConsumerTypeCurator, environmentCurator, mockOwnerCurator);
         actKeyRules = new ActivationKeyRules(provider.get(), i18n,
@@ -22,6 +22,7 @@ import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.rules.v1.SuggestedQuantityDTO;
 import org.candlepin.jackson.ProductCachedSerializationModule;
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerType;
 import org.candlepin.model.ConsumerTypeCurator;
@@ -100,7 +101,7 @@ public class QuantityRulesTest {
         when(rulesCuratorMock.getUpdated()).thenReturn(new Date());
         when(rulesCuratorMock.getRules()).thenReturn(rules);
         when(cacheProvider.get()).thenReturn(cache);
-        provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
+        provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider, new MetricsRegistry());
 
         translator = new StandardTranslator(consumerTypeCurator, environmentCurator, ownerCuratorMock);
         quantityRules = new QuantityRules(provider.get(), new RulesObjectMapper(
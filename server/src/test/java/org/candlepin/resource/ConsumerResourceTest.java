@@ -30,8 +30,10 @@ import org.candlepin.auth.UserPrincipal;
 import org.candlepin.common.config.Configuration;
 import org.candlepin.common.exceptions.BadRequestException;
 import org.candlepin.common.exceptions.GoneException;
+import org.candlepin.common.exceptions.IseException;
 import org.candlepin.common.exceptions.NotFoundException;
 import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
 import org.candlepin.controller.CandlepinPoolManager;
 import org.candlepin.controller.Entitler;
 import org.candlepin.controller.ManifestManager;
@@ -84,6 +86,7 @@ import org.candlepin.service.OwnerServiceAdapter;
 import org.candlepin.service.SubscriptionServiceAdapter;
 import org.candlepin.service.UserServiceAdapter;
 import org.candlepin.service.impl.DefaultContentAccessCertServiceAdapter;
+import org.candlepin.sync.ExportCreationException;
 import org.candlepin.test.TestUtil;
 import org.candlepin.util.ElementTransformer;
 import org.candlepin.util.FactValidator;
@@ -106,6 +109,7 @@ import org.mockito.stubbing.Answer;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigInteger;
@@ -121,6 +125,7 @@ import java.util.Set;
 
 import javax.inject.Provider;
 import javax.persistence.OptimisticLockException;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.Response;
 
 
@@ -802,6 +807,59 @@ public class ConsumerResourceTest {
             eq(cdn.getLabel()), eq("prefix"), eq(cdn.getUrl()), any(Map.class));
     }
 
+    @Test
+    public void testExportReturnsGeneratedArchive() throws Exception {
+        Consumer consumer = this.createConsumer(this.createOwner(),
+            this.mockConsumerType(new ConsumerType(ConsumerType.ConsumerTypeEnum.CANDLEPIN)));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        File archive = new File("manifest.zip");
+
+        when(mockManifestManager.generateManifest(eq(consumer.getUuid()), eq("cdn-label"), eq("prefix"),
+            eq("url"), any(Map.class))).thenReturn(archive);
+
+        File result = consumerResource.exportData(response, consumer.getUuid(), "cdn-label", "prefix",
+            "url", new ArrayList<>());
+
+        assertSame(archive, result);
+        verify(response).addHeader("Content-Disposition", "attachment; filename=manifest.zip");
+        verify(mockManifestManager, never()).writeManifestToResponse(any(String.class),
+            any(String.class), any(String.class), any(String.class), any(Map.class),
+            any(HttpServletResponse.class));
+    }
+
+    @Test
+    public void testStreamingExportWritesToResponseAndReturnsNull() throws Exception {
+        config.setProperty(ConfigProperties.STREAMING_EXPORT, "true");
+        Consumer consumer = this.createConsumer(this.createOwner(),
+            this.mockConsumerType(new ConsumerType(ConsumerType.ConsumerTypeEnum.CANDLEPIN)));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        File result = consumerResource.exportData(response, consumer.getUuid(), "cdn-label", "prefix",
+            "url", new ArrayList<>());
+
+        // The archive is written straight to the response, so there is no file to return
+        assertNull(result);
+        verify(mockManifestManager).writeManifestToResponse(eq(consumer.getUuid()), eq("cdn-label"),
+            eq("prefix"), eq("url"), any(Map.class), eq(response));
+        verify(mockManifestManager, never()).generateManifest(any(String.class), any(String.class),
+            any(String.class), any(String.class), any(Map.class));
+    }
+
+    @Test
+    public void testStreamingExportFailureThrowsIseException() throws Exception {
+        config.setProperty(ConfigProperties.STREAMING_EXPORT, "true");
+        Consumer consumer = this.createConsumer(this.createOwner(),
+            this.mockConsumerType(new ConsumerType(ConsumerType.ConsumerTypeEnum.CANDLEPIN)));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        doThrow(new ExportCreationException("failed")).when(mockManifestManager).writeManifestToResponse(
+            any(String.class), any(String.class), any(String.class), any(String.class), any(Map.class),
+            any(HttpServletResponse.class));
+
+        assertThrows(IseException.class, () -> consumerResource.exportData(response, consumer.getUuid(),
+            "cdn-label", "prefix", "url", new ArrayList<>()));
+    }
+
     @Test
     public void deleteConsumerThrowsGoneExceptionIfConsumerDoesNotExistOnInitialLookup() {
         String targetConsumerUuid = "my-test-consumer";
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resource;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.audit.EventSink;
+import org.candlepin.audit.QueueStatus;
+import org.candlepin.cache.ConsumerIdentityCache;
+import org.candlepin.cache.UserPrincipalCache;
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.metrics.MetricsRegistry;
+import org.candlepin.metrics.PrometheusWriter;
+import org.candlepin.metrics.RequestStatisticsRegistry;
+import org.candlepin.model.JobCurator;
+import org.candlepin.pinsetter.core.model.JobStatus.JobState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+
+
+/**
+ * MetricsResourceTest
+ */
+public class MetricsResourceTest {
+
+    @Mock private JobCurator jobCurator;
+    @Mock private EventSink eventSink;
+
+    private MetricsRegistry metricsRegistry;
+    private ConsumerIdentityCache consumerIdentityCache;
+    private MetricsResource resource;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        Map<JobState, Long> jobs = new EnumMap<>(JobState.class);
+        jobs.put(JobState.WAITING, 4L);
+        jobs.put(JobState.RUNNING, 1L);
+        when(jobCurator.countJobsByState(anyCollection())).thenReturn(jobs);
+
+        when(eventSink.getQueueInfo())
+            .thenReturn(Collections.singletonList(new QueueStatus("event.TestListener", 12)));
+
+        CandlepinCommonTestConfig config = new CandlepinCommonTestConfig();
+        config.setProperty(ConfigProperties.CONSUMER_IDENTITY_CACHE_TTL, "60");
+
+        this.metricsRegistry = new MetricsRegistry();
+        this.consumerIdentityCache = new ConsumerIdentityCache(config);
+        this.resource = new MetricsResource(this.metricsRegistry, new RequestStatisticsRegistry(),
+            this.jobCurator, this.eventSink, this.consumerIdentityCache, new UserPrincipalCache(config));
+    }
+
+    @Test
+    public void testExportsMetricsInPrometheusFormat() {
+        this.metricsRegistry.getResourceMethodMetrics("TestResource.get").requestStarted();
+        this.metricsRegistry.getResourceMethodMetrics("TestResource.get").requestCompleted(1000000, 200);
+        this.metricsRegistry.observeRuleCall("compliance_name_space.get_status", 1000000);
+
+        Response response = this.resource.getMetrics();
+        String output = (String) response.getEntity();
+
+        assertEquals(MediaType.valueOf(PrometheusWriter.CONTENT_TYPE), response.getMediaType());
+        assertTrue(output.contains(
+            "candlepin_http_request_duration_seconds_count{method=\"TestResource.get\"} 1\n"));
+        assertTrue(output.contains(
+            "candlepin_http_response_size_bytes_sum{method=\"TestResource.get\"} 200.0\n"));
+        assertTrue(output.contains("candlepin_http_requests_in_flight{method=\"TestResource.get\"} 0\n"));
+        assertTrue(output.contains("candlepin_rules_call_duration_seconds_count" +
+            "{function=\"compliance_name_space.get_status\"} 1\n"));
+        assertTrue(output.contains("candlepin_pinsetter_jobs{state=\"WAITING\"} 4\n"));
+        assertTrue(output.contains("candlepin_pinsetter_jobs{state=\"RUNNING\"} 1\n"));
+        assertTrue(output.contains(
+            "candlepin_event_queue_messages{queue=\"event.TestListener\"} 12\n"));
+    }
+
+    @Test
+    public void testExportsCacheStatistics() {
+        this.consumerIdentityCache.put("serial", "uuid", "id");
+        this.consumerIdentityCache.get("serial");
+        this.consumerIdentityCache.get("other");
+        this.consumerIdentityCache.get("serial");
+        this.consumerIdentityCache.get("serial");
+
+        String output = (String) this.resource.getMetrics().getEntity();
+
+        assertTrue(output.contains("candlepin_cache_entries{cache=\"consumer_identity\"} 1\n"));
+        assertTrue(output.contains("# TYPE candlepin_cache_hits_total counter\n"));
+        assertTrue(output.contains("candlepin_cache_hits_total{cache=\"consumer_identity\"} 3\n"));
+        assertTrue(output.contains("# TYPE candlepin_cache_misses_total counter\n"));
+        assertTrue(output.contains("candlepin_cache_misses_total{cache=\"consumer_identity\"} 1\n"));
+        assertTrue(output.contains("candlepin_cache_hits_total{cache=\"user_principal\"} 0\n"));
+        assertFalse(output.contains("candlepin_cache_hit_ratio"));
+    }
+
+    @Test
+    public void testHandlesMissingQueueInfo() {
+        when(eventSink.getQueueInfo()).thenReturn(null);
+
+        String output = (String) this.resource.getMetrics().getEntity();
+        assertFalse(output.contains("candlepin_event_queue_messages"));
+    }
+}
@@ -21,6 +21,7 @@ import org.candlepin.audit.EventSink;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.dto.StandardTranslator;
 import org.candlepin.jackson.ProductCachedSerializationModule;
+import org.candlepin.metrics.MetricsRegistry;
 import org.candlepin.model.CandlepinQuery;
 import org.candlepin.model.Consumer;
 import org.candlepin.model.ConsumerCurator;
@@ -123,7 +124,7 @@ public class InstalledProductStatusCalculatorTest {
         when(rulesCuratorMock.getRules()).thenReturn(rules);
         when(cacheProvider.get()).thenReturn(cache);
 
-        this.provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider);
+        this.provider = new JsRunnerProvider(rulesCuratorMock, cacheProvider, new MetricsRegistry());
         i18n = I18nFactory.getI18n(getClass(), "org.candlepin.i18n.Messages", locale, I18nFactory.FALLBACK);
 
         RulesObjectMapper objectMapper =
@@ -131,7 +132,7 @@ public class InstalledProductStatusCalculatorTest {
 
         this.complianceRules = new ComplianceRules(provider.get(), this.entCurator,
             new StatusReasonMessageGenerator(i18n), eventSink, this.consumerCurator, this.consumerTypeCurator,
-            objectMapper, translator);
+            this.poolCurator, objectMapper, translator);
 
         this.consumerEnricher = new ConsumerEnricher(this.complianceRules, this.ownerProductCurator);
     }
@@ -17,6 +17,8 @@ package org.candlepin.resteasy.filter;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.common.exceptions.BadRequestException;
+import org.candlepin.common.paging.Page;
 import org.candlepin.common.paging.PageRequest;
 import org.candlepin.model.Owner;
 import org.candlepin.resteasy.JsonProvider;
@@ -26,6 +28,8 @@ import org.candlepin.test.SessionWrapper;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.inject.Provider;
 
 import org.hibernate.Session;
@@ -53,6 +57,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
     private JsonFactory mockJsonFactory;
     private JsonGenerator mockJsonGenerator;
     private ObjectMapper mockObjectMapper;
+    private ObjectWriter mockObjectWriter;
     private OutputStream mockOutputStream;
     private Provider<EntityManager> emProvider;
     private Session session;
@@ -66,6 +71,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         this.mockJsonFactory = mock(JsonFactory.class);
         this.mockJsonGenerator = mock(JsonGenerator.class);
         this.mockObjectMapper = mock(ObjectMapper.class);
+        this.mockObjectWriter = mock(ObjectWriter.class);
         this.mockOutputStream = mock(OutputStream.class);
 
         try {
@@ -73,6 +79,9 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
                 .thenReturn(this.mockObjectMapper);
 
             when(this.mockObjectMapper.getJsonFactory()).thenReturn(this.mockJsonFactory);
+            when(this.mockObjectMapper.writer()).thenReturn(this.mockObjectWriter);
+            when(this.mockObjectWriter.without(any(SerializationFeature.class)))
+                .thenReturn(this.mockObjectWriter);
 
             when(this.mockJsonFactory.createGenerator(eq(this.mockOutputStream)))
                 .thenReturn(this.mockJsonGenerator);
@@ -110,7 +119,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
     public void testWriteCandlepinQueryContents() throws IOException {
         List<Owner> owners = this.ownerCurator.listAll().list();
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ServerResponse response = new ServerResponse();
         response.setEntity(this.ownerCurator.listAll());
@@ -123,11 +133,36 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
 
         verify(this.mockJsonGenerator, times(1)).writeStartArray();
         for (Owner owner : owners) {
-            verify(this.mockObjectMapper, times(1)).writeValue(eq(this.mockJsonGenerator), eq(owner));
+            verify(this.mockObjectWriter, times(1)).writeValue(eq(this.mockJsonGenerator), eq(owner));
         }
         verify(this.mockJsonGenerator, times(1)).writeEndArray();
     }
 
+    @Test
+    public void testStreamingFlushesAndClearsSessionPerBatch() throws IOException {
+        List<Owner> owners = this.ownerCurator.listAll().list();
+
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
+        cqi.streamBatchSize = 2;
+
+        ServerResponse response = new ServerResponse();
+        response.setEntity(this.ownerCurator.listAll());
+
+        cqi.postProcess(response);
+        ((StreamingOutput) response.getEntity()).write(this.mockOutputStream);
+
+        // Elements are never flushed individually
+        verify(this.mockObjectWriter).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        verify(this.mockObjectWriter, times(owners.size())).writeValue(eq(this.mockJsonGenerator), any());
+
+        // One flush and clear per complete batch, plus a final flush
+        int batches = owners.size() / 2;
+        verify(this.session, times(batches)).clear();
+        verify(this.mockJsonGenerator, times(batches + 1)).flush();
+        verify(this.session).close();
+    }
+
     private static Stream<Object[]> paramsForPaginatedContentTest() {
         return Stream.of(
             new Object[] { 1, 5, "key", PageRequest.Order.ASCENDING },
@@ -159,7 +194,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         pageRequest.setSortBy(sortBy);
         pageRequest.setOrder(order);
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ServerResponse response = new ServerResponse();
         response.setEntity(this.ownerCurator.listAll());
@@ -176,15 +212,67 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
             Owner owner = owners.get(i);
 
             if (i < offset || i >= end) {
-                verify(this.mockObjectMapper, never()).writeValue(eq(this.mockJsonGenerator), eq(owner));
+                verify(this.mockObjectWriter, never()).writeValue(eq(this.mockJsonGenerator), eq(owner));
             }
             else {
-                verify(this.mockObjectMapper, times(1)).writeValue(eq(this.mockJsonGenerator), eq(owner));
+                verify(this.mockObjectWriter, times(1)).writeValue(eq(this.mockJsonGenerator), eq(owner));
             }
         }
         verify(this.mockJsonGenerator, times(1)).writeEndArray();
     }
 
+    @Test
+    public void testWriteCursorPaginatedCandlepinQueryContents() throws IOException {
+        List<Owner> owners = this.ownerCurator.listAll()
+            .addOrder(Order.asc("key"))
+            .list();
+
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setPerPage(2);
+        pageRequest.setSortBy("key");
+        pageRequest.setOrder(PageRequest.Order.ASCENDING);
+        pageRequest.setCursor("");
+
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
+
+        ServerResponse response = new ServerResponse();
+        response.setEntity(this.ownerCurator.listAll());
+
+        ResteasyProviderFactory.pushContext(PageRequest.class, pageRequest);
+        cqi.postProcess(response);
+
+        Page page = ResteasyProviderFactory.getContextData(Page.class);
+        assertNotNull(page);
+        assertNotNull(page.getNextCursor());
+        assertNull(page.getMaxRecords());
+
+        ((StreamingOutput) response.getEntity()).write(this.mockOutputStream);
+
+        for (int i = 0; i < owners.size(); ++i) {
+            verify(this.mockObjectWriter, i < 2 ? times(1) : never())
+                .writeValue(eq(this.mockJsonGenerator), eq(owners.get(i)));
+        }
+    }
+
+    @Test
+    public void testInvalidCursorPagingRequestIsRejected() {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setPerPage(2);
+        pageRequest.setSortBy("bogus");
+        pageRequest.setCursor("");
+
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
+
+        ServerResponse response = new ServerResponse();
+        response.setEntity(this.ownerCurator.listAll());
+
+        ResteasyProviderFactory.pushContext(PageRequest.class, pageRequest);
+        assertThrows(BadRequestException.class, () -> cqi.postProcess(response));
+        verify(this.session).close();
+    }
+
     @Test
     public void testNonCandlepinQueryObjectsAreIgnored() {
         // This test can't possibly be all-inclusive, so we'll just test most our common cases
@@ -192,7 +280,8 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         // List of entities
         List<Owner> owners = this.ownerCurator.listAll().list();
 
-        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider);
+        CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(this.mockJsonProvider, this.emProvider,
+            this.i18nProvider);
 
         ServerResponse response = new ServerResponse();
         response.setEntity(owners);
@@ -217,7 +306,7 @@ public class CandlepinQueryInterceptorTest extends DatabaseTestFixture {
         final ServerResponse response = new ServerResponse();
         response.setEntity(this.ownerCurator.listAll());
         final CandlepinQueryInterceptor cqi = new CandlepinQueryInterceptor(
-            this.mockJsonProvider, this.emProvider);
+            this.mockJsonProvider, this.emProvider, this.i18nProvider);
 
         try {
             cqi.postProcess(response);
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.metrics.ResourceMethodMetrics;
+
+import org.jboss.resteasy.core.interception.PostMatchContainerRequestContext;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+
+
+/**
+ * MetricsFilterTest
+ */
+public class MetricsFilterTest {
+
+    private ResourceMethodMetrics metrics;
+    private MetricsFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        this.metrics = new ResourceMethodMetrics("FakeResource.get");
+        this.filter = new MetricsFilter(this.metrics);
+    }
+
+    private ContainerRequestContext createRequestContext(String method) throws Exception {
+        MockHttpRequest request = MockHttpRequest.create(method, "http://localhost/candlepin/fake");
+        return new PostMatchContainerRequestContext(request, null);
+    }
+
+    private ContainerResponseContext createResponseContext(boolean hasEntity) {
+        ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        doReturn(hasEntity).when(responseContext).hasEntity();
+
+        return responseContext;
+    }
+
+    private WriterInterceptorContext createWriterContext(ContainerRequestContext requestContext,
+        byte[] entity) throws IOException {
+
+        WriterInterceptorContext context = mock(WriterInterceptorContext.class);
+        doAnswer(invocation -> requestContext.getProperty(invocation.getArgument(0)))
+            .when(context).getProperty(anyString());
+        doAnswer(invocation -> {
+            requestContext.removeProperty(invocation.getArgument(0));
+            return null;
+        }).when(context).removeProperty(anyString());
+        OutputStream[] stream = { new ByteArrayOutputStream() };
+        doAnswer(invocation -> stream[0]).when(context).getOutputStream();
+        doAnswer(invocation -> {
+            stream[0] = invocation.getArgument(0);
+            return null;
+        }).when(context).setOutputStream(any(OutputStream.class));
+        doAnswer(invocation -> {
+            stream[0].write(entity);
+            return null;
+        }).when(context).proceed();
+
+        return context;
+    }
+
+    @Test
+    public void testRequestWithoutEntityCompletesInResponseFilter() throws Exception {
+        ContainerRequestContext requestContext = this.createRequestContext("DELETE");
+
+        this.filter.filter(requestContext);
+        assertEquals(1, this.metrics.getInFlight());
+
+        this.filter.filter(requestContext, this.createResponseContext(false));
+        assertEquals(0, this.metrics.getInFlight());
+        assertEquals(1, this.metrics.getLatency().getCount());
+        assertEquals(1, this.metrics.getResponseSize().getCount());
+        assertEquals(0, this.metrics.getResponseSize().getSum(), 0.0001);
+    }
+
+    @Test
+    public void testRequestWithEntityCompletesOnceWritten() throws Exception {
+        ContainerRequestContext requestContext = this.createRequestContext("GET");
+
+        this.filter.filter(requestContext);
+        this.filter.filter(requestContext, this.createResponseContext(true));
+
+        // Still being served until the entity is written
+        assertEquals(1, this.metrics.getInFlight());
+        assertEquals(0, this.metrics.getLatency().getCount());
+
+        this.filter.aroundWriteTo(this.createWriterContext(requestContext, new byte[1500]));
+
+        assertEquals(0, this.metrics.getInFlight());
+        assertEquals(1, this.metrics.getLatency().getCount());
+        assertEquals(1500, this.metrics.getResponseSize().getSum(), 0.0001);
+        assertNull(requestContext.getProperty(MetricsFilter.START_PROPERTY));
+    }
+
+    @Test
+    public void testHeadRequestCompletesInResponseFilter() throws Exception {
+        ContainerRequestContext requestContext = this.createRequestContext("HEAD");
+
+        this.filter.filter(requestContext);
+        this.filter.filter(requestContext, this.createResponseContext(true));
+
+        assertEquals(0, this.metrics.getInFlight());
+        assertEquals(1, this.metrics.getLatency().getCount());
+    }
+
+    @Test
+    public void testResponseWithoutRequestFilterIsNotRecorded() throws Exception {
+        ContainerRequestContext requestContext = this.createRequestContext("GET");
+
+        this.filter.filter(requestContext, this.createResponseContext(false));
+        this.filter.aroundWriteTo(this.createWriterContext(requestContext, new byte[10]));
+
+        assertEquals(0, this.metrics.getInFlight());
+        assertEquals(0, this.metrics.getLatency().getCount());
+    }
+}
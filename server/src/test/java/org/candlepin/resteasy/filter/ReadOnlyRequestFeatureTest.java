@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.resteasy.ReadOnlyRequest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.reflect.Method;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+
+
+
+/**
+ * ReadOnlyRequestFeatureTest
+ */
+public class ReadOnlyRequestFeatureTest {
+    public static class FakeResource {
+        @GET
+        @ReadOnlyRequest
+        public void readOnlyGet() {
+        }
+
+        @GET
+        public void get() {
+        }
+
+        @POST
+        @ReadOnlyRequest
+        public void readOnlyPost() {
+        }
+    }
+
+    @ReadOnlyRequest
+    public static class ReadOnlyResource {
+        @GET
+        public void get() {
+        }
+
+        @POST
+        public void post() {
+        }
+    }
+
+    @Mock private ReadOnlyRequestFilter readOnlyFilter;
+    @Mock private FeatureContext context;
+    @Mock private ResourceInfo resourceInfo;
+
+    private ReadOnlyRequestFeature feature;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        this.feature = new ReadOnlyRequestFeature(this.readOnlyFilter);
+    }
+
+    private void configure(Class<?> resource, String methodName) throws Exception {
+        Method method = resource.getMethod(methodName);
+
+        doReturn(resource).when(this.resourceInfo).getResourceClass();
+        doReturn(method).when(this.resourceInfo).getResourceMethod();
+
+        this.feature.configure(this.resourceInfo, this.context);
+    }
+
+    @Test
+    public void testConfigureWithAnnotatedGet() throws Exception {
+        this.configure(FakeResource.class, "readOnlyGet");
+        verify(this.context).register(eq(this.readOnlyFilter));
+    }
+
+    @Test
+    public void testConfigureWithoutAnnotation() throws Exception {
+        this.configure(FakeResource.class, "get");
+        verifyZeroInteractions(this.context);
+    }
+
+    @Test
+    public void testConfigureIgnoresAnnotatedPost() throws Exception {
+        this.configure(FakeResource.class, "readOnlyPost");
+        verifyZeroInteractions(this.context);
+    }
+
+    @Test
+    public void testConfigureWithAnnotatedClass() throws Exception {
+        this.configure(ReadOnlyResource.class, "get");
+        verify(this.context).register(eq(this.readOnlyFilter));
+    }
+
+    @Test
+    public void testConfigureWithAnnotatedClassIgnoresPost() throws Exception {
+        this.configure(ReadOnlyResource.class, "post");
+        verifyZeroInteractions(this.context);
+    }
+}
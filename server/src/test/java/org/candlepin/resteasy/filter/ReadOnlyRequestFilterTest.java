@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.resteasy.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.model.Owner;
+import org.candlepin.resteasy.ReadOnlyRequest;
+import org.candlepin.test.DatabaseTestFixture;
+
+import com.google.inject.Injector;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.jboss.resteasy.core.interception.PostMatchContainerRequestContext;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.ws.rs.GET;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+
+
+
+/**
+ * ReadOnlyRequestFilterTest
+ */
+public class ReadOnlyRequestFilterTest extends DatabaseTestFixture {
+    @Inject private Injector injector;
+
+    private EntityManager entityManager;
+    private ReadOnlyRequestFilter filter;
+    private ContainerRequestContext requestContext;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // Session event listeners cannot be removed from a session, so the filter is given a session
+        // of its own rather than the one shared by the test fixture.
+        this.entityManager = this.injector.getInstance(EntityManagerFactory.class).createEntityManager();
+        this.filter = new ReadOnlyRequestFilter(() -> this.entityManager);
+
+        ResourceInfo resourceInfo = mock(ResourceInfo.class);
+        doReturn(FakeResource.class).when(resourceInfo).getResourceClass();
+        doReturn(FakeResource.class.getMethod("get")).when(resourceInfo).getResourceMethod();
+        ResteasyProviderFactory.pushContext(ResourceInfo.class, resourceInfo);
+
+        MockHttpRequest request = MockHttpRequest.create("GET", "http://localhost/candlepin/fake");
+        this.requestContext = new PostMatchContainerRequestContext(request, null);
+    }
+
+    @AfterEach
+    public void closeEntityManager() {
+        if (this.entityManager.getTransaction().isActive()) {
+            this.entityManager.getTransaction().rollback();
+        }
+
+        this.entityManager.close();
+    }
+
+    private Session getSession() {
+        return this.entityManager.unwrap(Session.class);
+    }
+
+    @Test
+    public void testSessionIsReadOnly() throws Exception {
+        Owner owner = this.createOwner();
+        this.commitTransaction();
+
+        this.filter.filter(this.requestContext);
+
+        Session session = this.getSession();
+        assertTrue(session.isDefaultReadOnly());
+        assertEquals(FlushMode.MANUAL, session.getHibernateFlushMode());
+
+        Owner loaded = session.get(Owner.class, owner.getId());
+        assertNotNull(loaded);
+        assertTrue(session.isReadOnly(loaded));
+
+        // Changes to read-only entities are not dirty-checked and are never written
+        loaded.setDisplayName("changed");
+        assertFalse(session.isDirty());
+
+        this.filter.filter(this.requestContext, mock(ContainerResponseContext.class));
+    }
+
+    @Test
+    public void testFlushFails() throws Exception {
+        this.filter.filter(this.requestContext);
+
+        this.entityManager.getTransaction().begin();
+        this.entityManager.persist(new Owner("read_only_owner"));
+
+        assertThrows(IllegalStateException.class, () -> this.entityManager.flush());
+    }
+
+    @Test
+    public void testResponseFailsWithUnwrittenChanges() throws Exception {
+        this.filter.filter(this.requestContext);
+
+        this.entityManager.getTransaction().begin();
+        this.entityManager.persist(new Owner("read_only_owner"));
+
+        ContainerResponseContext responseContext = mock(ContainerResponseContext.class);
+        assertThrows(IllegalStateException.class,
+            () -> this.filter.filter(this.requestContext, responseContext));
+    }
+
+    @Test
+    public void testResponseIgnoresUnfilteredRequests() throws Exception {
+        this.entityManager.getTransaction().begin();
+        this.entityManager.persist(new Owner("read_write_owner"));
+
+        this.filter.filter(this.requestContext, mock(ContainerResponseContext.class));
+        assertFalse(this.getSession().isDefaultReadOnly());
+    }
+
+    /**
+     * FakeResource simply to create a Method object to pass down into the filter.
+     */
+    public static class FakeResource {
+        @GET
+        @ReadOnlyRequest
+        public void get() {
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.candlepin.service.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import org.candlepin.cache.ConsumerIdentityCache;
 import org.candlepin.model.CertificateSerial;
 import org.candlepin.model.CertificateSerialCurator;
 import org.candlepin.model.Consumer;
@@ -58,12 +59,13 @@ public class DefaultIdentityCertServiceAdapterTest {
     @Mock private IdentityCertificateCurator idcur;
     @Mock private KeyPairCurator kpc;
     @Mock private CertificateSerialCurator csc;
+    @Mock private ConsumerIdentityCache identityCache;
     private DefaultIdentityCertServiceAdapter dicsa;
 
 
     @BeforeEach
     public void setUp() {
-        dicsa = new DefaultIdentityCertServiceAdapter(pki, idcur, kpc, csc,
+        dicsa = new DefaultIdentityCertServiceAdapter(pki, idcur, kpc, csc, identityCache,
             new ExpiryDateFunction(1));
     }
 
@@ -138,6 +140,7 @@ public class DefaultIdentityCertServiceAdapterTest {
     @Test
     public void testRegenerateCallsDeletes() throws GeneralSecurityException, IOException {
         Consumer consumer = mock(Consumer.class);
+        when(consumer.getUuid()).thenReturn("consumer_uuid");
         IdentityCertificate mockic = mock(IdentityCertificate.class);
         when(consumer.getIdCert()).thenReturn(mockic);
         when(mockic.getId()).thenReturn("43");
@@ -184,7 +187,7 @@ public class DefaultIdentityCertServiceAdapterTest {
         assertNotNull(ic.getKeyAsBytes());
         verify(consumer).setIdCert(ic);
         verify(csc).create(any(CertificateSerial.class));
-
+        verify(identityCache).evict("consumer_uuid");
     }
 
     @Test
@@ -18,6 +18,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.auth.Access;
+import org.candlepin.auth.UserPrincipal;
+import org.candlepin.cache.UserPrincipalCache;
 import org.candlepin.model.Owner;
 import org.candlepin.model.PermissionBlueprintCurator;
 import org.candlepin.model.Role;
@@ -45,6 +47,7 @@ import javax.inject.Inject;
  */
 public class DefaultUserServiceAdapterTest extends DatabaseTestFixture {
     @Inject protected PermissionBlueprintCurator permissionCurator;
+    @Inject protected UserPrincipalCache principalCache;
 
     private DefaultUserServiceAdapter service;
     private Owner owner;
@@ -55,7 +58,7 @@ public class DefaultUserServiceAdapterTest extends DatabaseTestFixture {
         super.init();
         this.owner = ownerCurator.create(new Owner("default_owner"));
         this.service = new DefaultUserServiceAdapter(userCurator, roleCurator, permissionCurator,
-            ownerCurator, permissionFactory);
+            ownerCurator, permissionFactory, principalCache);
     }
 
     @Test
@@ -151,7 +154,7 @@ public class DefaultUserServiceAdapterTest extends DatabaseTestFixture {
         UserCurator curator = mock(UserCurator.class);
         RoleCurator roleCurator = mock(RoleCurator.class);
         UserServiceAdapter dusa = new DefaultUserServiceAdapter(curator, roleCurator, permissionCurator,
-            ownerCurator, permissionFactory);
+            ownerCurator, permissionFactory, principalCache);
         when(curator.findByLogin(anyString())).thenReturn(u);
 
         UserInfo foo = dusa.findByLogin("foo");
@@ -170,6 +173,52 @@ public class DefaultUserServiceAdapterTest extends DatabaseTestFixture {
         assertEquals(1, updated.getUsers().size());
     }
 
+    @Test
+    public void addUserToRoleEvictsCachedPrincipal() {
+        Role adminRole = createAdminRole(owner);
+        roleCurator.create(adminRole);
+        User user = new User("testuser", "password");
+        service.createUser(user);
+
+        this.principalCache.put(new UserPrincipal("testuser", null, false));
+        this.principalCache.put(new UserPrincipal("otheruser", null, false));
+        service.addUserToRole(adminRole.getName(), user.getUsername());
+
+        // The principal is only evicted once the change is committed
+        assertNotNull(this.principalCache.get("testuser"));
+        this.commitTransaction();
+
+        assertNull(this.principalCache.get("testuser"));
+        assertNotNull(this.principalCache.get("otheruser"));
+    }
+
+    @Test
+    public void addUserToRoleKeepsCachedPrincipalOnRollback() {
+        Role adminRole = createAdminRole(owner);
+        roleCurator.create(adminRole);
+        User user = new User("testuser", "password");
+        service.createUser(user);
+
+        this.principalCache.put(new UserPrincipal("testuser", null, false));
+        service.addUserToRole(adminRole.getName(), user.getUsername());
+        this.rollbackTransaction();
+
+        assertNotNull(this.principalCache.get("testuser"));
+    }
+
+    @Test
+    public void updateRoleClearsCachedPrincipals() {
+        Role adminRole = createAdminRole(owner);
+        roleCurator.create(adminRole);
+
+        this.principalCache.put(new UserPrincipal("testuser", null, false));
+        service.updateRole(adminRole.getName(), new Role("renamed"));
+
+        assertEquals(1, this.principalCache.size());
+        this.commitTransaction();
+        assertEquals(0, this.principalCache.size());
+    }
+
     @Test
     public void deleteUserRemovesUserFromRoles() {
         Role adminRole = createAdminRole(owner);
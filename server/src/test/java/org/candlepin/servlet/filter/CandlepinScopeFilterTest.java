@@ -18,6 +18,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.guice.CandlepinRequestScope;
+import org.candlepin.model.RequestEntityMap;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -36,6 +37,7 @@ public class CandlepinScopeFilterTest {
     private HttpServletRequest request;
     private HttpServletResponse response;
     private CandlepinRequestScope scope;
+    private RequestEntityMap requestEntityMap;
     private CandlepinScopeFilter filter;
     private FilterChain chain;
 
@@ -45,7 +47,8 @@ public class CandlepinScopeFilterTest {
         response = mock(HttpServletResponse.class);
         chain = mock(FilterChain.class);
         scope = mock(CandlepinRequestScope.class);
-        filter = new CandlepinScopeFilter(scope);
+        requestEntityMap = mock(RequestEntityMap.class);
+        filter = new CandlepinScopeFilter(scope, () -> requestEntityMap);
     }
 
     @Test
@@ -55,6 +58,12 @@ public class CandlepinScopeFilterTest {
         verify(scope).exit();
     }
 
+    @Test
+    public void ensureFilterEnablesRequestEntityMap() throws Exception {
+        filter.doFilter(request, response, chain);
+        verify(requestEntityMap).enable();
+    }
+
     @Test
     public void ensureFilterExitsScopeOnError() throws Exception {
         doThrow(new ServletException()).when(chain).doFilter(request, response);
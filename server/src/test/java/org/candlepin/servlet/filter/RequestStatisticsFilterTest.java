@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.servlet.filter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.config.CandlepinCommonTestConfig;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.hibernate.RequestStatementInspector;
+import org.candlepin.hibernate.RequestStatistics;
+import org.candlepin.metrics.EndpointStatistics;
+import org.candlepin.metrics.RequestStatisticsRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+
+
+/**
+ * RequestStatisticsFilterTest
+ */
+public class RequestStatisticsFilterTest {
+
+    private CandlepinCommonTestConfig config;
+    private RequestStatisticsRegistry registry;
+    private ServletRequest request;
+    private ServletResponse response;
+
+    @Before
+    public void init() {
+        this.config = new CandlepinCommonTestConfig();
+        this.config.setProperty(ConfigProperties.REQUEST_STATISTICS_ENABLED, "true");
+        this.config.setProperty(ConfigProperties.REQUEST_STATISTICS_STATEMENT_THRESHOLD, "2");
+
+        this.registry = new RequestStatisticsRegistry();
+        this.request = mock(ServletRequest.class);
+        this.response = mock(ServletResponse.class);
+    }
+
+    private FilterChain prepareStatements(String endpoint, int count) throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            RequestStatistics stats = RequestStatistics.current();
+            assertNotNull(stats);
+
+            if (endpoint != null) {
+                stats.setEndpoint(endpoint);
+            }
+
+            RequestStatementInspector inspector = new RequestStatementInspector();
+            for (int i = 0; i < count; ++i) {
+                inspector.inspect("select 1");
+            }
+
+            return null;
+        }).when(chain).doFilter(this.request, this.response);
+
+        return chain;
+    }
+
+    @Test
+    public void testRecordsStatisticsByEndpoint() throws Exception {
+        RequestStatisticsFilter filter = new RequestStatisticsFilter(this.config, this.registry);
+
+        filter.doFilter(this.request, this.response, this.prepareStatements("TestResource.get", 1));
+        filter.doFilter(this.request, this.response, this.prepareStatements("TestResource.get", 2));
+        filter.doFilter(this.request, this.response, this.prepareStatements(null, 0));
+
+        assertNull(RequestStatistics.current());
+
+        EndpointStatistics stats = this.registry.getEndpointStatistics("TestResource.get");
+        assertNotNull(stats);
+        assertEquals(2, stats.getRequests());
+        assertEquals(0, stats.getSlowRequests());
+        assertEquals(3, stats.getStatements().getSum(), 0.0001);
+
+        stats = this.registry.getEndpointStatistics(RequestStatisticsRegistry.UNMATCHED_ENDPOINT);
+        assertNotNull(stats);
+        assertEquals(1, stats.getRequests());
+    }
+
+    @Test
+    public void testCountsRequestsExceedingThresholds() throws Exception {
+        RequestStatisticsFilter filter = new RequestStatisticsFilter(this.config, this.registry);
+
+        filter.doFilter(this.request, this.response, this.prepareStatements("TestResource.get", 3));
+
+        EndpointStatistics stats = this.registry.getEndpointStatistics("TestResource.get");
+        assertEquals(1, stats.getRequests());
+        assertEquals(1, stats.getSlowRequests());
+    }
+
+    @Test
+    public void testRecordsStatisticsWhenRequestFails() throws Exception {
+        RequestStatisticsFilter filter = new RequestStatisticsFilter(this.config, this.registry);
+        FilterChain chain = mock(FilterChain.class);
+        doThrow(new RuntimeException("failed")).when(chain).doFilter(this.request, this.response);
+
+        try {
+            filter.doFilter(this.request, this.response, chain);
+            fail("Expected exception was not thrown");
+        }
+        catch (RuntimeException e) {
+            // expected
+        }
+
+        assertNull(RequestStatistics.current());
+        assertEquals(1, this.registry.getEndpointStatistics().size());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        this.config.setProperty(ConfigProperties.REQUEST_STATISTICS_ENABLED, "false");
+        RequestStatisticsFilter filter = new RequestStatisticsFilter(this.config, this.registry);
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            assertNull(RequestStatistics.current());
+            return null;
+        }).when(chain).doFilter(this.request, this.response);
+
+        filter.doFilter(this.request, this.response, chain);
+
+        verify(chain).doFilter(this.request, this.response);
+        assertTrue(this.registry.getEndpointStatistics().isEmpty());
+    }
+}
@@ -18,6 +18,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.auth.Principal;
+import org.candlepin.cache.ExportCache;
 import org.candlepin.common.config.MapConfiguration;
 import org.candlepin.common.util.VersionUtil;
 import org.candlepin.config.CandlepinCommonTestConfig;
@@ -38,6 +39,7 @@ import org.candlepin.model.DistributorVersion;
 import org.candlepin.model.DistributorVersionCapability;
 import org.candlepin.model.DistributorVersionCurator;
 import org.candlepin.model.Entitlement;
+import org.candlepin.model.EntitlementCertificate;
 import org.candlepin.model.EntitlementCurator;
 import org.candlepin.model.EnvironmentCurator;
 import org.candlepin.model.IdentityCertificate;
@@ -61,10 +63,13 @@ import org.candlepin.test.MockResultIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -75,12 +80,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -124,6 +131,7 @@ public class ExporterTest {
     private SyncUtils su;
     private ExportExtensionAdapter exportExtensionAdapter;
     private ModelTranslator translator;
+    private ExportCache exportCache;
 
     @Before
     public void setUp() {
@@ -155,6 +163,7 @@ public class ExporterTest {
         ProductCachedSerializationModule productCachedModule = new ProductCachedSerializationModule(pc);
         su = new SyncUtils(config, productCachedModule);
         exportExtensionAdapter = mock(ExportExtensionAdapter.class);
+        exportCache = new ExportCache(config);
 
         when(exportRules.canExport(any(Entitlement.class))).thenReturn(Boolean.TRUE);
     }
@@ -271,7 +280,7 @@ public class ExporterTest {
         // FINALLY test this badboy
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
 
         File export = e.getFullExport(consumer);
 
@@ -326,7 +335,7 @@ public class ExporterTest {
 
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
 
         e.getFullExport(consumer);
     }
@@ -368,7 +377,7 @@ public class ExporterTest {
         // FINALLY test this badboy
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
         File export = e.getFullExport(consumer);
 
         // VERIFY
@@ -420,7 +429,7 @@ public class ExporterTest {
         // FINALLY test this badboy
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
         File export = e.getFullExport(consumer);
 
         // VERIFY
@@ -478,7 +487,7 @@ public class ExporterTest {
         // FINALLY test this badboy
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
         File export = e.getFullExport(consumer);
 
         verifyContent(export, "export/consumer.json", new VerifyConsumer("consumer.json"));
@@ -542,7 +551,7 @@ public class ExporterTest {
         // FINALLY test this badboy
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
         File export = e.getFullExport(consumer);
 
         verifyContent(export, "export/distributor_version/test-dist-ver.json",
@@ -560,7 +569,7 @@ public class ExporterTest {
         Map<String, String> extensionData = new HashMap<>();
         Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
             pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
-            exportExtensionAdapter, translator);
+            exportExtensionAdapter, translator, exportCache);
 
         Principal principal = mock(Principal.class);
         when(pprov.get()).thenReturn(principal);
@@ -588,6 +597,234 @@ public class ExporterTest {
         verify(exportExtensionAdapter).extendManifest(any(File.class), eq(consumer), eq(extensionData));
     }
 
+    private Consumer mockStreamedExport(java.security.KeyPair signingKeys) throws Exception {
+        config.setProperty(ConfigProperties.SYNC_WORK_DIR, "/tmp/");
+        config.setProperty(ConfigProperties.STREAMING_EXPORT, "true");
+
+        Rules mrules = mock(Rules.class);
+        Consumer consumer = mock(Consumer.class);
+        Principal principal = mock(Principal.class);
+        IdentityCertificate idcert = new IdentityCertificate();
+
+        when(consumer.getUuid()).thenReturn("streamed-consumer");
+        when(mrules.getRules()).thenReturn("foobar");
+        when(rc.getRules()).thenReturn(mrules);
+        when(pprov.get()).thenReturn(principal);
+        when(principal.getUsername()).thenReturn("testUser");
+        when(pki.getSHA256WithRSASigner()).thenAnswer(invocation -> {
+            Signature signer = Signature.getInstance("SHA256withRSA");
+            signer.initSign(signingKeys.getPrivate());
+            return signer;
+        });
+
+        idcert.setSerial(new CertificateSerial(10L, new Date()));
+        idcert.setKey("euh0876puhapodifbvj094");
+        idcert.setCert("hpj-08ha-w4gpoknpon*)&^%#");
+        idcert.setCreated(new Date());
+        idcert.setUpdated(new Date());
+        when(consumer.getIdCert()).thenReturn(idcert);
+
+        CandlepinQuery cqmock = mock(CandlepinQuery.class);
+        when(cqmock.iterator()).thenAnswer(invocation ->
+            Arrays.asList(new ConsumerType("system")).iterator());
+        when(ctc.listAll()).thenReturn(cqmock);
+
+        CandlepinQuery emptyIteratorMock = mock(CandlepinQuery.class);
+        when(emptyIteratorMock.iterate()).thenReturn(new MockResultIterator(Arrays.asList().iterator()));
+        when(cdnc.listAll()).thenReturn(emptyIteratorMock);
+
+        return consumer;
+    }
+
+    private Map<String, byte[]> readEntries(InputStream input) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+
+        try (ZipInputStream zis = new ZipInputStream(input)) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toByteArray(zis));
+            }
+        }
+
+        return entries;
+    }
+
+    @Test
+    public void streamedExportIsSignedAsItIsWritten() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        java.security.KeyPair signingKeys = generator.generateKeyPair();
+        Consumer consumer = this.mockStreamedExport(signingKeys);
+
+        doAnswer(invocation -> {
+            File extensionDir = invocation.getArgument(0);
+            FileUtils.writeStringToFile(new File(extensionDir, "extension.txt"), "extended");
+            return null;
+        }).when(exportExtensionAdapter).extendManifest(any(File.class), eq(consumer), anyMap());
+
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
+            pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
+            exportExtensionAdapter, translator, exportCache);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        e.writeFullExport(consumer, null, null, null, new HashMap<>(), output);
+
+        Map<String, byte[]> archive = this.readEntries(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(Arrays.asList("consumer_export.zip", "signature"), new ArrayList<>(archive.keySet()));
+
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(signingKeys.getPublic());
+        verifier.update(archive.get("consumer_export.zip"));
+        assertTrue(verifier.verify(archive.get("signature")));
+
+        Map<String, byte[]> export = this.readEntries(new ByteArrayInputStream(
+            archive.get("consumer_export.zip")));
+        assertTrue(export.containsKey("export/meta.json"));
+        assertTrue(export.containsKey("export/consumer.json"));
+        assertTrue(export.containsKey("export/upstream_consumer/10.json"));
+        assertTrue(export.containsKey("export/consumer_types/system.json"));
+        assertEquals("foobar", new String(export.get("export/rules2/rules.js")));
+        assertTrue(export.get("export/rules/default-rules.js").length > 0);
+        assertEquals("extended", new String(export.get("export/extensions/extension.txt")));
+
+        verify(pki, never()).getSHA256WithRSAHash(any(InputStream.class));
+    }
+
+    @Test
+    public void unchangedConsumerExportIsServedFromCache() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        java.security.KeyPair signingKeys = generator.generateKeyPair();
+        Consumer consumer = this.mockStreamedExport(signingKeys);
+        when(rc.getUpdated()).thenReturn(new Date(1000L));
+
+        config.setProperty(ConfigProperties.EXPORT_CACHE_TTL, "60");
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
+            pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
+            exportExtensionAdapter, translator, new ExportCache(config));
+
+        when(pprov.get().getName()).thenReturn("first-user", "second-user");
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        e.writeFullExport(consumer, "cdn", null, null, new HashMap<>(), first);
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        e.writeFullExport(consumer, "cdn", null, null, new HashMap<>(), second);
+
+        verify(exportExtensionAdapter, times(1)).extendManifest(any(File.class), eq(consumer), anyMap());
+
+        // The cached content is served again, but with its own metadata and signature
+        Map<String, byte[]> firstArchive = this.readEntries(new ByteArrayInputStream(first.toByteArray()));
+        Map<String, byte[]> secondArchive = this.readEntries(new ByteArrayInputStream(second.toByteArray()));
+        Map<String, byte[]> firstExport = this.readEntries(new ByteArrayInputStream(
+            firstArchive.get("consumer_export.zip")));
+        Map<String, byte[]> secondExport = this.readEntries(new ByteArrayInputStream(
+            secondArchive.get("consumer_export.zip")));
+
+        assertEquals(firstExport.keySet(), secondExport.keySet());
+        assertArrayEquals(firstExport.get("export/consumer.json"), secondExport.get("export/consumer.json"));
+        assertEquals("first-user", su.getObjectMapper().readValue(firstExport.get("export/meta.json"),
+            Meta.class).getPrincipalName());
+        assertEquals("second-user", su.getObjectMapper().readValue(secondExport.get("export/meta.json"),
+            Meta.class).getPrincipalName());
+
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(signingKeys.getPublic());
+        verifier.update(secondArchive.get("consumer_export.zip"));
+        assertTrue(verifier.verify(secondArchive.get("signature")));
+
+        // Different export parameters or updated rules require a new archive
+        e.writeFullExport(consumer, "other-cdn", null, null, new HashMap<>(), new ByteArrayOutputStream());
+        verify(exportExtensionAdapter, times(2)).extendManifest(any(File.class), eq(consumer), anyMap());
+
+        when(rc.getUpdated()).thenReturn(new Date(2000L));
+        e.writeFullExport(consumer, "other-cdn", null, null, new HashMap<>(), new ByteArrayOutputStream());
+        verify(exportExtensionAdapter, times(3)).extendManifest(any(File.class), eq(consumer), anyMap());
+
+        // So do changed entitlements or products
+        Object[] state = new Object[] { "ent", new Date(3000L), 1, false, "pool", new Date(3000L) };
+        when(ec.getEntitlementStates(consumer)).thenReturn(Collections.singletonList(state));
+        e.writeFullExport(consumer, "other-cdn", null, null, new HashMap<>(), new ByteArrayOutputStream());
+        verify(exportExtensionAdapter, times(4)).extendManifest(any(File.class), eq(consumer), anyMap());
+
+        when(ec.getEntitledPoolProductUuids(consumer)).thenReturn(Collections.singleton("product-uuid"));
+        e.writeFullExport(consumer, "other-cdn", null, null, new HashMap<>(), new ByteArrayOutputStream());
+        verify(exportExtensionAdapter, times(5)).extendManifest(any(File.class), eq(consumer), anyMap());
+    }
+
+    @Test
+    public void exportLargerThanCacheLimitIsNotCached() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        Consumer consumer = this.mockStreamedExport(generator.generateKeyPair());
+        when(rc.getUpdated()).thenReturn(new Date(1000L));
+
+        config.setProperty(ConfigProperties.EXPORT_CACHE_TTL, "60");
+        config.setProperty(ConfigProperties.EXPORT_CACHE_MAX_ARCHIVE_SIZE, "16");
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
+            pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
+            exportExtensionAdapter, translator, new ExportCache(config));
+
+        e.writeFullExport(consumer, "cdn", null, null, new HashMap<>(), new ByteArrayOutputStream());
+        e.writeFullExport(consumer, "cdn", null, null, new HashMap<>(), new ByteArrayOutputStream());
+
+        verify(exportExtensionAdapter, times(2)).extendManifest(any(File.class), eq(consumer), anyMap());
+    }
+
+    @Test
+    public void cachedEntitlementCertificatesAreReused() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        Consumer consumer = this.mockStreamedExport(generator.generateKeyPair());
+
+        config.setProperty(ConfigProperties.EXPORT_CACHE_TTL, "60");
+        ExportCache cache = new ExportCache(config);
+        cache.putFragment("entitlement-cert:42", "cached-cert".getBytes());
+
+        EntitlementCertificate cert = new EntitlementCertificate();
+        cert.setSerial(new CertificateSerial(42L, new Date()));
+        cert.setCert("fresh-cert");
+        cert.setKey("fresh-key");
+        cert.setEntitlement(mock(Entitlement.class));
+        when(ecsa.listForConsumer(consumer)).thenReturn(Arrays.asList(cert));
+
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
+            pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
+            exportExtensionAdapter, translator, cache);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        e.writeFullExport(consumer, null, null, null, new HashMap<>(), output);
+
+        Map<String, byte[]> archive = this.readEntries(new ByteArrayInputStream(output.toByteArray()));
+        Map<String, byte[]> export = this.readEntries(new ByteArrayInputStream(
+            archive.get("consumer_export.zip")));
+
+        assertEquals("cached-cert", new String(export.get("export/entitlement_certificates/42.pem")));
+    }
+
+    @Test
+    public void streamedFullExportIsWrittenToSingleFile() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        Consumer consumer = this.mockStreamedExport(generator.generateKeyPair());
+        Date start = new Date();
+
+        Exporter e = new Exporter(ctc, oc, me, ce, cte, re, ece, ecsa, pe, psa,
+            pce, ec, ee, pki, config, exportRules, pprov, dvc, dve, cdnc, cdne, pc, su,
+            exportExtensionAdapter, translator, exportCache);
+        File export = e.getFullExport(consumer);
+
+        assertNotNull(export);
+        assertEquals("streamed-consumer-export.zip", export.getName());
+        assertEquals(1, export.getParentFile().listFiles().length);
+        verifyContent(export, "export/meta.json", new VerifyMetadata(start));
+
+        // cleanup the mess
+        FileUtils.deleteDirectory(export.getParentFile());
+        assertTrue(new File("/tmp/consumer_export.zip").delete());
+        assertTrue(new File("/tmp/meta.json").delete());
+    }
+
     /**
      * return true if export has a given entry named name.
      * @param export zip file to inspect
@@ -28,6 +28,7 @@ import org.candlepin.dto.StandardTranslator;
 import org.candlepin.dto.manifest.v1.ConsumerDTO;
 import org.candlepin.dto.manifest.v1.ConsumerTypeDTO;
 import org.candlepin.dto.manifest.v1.OwnerDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
 import org.candlepin.dto.manifest.v1.SubscriptionDTO;
 import org.candlepin.jackson.ProductCachedSerializationModule;
 import org.candlepin.model.CertificateSerialCurator;
@@ -74,6 +75,7 @@ import org.mockito.Mockito;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -83,7 +85,9 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.net.URISyntaxException;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -471,6 +475,170 @@ public class ImporterTest {
         i.loadExport(owner, archive, co, "original_file.zip");
     }
 
+    @Test(expected = ImportConflictException.class)
+    public void testStreamingImportBadSignature() throws Exception {
+        config.setProperty(ConfigProperties.STREAMING_IMPORT, "true");
+        PKIUtility pki = mock(PKIUtility.class);
+        when(pki.getSHA256WithRSAVerifiers()).thenReturn(new ArrayList<>());
+        Importer i = new Importer(null, null, null, null, null, null, null,
+            pki, config, null, null, null, i18n,
+            null, null, su, null, this.mockSubReconciler, this.ec, this.translator);
+        Owner owner = mock(Owner.class);
+        ConflictOverrides co = mock(ConflictOverrides.class);
+
+        File archive = new File(folder.getRoot(), "file.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        File ceArchive = new File(folder.getRoot(), "consumer_export.zip");
+        ZipOutputStream cezip = new ZipOutputStream(new FileOutputStream(ceArchive));
+        cezip.putNextEntry(new ZipEntry("export/meta.json"));
+        cezip.close();
+        addFileToArchive(out, ceArchive);
+        out.putNextEntry(new ZipEntry("signature"));
+        out.write("This is the placeholder for the signature file".getBytes());
+        out.close();
+
+        i.loadExport(owner, archive, co, "original_file.zip");
+    }
+
+    @Test
+    public void testStreamingImportRejectsMultipleConsumerExports() throws Exception {
+        config.setProperty(ConfigProperties.STREAMING_IMPORT, "true");
+        PKIUtility pki = mock(PKIUtility.class);
+        when(pki.getSHA256WithRSAVerifiers()).thenReturn(new ArrayList<>());
+        Importer i = new Importer(null, null, null, null, null, null, null,
+            pki, config, null, null, null, i18n,
+            null, null, su, null, this.mockSubReconciler, this.ec, this.translator);
+        Owner owner = mock(Owner.class);
+        ConflictOverrides co = mock(ConflictOverrides.class);
+        when(co.isForced(Importer.Conflict.SIGNATURE_CONFLICT)).thenReturn(true);
+
+        ByteArrayOutputStream forged = new ByteArrayOutputStream();
+        ZipOutputStream cezip = new ZipOutputStream(forged);
+        cezip.putNextEntry(new ZipEntry("export/products/forged.json"));
+        cezip.write("{\"id\":\"forged\"}".getBytes());
+        cezip.close();
+
+        ByteArrayOutputStream genuine = new ByteArrayOutputStream();
+        cezip = new ZipOutputStream(genuine);
+        cezip.putNextEntry(new ZipEntry("export/meta.json"));
+        cezip.write("{}".getBytes());
+        cezip.close();
+
+        File archive = new File(folder.getRoot(), "file.zip");
+        try (FileOutputStream fos = new FileOutputStream(archive)) {
+            fos.write(TestSyncUtils.zipWithRepeatedEntries(Arrays.asList(
+                new SimpleEntry<>("consumer_export.zip", forged.toByteArray()),
+                new SimpleEntry<>("consumer_export.zip", genuine.toByteArray()),
+                new SimpleEntry<>("signature", "placeholder signature".getBytes()))));
+        }
+
+        ee.expect(ImportExtractionException.class);
+        ee.expectMessage("Unable to extract export archive");
+        i.loadExport(owner, archive, co, "original_file.zip");
+    }
+
+    @Test
+    public void testStreamingImportBadConsumerZip() throws Exception {
+        config.setProperty(ConfigProperties.STREAMING_IMPORT, "true");
+        PKIUtility pki = mock(PKIUtility.class);
+        when(pki.getSHA256WithRSAVerifiers()).thenReturn(new ArrayList<>());
+        Importer i = new Importer(null, null, null, null, null, null, null,
+            pki, config, null, null, null, i18n,
+            null, null, su, null, this.mockSubReconciler, this.ec, this.translator);
+        Owner owner = mock(Owner.class);
+        ConflictOverrides co = mock(ConflictOverrides.class);
+        when(co.isForced(Importer.Conflict.SIGNATURE_CONFLICT)).thenReturn(true);
+
+        File archive = new File(folder.getRoot(), "file.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        out.putNextEntry(new ZipEntry("signature"));
+        out.write("This is the placeholder for the signature file".getBytes());
+        File ceArchive = new File(folder.getRoot(), "consumer_export.zip");
+        FileOutputStream fos = new FileOutputStream(ceArchive);
+        fos.write("This is just a flat file".getBytes());
+        fos.close();
+        addFileToArchive(out, ceArchive);
+        out.close();
+
+        ee.expect(ImportExtractionException.class);
+        ee.expectMessage("not a properly compressed file or is empty");
+        i.loadExport(owner, archive, co, "original_file.zip");
+    }
+
+    @Test
+    public void testStreamingImportZipSigAndEmptyConsumerZip() throws Exception {
+        config.setProperty(ConfigProperties.STREAMING_IMPORT, "true");
+        PKIUtility pki = mock(PKIUtility.class);
+        when(pki.getSHA256WithRSAVerifiers()).thenReturn(new ArrayList<>());
+        Importer i = new Importer(null, null, null, null, null, null, null,
+            pki, config, null, null, null, i18n,
+            null, null, su, null, this.mockSubReconciler, this.ec, this.translator);
+        Owner owner = mock(Owner.class);
+        ConflictOverrides co = mock(ConflictOverrides.class);
+        when(co.isForced(Importer.Conflict.SIGNATURE_CONFLICT)).thenReturn(true);
+
+        File archive = new File(folder.getRoot(), "file.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        out.putNextEntry(new ZipEntry("signature"));
+        out.write("This is the placeholder for the signature file".getBytes());
+        File ceArchive = new File(folder.getRoot(), "consumer_export.zip");
+        ZipOutputStream cezip = new ZipOutputStream(new FileOutputStream(ceArchive));
+        cezip.putNextEntry(new ZipEntry("no_content"));
+        cezip.close();
+        addFileToArchive(out, ceArchive);
+        out.close();
+
+        ee.expect(ImportExtractionException.class);
+        ee.expectMessage("consumer_export archive has no contents");
+        i.loadExport(owner, archive, co, "original_file.zip");
+    }
+
+    @Test
+    public void testImportProductsInParallel() throws Exception {
+        config.setProperty(ConfigProperties.IMPORT_THREADS, "4");
+        Importer i = new Importer(null, null, null, null, null, null, null,
+            null, config, null, null, null, i18n,
+            null, null, su, null, this.mockSubReconciler, this.ec, this.translator);
+        Owner owner = new Owner("admin", "Admin Owner");
+
+        List<File> files = new ArrayList<>();
+        for (int index = 0; index < 20; ++index) {
+            Product prod = new Product("prod-" + index, "Product " + index, null);
+            File prodFile = new File(folder.getRoot(), prod.getId() + ".json");
+            mapper.writeValue(prodFile, prod);
+            files.add(prodFile);
+            files.add(new File(folder.getRoot(), prod.getId() + ".pem"));
+        }
+
+        Set<ProductDTO> products = i.importProducts(files.toArray(new File[0]), new ProductImporter(), owner);
+
+        assertEquals(20, products.size());
+        Set<String> ids = new HashSet<>();
+        for (ProductDTO product : products) {
+            ids.add(product.getId());
+        }
+        assertTrue(ids.contains("prod-0"));
+        assertTrue(ids.contains("prod-19"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParallelImportPropagatesReadFailures() throws Exception {
+        config.setProperty(ConfigProperties.IMPORT_THREADS, "4");
+        Importer i = new Importer(null, null, null, null, null, null, null,
+            null, config, null, null, null, i18n,
+            null, null, su, null, this.mockSubReconciler, this.ec, this.translator);
+        Owner owner = new Owner("admin", "Admin Owner");
+
+        File good = new File(folder.getRoot(), "good.json");
+        mapper.writeValue(good, new Product("good", "Good Product", null));
+        File bad = new File(folder.getRoot(), "bad.json");
+        FileWriter writer = new FileWriter(bad);
+        writer.write("{ this is not json");
+        writer.close();
+
+        i.importProducts(new File[] { good, bad }, new ProductImporter(), owner);
+    }
+
     private Map<String, File> getTestImportFiles() {
         Map<String, File> importFiles = new HashMap<>();
         importFiles.put(ImportFile.META.fileName(), mock(File.class));
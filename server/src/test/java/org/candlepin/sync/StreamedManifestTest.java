@@ -0,0 +1,313 @@
+/**
+ * Copyright (c) 2009 - 2019 Red Hat, Inc.
+ *
+ * This software is licensed to you under the GNU General Public License,
+ * version 2 (GPLv2). There is NO WARRANTY for this software, express or
+ * implied, including the implied warranties of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. You should have received a copy of GPLv2
+ * along with this software; if not, see
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt.
+ *
+ * Red Hat trademarks are not licensed under GPLv2. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.sync;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.candlepin.common.config.MapConfiguration;
+import org.candlepin.config.ConfigProperties;
+import org.candlepin.dto.manifest.v1.EntitlementDTO;
+import org.candlepin.dto.manifest.v1.ProductDTO;
+import org.candlepin.model.Owner;
+import org.candlepin.pki.PKIUtility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+
+/**
+ * StreamedManifestTest
+ */
+public class StreamedManifestTest {
+
+    private ObjectMapper mapper;
+    private PKIUtility pki;
+    private KeyPair keyPair;
+    private Owner owner;
+
+    @Before
+    public void init() throws Exception {
+        this.mapper = TestSyncUtils.getTestSyncUtils(new MapConfiguration(
+            new HashMap<String, String>() {
+                {
+                    put(ConfigProperties.FAIL_ON_UNKNOWN_IMPORT_PROPERTIES, "false");
+                }
+            }
+        ));
+        this.owner = new Owner("test_owner", "Test Owner");
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.keyPair = generator.generateKeyPair();
+
+        this.pki = mock(PKIUtility.class);
+        when(this.pki.getSHA256WithRSAVerifiers()).thenAnswer(invocation -> {
+            Signature verifier = Signature.getInstance("SHA256withRSA");
+            verifier.initVerify(this.keyPair.getPublic());
+            return Collections.singletonList(verifier);
+        });
+    }
+
+    private byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private byte[] sign(byte[] data) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(this.keyPair.getPrivate());
+        signature.update(data);
+
+        return signature.sign();
+    }
+
+    private byte[] buildManifest(byte[] consumerExport, byte[] signature) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(StreamedManifest.CONSUMER_EXPORT, consumerExport);
+
+        if (signature != null) {
+            entries.put(StreamedManifest.SIGNATURE, signature);
+        }
+
+        return this.zip(entries);
+    }
+
+    private byte[] buildConsumerExport() throws IOException {
+        ProductDTO product = new ProductDTO();
+        product.setId("test_product");
+        product.setName("Test Product");
+
+        EntitlementDTO entitlement = new EntitlementDTO();
+        entitlement.setId("test_entitlement");
+        entitlement.setQuantity(5);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("export/meta.json", "{}".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/consumer.json", "{}".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/consumer_types/system.json", "{}".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/rules2/rules.js", "// rules".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/entitlements/test_entitlement.json", this.mapper.writeValueAsBytes(entitlement));
+        entries.put("export/entitlement_certificates/1234.pem", "pem".getBytes(StandardCharsets.UTF_8));
+        entries.put("export/products/test_product.json", this.mapper.writeValueAsBytes(product));
+        entries.put("export/products/test_product.pem", "pem".getBytes(StandardCharsets.UTF_8));
+
+        return this.zip(entries);
+    }
+
+    private StreamedManifest read(byte[] archive) throws Exception {
+        StreamedManifest manifest = new StreamedManifest(this.mapper, this.pki, new ProductImporter(),
+            this.owner);
+
+        manifest.read(new ByteArrayInputStream(archive));
+        return manifest;
+    }
+
+    @Test
+    public void testReadsManifestWithoutExtraction() throws Exception {
+        byte[] consumerExport = this.buildConsumerExport();
+        StreamedManifest manifest = this.read(this.buildManifest(consumerExport, this.sign(consumerExport)));
+
+        assertTrue(manifest.hasArchiveEntries());
+        assertTrue(manifest.hasConsumerExport());
+        assertTrue(manifest.hasConsumerExportEntries());
+        assertTrue(manifest.hasExportContents());
+        assertNull(manifest.getExtractionError());
+        assertTrue(manifest.isSignatureVerified());
+
+        // Nothing is deserialized until the content is read in a second pass
+        assertTrue(manifest.getProducts().isEmpty());
+        assertTrue(manifest.getEntitlements().isEmpty());
+        assertFalse(manifest.isContentRead());
+
+        manifest.readContent(new ByteArrayInputStream(this.buildManifest(consumerExport,
+            this.sign(consumerExport))));
+        assertTrue(manifest.isContentRead());
+
+        assertNotNull(manifest.getFile("meta.json"));
+        assertNotNull(manifest.getFile("consumer.json"));
+        assertNotNull(manifest.getFile("rules2/rules.js"));
+        assertEquals(Collections.singleton("system.json"), manifest.getFiles("consumer_types").keySet());
+
+        assertEquals(1, manifest.getProducts().size());
+        ProductDTO product = manifest.getProducts().iterator().next();
+        assertEquals("test_product", product.getId());
+        assertEquals(Long.valueOf(1), product.getMultiplier());
+
+        assertEquals(1, manifest.getEntitlements().size());
+        assertEquals("test_entitlement", manifest.getEntitlements().get(0).getId());
+
+        // Certificates are skipped, but their directories are still seen
+        assertTrue(manifest.hasDirectory("entitlement_certificates"));
+        assertNull(manifest.getFile("entitlement_certificates/1234.pem"));
+        assertTrue(manifest.getFiles("products").isEmpty());
+    }
+
+    @Test
+    public void testTamperedConsumerExportFailsSignatureCheck() throws Exception {
+        byte[] consumerExport = this.buildConsumerExport();
+        byte[] signature = this.sign("something else entirely".getBytes(StandardCharsets.UTF_8));
+        StreamedManifest manifest = this.read(this.buildManifest(consumerExport, signature));
+
+        assertNotNull(manifest.getSignature());
+        assertFalse(manifest.isSignatureVerified());
+        assertTrue(manifest.getProducts().isEmpty());
+        assertTrue(manifest.getEntitlements().isEmpty());
+    }
+
+    @Test
+    public void testReadContentRejectsChangedConsumerExport() throws Exception {
+        byte[] consumerExport = this.buildConsumerExport();
+        StreamedManifest manifest = this.read(this.buildManifest(consumerExport, this.sign(consumerExport)));
+        assertTrue(manifest.isSignatureVerified());
+
+        byte[] changed = this.zip(Collections.singletonMap("export/products/other.json",
+            "{\"id\":\"other\"}".getBytes(StandardCharsets.UTF_8)));
+
+        try {
+            manifest.readContent(new ByteArrayInputStream(this.buildManifest(changed, null)));
+            fail("Expected an IOException for a changed consumer export");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+
+        assertFalse(manifest.isContentRead());
+        assertTrue(manifest.getProducts().isEmpty());
+    }
+
+    @Test
+    public void testRejectsMultipleConsumerExports() throws Exception {
+        byte[] forged = this.zip(Collections.singletonMap("export/products/forged.json",
+            "{\"id\":\"forged\"}".getBytes(StandardCharsets.UTF_8)));
+        byte[] consumerExport = this.buildConsumerExport();
+
+        byte[] archive = TestSyncUtils.zipWithRepeatedEntries(Arrays.asList(
+            new SimpleEntry<>(StreamedManifest.CONSUMER_EXPORT, forged),
+            new SimpleEntry<>(StreamedManifest.CONSUMER_EXPORT, consumerExport),
+            new SimpleEntry<>(StreamedManifest.SIGNATURE, this.sign(consumerExport))));
+
+        try {
+            this.read(archive);
+            fail("Expected an IOException for a manifest with two consumer exports");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRejectsMultipleSignatures() throws Exception {
+        byte[] consumerExport = this.buildConsumerExport();
+
+        byte[] archive = TestSyncUtils.zipWithRepeatedEntries(Arrays.asList(
+            new SimpleEntry<>(StreamedManifest.CONSUMER_EXPORT, consumerExport),
+            new SimpleEntry<>(StreamedManifest.SIGNATURE, this.sign("forged".getBytes())),
+            new SimpleEntry<>(StreamedManifest.SIGNATURE, this.sign(consumerExport))));
+
+        try {
+            this.read(archive);
+            fail("Expected an IOException for a manifest with two signatures");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testReadContentRejectsMultipleConsumerExports() throws Exception {
+        byte[] consumerExport = this.buildConsumerExport();
+        StreamedManifest manifest = this.read(this.buildManifest(consumerExport, this.sign(consumerExport)));
+        assertTrue(manifest.isSignatureVerified());
+
+        byte[] forged = this.zip(Collections.singletonMap("export/products/forged.json",
+            "{\"id\":\"forged\"}".getBytes(StandardCharsets.UTF_8)));
+
+        byte[] archive = TestSyncUtils.zipWithRepeatedEntries(Arrays.asList(
+            new SimpleEntry<>(StreamedManifest.CONSUMER_EXPORT, consumerExport),
+            new SimpleEntry<>(StreamedManifest.CONSUMER_EXPORT, forged),
+            new SimpleEntry<>(StreamedManifest.SIGNATURE, this.sign(consumerExport))));
+
+        try {
+            manifest.readContent(new ByteArrayInputStream(archive));
+            fail("Expected an IOException for a manifest with two consumer exports");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+
+        assertFalse(manifest.isContentRead());
+        assertTrue(manifest.getProducts().isEmpty());
+        assertTrue(manifest.getEntitlements().isEmpty());
+    }
+
+    @Test
+    public void testMissingSignature() throws Exception {
+        StreamedManifest manifest = this.read(this.buildManifest(this.buildConsumerExport(), null));
+
+        assertTrue(manifest.hasConsumerExport());
+        assertNull(manifest.getSignature());
+        assertFalse(manifest.isSignatureVerified());
+    }
+
+    @Test
+    public void testCorruptConsumerExportIsRecordedRatherThanThrown() throws Exception {
+        byte[] consumerExport = "This is just a flat file".getBytes(StandardCharsets.UTF_8);
+        StreamedManifest manifest = this.read(this.buildManifest(consumerExport, this.sign(consumerExport)));
+
+        // The signature covers the raw bytes, so it can be checked before the content is rejected
+        assertTrue(manifest.isSignatureVerified());
+        assertFalse(manifest.hasConsumerExportEntries());
+        assertFalse(manifest.hasExportContents());
+    }
+
+    @Test
+    public void testNonZipArchiveAppearsEmpty() throws Exception {
+        StreamedManifest manifest = this.read("Just a flat file".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(manifest.hasArchiveEntries());
+        assertFalse(manifest.hasConsumerExport());
+        verifyZeroInteractions(this.pki);
+    }
+}
@@ -21,6 +21,17 @@ import org.mockito.Mockito;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 public class TestSyncUtils {
 
     private TestSyncUtils() {
@@ -33,4 +44,62 @@ public class TestSyncUtils {
             mockProductCurator);
         return new SyncUtils(config, productCachedModule).getObjectMapper();
     }
+
+    /**
+     * Builds a zip archive holding the given entries in order. Unlike a plain ZipOutputStream, the
+     * same entry name may be used more than once, as a forged manifest would.
+     *
+     * @param entries
+     *  the names and contents of the entries to write
+     *
+     * @return
+     *  the bytes of the zip archive
+     */
+    public static byte[] zipWithRepeatedEntries(List<Map.Entry<String, byte[]>> entries)
+        throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Set<String> names = new HashSet<>();
+        Map<String, String> aliases = new HashMap<>();
+
+        // ZipOutputStream refuses repeated names, so repeats are written under an alias of the same
+        // length which is then patched back to the real name in the headers
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries) {
+                String name = entry.getKey();
+
+                if (!names.add(name)) {
+                    name = "~" + name.substring(1);
+
+                    if (aliases.put(name, entry.getKey()) != null) {
+                        throw new IllegalArgumentException("Entry repeated more than twice: " +
+                            entry.getKey());
+                    }
+                }
+
+                out.putNextEntry(new ZipEntry(name));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+
+        byte[] archive = bytes.toByteArray();
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            byte[] from = alias.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] to = alias.getValue().getBytes(StandardCharsets.UTF_8);
+
+            for (int i = 0; i + from.length <= archive.length; ++i) {
+                int j = 0;
+                while (j < from.length && archive[i + j] == from[j]) {
+                    ++j;
+                }
+
+                if (j == from.length) {
+                    System.arraycopy(to, 0, archive, i, to.length);
+                }
+            }
+        }
+
+        return archive;
+    }
 }
@@ -14,6 +14,7 @@
  */
 package org.candlepin.test;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import org.candlepin.TestingInterceptor;
@@ -30,6 +31,7 @@ import org.candlepin.config.CandlepinCommonTestConfig;
 import org.candlepin.dto.ModelTranslator;
 import org.candlepin.guice.CandlepinRequestScope;
 import org.candlepin.guice.TestPrincipalProviderSetter;
+import org.candlepin.hibernate.BatchWriteStatistics;
 import org.candlepin.junit.LiquibaseExtension;
 import org.candlepin.model.Cdn;
 import org.candlepin.model.CdnCurator;
@@ -351,6 +353,56 @@ public class DatabaseTestFixture {
         }
     }
 
+    /**
+     * Runs the given task, collecting statistics of the JDBC work it performs through the sessions
+     * of the current thread.
+     *
+     * @param task
+     *  the task to run
+     *
+     * @return
+     *  the statistics collected while running the task
+     */
+    protected BatchWriteStatistics collectStatistics(Runnable task) {
+        BatchWriteStatistics statistics = BatchWriteStatistics.begin();
+        if (statistics == null) {
+            throw new IllegalStateException("Statistics are already being collected for this thread");
+        }
+
+        try {
+            task.run();
+        }
+        finally {
+            statistics.stop();
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Runs the given task, failing if it prepares more SQL statements than expected. Used to
+     * catch operations which issue a query per entity where a fixed number of queries is
+     * expected.
+     *
+     * @param max
+     *  the maximum number of statements the task is expected to prepare
+     *
+     * @param task
+     *  the task to run
+     *
+     * @return
+     *  the number of statements prepared by the task
+     */
+    protected int assertMaxStatements(int max, Runnable task) {
+        BatchWriteStatistics statistics = this.collectStatistics(task);
+
+        assertTrue(statistics.getPreparedStatements() <= max, String.format(
+            "Expected at most %d SQL statements, but %d were prepared: %s", max,
+            statistics.getPreparedStatements(), statistics));
+
+        return statistics.getPreparedStatements();
+    }
+
     // Entity creation methods
     protected ActivationKey createActivationKey(Owner owner) {
         ActivationKey key = new ActivationKey();